@@ -40,12 +40,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import javax.swing.FocusManager;
 import javax.swing.Icon;
@@ -99,6 +99,7 @@ import bibliothek.gui.dock.common.intern.CommonDockable;
 import bibliothek.gui.dock.common.intern.CommonMultipleDockableFactory;
 import bibliothek.gui.dock.common.intern.CommonMultipleDockableLayout;
 import bibliothek.gui.dock.common.intern.CommonSingleDockableFactory;
+import bibliothek.gui.dock.common.intern.DefaultCControlRegister;
 import bibliothek.gui.dock.common.intern.ControlVetoClosingListener;
 import bibliothek.gui.dock.common.intern.ControlVetoFocusListener;
 import bibliothek.gui.dock.common.intern.EfficientControlFactory;
@@ -153,7 +154,9 @@ import bibliothek.gui.dock.facile.mode.LocationModeManager;
 import bibliothek.gui.dock.facile.station.split.ConflictResolver;
 import bibliothek.gui.dock.facile.station.split.DefaultConflictResolver;
 import bibliothek.gui.dock.focus.DockableSelection;
+import bibliothek.gui.dock.frontend.FrontendChangeTracker;
 import bibliothek.gui.dock.frontend.FrontendEntry;
+import bibliothek.gui.dock.frontend.FrontendSnapshot;
 import bibliothek.gui.dock.frontend.MissingDockableStrategy;
 import bibliothek.gui.dock.layout.DockSituationIgnore;
 import bibliothek.gui.dock.layout.DockableProperty;
@@ -176,6 +179,11 @@ import bibliothek.gui.dock.station.support.PlaceholderStrategy;
 import bibliothek.gui.dock.support.mode.HistoryRewriter;
 import bibliothek.gui.dock.support.util.ApplicationResource;
 import bibliothek.gui.dock.support.util.ApplicationResourceManager;
+import bibliothek.gui.dock.support.util.ApplicationResourceSnapshot;
+import bibliothek.gui.dock.support.util.AsyncResourceWriter;
+import bibliothek.gui.dock.support.util.SnapshotApplicationResource;
+import bibliothek.gui.dock.support.util.StreamedApplicationResource;
+import bibliothek.gui.dock.support.util.TrackedApplicationResource;
 import bibliothek.gui.dock.themes.BasicTheme;
 import bibliothek.gui.dock.themes.ColorScheme;
 import bibliothek.gui.dock.themes.ThemeFactory;
@@ -200,8 +208,9 @@ import bibliothek.util.Filter;
 import bibliothek.util.Path;
 import bibliothek.util.Version;
 import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
 import bibliothek.util.xml.XException;
-import bibliothek.util.xml.XIO;
 
 /**
  * Manages the interaction between {@link SingleCDockable}, {@link MultipleCDockable}
@@ -319,6 +328,9 @@ public class CControl {
 
     /** connection to the real DockingFrames */
     private CDockFrontend frontend;
+    
+    /** tells whether the layout of {@link #frontend} changed since it was written the last time */
+    private FrontendChangeTracker frontendChanges;
 
     /** strategy what to do when reading layout information of a missing dockable */
     private MissingCDockableStrategy missingStrategy = MissingCDockableStrategy.PURGE;
@@ -343,6 +355,9 @@ public class CControl {
 
     /** manager used to store and read configurations */
     private ApplicationResourceManager resources = new ApplicationResourceManager();
+    
+    /** writes layouts into files in the background, created lazily */
+    private AsyncResourceWriter asyncWriter;
 
     /** a list of listeners which are to be informed when this control is no longer in use */
     private List<DestroyHook> hooks = new ArrayList<DestroyHook>();
@@ -904,26 +919,8 @@ public class CControl {
         try{
         	addMultipleDockableFactory( "", NullMultipleCDockableFactory.NULL, false );
         	
-            resources.put( "ccontrol.frontend", new ApplicationResource(){
-                public void write( DataOutputStream out ) throws IOException {
-                    Version.write( out, Version.VERSION_1_1_1 );
-                    frontend.write( out );
-                }
-                public void read( DataInputStream in ) throws IOException {
-                    Version version = Version.read( in );
-                    version.checkCurrent();
-                    if( Version.VERSION_1_1_1.compareTo( version ) > 0 && Version.VERSION_1_0_4.compareTo( version ) <= 0 ){
-                    	readWorkingAreas( in );
-                    }
-                    frontend.read( in );
-                }
-                public void writeXML( XElement element ) {
-                    frontend.writeXML( element.addElement( "frontend" ) );
-                }
-                public void readXML( XElement element ) {
-                    frontend.readXML( element.getElement( "frontend" ) );
-                }
-            });
+            frontendChanges = new FrontendChangeTracker( frontend );
+            resources.put( "ccontrol.frontend", new FrontendResource() );
 
             resources.put( "ccontrol.preferences", new ApplicationResource(){
                 public void read( DataInputStream in ) throws IOException {
@@ -1248,8 +1245,17 @@ public class CControl {
      */
     public void destroy(){
         frontend.kill();
+        if( frontendChanges != null ){
+        	frontendChanges.destroy();
+        }
         for( DestroyHook hook : hooks )
             hook.destroy();
+        
+        synchronized( this ){
+        	if( asyncWriter != null ){
+        		asyncWriter.shutdown();
+        	}
+        }
     }
     
     /**
@@ -1750,12 +1756,7 @@ public class CControl {
      * @return the element with that identifier or <code>null</code>
      */
     public SingleCDockable getSingleDockable( String id ){
-        for( SingleCDockable dockable : register.getSingleDockables() ){
-            if( dockable.getUniqueId().equals( id )){
-                return dockable;
-            }
-        }
-        return null;
+        return register.getSingleDockable( id );
     }
 
     /**
@@ -1765,10 +1766,9 @@ public class CControl {
      * otherwise
      */
     public boolean removeSingleDockable( String id ){
-        for( SingleCDockable dockable : register.getSingleDockables() ){
-            if( dockable.getUniqueId().equals( id )){
-                return removeDockable( dockable );
-            }
+        SingleCDockable dockable = register.getSingleDockable( id );
+        if( dockable != null ){
+            return removeDockable( dockable );
         }
         return false;
     }
@@ -1935,8 +1935,6 @@ public class CControl {
      * or is not registered (see {@link #addMultipleDockableFactory(String, MultipleCDockableFactory)}).
      */
     public <M extends MultipleCDockable> M addDockable( M dockable) {
-        Set<String> ids = new HashSet<String>();
-
         String factoryId;
         MultipleCDockableFactory<?, ?> factory = dockable.getFactory();
         if( factory == null ){
@@ -1949,15 +1947,9 @@ public class CControl {
         }        	
         
 
-        for( MultipleCDockable multi : register.getMultipleDockables() ){
-            if( factoryId.equals( access.getFactoryId( multi.getFactory() ))){
-                ids.add( accesses.get( multi ).getUniqueId() );
-            }
-        }
-
         int count = 0;
         String id = count + " " + factoryId;
-        while( ids.contains( register.toMultiId( id ) ) ){
+        while( findMultipleDockable( id ) != null ){
             count++;
             id = count + " " + factoryId;
         }
@@ -1993,14 +1985,11 @@ public class CControl {
         if( dockable.getControl() != null )
             throw new IllegalStateException( "dockable is already part of a control" );
 
-        uniqueId = register.toMultiId( uniqueId );
-
-        for( MultipleCDockable multi : register.getMultipleDockables() ){
-            String id = accesses.get( multi ).getUniqueId();
-            if( uniqueId.equals( id )){
-                throw new IllegalArgumentException( "The unique identifier is already in use: " + uniqueId );
-            }
+        if( findMultipleDockable( uniqueId ) != null ){
+            throw new IllegalArgumentException( "The unique identifier is already in use: " + register.toMultiId( uniqueId ) );
         }
+        
+        uniqueId = register.toMultiId( uniqueId );
 
         dockable.setControlAccess( access );
         accesses.get( dockable ).setUniqueId( uniqueId );
@@ -2067,6 +2056,21 @@ public class CControl {
      * was found
      */
     public MultipleCDockable getMultipleDockable( String id ){
+        return findMultipleDockable( id );
+    }
+    
+    /**
+     * Searches the {@link MultipleCDockable} with unique identifier <code>id</code>. The index of a
+     * {@link DefaultCControlRegister} is used if available, other registers are searched one
+     * dockable after the other.
+     * @param id the identifier to look out for, as returned by {@link #getUniqueId(MultipleCDockable)}
+     * @return the element using <code>id</code> or <code>null</code>
+     */
+    private MultipleCDockable findMultipleDockable( String id ){
+    	if( register instanceof DefaultCControlRegister ){
+    		return ((DefaultCControlRegister)register).getMultipleDockable( id );
+    	}
+    	
         id = register.toMultiId( id );
         for( MultipleCDockable dockable : register.getMultipleDockables() ){
             if( accesses.get( dockable ).getUniqueId().equals( id )){
@@ -2132,12 +2136,8 @@ public class CControl {
     private boolean shouldCreate( MultipleCDockableFactory<?, ?> factory, CommonMultipleDockableLayout layout ){
         String uniqueId = layout.getId();
 
-        String multiId = register.toMultiId( uniqueId );
-
-        for( MultipleCDockable multi : register.getMultipleDockables() ){
-            if( accesses.get( multi ).getUniqueId().equals( multiId )){
-                return false;
-            }
+        if( findMultipleDockable( uniqueId ) != null ){
+            return false;
         }
 
         String factoryId = access.getFactoryId( factory );
@@ -2594,6 +2594,64 @@ public class CControl {
         getResources().writeFile( file );
     }
 
+    /**
+     * Writes the current and all known layouts into <code>file</code> using a background thread. The
+     * current layout is converted into {@link bibliothek.gui.dock.layout.DockLayoutComposition}s by the calling thread, but the layouts
+     * are encoded and the file is written by another thread. Hence the {@link DockFactory}s must be able
+     * to write their layouts from any thread. Resources that do not support snapshots are converted into 
+     * bytes by the calling thread.<br>
+     * The old content of <code>file</code> remains intact until the new content is completely written.
+     * If <code>file</code> is written again before the background thread started writing, then only
+     * the newest layouts are written.<br>
+     * This method has to be called from the <code>EventDispatchThread</code>.
+     * @param file the file to override
+     * @return a {@link Future} that is done once <code>file</code> was written, {@link Future#get()} throws
+     * an exception if writing failed
+     * @throws IOException if the layouts could not be converted into bytes
+     * @see ApplicationResourceManager#createSnapshot()
+     */
+    public Future<File> writeAsync( File file ) throws IOException{
+    	return getAsyncWriter().write( file, getResources().createSnapshot() );
+    }
+    
+    /**
+     * Writes the current and all known layouts into <code>file</code> in xml format using a background
+     * thread. The current layout is converted into {@link bibliothek.gui.dock.layout.DockLayoutComposition}s by the calling thread, but
+     * the layouts are encoded and the file is written by another thread.<br>
+     * This method has to be called from the <code>EventDispatchThread</code>.
+     * @param file the file to override
+     * @return a {@link Future} that is done once <code>file</code> was written
+     * @see #writeAsync(File)
+     * @see ApplicationResourceManager#createSnapshotXML(XElement)
+     */
+    public Future<File> writeXMLAsync( File file ){
+    	return getAsyncWriter().write( file, getResources().createSnapshotXML( new XElement( "root" ) ) );
+    }
+    
+    /**
+     * Gets the {@link AsyncResourceWriter} that is used by {@link #writeAsync(File)} and
+     * {@link #writeXMLAsync(File)}.
+     * @return the writer, created lazily
+     */
+    protected synchronized AsyncResourceWriter getAsyncWriter(){
+    	if( asyncWriter == null ){
+    		asyncWriter = new AsyncResourceWriter();
+    	}
+    	return asyncWriter;
+    }
+
+    /**
+     * Writes the current and all known layouts into the journal <code>file</code>. Only the
+     * resources that changed since the journal was written or read the last time are appended
+     * to the journal. This is the same as calling <code>getResources().writeJournal( file )</code>.
+     * @param file the journal to write into
+     * @throws IOException if the file can't be written
+     * @see #readJournal(File)
+     */
+    public void writeJournal( File file ) throws IOException{
+    	getResources().writeJournal( file );
+    }
+
     /**
      * Writes the current and all known layouts into <code>out</code>.<br>
      * This is the same as calling <code>getResources().writeStream( out )</code>.
@@ -2619,11 +2677,15 @@ public class CControl {
      * @throws IOException if the file is not writable
      */
     public void writeXML( File file ) throws IOException{
-        XElement root = new XElement( "root" );
-        getResources().writeXML( root );
         BufferedOutputStream out = new BufferedOutputStream( new FileOutputStream( file ));
-        XIO.writeUTF( root, out );
-        out.close();
+        try{
+        	XElementWriter writer = XElementWriter.openUTF( out, new XElement( "root" ) );
+        	getResources().writeXML( writer );
+        	writer.close();
+        }
+        finally{
+        	out.close();
+        }
     }
     
     /**
@@ -2636,6 +2698,17 @@ public class CControl {
         getResources().readFile( file );
     }
 
+    /**
+     * Reads the current and other known layouts from the journal <code>file</code>.<br>
+     * This is the same as calling <code>getResources().readJournal( file )</code>.
+     * @param file the journal to read from
+     * @throws IOException if the file can't be read
+     * @see #writeJournal(File)
+     */
+    public void readJournal( File file ) throws IOException{
+    	getResources().readJournal( file );
+    }
+
     /**
      * Reads the current and other known layouts from <code>in</code>.<br>
      * This is the same as calling <code>getResources().readStream( in )</code>.
@@ -2658,15 +2731,52 @@ public class CControl {
     
     /**
      * Reads the current and other known layouts from <code>file</code>.
+     * This is the same as calling {@link #readXML(XElementReader)} with a reader opened on <code>file</code>.
      * @param file the file to open and to read
      * @throws IOException if the file cannot be read
      * @throws XException if the xml file has the wrong structure
      */
     public void readXML( File file ) throws IOException{
         BufferedInputStream in = new BufferedInputStream( new FileInputStream( file ));
-        XElement element = XIO.readUTF( in );
-        in.close();
-        readXML( element );
+        try{
+        	XElementReader reader = XElementReader.openUTF( in );
+        	readXML( reader );
+        	reader.close();
+        }
+        finally{
+        	in.close();
+        }
+    }
+    
+    /**
+     * Reads the current and other known layouts from <code>reader</code>. This is the same as calling 
+     * <code>getResources().readXML( reader )</code>, the resources are read one after the other. If a 
+     * subclass overrides {@link #readXML(XElement)}, then the whole tree is read and forwarded to 
+     * {@link #readXML(XElement)} instead.
+     * @param reader the reader to read from
+     * @throws IOException if <code>reader</code> throws an exception
+     * @throws XException if the xml file has the wrong structure
+     */
+    public void readXML( XElementReader reader ) throws IOException{
+    	if( isReadXMLOverridden() ){
+    		readXML( reader.readAll() );
+    	}
+    	else{
+    		getResources().readXML( reader );
+    	}
+    }
+    
+    /**
+     * Tells whether a subclass did override {@link #readXML(XElement)}.
+     * @return <code>true</code> if {@link #readXML(XElement)} is not implemented by {@link CControl}
+     */
+    private boolean isReadXMLOverridden(){
+    	try{
+    		return getClass().getMethod( "readXML", XElement.class ).getDeclaringClass() != CControl.class;
+    	}
+    	catch( NoSuchMethodException e ){
+    		return false;
+    	}
     }
 
     /**
@@ -2731,6 +2841,27 @@ public class CControl {
     public void load( String name, boolean includeWorkingAreas ){
         frontend.load( name, !includeWorkingAreas );
     }
+    
+    /**
+     * Resolves an earlier stored layout without applying it. A later call to {@link #load(String, boolean)} 
+     * with the same arguments will be faster.
+     * @param name the name of the layout
+     * @param includeWorkingAreas the value that will be used to {@link #load(String, boolean) load} the layout
+     * @see DockFrontend#prepare(String, boolean)
+     */
+    public void prepare( String name, boolean includeWorkingAreas ){
+    	frontend.prepare( name, !includeWorkingAreas );
+    }
+    
+    /**
+     * Resolves all the layouts that are currently known, the layouts are resolved one after the other
+     * by the <code>EventDispatchThread</code>. Clients can call this method at startup to make the first call 
+     * to {@link #load(String)} faster.
+     * @see DockFrontend#prepareLater(boolean)
+     */
+    public void prepareLater(){
+    	frontend.prepareLater( true );
+    }
 
     /**
      * Deletes a layout that has been stored earlier.
@@ -2759,6 +2890,70 @@ public class CControl {
     	return frontend.getCurrentSetting();
     }
 
+    /**
+     * The {@link ApplicationResource} storing the layouts of {@link #frontend}. Tells the {@link ApplicationResourceManager}
+     * whether the layout changed, writes and reads xml directly from a stream, and creates snapshots 
+     * that encode the layouts on another thread.
+     * @author Benjamin Sigg
+     */
+    private class FrontendResource implements StreamedApplicationResource, TrackedApplicationResource, SnapshotApplicationResource{
+        public void write( DataOutputStream out ) throws IOException {
+            Version.write( out, Version.VERSION_1_1_1 );
+            frontend.write( out );
+        }
+        public void read( DataInputStream in ) throws IOException {
+            Version version = Version.read( in );
+            version.checkCurrent();
+            if( Version.VERSION_1_1_1.compareTo( version ) > 0 && Version.VERSION_1_0_4.compareTo( version ) <= 0 ){
+            	readWorkingAreas( in );
+            }
+            frontend.read( in );
+        }
+        public void writeXML( XElement element ) {
+            frontend.writeXML( element.addElement( "frontend" ) );
+        }
+        public void readXML( XElement element ) {
+            frontend.readXML( element.getElement( "frontend" ) );
+        }
+        public void writeXML( XElementWriter writer ) throws IOException{
+        	writer.start( new XElement( "frontend" ) );
+        	frontend.writeXML( writer );
+        	writer.end();
+        }
+        public void readXML( XElementReader reader ) throws IOException{
+        	XElement xelement = reader.start();
+        	while( xelement != null ){
+        		if( xelement.getName().equals( "frontend" )){
+        			frontend.readXML( reader );
+        		}
+        		else{
+        			reader.readChildren( xelement );
+        		}
+        		xelement = reader.start();
+        	}
+        }
+        public boolean isChanged(){
+        	return frontendChanges.isChanged();
+        }
+        public void clearChanged(){
+        	frontendChanges.clearChanged();
+        }
+        public ApplicationResourceSnapshot createSnapshot(){
+        	final FrontendSnapshot snapshot = frontend.createSnapshot();
+        	return new ApplicationResourceSnapshot(){
+        		public void write( DataOutputStream out ) throws IOException{
+        			Version.write( out, Version.VERSION_1_1_1 );
+        			snapshot.write( out );
+        		}
+        		public void writeXML( XElementWriter writer ) throws IOException{
+        			writer.start( new XElement( "frontend" ) );
+        			snapshot.writeXML( writer );
+        			writer.end();
+        		}
+        	};
+        }
+    }
+    
     /**
      * A class giving access to the internal methods of the enclosing
      * {@link CControl}.
@@ -27,27 +27,38 @@ package bibliothek.gui.dock.common.intern;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import bibliothek.gui.DockController;
 import bibliothek.gui.dock.common.CContentArea;
 import bibliothek.gui.dock.common.CControl;
 import bibliothek.gui.dock.common.CControlRegister;
 import bibliothek.gui.dock.common.CStation;
 import bibliothek.gui.dock.common.CStationContainer;
 import bibliothek.gui.dock.common.CStationContainerListener;
+import bibliothek.gui.dock.common.DestroyHook;
 import bibliothek.gui.dock.common.MultipleCDockable;
 import bibliothek.gui.dock.common.MultipleCDockableFactory;
 import bibliothek.gui.dock.common.SingleCDockable;
 import bibliothek.gui.dock.common.SingleCDockableFactory;
+import bibliothek.gui.dock.common.event.CDockableStateListener;
 import bibliothek.gui.dock.common.mode.ExtendedMode;
+import bibliothek.gui.dock.event.DockRegisterAdapter;
 import bibliothek.gui.dock.frontend.FrontendEntry;
 
 /**
- * Standard implementation of {@link CControlRegister}.
+ * Standard implementation of {@link CControlRegister}. The register keeps indexes of the {@link CDockable}s
+ * by their unique identifier, by their factory and by their {@link ExtendedMode}, hence searching a 
+ * {@link CDockable} does not require to check all the registered elements. The index of the modes is
+ * only built when first needed, it is updated by the events of the {@link CDockable}s and rebuilt 
+ * after the {@link bibliothek.gui.dock.control.DockRegister} was stalled. The listeners required for
+ * the index are removed when the {@link CControl} is {@link CControl#destroy() destroyed}.
  * @author Benjamin Sigg
  */
 public class DefaultCControlRegister implements MutableCControlRegister {
@@ -82,6 +93,82 @@ public class DefaultCControlRegister implements MutableCControlRegister {
     private List<MultipleCDockable> multiDockables = 
         new ArrayList<MultipleCDockable>();
     
+    /** all {@link SingleCDockable}s accessible through their unique identifier */
+    private Map<String, SingleCDockable> singleIndex = new HashMap<String, SingleCDockable>();
+    
+    /** all {@link MultipleCDockable}s accessible through their unique identifier */
+    private Map<String, MultipleCDockable> multiIndex = new HashMap<String, MultipleCDockable>();
+    
+    /** all {@link MultipleCDockable}s grouped by their factory, in the order in which they were added */
+    private Map<MultipleCDockableFactory<?, ?>, Set<MultipleCDockable>> factoryIndex =
+    	new HashMap<MultipleCDockableFactory<?,?>, Set<MultipleCDockable>>();
+    
+    /** tells in which order the {@link CDockable}s were added */
+    private Map<CDockable, Long> sequence = new HashMap<CDockable, Long>();
+    
+    /** the sequence number of the next {@link CDockable} that is added */
+    private long nextSequence = 0;
+    
+    /** all visible {@link CDockable}s grouped by their mode, <code>null</code> if the index needs to be rebuilt */
+    private Map<ExtendedMode, Set<CDockable>> modeIndex;
+    
+    /** the keys of the {@link CDockable}s in {@link #modeIndex} */
+    private Map<CDockable, ExtendedMode> indexedModes = new HashMap<CDockable, ExtendedMode>();
+    
+    /** visible {@link CDockable}s which did not yet have a mode when they were last checked, they are checked again before each search */
+    private Set<CDockable> unknownModes = new HashSet<CDockable>();
+    
+    /** the controller to which {@link #stallListener} was added, <code>null</code> if not yet added */
+    private DockController stallController;
+    
+    /** whether {@link CControl#destroy()} was called */
+    private boolean destroyed = false;
+    
+    /** a listener updating {@link #modeIndex} */
+    private CDockableStateListener modeListener = new CDockableStateListener(){
+		public void visibilityChanged( CDockable dockable ){
+			updateMode( dockable );
+		}
+		
+		public void extendedModeChanged( CDockable dockable, ExtendedMode mode ){
+			updateMode( dockable );
+		}
+	};
+	
+	/** a listener invalidating {@link #modeIndex} if many elements may have changed their mode at once */
+	private DockRegisterAdapter stallListener = new DockRegisterAdapter(){
+		@Override
+		public void registerStalled( DockController controller ){
+			modeIndex = null;
+		}
+		@Override
+		public void registerUnstalled( DockController controller ){
+			modeIndex = null;
+		}
+	};
+	
+	/** removes the listeners of this register once {@link #control} is destroyed */
+	private DestroyHook destroyHook = new DestroyHook(){
+		public void destroy(){
+			DefaultCControlRegister.this.destroy();
+		}
+	};
+	
+	/** orders {@link CDockable}s by the time they were added, elements that are not registered are put at the end */
+	private Comparator<CDockable> sequenceComparator = new Comparator<CDockable>(){
+		public int compare( CDockable a, CDockable b ){
+			Long sa = sequence.get( a );
+			Long sb = sequence.get( b );
+			if( sa == null ){
+				return sb == null ? 0 : 1;
+			}
+			if( sb == null ){
+				return -1;
+			}
+			return sa.compareTo( sb );
+		}
+	};
+    
     /** the stations known  */
     private List<CStation<?>> stations = new ArrayList<CStation<?>>();
     
@@ -110,6 +197,28 @@ public class DefaultCControlRegister implements MutableCControlRegister {
     public DefaultCControlRegister( CControl control ){
         this.control = control;
         backupFactory = new CommonSingleDockableFactory( control );
+        control.addStateListener( modeListener );
+        control.addDestroyHook( destroyHook );
+    }
+    
+    /**
+     * Removes all the listeners this register added to its {@link CControl}. Called automatically
+     * when the {@link CControl} is {@link CControl#destroy() destroyed}. Afterwards {@link #listDockablesInMode(ExtendedMode)}
+     * no longer uses an index.
+     */
+    public void destroy(){
+    	if( destroyed ){
+    		return;
+    	}
+    	destroyed = true;
+    	modeIndex = null;
+    	indexedModes.clear();
+    	unknownModes.clear();
+    	control.removeStateListener( modeListener );
+    	if( stallController != null ){
+    		stallController.getRegister().removeDockRegisterListener( stallListener );
+    		stallController = null;
+    	}
     }
     
     public CControl getControl() {
@@ -200,13 +309,11 @@ public class DefaultCControlRegister implements MutableCControlRegister {
      * @return the list of dockables, never <code>null</code> but might be empty
      */
     public List<MultipleCDockable> listMultipleDockables( MultipleCDockableFactory<?, ?> factory ){
-        List<MultipleCDockable> result = new ArrayList<MultipleCDockable>();
-        for( MultipleCDockable dockable : multiDockables ){
-            if( dockable.getFactory() == factory ){
-                result.add( dockable );
-            }
+        Set<MultipleCDockable> dockables = factoryIndex.get( factory );
+        if( dockables == null ){
+        	return new ArrayList<MultipleCDockable>();
         }
-        return result;
+        return new ArrayList<MultipleCDockable>( dockables );
     }
     
     /**
@@ -215,15 +322,122 @@ public class DefaultCControlRegister implements MutableCControlRegister {
      * @return the list of <code>CDockable</code>s
      */
     public List<CDockable> listDockablesInMode( ExtendedMode mode ){
-        List<CDockable> list = new ArrayList<CDockable>();
-        for( CDockable check : dockables ){
-            if( check.isVisible() && check.getExtendedMode() == mode ){
+    	Map<ExtendedMode, Set<CDockable>> index = getModeIndex();
+    	List<CDockable> list = new ArrayList<CDockable>();
+    	
+    	if( index == null ){
+    		// the index cannot be trusted, the old search is used
+    		for( CDockable check : dockables ){
+    			if( check.isVisible() && check.getExtendedMode() == mode ){
+    				list.add( check );
+    			}
+    		}
+    		return list;
+    	}
+    	
+    	if( !unknownModes.isEmpty() ){
+    		for( CDockable check : unknownModes.toArray( new CDockable[ unknownModes.size() ] )){
+    			updateMode( check );
+    		}
+    	}
+    	
+    	Set<CDockable> candidates = index.get( mode );
+    	if( candidates == null ){
+    		return list;
+    	}
+    	
+        for( CDockable check : candidates ){
+            if( check.isVisible() && check.getExtendedMode() == mode && sequence.containsKey( check )){
                 list.add( check );
             }
         }
+        if( list.size() != candidates.size() ){
+        	// some event was missed, the index is rebuilt the next time it is used
+        	modeIndex = null;
+        }
+        Collections.sort( list, sequenceComparator );
         return list;
     }
     
+    /**
+     * Gets the index of visible {@link CDockable}s by their {@link ExtendedMode}, builds the index if necessary.
+     * The index is only used if it can be kept up to date: while the {@link bibliothek.gui.dock.control.DockRegister}
+     * is stalled many events are delayed, hence there is no index during that time. 
+     * @return the index or <code>null</code> if no index can be used right now
+     */
+    private Map<ExtendedMode, Set<CDockable>> getModeIndex(){
+    	if( destroyed ){
+    		return null;
+    	}
+    	
+    	DockController controller = control.intern().getController();
+    	if( stallController != controller ){
+    		// the controller does not yet exist when this register is created
+    		if( stallController != null ){
+    			stallController.getRegister().removeDockRegisterListener( stallListener );
+    		}
+    		stallController = controller;
+    		controller.getRegister().addDockRegisterListener( stallListener );
+    		modeIndex = null;
+    	}
+    	
+    	if( controller.getRegister().isStalled() ){
+    		modeIndex = null;
+    		return null;
+    	}
+    	
+    	if( modeIndex == null ){
+    		modeIndex = new HashMap<ExtendedMode, Set<CDockable>>();
+    		indexedModes.clear();
+    		unknownModes.clear();
+    		for( CDockable dockable : dockables ){
+    			updateMode( dockable );
+    		}
+    	}
+    	return modeIndex;
+    }
+    
+    /**
+     * Moves <code>dockable</code> to the set of its current mode in {@link #modeIndex}.
+     * @param dockable the element whose mode or visibility may have changed
+     */
+    private void updateMode( CDockable dockable ){
+    	if( modeIndex != null ){
+    		ExtendedMode mode = null;
+    		if( sequence.containsKey( dockable ) && dockable.isVisible() ){
+    			mode = dockable.getExtendedMode();
+    			if( mode == null ){
+    				unknownModes.add( dockable );
+    			}
+    			else{
+    				unknownModes.remove( dockable );
+    			}
+    		}
+    		else{
+    			unknownModes.remove( dockable );
+    		}
+    		
+    		ExtendedMode oldMode = mode == null ? indexedModes.remove( dockable ) : indexedModes.put( dockable, mode );
+    		if( oldMode != mode ){
+    			if( oldMode != null ){
+    				Set<CDockable> set = modeIndex.get( oldMode );
+    				set.remove( dockable );
+    				if( set.isEmpty() ){
+    					modeIndex.remove( oldMode );
+    				}
+    			}
+    			if( mode != null ){
+    				Set<CDockable> set = modeIndex.get( mode );
+    				if( set == null ){
+    					set = new HashSet<CDockable>();
+    					modeIndex.put( mode, set );
+    				}
+    				set.add( dockable );
+    			}
+    		}
+    	}
+    }
+    
     /**
      * Gets a list of all identifiers of {@link SingleCDockable} for which
      * this control has location information within the current {@link CControl#load(String) setting}.
@@ -267,20 +481,54 @@ public class DefaultCControlRegister implements MutableCControlRegister {
     public void addMultipleDockable( MultipleCDockable dockable ) {
         dockables.add( dockable );
         multiDockables.add( dockable );
+        
+        String id = control.getUniqueId( dockable );
+        if( id != null && !multiIndex.containsKey( id )){
+        	multiIndex.put( id, dockable );
+        }
+        Set<MultipleCDockable> siblings = factoryIndex.get( dockable.getFactory() );
+        if( siblings == null ){
+        	siblings = new LinkedHashSet<MultipleCDockable>();
+        	factoryIndex.put( dockable.getFactory(), siblings );
+        }
+        siblings.add( dockable );
+        added( dockable );
     }
 
     public void addSingleDockable( SingleCDockable dockable ) {
         dockables.add( dockable );
         singleDockables.add( dockable );
+        
+        if( !singleIndex.containsKey( dockable.getUniqueId() )){
+        	singleIndex.put( dockable.getUniqueId(), dockable );
+        }
+        added( dockable );
+    }
+    
+    /**
+     * Called after <code>dockable</code> was added to the list of {@link #dockables}.
+     * @param dockable the new element
+     */
+    private void added( CDockable dockable ){
+    	sequence.put( dockable, nextSequence++ );
+    	updateMode( dockable );
+    }
+    
+    /**
+     * Called after <code>dockable</code> was removed from the list of {@link #dockables}.
+     * @param dockable the removed element
+     */
+    private void removed( CDockable dockable ){
+    	sequence.remove( dockable );
+    	updateMode( dockable );
     }
     
     public SingleCDockable getSingleDockable( String id ){
-	    for( SingleCDockable dockable : singleDockables ){
-	    	if( dockable.getUniqueId().equals( id )){
-	    		return dockable;
-	    	}
-	    }
-	    return null;
+	    return singleIndex.get( id );
+    }
+    
+    public MultipleCDockable getMultipleDockable( String id ){
+    	return multiIndex.get( id );
     }
 
     public void addStation( CStation<?> station ) {
@@ -358,6 +606,22 @@ public class DefaultCControlRegister implements MutableCControlRegister {
     public boolean removeMultipleDockable( MultipleCDockable dockable ) {
         if( dockables.remove( dockable ) ){
             multiDockables.remove( dockable );
+            
+            String id = control.getUniqueId( dockable );
+            if( id != null && multiIndex.get( id ) == dockable ){
+            	multiIndex.remove( id );
+            }
+            else{
+            	multiIndex.values().remove( dockable );
+            }
+            Set<MultipleCDockable> siblings = factoryIndex.get( dockable.getFactory() );
+            if( siblings != null ){
+            	siblings.remove( dockable );
+            	if( siblings.isEmpty() ){
+            		factoryIndex.remove( dockable.getFactory() );
+            	}
+            }
+            removed( dockable );
             return true;
         }
         return false;
@@ -366,6 +630,17 @@ public class DefaultCControlRegister implements MutableCControlRegister {
     public boolean removeSingleDockable( SingleCDockable dockable ) {
         if( dockables.remove( dockable )){
             singleDockables.remove( dockable );
+            
+            if( singleIndex.get( dockable.getUniqueId() ) == dockable ){
+            	singleIndex.remove( dockable.getUniqueId() );
+            	for( SingleCDockable other : singleDockables ){
+            		if( other.getUniqueId().equals( dockable.getUniqueId() )){
+            			singleIndex.put( other.getUniqueId(), other );
+            			break;
+            		}
+            	}
+            }
+            removed( dockable );
             return true;
         }
         return false;
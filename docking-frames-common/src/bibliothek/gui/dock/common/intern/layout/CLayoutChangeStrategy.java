@@ -161,14 +161,15 @@ public class CLayoutChangeStrategy extends DefaultLayoutChangeStrategy {
 	 * @param frontend the caller of this method
 	 * @param setting the layout that is about to be applied
 	 * @param composition the composition to modify, may be <code>null</code>
-	 * @return the replacement composition or <code>null</code>
+	 * @return the replacement composition, <code>composition</code> itself if nothing was replaced, or <code>null</code>
 	 */
 	protected DockLayoutComposition replaceMultipleDockables( DockFrontendInternals frontend, CSettingAccess setting, DockLayoutComposition composition ){
 		if( composition == null ){
 			return null;
 		}
 		
-		DockLayoutInfo info = composition.getLayout();
+		DockLayoutInfo oldInfo = composition.getLayout();
+		DockLayoutInfo info = oldInfo;
 		if( info != null ){
 			DockLayout<?> layout = info.getDataLayout();
 			if( layout != null ){
@@ -184,9 +185,17 @@ public class CLayoutChangeStrategy extends DefaultLayoutChangeStrategy {
 	
 		List<DockLayoutComposition> oldChildren = composition.getChildren();
 		List<DockLayoutComposition> newChildren = new ArrayList<DockLayoutComposition>( oldChildren.size() );
+		boolean changed = info != oldInfo;
 		
 		for( DockLayoutComposition child : oldChildren ){
-			newChildren.add( replaceMultipleDockables( frontend, setting, child ) );
+			DockLayoutComposition newChild = replaceMultipleDockables( frontend, setting, child );
+			changed = changed || newChild != child;
+			newChildren.add( newChild );
+		}
+		
+		if( !changed ){
+			// keeps the prepared layout of the frontend valid
+			return composition;
 		}
 		
 		return new DockLayoutComposition( info, composition.getAdjacent(), newChildren, composition.isIgnoreChildren() );
@@ -291,7 +291,7 @@ public class CDockTheme<D extends DockTheme> implements DockTheme {
             }
         }
         finally{
-            colors.unlockUpdate();
+            colors.unlockUpdate( true );
         }
         
         FontManager fonts = controller.getFonts();
@@ -304,7 +304,7 @@ public class CDockTheme<D extends DockTheme> implements DockTheme {
             }
         }
         finally{
-            fonts.unlockUpdate();
+            fonts.unlockUpdate( true );
         }
         
         controllers.add( settings );
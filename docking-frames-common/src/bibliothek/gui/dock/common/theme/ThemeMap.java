@@ -38,8 +38,8 @@ import bibliothek.extension.gui.dock.theme.SmoothTheme;
 import bibliothek.gui.DockController;
 import bibliothek.gui.DockTheme;
 import bibliothek.gui.dock.common.CControl;
-import bibliothek.gui.dock.support.util.ApplicationResource;
 import bibliothek.gui.dock.support.util.ApplicationResourceManager;
+import bibliothek.gui.dock.support.util.TrackedApplicationResource;
 import bibliothek.gui.dock.themes.BasicTheme;
 import bibliothek.gui.dock.themes.ThemeFactory;
 import bibliothek.gui.dock.themes.ThemePropertyFactory;
@@ -78,6 +78,9 @@ public class ThemeMap {
     /** the currently selected factory, can be <code>null</code> */
     private Entry selected;
     
+    /** whether the selection changed since it was stored the last time */
+    private volatile boolean selectionChanged = true;
+    
     /**
      * Creates a new empty map.
      */
@@ -101,6 +104,7 @@ public class ThemeMap {
                 // ignore
             }
             public void selectionChanged( ThemeMap map, String oldKey, String newKey ) {
+                selectionChanged = true;
                 ThemeFactory factory = null;
                 if( newKey != null )
                     factory = getFactory( newKey );
@@ -122,7 +126,7 @@ public class ThemeMap {
         });
         
         try {
-            control.getResources().put( "dock.ui.ThemeMap", new ApplicationResource(){
+            control.getResources().put( "dock.ui.ThemeMap", new TrackedApplicationResource(){
                 public void read( DataInputStream in ) throws IOException {
                     Version.read( in ).checkCurrent();
                     if( in.readBoolean() ){
@@ -159,7 +163,15 @@ public class ThemeMap {
                     if( key != null ){
                         element.addElement( "key" ).setString( key );
                     }
-                }                
+                }
+                
+                public boolean isChanged(){
+                	return selectionChanged;
+                }
+                
+                public void clearChanged(){
+                	selectionChanged = false;
+                }
             });
         }
         catch( IOException e ) {
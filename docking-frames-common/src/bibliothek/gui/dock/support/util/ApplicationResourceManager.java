@@ -26,12 +26,23 @@
 package bibliothek.gui.dock.support.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.prefs.Preferences;
+import java.util.zip.CRC32;
 
+import bibliothek.gui.dock.layout.ByteBufferDataInputStream;
 import bibliothek.util.Version;
 import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
 
 /**
  * Manages a set of {@link ApplicationResource}s, can load and store the
@@ -41,17 +52,40 @@ import bibliothek.util.xml.XElement;
  * stream of bytes belongs to which resource. If data is loaded, the byte-streams
  * for missing resources will be stored in a buffer that is read as soon as
  * a missing resource is registered. Additional resources are ignored.<br>
- * Note that there is no order how the resources are stored in the file. 
+ * Note that there is no order how the resources are stored in the file.<br>
+ * The resources read from {@link ByteBufferDataInputStream}s, this allows a {@link bibliothek.gui.dock.layout.DockSituation}
+ * to decode the layouts lazily. 
  * @author Benjamin Sigg
  *
  */
 public class ApplicationResourceManager {
+    /** the string that marks a file as journal */
+    private static final String JOURNAL_HEADER = "journal";
+    
+    /** the tag of a record of a journal that contains the content of a resource */
+    private static final int JOURNAL_RECORD = 1;
+    
+    /** the tag of a record of a journal that marks a resource as removed */
+    private static final int JOURNAL_TOMBSTONE = 2;
+    
     /** the map of all resources known to this manager */
     private Map<String, ApplicationResource> resources = new HashMap<String, ApplicationResource>();
     
     /** buffer for streams which are not yet read */
     private Map<String, Object> buffer = new HashMap<String, Object>();
     
+    /** the journal file that was written or read the last time */
+    private File journalFile;
+    
+    /** the size of {@link #journalFile} right after it was compacted */
+    private long journalCompactedSize;
+    
+    /** a journal is compacted if it grows by this factor */
+    private double journalCompactionFactor = 2.0;
+    
+    /** checksums of the resources as they are currently stored in {@link #journalFile} */
+    private Map<String, byte[]> journalChecksums = new HashMap<String, byte[]>();
+    
     /**
      * Stores a resource that might be read or written at any time. If a stream
      * was already read by this manager, and if there was an entry in that stream
@@ -74,8 +108,7 @@ public class ApplicationResourceManager {
         Object buffered = buffer.get( name );
         if( buffered != null ){
             if( buffered instanceof byte[] ){
-                ByteArrayInputStream in = new ByteArrayInputStream( (byte[])buffered );
-                DataInputStream data = new DataInputStream( in );
+                DataInputStream data = new ByteBufferDataInputStream( (byte[])buffered );
                 resource.read( data );
                 data.close();
             }
@@ -86,11 +119,14 @@ public class ApplicationResourceManager {
     }
     
     /**
-     * Removes a resources that was earlier added to this manager.
+     * Removes a resources that was earlier added to this manager. Content that was read for
+     * <code>name</code> but not yet used is removed as well, hence <code>name</code> will not
+     * be written anymore.
      * @param name the name of the resource to remove
      */
     public void remove( String name ){
         resources.remove( name );
+        buffer.remove( name );
     }
     
     /**
@@ -150,8 +186,7 @@ public class ApplicationResourceManager {
             in.readFully( input );
             ApplicationResource resource = resources.get( key );
             if( resource != null ){
-                ByteArrayInputStream array = new ByteArrayInputStream( input );
-                DataInputStream data = new DataInputStream( array );
+                DataInputStream data = new ByteBufferDataInputStream( input );
                 resource.read( data );
                 data.close();
             }
@@ -187,14 +222,543 @@ public class ApplicationResourceManager {
      */
     public void readXML( XElement element ){
         for( XElement xresource : element.getElements( "resource" )){
-            String name = xresource.getString( "name" );
-            ApplicationResource resource = resources.get( name );
-            if( resource != null ){
-                resource.readXML( xresource );
+            readXMLResource( xresource );
+        }
+    }
+    
+    /**
+     * Writes the content of this manager in xml format. Each resource is converted into
+     * a {@link XElement} and written before the next resource is converted, hence the 
+     * xml tree of all resources never needs to be in memory at the same time. A {@link StreamedApplicationResource}
+     * writes directly into <code>writer</code>.
+     * @param writer the writer whose root element is the parent of the resources
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeXML( XElementWriter writer ) throws IOException{
+        for( Map.Entry<String, ApplicationResource> resource : resources.entrySet() ){
+            XElement xresource = new XElement( "resource" );
+            xresource.addString( "name", resource.getKey() );
+            if( resource.getValue() instanceof StreamedApplicationResource ){
+            	writer.start( xresource );
+            	((StreamedApplicationResource)resource.getValue()).writeXML( writer );
+            	writer.end();
+            }
+            else{
+	            resource.getValue().writeXML( xresource );
+	            writer.write( xresource );
             }
-            else
-                buffer.put( name, xresource );
         }
+        
+        for( Map.Entry<String, Object> unknownResource : buffer.entrySet() ){
+        	Object value = unknownResource.getValue();
+        	if( value instanceof XElement ){
+        		writer.write( (XElement)value );
+        	}
+        }
+    }
+    
+    /**
+     * Creates a snapshot of all resources that can be written by any thread, the snapshot writes the
+     * format of {@link #writeStream(DataOutputStream)}. This method has to be called by the thread that owns 
+     * the resources. A {@link SnapshotApplicationResource} is asked for its {@link ApplicationResourceSnapshot},
+     * all other resources are converted into bytes immediately.
+     * @return the snapshot
+     * @throws IOException if a resource cannot be converted into bytes
+     * @see AsyncResourceWriter
+     */
+    public AsyncResourceWriter.Snapshot createSnapshot() throws IOException{
+    	final Map<String, Object> contents = new LinkedHashMap<String, Object>();
+    	for( Map.Entry<String, ApplicationResource> resource : resources.entrySet() ){
+    		ApplicationResource value = resource.getValue();
+    		if( value instanceof SnapshotApplicationResource ){
+    			contents.put( resource.getKey(), ((SnapshotApplicationResource)value).createSnapshot() );
+    		}
+    		else{
+    			contents.put( resource.getKey(), write( value ) );
+    		}
+    	}
+    	
+    	final Map<String, byte[]> unknown = new LinkedHashMap<String, byte[]>();
+    	for( Map.Entry<String, Object> unknownResource : buffer.entrySet() ){
+    		if( unknownResource.getValue() instanceof byte[] ){
+    			unknown.put( unknownResource.getKey(), (byte[])unknownResource.getValue() );
+    		}
+    	}
+    	
+    	return new AsyncResourceWriter.Snapshot(){
+			public void write( OutputStream out ) throws IOException{
+				DataOutputStream data = new DataOutputStream( out );
+				Version.write( data, Version.VERSION_1_0_4 );
+				data.writeInt( contents.size() );
+				
+				for( Map.Entry<String, Object> content : contents.entrySet() ){
+					byte[] array;
+					if( content.getValue() instanceof byte[] ){
+						array = (byte[])content.getValue();
+					}
+					else{
+						ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+						DataOutputStream snapshotOut = new DataOutputStream( bytes );
+						((ApplicationResourceSnapshot)content.getValue()).write( snapshotOut );
+						snapshotOut.close();
+						array = bytes.toByteArray();
+					}
+					data.writeUTF( content.getKey() );
+					data.writeInt( array.length );
+					data.write( array );
+				}
+				
+				for( Map.Entry<String, byte[]> content : unknown.entrySet() ){
+					data.writeUTF( content.getKey() );
+					data.writeInt( content.getValue().length );
+					data.write( content.getValue() );
+				}
+				data.flush();
+			}
+		};
+    }
+    
+    /**
+     * Creates a snapshot of all resources that can be written by any thread, the snapshot writes a 
+     * xml file whose root element is <code>root</code> and whose content is the same as the content 
+     * written by {@link #writeXML(XElementWriter)}. This method has to be called by the thread that owns 
+     * the resources. A {@link SnapshotApplicationResource} is asked for its {@link ApplicationResourceSnapshot},
+     * all other resources are converted into {@link XElement}s immediately.
+     * @param root the name and the attributes of the root element, must not be modified anymore
+     * @return the snapshot, writing the xml file using the <code>UTF-8</code> encoding
+     * @see AsyncResourceWriter
+     */
+    public AsyncResourceWriter.Snapshot createSnapshotXML( final XElement root ){
+    	final Map<String, Object> contents = new LinkedHashMap<String, Object>();
+    	for( Map.Entry<String, ApplicationResource> resource : resources.entrySet() ){
+    		ApplicationResource value = resource.getValue();
+    		if( value instanceof SnapshotApplicationResource ){
+    			contents.put( resource.getKey(), ((SnapshotApplicationResource)value).createSnapshot() );
+    		}
+    		else{
+    			XElement xresource = new XElement( "resource" );
+                xresource.addString( "name", resource.getKey() );
+                value.writeXML( xresource );
+    			contents.put( resource.getKey(), xresource );
+    		}
+    	}
+    	
+    	final List<XElement> unknown = new ArrayList<XElement>();
+    	for( Map.Entry<String, Object> unknownResource : buffer.entrySet() ){
+    		if( unknownResource.getValue() instanceof XElement ){
+    			unknown.add( (XElement)unknownResource.getValue() );
+    		}
+    	}
+    	
+    	return new AsyncResourceWriter.Snapshot(){
+			public void write( OutputStream out ) throws IOException{
+				XElementWriter writer = XElementWriter.openUTF( out, root );
+				for( Map.Entry<String, Object> content : contents.entrySet() ){
+					if( content.getValue() instanceof XElement ){
+						writer.write( (XElement)content.getValue() );
+					}
+					else{
+						XElement xresource = new XElement( "resource" );
+						xresource.addString( "name", content.getKey() );
+						writer.start( xresource );
+						((ApplicationResourceSnapshot)content.getValue()).writeXML( writer );
+						writer.end();
+					}
+				}
+				for( XElement xresource : unknown ){
+					writer.write( xresource );
+				}
+				writer.close();
+			}
+		};
+    }
+    
+    /**
+     * Reads the contents of this manager from a xml file. The resources are read one after
+     * the other, only the xml tree of the current resource is kept in memory. A {@link StreamedApplicationResource}
+     * reads directly from <code>reader</code>.
+     * @param reader the reader whose root element is the parent of the resources
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public void readXML( XElementReader reader ) throws IOException{
+        XElement xresource = reader.start();
+        while( xresource != null ){
+        	if( xresource.getName().equals( "resource" )){
+        		ApplicationResource resource = resources.get( xresource.getString( "name" ) );
+        		if( resource instanceof StreamedApplicationResource ){
+        			((StreamedApplicationResource)resource).readXML( reader );
+        		}
+        		else{
+        			readXMLResource( reader.readChildren( xresource ) );
+        		}
+        	}
+        	else{
+        		reader.readChildren( xresource );
+        	}
+        	xresource = reader.start();
+        }
+    }
+    
+    /**
+     * Reads one resource that was written by {@link #writeXML(XElement)}.
+     * @param xresource the element describing the resource
+     */
+    private void readXMLResource( XElement xresource ){
+        String name = xresource.getString( "name" );
+        ApplicationResource resource = resources.get( name );
+        if( resource != null ){
+            resource.readXML( xresource );
+        }
+        else
+            buffer.put( name, xresource );
+    }
+    
+    /**
+     * Sets how much a journal file may grow until it gets compacted. A journal is compacted
+     * if its size reaches <code>factor</code> times the size it had after the last compaction. 
+     * @param factor the factor, at least <code>1.0</code>
+     * @see #writeJournal(File)
+     */
+    public void setJournalCompactionFactor( double factor ){
+    	if( factor < 1.0 ){
+    		throw new IllegalArgumentException( "factor must be at least 1.0: " + factor );
+    	}
+		this.journalCompactionFactor = factor;
+	}
+    
+    /**
+     * Tells how much a journal file may grow until it gets compacted.
+     * @return the factor
+     * @see #setJournalCompactionFactor(double)
+     */
+    public double getJournalCompactionFactor(){
+		return journalCompactionFactor;
+	}
+    
+    /**
+     * Writes the contents of this manager into the journal <code>file</code>. A journal is a 
+     * list of records, each record contains the content of one resource and a checksum. Records 
+     * that are written later replace earlier records with the same key. If <code>file</code> was written or
+     * read by this manager before, then only the resources that changed since then are appended 
+     * as new records. Resources implementing {@link TrackedApplicationResource} are asked whether
+     * they changed, all other resources are written into a buffer and compared with the content
+     * that is already stored. Resources that were {@link #remove(String) removed} since then are
+     * marked by a record without content, a tombstone, which hides all the earlier records of the resource.<br>
+     * The journal is compacted, i.e. rewritten with one record per resource, the first time it is 
+     * written by this manager, after an append operation failed, and whenever it has grown by the 
+     * {@link #setJournalCompactionFactor(double) compaction factor}. A compacted journal is first written 
+     * into a temporary file in the same directory, synchronized with the disk, and then renamed, hence 
+     * the old journal remains intact if the operation is interrupted.
+     * @param file the file to write into
+     * @throws IOException if the operation can't be completed
+     * @see #readJournal(File)
+     */
+    public void writeJournal( File file ) throws IOException{
+    	file = file.getAbsoluteFile();
+    	boolean compact = !file.equals( journalFile ) || !file.exists() ||
+    		file.length() >= journalCompactedSize * journalCompactionFactor;
+    	
+    	if( compact ){
+    		compactJournal( file );
+    	}
+    	else{
+    		appendJournal( file );
+    	}
+    }
+    
+    /**
+     * Rewrites the journal <code>file</code> with one record for each resource.
+     * @param file the file to write into
+     * @throws IOException if the operation can't be completed
+     */
+    private void compactJournal( File file ) throws IOException{
+    	Map<String, byte[]> checksums = new HashMap<String, byte[]>();
+    	List<TrackedApplicationResource> written = new ArrayList<TrackedApplicationResource>();
+    	
+    	File temp = File.createTempFile( file.getName() + ".compact", ".tmp", file.getParentFile() );
+    	try{
+    		FileOutputStream fileOut = new FileOutputStream( temp );
+    		try{
+	    		DataOutputStream out = new DataOutputStream( new BufferedOutputStream( fileOut ));
+				Version.write( out, Version.VERSION_1_1_2a );
+				out.writeUTF( JOURNAL_HEADER );
+				
+				for( Map.Entry<String, ApplicationResource> resource : resources.entrySet() ){
+					byte[] content = write( resource.getValue() );
+					writeJournalRecord( resource.getKey(), content, out );
+					checksums.put( resource.getKey(), checksum( content ));
+					if( resource.getValue() instanceof TrackedApplicationResource ){
+						written.add( (TrackedApplicationResource)resource.getValue() );
+					}
+				}
+				
+				for( Map.Entry<String, Object> unknownResource : buffer.entrySet() ){
+					Object value = unknownResource.getValue();
+					// the buffer may still contain the old content of a resource that was added later
+					if( value instanceof byte[] && !resources.containsKey( unknownResource.getKey() )){
+						writeJournalRecord( unknownResource.getKey(), (byte[])value, out );
+						checksums.put( unknownResource.getKey(), checksum( (byte[])value ));
+					}
+				}
+				
+				out.flush();
+				fileOut.getFD().sync();
+    		}
+    		finally{
+    			fileOut.close();
+    		}
+    		
+    		FileReplacement.replace( temp, file );
+    	}
+    	finally{
+    		if( temp.exists() ){
+    			temp.delete();
+    		}
+    	}
+    	
+    	for( TrackedApplicationResource resource : written ){
+    		resource.clearChanged();
+    	}
+    	journalChecksums = checksums;
+    	journalFile = file;
+    	journalCompactedSize = file.length();
+    }
+    
+    /**
+     * Appends a record to the journal <code>file</code> for each resource that changed, and a tombstone
+     * for each resource that is stored in the journal but no longer known to this manager. If the operation
+     * fails, then the next call to {@link #writeJournal(File)} compacts the journal.
+     * @param file the file to write into
+     * @throws IOException if the operation can't be completed
+     */
+    private void appendJournal( File file ) throws IOException{
+    	Map<String, byte[]> checksums = new HashMap<String, byte[]>();
+    	List<TrackedApplicationResource> written = new ArrayList<TrackedApplicationResource>();
+    	List<String> removed = new ArrayList<String>();
+    	
+    	boolean success = false;
+    	DataOutputStream out = null;
+    	try{
+    		for( Map.Entry<String, ApplicationResource> resource : resources.entrySet() ){
+    			ApplicationResource value = resource.getValue();
+    			if( value instanceof TrackedApplicationResource && journalChecksums.containsKey( resource.getKey() )){
+    				if( !((TrackedApplicationResource)value).isChanged() ){
+    					continue;
+    				}
+    			}
+    			
+    			byte[] content = write( value );
+    			byte[] checksum = checksum( content );
+    			if( !Arrays.equals( checksum, journalChecksums.get( resource.getKey() ))){
+    				if( out == null ){
+    					out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file, true )));
+    				}
+    				writeJournalRecord( resource.getKey(), content, out );
+    				checksums.put( resource.getKey(), checksum );
+    			}
+    			if( value instanceof TrackedApplicationResource ){
+    				written.add( (TrackedApplicationResource)value );
+    			}
+    		}
+    		for( String key : journalChecksums.keySet() ){
+    			if( !resources.containsKey( key ) && !(buffer.get( key ) instanceof byte[]) ){
+    				if( out == null ){
+    					out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file, true )));
+    				}
+    				writeJournalTombstone( key, out );
+    				removed.add( key );
+    			}
+    		}
+    		if( out != null ){
+    			out.close();
+    			out = null;
+    		}
+    		success = true;
+    	}
+    	finally{
+    		if( out != null ){
+    			out.close();
+    		}
+    		if( !success ){
+    			// the journal may end with an incomplete record, new records must not be appended after it
+    			journalFile = null;
+    		}
+    	}
+    	
+    	for( TrackedApplicationResource resource : written ){
+    		resource.clearChanged();
+    	}
+    	journalChecksums.putAll( checksums );
+    	journalChecksums.keySet().removeAll( removed );
+    }
+    
+    /**
+     * Reads a journal that was written by {@link #writeJournal(File)}. All records are read,
+     * and for each resource the last record is applied, unless the last record is a tombstone. Reading stops at the first record that is 
+     * incomplete or whose checksum does not match its content, which is the result of an interrupted 
+     * write operation. The next call to {@link #writeJournal(File)} then compacts the journal.
+     * @param file the file to read
+     * @throws IOException if the operation can't be completed
+     */
+    public void readJournal( File file ) throws IOException{
+    	file = file.getAbsoluteFile();
+    	Map<String, byte[]> records = new LinkedHashMap<String, byte[]>();
+    	boolean damaged = false;
+    	
+    	byte[] data = new byte[ (int)file.length() ];
+    	DataInputStream fileIn = new DataInputStream( new FileInputStream( file ));
+    	try{
+    		fileIn.readFully( data );
+    	}
+    	finally{
+    		fileIn.close();
+    	}
+    	
+    	ByteBufferDataInputStream in = new ByteBufferDataInputStream( data );
+    	ByteBuffer bytes = in.getBuffer();
+    	
+    	Version version = Version.read( in );
+    	version.checkCurrent();
+    	if( !JOURNAL_HEADER.equals( in.readUTF() )){
+    		throw new IOException( "not a journal: " + file );
+    	}
+    	
+    	while( bytes.hasRemaining() ){
+    		try{
+    			int tag = in.read();
+    			if( tag == JOURNAL_TOMBSTONE ){
+    				String key = in.readUTF();
+    				if( in.readInt() != recordChecksum( key, null )){
+    					damaged = true;
+    					break;
+    				}
+    				records.remove( key );
+    				continue;
+    			}
+    			if( tag != JOURNAL_RECORD ){
+    				damaged = true;
+    				break;
+    			}
+    			String key = in.readUTF();
+    			int length = in.readInt();
+    			if( length < 0 || length > bytes.remaining() - 4 ){
+    				damaged = true;
+    				break;
+    			}
+    			byte[] content = new byte[ length ];
+    			in.readFully( content );
+    			if( in.readInt() != recordChecksum( key, content )){
+    				damaged = true;
+    				break;
+    			}
+    			records.put( key, content );
+    		}
+    		catch( EOFException e ){
+    			// incomplete record
+    			damaged = true;
+    			break;
+    		}
+    		catch( UTFDataFormatException e ){
+    			// damaged key
+    			damaged = true;
+    			break;
+    		}
+    	}
+        
+        journalChecksums.clear();
+        for( Map.Entry<String, byte[]> record : records.entrySet() ){
+        	ApplicationResource resource = resources.get( record.getKey() );
+        	if( resource != null ){
+                DataInputStream content = new ByteBufferDataInputStream( record.getValue() );
+                resource.read( content );
+                content.close();
+                if( resource instanceof TrackedApplicationResource ){
+                	((TrackedApplicationResource)resource).clearChanged();
+                }
+            }
+            else{
+                buffer.put( record.getKey(), record.getValue() );
+            }
+        	journalChecksums.put( record.getKey(), checksum( record.getValue() ));
+        }
+        
+        journalFile = damaged ? null : file;
+        journalCompactedSize = file.length();
+    }
+    
+    /**
+     * Writes one record of a journal.
+     * @param key the name of the resource
+     * @param content the content of the resource
+     * @param out the stream to write into
+     * @throws IOException if <code>out</code> throws an exception
+     */
+    private void writeJournalRecord( String key, byte[] content, DataOutputStream out ) throws IOException{
+    	out.write( JOURNAL_RECORD );
+    	out.writeUTF( key );
+    	out.writeInt( content.length );
+    	out.write( content );
+    	out.writeInt( recordChecksum( key, content ) );
+    }
+    
+    /**
+     * Writes a tombstone into a journal, the tombstone marks the resource <code>key</code> as removed.
+     * @param key the name of the removed resource
+     * @param out the stream to write into
+     * @throws IOException if <code>out</code> throws an exception
+     */
+    private void writeJournalTombstone( String key, DataOutputStream out ) throws IOException{
+    	out.write( JOURNAL_TOMBSTONE );
+    	out.writeUTF( key );
+    	out.writeInt( recordChecksum( key, null ) );
+    }
+    
+    /**
+     * Calculates the checksum that is stored together with a record of a journal.
+     * @param key the name of the resource
+     * @param content the content of the resource, <code>null</code> for a tombstone
+     * @return the checksum
+     * @throws IOException if <code>key</code> cannot be encoded
+     */
+    private int recordChecksum( String key, byte[] content ) throws IOException{
+    	CRC32 crc = new CRC32();
+    	crc.update( key.getBytes( "UTF-8" ));
+    	if( content == null ){
+    		crc.update( JOURNAL_TOMBSTONE );
+    	}
+    	else{
+    		crc.update( content );
+    	}
+    	return (int)crc.getValue();
+    }
+    
+    /**
+     * Writes the content of <code>resource</code> into an array.
+     * @param resource the resource to write
+     * @return the content of <code>resource</code>
+     * @throws IOException if <code>resource</code> throws an exception
+     */
+    private byte[] write( ApplicationResource resource ) throws IOException{
+    	ByteArrayOutputStream array = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream( array );
+        resource.write( data );
+        data.close();
+        return array.toByteArray();
+    }
+    
+    /**
+     * Calculates a checksum of <code>content</code>, used to find out whether a resource changed.
+     * @param content the content of some resource
+     * @return the checksum
+     */
+    private byte[] checksum( byte[] content ){
+    	try{
+    		return MessageDigest.getInstance( "MD5" ).digest( content );
+    	}
+    	catch( NoSuchAlgorithmException e ){
+    		// every platform supports MD5, but if not the content itself serves as checksum
+    		return content.clone();
+    	}
     }
     
     /**
@@ -0,0 +1,53 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import bibliothek.util.xml.XElementWriter;
+
+/**
+ * A copy of the content of a {@link SnapshotApplicationResource}. The snapshot is created on the thread
+ * that owns the resource, usually the <code>EventDispatchThread</code>, but it can be written by any thread.
+ * @author Benjamin Sigg
+ */
+public interface ApplicationResourceSnapshot {
+	/**
+	 * Writes the content of this snapshot in the format of {@link ApplicationResource#write(DataOutputStream)}.
+	 * @param out the stream to write into
+	 * @throws IOException if <code>out</code> throws an exception
+	 */
+	public void write( DataOutputStream out ) throws IOException;
+	
+	/**
+	 * Writes the content of this snapshot in the format of {@link ApplicationResource#writeXML(bibliothek.util.xml.XElement)}.
+	 * @param writer the writer to write into, the current element of <code>writer</code> is the element
+	 * that represents the resource
+	 * @throws IOException if <code>writer</code> throws an exception
+	 */
+	public void writeXML( XElementWriter writer ) throws IOException;
+}
@@ -0,0 +1,305 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes snapshots of {@link ApplicationResource}s into files using a background thread. The
+ * snapshot itself has to be created on the thread that owns the resources, usually the 
+ * <code>EventDispatchThread</code>, but writing it to the disk happens in the background.<br>
+ * If a file is written again before an earlier write operation of the same file even started,
+ * then the earlier snapshot is discarded and only the newest snapshot is written. Both calls
+ * return the same {@link Future}.<br>
+ * The write operations of one file never overlap and are executed in the order in which they were
+ * requested, even if the {@link ExecutorService} uses many threads. Hence the file always ends up with
+ * the newest snapshot. Different files may be written concurrently.<br>
+ * Files are first written into a temporary file, synchronized with the disk, and then renamed.
+ * Hence a crash during a write operation does not destroy the old file.<br>
+ * The background thread only exists while there are write operations to execute, and it does not
+ * prevent the JVM from writing the last files before exiting normally. An application that calls
+ * {@link System#exit(int)} should first call {@link #shutdown()} and {@link #awaitTermination(long, TimeUnit)}, 
+ * otherwise the pending write operations may be lost.
+ * @author Benjamin Sigg
+ */
+public class AsyncResourceWriter {
+	/**
+	 * A snapshot of some data that can be written at any time, by any thread.
+	 * @author Benjamin Sigg
+	 */
+	public static interface Snapshot{
+		/**
+		 * Writes the content of this snapshot into <code>out</code>.
+		 * @param out the stream to write into
+		 * @throws IOException if <code>out</code> throws an exception
+		 */
+		public void write( OutputStream out ) throws IOException;
+	}
+	
+	/** the executor running the write operations, created lazily */
+	private ExecutorService executor;
+	
+	/** the queues of all the files that are currently written or waiting to be written */
+	private Map<File, FileQueue> queues = new HashMap<File, FileQueue>();
+	
+	/**
+	 * Creates a new writer using its own background thread.
+	 */
+	public AsyncResourceWriter(){
+		// nothing
+	}
+	
+	/**
+	 * Creates a new writer using <code>executor</code> to run the write operations. The executor may
+	 * use several threads, the write operations of one file are still executed one after the other.
+	 * @param executor the executor, not <code>null</code>
+	 */
+	public AsyncResourceWriter( ExecutorService executor ){
+		if( executor == null ){
+			throw new IllegalArgumentException( "executor must not be null" );
+		}
+		this.executor = executor;
+	}
+	
+	/**
+	 * Writes <code>snapshot</code> into <code>file</code> in the background.
+	 * @param file the file to write into
+	 * @param snapshot the data to write, must not be modified anymore by the caller
+	 * @return a {@link Future} that is done once <code>file</code> contains <code>snapshot</code> or a newer
+	 * snapshot, or once writing failed
+	 * @throws RejectedExecutionException if this writer was {@link #shutdown() shut down}
+	 */
+	public synchronized Future<File> write( File file, Snapshot snapshot ){
+		if( file == null ){
+			throw new IllegalArgumentException( "file must not be null" );
+		}
+		if( snapshot == null ){
+			throw new IllegalArgumentException( "snapshot must not be null" );
+		}
+		
+		file = file.getAbsoluteFile();
+		FileQueue queue = queues.get( file );
+		if( queue == null ){
+			queue = new FileQueue( file );
+			queues.put( file, queue );
+		}
+		
+		if( queue.waiting != null ){
+			queue.waiting.snapshot = snapshot;
+			return queue.waiting.future;
+		}
+		
+		WriteTask task = new WriteTask( file, snapshot );
+		queue.waiting = task;
+		if( !queue.active ){
+			queue.active = true;
+			try{
+				getExecutor().execute( queue );
+			}
+			catch( RejectedExecutionException e ){
+				queues.remove( file );
+				throw e;
+			}
+		}
+		return task.future;
+	}
+	
+	/**
+	 * Writes <code>content</code> into <code>file</code> in the background.
+	 * @param file the file to write into
+	 * @param content the data to write, must not be modified anymore by the caller
+	 * @return a {@link Future} that is done once <code>file</code> contains <code>content</code> or a newer
+	 * snapshot, or once writing failed
+	 * @see #write(File, Snapshot)
+	 */
+	public Future<File> write( File file, final byte[] content ){
+		return write( file, new Snapshot(){
+			public void write( OutputStream out ) throws IOException{
+				out.write( content );
+			}
+		});
+	}
+	
+	/**
+	 * Lets the pending write operations finish, but does not accept any new operations. This 
+	 * method does not wait until the operations are finished.
+	 * @see #awaitTermination(long, TimeUnit)
+	 */
+	public synchronized void shutdown(){
+		if( executor != null ){
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Waits until all the pending write operations are finished after {@link #shutdown()} was called. An
+	 * application should call this method before calling {@link System#exit(int)}.
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of <code>timeout</code>
+	 * @return <code>true</code> if all operations are finished, <code>false</code> if the timeout elapsed
+	 * @throws InterruptedException if the calling thread was interrupted while waiting
+	 */
+	public boolean awaitTermination( long timeout, TimeUnit unit ) throws InterruptedException{
+		ExecutorService executor;
+		synchronized( this ){
+			executor = this.executor;
+		}
+		if( executor == null ){
+			return true;
+		}
+		return executor.awaitTermination( timeout, unit );
+	}
+	
+	private synchronized ExecutorService getExecutor(){
+		if( executor == null ){
+			ThreadPoolExecutor pool = new ThreadPoolExecutor( 1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory(){
+				public Thread newThread( Runnable r ){
+					// not a daemon, a normal exit of the JVM waits for the pending write operations
+					return new Thread( r, "AsyncResourceWriter" );
+				}
+			});
+			// the thread ends when it is idle, hence it never keeps the JVM alive
+			pool.allowCoreThreadTimeOut( true );
+			executor = pool;
+		}
+		return executor;
+	}
+	
+	/**
+	 * Takes the task that waits in <code>queue</code>. Afterwards new calls to {@link #write(File, Snapshot)} 
+	 * create a new task, which is executed after the task that is returned by this method. If there is no task
+	 * waiting, then <code>queue</code> is removed.
+	 * @param queue the queue whose next task is required
+	 * @return the next task or <code>null</code> if the queue is finished
+	 */
+	private synchronized WriteTask next( FileQueue queue ){
+		WriteTask task = queue.waiting;
+		queue.waiting = null;
+		if( task == null ){
+			queue.active = false;
+			queues.remove( queue.file );
+		}
+		return task;
+	}
+	
+	/**
+	 * Writes <code>snapshot</code> into a temporary file, then replaces <code>file</code> by the temporary file.
+	 * @param file the destination
+	 * @param snapshot the data to write
+	 * @throws IOException if the file cannot be written
+	 */
+	protected void writeFile( File file, Snapshot snapshot ) throws IOException{
+		File directory = file.getParentFile();
+		File temp = File.createTempFile( file.getName() + ".save", ".tmp", directory );
+		try{
+			FileOutputStream fileOut = new FileOutputStream( temp );
+			try{
+				OutputStream out = new BufferedOutputStream( fileOut );
+				snapshot.write( out );
+				out.flush();
+				fileOut.getFD().sync();
+			}
+			finally{
+				fileOut.close();
+			}
+			
+			FileReplacement.replace( temp, file );
+		}
+		finally{
+			if( temp.exists() ){
+				temp.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Executes all the {@link WriteTask}s of one file, one after the other.
+	 * @author Benjamin Sigg
+	 */
+	private class FileQueue implements Runnable{
+		/** the file that is written */
+		private final File file;
+		/** the task that did not yet start, guarded by the enclosing writer */
+		private WriteTask waiting;
+		/** whether this queue was handed over to the executor, guarded by the enclosing writer */
+		private boolean active;
+		
+		public FileQueue( File file ){
+			this.file = file;
+		}
+		
+		public void run(){
+			WriteTask task = next( this );
+			while( task != null ){
+				task.future.run();
+				task = next( this );
+			}
+		}
+	}
+	
+	/**
+	 * A task writing the newest snapshot of one file.
+	 * @author Benjamin Sigg
+	 */
+	private class WriteTask implements Callable<File>{
+		/** the file to write */
+		private final File file;
+		/** the newest snapshot, guarded by the enclosing writer until the task starts */
+		private Snapshot snapshot;
+		/** the future that executes this task */
+		private final FutureTask<File> future;
+		
+		public WriteTask( File file, Snapshot snapshot ){
+			this.file = file;
+			this.snapshot = snapshot;
+			future = new FutureTask<File>( this );
+		}
+		
+		public File call() throws Exception{
+			Snapshot snapshot;
+			synchronized( AsyncResourceWriter.this ){
+				snapshot = this.snapshot;
+			}
+			writeFile( file, snapshot );
+			return file;
+		}
+	}
+}
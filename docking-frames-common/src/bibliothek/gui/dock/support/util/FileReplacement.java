@@ -0,0 +1,103 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Replaces a file by another file, used to write files without ever destroying their old content.
+ * If available, the atomic move of <code>java.nio.file.Files</code> is used. On older platforms the old
+ * file is first renamed to a backup, and the backup is only deleted once the new file is in place.
+ * @author Benjamin Sigg
+ */
+final class FileReplacement {
+	private FileReplacement(){
+		// nothing
+	}
+	
+	/**
+	 * Replaces <code>destination</code> by <code>source</code>. Both files should be in the same directory.
+	 * @param source the file with the new content, will be renamed
+	 * @param destination the file to replace, does not need to exist
+	 * @throws IOException if <code>destination</code> could not be replaced, in this case
+	 * <code>destination</code> still has its old content
+	 */
+	public static void replace( File source, File destination ) throws IOException{
+		if( moveAtomic( source, destination )){
+			return;
+		}
+		if( source.renameTo( destination )){
+			return;
+		}
+		
+		// some platforms do not replace existing files
+		File backup = new File( destination.getPath() + ".old" );
+		if( backup.exists() && !backup.delete() ){
+			throw new IOException( "cannot delete '" + backup + "'" );
+		}
+		if( !destination.renameTo( backup )){
+			throw new IOException( "cannot replace '" + destination + "' by '" + source + "'" );
+		}
+		if( !source.renameTo( destination )){
+			backup.renameTo( destination );
+			throw new IOException( "cannot replace '" + destination + "' by '" + source + "'" );
+		}
+		backup.delete();
+	}
+	
+	/**
+	 * Tries to call <code>Files.move( source, destination, ATOMIC_MOVE, REPLACE_EXISTING )</code>. The method is
+	 * called by reflection because it is only available since Java 1.7.
+	 * @param source the file to move
+	 * @param destination the file to replace
+	 * @return <code>true</code> if the file was moved, <code>false</code> if the method is not available or
+	 * if the file system does not support the operation
+	 */
+	private static boolean moveAtomic( File source, File destination ){
+		try{
+			Class<?> files = Class.forName( "java.nio.file.Files" );
+			Class<?> path = Class.forName( "java.nio.file.Path" );
+			Class<?> copyOption = Class.forName( "java.nio.file.CopyOption" );
+			Class<?> standardCopyOption = Class.forName( "java.nio.file.StandardCopyOption" );
+			
+			Object options = Array.newInstance( copyOption, 2 );
+			Array.set( options, 0, standardCopyOption.getField( "ATOMIC_MOVE" ).get( null ) );
+			Array.set( options, 1, standardCopyOption.getField( "REPLACE_EXISTING" ).get( null ) );
+			
+			Method toPath = File.class.getMethod( "toPath" );
+			Method move = files.getMethod( "move", path, path, options.getClass() );
+			move.invoke( null, toPath.invoke( source ), toPath.invoke( destination ), options );
+			return true;
+		}
+		catch( Exception e ){
+			// not available on this platform, or the file system does not support atomic moves
+			return false;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+/**
+ * An {@link ApplicationResource} that can copy its content into an {@link ApplicationResourceSnapshot}. Creating
+ * the snapshot is fast, the expensive encoding of the content happens when the snapshot is written. The
+ * {@link ApplicationResourceManager} uses snapshots when {@link ApplicationResourceManager#createSnapshot() preparing}
+ * a write operation that is executed by another thread.
+ * @author Benjamin Sigg
+ */
+public interface SnapshotApplicationResource extends ApplicationResource {
+	/**
+	 * Creates a copy of the current content of this resource. This method is called by the thread that
+	 * owns the resource.
+	 * @return the new snapshot, must not change when this resource changes
+	 */
+	public ApplicationResourceSnapshot createSnapshot();
+}
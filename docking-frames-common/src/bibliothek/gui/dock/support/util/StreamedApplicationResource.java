@@ -0,0 +1,60 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+import java.io.IOException;
+
+import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
+
+/**
+ * An {@link ApplicationResource} that can write and read its xml representation directly from
+ * an {@link XElementWriter} or {@link XElementReader}, without building the whole tree of
+ * {@link XElement}s. The {@link ApplicationResourceManager} uses these methods when
+ * {@link ApplicationResourceManager#writeXML(XElementWriter) writing} or 
+ * {@link ApplicationResourceManager#readXML(XElementReader) reading} a xml file. The xml produced
+ * by the streaming methods must be the same as the xml produced by {@link #writeXML(XElement)}.
+ * @author Benjamin Sigg
+ */
+public interface StreamedApplicationResource extends ApplicationResource {
+	/**
+	 * Writes the contents of this resource in xml format.
+	 * @param writer the writer to write into, the current element of <code>writer</code>
+	 * is the element that represents this resource
+	 * @throws IOException if <code>writer</code> throws an exception
+	 */
+	public void writeXML( XElementWriter writer ) throws IOException;
+	
+	/**
+	 * Reads the contents of this resource in xml format.
+	 * @param reader the reader to read from, the current element of <code>reader</code> 
+	 * is the element that represents this resource. This resource has to read all the
+	 * remaining children of the current element.
+	 * @throws IOException if <code>reader</code> throws an exception
+	 */
+	public void readXML( XElementReader reader ) throws IOException;
+}
@@ -0,0 +1,48 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.support.util;
+
+/**
+ * An {@link ApplicationResource} that knows whether its content changed since it was
+ * written the last time. The {@link ApplicationResourceManager} uses this information
+ * when {@link ApplicationResourceManager#writeJournal(java.io.File) writing a journal}, unchanged
+ * resources are not written at all.
+ * @author Benjamin Sigg
+ */
+public interface TrackedApplicationResource extends ApplicationResource {
+	/**
+	 * Tells whether the content of this resource changed since {@link #clearChanged()} was
+	 * called the last time.
+	 * @return <code>true</code> if this resource needs to be written again
+	 */
+	public boolean isChanged();
+	
+	/**
+	 * Called by the {@link ApplicationResourceManager} after the content of this resource
+	 * has been written.
+	 */
+	public void clearChanged();
+}
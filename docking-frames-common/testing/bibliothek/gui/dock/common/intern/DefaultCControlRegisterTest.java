@@ -0,0 +1,242 @@
+package bibliothek.gui.dock.common.intern;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.dock.common.CControl;
+import bibliothek.gui.dock.common.CGrid;
+import bibliothek.gui.dock.common.CGridArea;
+import bibliothek.gui.dock.common.DefaultMultipleCDockable;
+import bibliothek.gui.dock.common.DefaultSingleCDockable;
+import bibliothek.gui.dock.common.EmptyMultipleCDockableFactory;
+import bibliothek.gui.dock.common.MultipleCDockable;
+import bibliothek.gui.dock.common.event.CDockableStateListener;
+import bibliothek.gui.dock.common.mode.ExtendedMode;
+import bibliothek.gui.dock.control.DockRegister;
+import bibliothek.gui.dock.event.DockRegisterListener;
+import bibliothek.gui.dock.util.NullWindowProvider;
+
+public class DefaultCControlRegisterTest {
+	private static final ExtendedMode[] MODES = { ExtendedMode.NORMALIZED, ExtendedMode.MINIMIZED, ExtendedMode.MAXIMIZED, ExtendedMode.EXTERNALIZED };
+
+	private CControl control;
+	private CGridArea area;
+	private DefaultCControlRegister register;
+	private DefaultSingleCDockable a, b, c;
+
+	@Before
+	public void setUp(){
+		// a content area would require a screen, hence only a grid area is used
+		control = new CControl();
+		area = control.createGridArea( "area" );
+		register = (DefaultCControlRegister)control.getRegister();
+
+		a = new DefaultSingleCDockable( "a" );
+		b = new DefaultSingleCDockable( "b" );
+		c = new DefaultSingleCDockable( "c" );
+		CGrid grid = new CGrid( control );
+		grid.add( 0, 0, 1, 1, a );
+		grid.add( 1, 0, 1, 1, b );
+		grid.add( 2, 0, 1, 1, c );
+		area.deploy( grid );
+	}
+
+	@Test
+	public void modeChanges(){
+		assertEquals( Arrays.asList( a, b, c ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+		assertModes();
+
+		b.setExtendedMode( ExtendedMode.MAXIMIZED );
+		assertEquals( Arrays.asList( b ), register.listDockablesInMode( ExtendedMode.MAXIMIZED ) );
+		assertModes();
+
+		b.setExtendedMode( ExtendedMode.NORMALIZED );
+		a.setExtendedMode( ExtendedMode.MAXIMIZED );
+		assertEquals( Arrays.asList( a ), register.listDockablesInMode( ExtendedMode.MAXIMIZED ) );
+		assertModes();
+
+		a.setExtendedMode( ExtendedMode.NORMALIZED );
+		assertEquals( Arrays.asList( a, b, c ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+		assertModes();
+	}
+
+	@Test
+	public void visibilityChanges(){
+		assertModes();
+
+		b.setVisible( false );
+		assertEquals( Arrays.asList( a, c ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+		assertModes();
+
+		c.setExtendedMode( ExtendedMode.MAXIMIZED );
+		c.setVisible( false );
+		assertTrue( register.listDockablesInMode( ExtendedMode.MAXIMIZED ).isEmpty() );
+		assertModes();
+
+		b.setVisible( true );
+		c.setVisible( true );
+		assertModes();
+	}
+
+	@Test
+	public void removal(){
+		b.setExtendedMode( ExtendedMode.MAXIMIZED );
+		assertModes();
+
+		control.removeDockable( b );
+		assertTrue( register.listDockablesInMode( ExtendedMode.MAXIMIZED ).isEmpty() );
+		assertModes();
+
+		control.removeDockable( a );
+		assertEquals( Arrays.asList( c ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+		assertModes();
+
+		control.addDockable( a );
+		a.setLocation( area.getStationLocation() );
+		a.setVisible( true );
+		assertEquals( Arrays.asList( c, a ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+		assertModes();
+	}
+
+	@Test
+	public void stalledRegister(){
+		assertModes();
+
+		DockRegister dockRegister = control.getController().getRegister();
+		dockRegister.setStalled( true );
+		try{
+			b.setExtendedMode( ExtendedMode.MAXIMIZED );
+			c.setVisible( false );
+			assertEquals( Arrays.asList( b ), register.listDockablesInMode( ExtendedMode.MAXIMIZED ) );
+			assertModes();
+		}
+		finally{
+			dockRegister.setStalled( false );
+		}
+		assertEquals( Arrays.asList( b ), register.listDockablesInMode( ExtendedMode.MAXIMIZED ) );
+		assertModes();
+	}
+
+	@Test
+	public void unregisteredDockablesInIndex() throws Exception{
+		assertModes();
+
+		// simulate a missed event: the removed element is still in the index
+		((Map<?, ?>)field( "sequence" )).remove( b );
+
+		assertEquals( Arrays.asList( a, c ), register.listDockablesInMode( ExtendedMode.NORMALIZED ) );
+	}
+
+	@Test
+	public void destroyRemovesListeners() throws Exception{
+		assertModes();
+
+		Object modeListener = field( "modeListener" );
+		Object stallListener = field( "stallListener" );
+		assertTrue( stateListeners().contains( modeListener ) );
+		assertTrue( registerListeners().contains( stallListener ) );
+
+		control.destroy();
+
+		assertFalse( stateListeners().contains( modeListener ) );
+		assertFalse( registerListeners().contains( stallListener ) );
+
+		b.setVisible( false );
+		assertModes();
+	}
+
+	@Test
+	public void foreignRegister(){
+		CControl foreign = new CControl( new NullWindowProvider(), new EfficientControlFactory(){
+			@Override
+			public MutableCControlRegister createRegister( CControl owner ){
+				final DefaultCControlRegister delegate = new DefaultCControlRegister( owner );
+				return (MutableCControlRegister)Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[]{ MutableCControlRegister.class }, new InvocationHandler(){
+					public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable{
+						try{
+							return method.invoke( delegate, args );
+						}
+						catch( InvocationTargetException e ){
+							throw e.getCause();
+						}
+					}
+				});
+			}
+		});
+		assertFalse( foreign.getRegister() instanceof DefaultCControlRegister );
+
+		EmptyMultipleCDockableFactory<MultipleCDockable> factory = new EmptyMultipleCDockableFactory<MultipleCDockable>(){
+			@Override
+			public MultipleCDockable createDockable(){
+				return new DefaultMultipleCDockable( this );
+			}
+		};
+		foreign.addMultipleDockableFactory( "factory", factory );
+
+		MultipleCDockable first = foreign.addDockable( factory.createDockable() );
+		MultipleCDockable second = foreign.addDockable( factory.createDockable() );
+		MultipleCDockable named = foreign.addDockable( "named", factory.createDockable() );
+
+		assertFalse( foreign.getUniqueId( first ).equals( foreign.getUniqueId( second ) ));
+		assertSame( first, foreign.getMultipleDockable( foreign.getUniqueId( first ) ) );
+		assertSame( second, foreign.getMultipleDockable( foreign.getUniqueId( second ) ) );
+		assertSame( named, foreign.getMultipleDockable( "named" ) );
+		assertNull( foreign.getMultipleDockable( "unknown" ) );
+
+		try{
+			foreign.addDockable( "named", factory.createDockable() );
+			fail( "duplicate id was accepted" );
+		}
+		catch( IllegalArgumentException e ){
+			// expected
+		}
+		foreign.destroy();
+	}
+
+	private void assertModes(){
+		for( ExtendedMode mode : MODES ){
+			assertEquals( scan( mode ), register.listDockablesInMode( mode ) );
+		}
+	}
+
+	private List<CDockable> scan( ExtendedMode mode ){
+		List<CDockable> result = new ArrayList<CDockable>();
+		for( int i = 0, n = control.getCDockableCount(); i < n; i++ ){
+			CDockable dockable = control.getCDockable( i );
+			if( dockable.isVisible() && dockable.getExtendedMode() == mode ){
+				result.add( dockable );
+			}
+		}
+		return result;
+	}
+
+	private Object field( String name ) throws Exception{
+		Field field = DefaultCControlRegister.class.getDeclaredField( name );
+		field.setAccessible( true );
+		return field.get( register );
+	}
+
+	private List<CDockableStateListener> stateListeners() throws Exception{
+		Field field = CControl.class.getDeclaredField( "listenerCollection" );
+		field.setAccessible( true );
+		return Arrays.asList( ((CListenerCollection)field.get( control )).getCDockableStateListeners() );
+	}
+
+	private List<DockRegisterListener> registerListeners() throws Exception{
+		Method method = DockRegister.class.getDeclaredMethod( "listDockRegisterListeners" );
+		method.setAccessible( true );
+		return Arrays.asList( (DockRegisterListener[])method.invoke( control.getController().getRegister() ) );
+	}
+}
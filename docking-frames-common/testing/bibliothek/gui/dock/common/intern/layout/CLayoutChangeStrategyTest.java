@@ -0,0 +1,207 @@
+package bibliothek.gui.dock.common.intern.layout;
+
+import static junit.framework.Assert.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.dock.SplitDockStation;
+import bibliothek.gui.dock.common.CControl;
+import bibliothek.gui.dock.common.CGrid;
+import bibliothek.gui.dock.common.CGridArea;
+import bibliothek.gui.dock.common.DefaultMultipleCDockable;
+import bibliothek.gui.dock.common.DefaultSingleCDockable;
+import bibliothek.gui.dock.common.EmptyMultipleCDockableFactory;
+import bibliothek.gui.dock.common.MultipleCDockable;
+import bibliothek.gui.dock.common.SingleCDockable;
+import bibliothek.gui.dock.common.intern.CDockable;
+import bibliothek.gui.dock.common.mode.ExtendedMode;
+import bibliothek.gui.dock.frontend.DockFrontendInternals;
+import bibliothek.gui.dock.frontend.PreparedLayout;
+import bibliothek.gui.dock.frontend.Setting;
+import bibliothek.gui.dock.layout.DockLayoutComposition;
+import bibliothek.gui.dock.layout.DockSituation;
+import bibliothek.gui.dock.layout.DockableProperty;
+import bibliothek.util.xml.XException;
+
+/**
+ * Tests how the {@link CLayoutChangeStrategy} uses the prepared layouts of the frontend.
+ */
+public class CLayoutChangeStrategyTest {
+	private CControl control;
+	private CountingStrategy strategy;
+
+	@Before
+	public void setUp(){
+		// a content area would require a screen, hence only a grid area is used
+		control = new CControl();
+		strategy = new CountingStrategy( control );
+		setup( control, strategy );
+	}
+
+	private void setup( CControl control, CLayoutChangeStrategy strategy ){
+		control.intern().setLayoutChangeStrategy( strategy );
+		CGridArea area = control.createGridArea( "area" );
+
+		EmptyMultipleCDockableFactory<MultipleCDockable> factory = new EmptyMultipleCDockableFactory<MultipleCDockable>(){
+			@Override
+			public MultipleCDockable createDockable(){
+				return new DefaultMultipleCDockable( this );
+			}
+		};
+		control.addMultipleDockableFactory( "factory", factory );
+
+		DefaultSingleCDockable a = new DefaultSingleCDockable( "a" );
+		DefaultSingleCDockable b = new DefaultSingleCDockable( "b" );
+		MultipleCDockable m = control.addDockable( "m", factory.createDockable() );
+		MultipleCDockable n = control.addDockable( "n", factory.createDockable() );
+
+		CGrid grid = new CGrid( control );
+		grid.add( 0, 0, 1, 1, a );
+		grid.add( 1, 0, 1, 1, b );
+		grid.add( 0, 1, 1, 1, m );
+		grid.add( 1, 1, 1, 1, n );
+		area.deploy( grid );
+		control.save( "one" );
+
+		// "n" is removed when it is closed, and created again when "one" is loaded
+		a.setVisible( false );
+		n.setVisible( false );
+		control.save( "two" );
+	}
+
+	@Test
+	public void preparedLayoutIsReused(){
+		control.prepare( "one", false );
+		int resolved = strategy.resolved;
+		assertTrue( resolved > 0 );
+		assertEquals( 0, strategy.reused );
+
+		// the roots contain no multiple dockable that could be replaced, hence the prepared layouts are applied
+		int estimated = strategy.estimated;
+		control.load( "one" );
+		assertEquals( resolved, strategy.resolved );
+		assertEquals( resolved, strategy.reused );
+		assertEquals( estimated, strategy.estimated );
+
+		control.load( "two" );
+		int reused = strategy.reused;
+		control.load( "one" );
+		assertTrue( strategy.reused > reused );
+	}
+
+	@Test
+	public void preparedLayoutMatchesRawLayout(){
+		CControl raw = new CControl();
+		setup( raw, new RawStrategy( raw ) );
+
+		control.prepare( "one", false );
+		control.prepare( "two", false );
+
+		for( String name : new String[]{ "one", "two", "one", "one", "two" } ){
+			control.load( name );
+			raw.load( name );
+			assertEquals( name, dump( raw ), dump( control ) );
+		}
+		assertTrue( strategy.reused > 0 );
+		raw.destroy();
+	}
+
+	/**
+	 * Describes the locations of the dockables of <code>control</code>. The ids of the nodes of the grid
+	 * are unique, they are replaced by the order in which they are first used.
+	 */
+	private String dump( CControl control ){
+		StringBuilder builder = new StringBuilder();
+		builder.append( ((SplitDockStation)control.getStation( "area" ).getStation()).getRoot() ).append( "\n" );
+		// the order in which the multiple dockables are created again is not defined
+		Map<String, CDockable> dockables = new TreeMap<String, CDockable>();
+		for( int i = 0; i < control.getCDockableCount(); i++ ){
+			CDockable dockable = control.getCDockable( i );
+			if( dockable instanceof MultipleCDockable ){
+				dockables.put( control.getUniqueId( (MultipleCDockable)dockable ), dockable );
+			}
+			else{
+				dockables.put( ((SingleCDockable)dockable).getUniqueId(), dockable );
+			}
+		}
+		for( Map.Entry<String, CDockable> entry : dockables.entrySet() ){
+			CDockable dockable = entry.getValue();
+			builder.append( entry.getKey() ).append( ": visible=" ).append( dockable.isVisible() );
+			ExtendedMode mode = dockable.getExtendedMode();
+			builder.append( ", mode=" ).append( mode == null ? null : mode.getModeIdentifier() );
+			builder.append( ", location=" ).append( dockable.getBaseLocation() ).append( "\n" );
+		}
+
+		Matcher matcher = Pattern.compile( "-?\\d{6,}" ).matcher( builder );
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		StringBuffer result = new StringBuffer();
+		while( matcher.find() ){
+			Integer id = ids.get( matcher.group() );
+			if( id == null ){
+				id = ids.size();
+				ids.put( matcher.group(), id );
+			}
+			matcher.appendReplacement( result, "#" + id );
+		}
+		matcher.appendTail( result );
+		return result.toString();
+	}
+
+	/**
+	 * Counts how often a layout is resolved, how often a cached layout is reused, and how often the locations
+	 * of missing elements are estimated.
+	 */
+	private static class CountingStrategy extends CLayoutChangeStrategy{
+		private Map<PreparedLayout, Boolean> known = new IdentityHashMap<PreparedLayout, Boolean>();
+		private int resolved;
+		private int reused;
+		private int estimated;
+
+		public CountingStrategy( CControl control ){
+			super( control );
+		}
+
+		@Override
+		protected PreparedLayout prepareLayout( DockFrontendInternals frontend, DockSituation situation, Setting setting, String root, boolean entry ) throws IOException, XException{
+			PreparedLayout layout = super.prepareLayout( frontend, situation, setting, root, entry );
+			if( layout != null ){
+				if( known.put( layout, Boolean.TRUE ) == null ){
+					resolved++;
+				}
+				else{
+					reused++;
+				}
+			}
+			return layout;
+		}
+
+		@Override
+		protected Map<String, DockableProperty> listEstimateLocations( DockSituation situation, DockLayoutComposition layout ){
+			estimated++;
+			return super.listEstimateLocations( situation, layout );
+		}
+	}
+
+	/**
+	 * Never uses the cache, the layouts are resolved exactly as they were before there was a cache.
+	 */
+	private static class RawStrategy extends CLayoutChangeStrategy{
+		public RawStrategy( CControl control ){
+			super( control );
+		}
+
+		@Override
+		protected PreparedLayout prepareLayout( DockFrontendInternals frontend, DockSituation situation, Setting setting, String root, boolean entry ){
+			return null;
+		}
+	}
+}
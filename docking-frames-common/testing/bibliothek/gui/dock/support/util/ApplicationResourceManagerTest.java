@@ -0,0 +1,369 @@
+package bibliothek.gui.dock.support.util;
+
+import static junit.framework.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.util.xml.XElement;
+
+public class ApplicationResourceManagerTest {
+	private File file;
+
+	@Before
+	public void setUp() throws IOException{
+		file = File.createTempFile( "journal", ".test" );
+		file.delete();
+		file.deleteOnExit();
+	}
+
+	@Test
+	public void appendAndCompact() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value a = new Value( "a" );
+		Value b = new Value( "b" );
+		Plain c = new Plain( "c" );
+		manager.put( "a", a );
+		manager.put( "b", b );
+		manager.put( "c", c );
+
+		// the first write compacts
+		manager.writeJournal( file );
+		byte[] compacted = content();
+		assertEquals( "a b c", read( "a", "b", "c" ) );
+
+		// nothing changed, nothing is appended
+		manager.writeJournal( file );
+		assertTrue( Arrays.equals( compacted, content() ));
+
+		// changes are appended after the old content
+		a.set( "a2" );
+		c.value = "c2";
+		manager.writeJournal( file );
+		byte[] appended = content();
+		assertTrue( appended.length > compacted.length );
+		assertTrue( Arrays.equals( compacted, Arrays.copyOf( appended, compacted.length ) ));
+		assertEquals( "a2 b c2", read( "a", "b", "c" ) );
+
+		// untracked resources are only appended if their content changed
+		manager.writeJournal( file );
+		assertTrue( Arrays.equals( appended, content() ));
+
+		// a new manager has to compact
+		ApplicationResourceManager other = new ApplicationResourceManager();
+		other.put( "a", new Value( "x" ) );
+		other.writeJournal( file );
+		assertEquals( "x", read( "a" ) );
+		assertTrue( content().length < compacted.length );
+	}
+
+	@Test
+	public void growthFactor() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		manager.setJournalCompactionFactor( 3.0 );
+		Value a = new Value( "0" );
+		manager.put( "a", a );
+		manager.put( "b", new Value( "some content that does not change" ) );
+
+		manager.writeJournal( file );
+		long compacted = file.length();
+
+		int appends = 0;
+		int compactions = 0;
+		long length = compacted;
+
+		for( int i = 1; i <= 30; i++ ){
+			boolean expectCompaction = length >= compacted * 3.0;
+			a.set( String.valueOf( i ) );
+			manager.writeJournal( file );
+
+			if( expectCompaction ){
+				compactions++;
+				assertTrue( file.length() < length );
+				compacted = file.length();
+			}
+			else{
+				appends++;
+				assertTrue( file.length() > length );
+			}
+			length = file.length();
+			assertEquals( i + " some content that does not change", read( "a", "b" ) );
+		}
+		assertTrue( appends > 0 );
+		assertTrue( compactions > 0 );
+	}
+
+	@Test
+	public void truncatedTail() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value a = new Value( "first" );
+		Value b = new Value( "b" );
+		manager.put( "a", a );
+		manager.put( "b", b );
+		manager.writeJournal( file );
+		long before = file.length();
+
+		a.set( "second" );
+		manager.writeJournal( file );
+		long after = file.length();
+
+		for( long length = after - 1; length > before; length-- ){
+			truncate( length );
+			assertEquals( "first b", read( "a", "b" ) );
+		}
+	}
+
+	@Test
+	public void damagedTail() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value a = new Value( "first" );
+		manager.put( "a", a );
+		manager.writeJournal( file );
+		long before = file.length();
+
+		a.set( "second" );
+		manager.writeJournal( file );
+		byte[] content = content();
+
+		for( int i = (int)before; i < content.length; i++ ){
+			byte[] damaged = content.clone();
+			damaged[i] ^= 0x10;
+			write( damaged );
+			assertEquals( "first", read( "a" ) );
+		}
+	}
+
+	@Test
+	public void recoveryCompacts() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value a = new Value( "first" );
+		manager.put( "a", a );
+		manager.writeJournal( file );
+		a.set( "second" );
+		manager.writeJournal( file );
+		truncate( file.length() - 2 );
+
+		ApplicationResourceManager reader = new ApplicationResourceManager();
+		Value readA = new Value( null );
+		reader.put( "a", readA );
+		reader.readJournal( file );
+		assertEquals( "first", readA.value );
+
+		// nothing may be appended after the damaged record
+		readA.set( "third" );
+		reader.writeJournal( file );
+		assertEquals( "third", read( "a" ) );
+
+		readA.set( "fourth" );
+		reader.writeJournal( file );
+		assertEquals( "fourth", read( "a" ) );
+	}
+
+	@Test
+	public void removedResources() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value a = new Value( "a" );
+		manager.put( "a", a );
+		manager.put( "b", new Value( "b" ) );
+		manager.put( "c", new Plain( "c" ) );
+		manager.writeJournal( file );
+		long compacted = file.length();
+
+		manager.remove( "b" );
+		manager.remove( "c" );
+		manager.writeJournal( file );
+		assertTrue( file.length() > compacted );
+
+		ApplicationResourceManager reader = new ApplicationResourceManager();
+		Value readB = new Value( "unchanged" );
+		Plain readC = new Plain( "unchanged" );
+		reader.put( "b", readB );
+		reader.put( "c", readC );
+		reader.readJournal( file );
+		assertEquals( "unchanged", readB.value );
+		assertEquals( "unchanged", readC.value );
+
+		// a resource can be added again after it was removed
+		Value b = new Value( "b2" );
+		manager.put( "b", b );
+		a.set( "a2" );
+		manager.writeJournal( file );
+		assertEquals( "a2 b2 unchanged", read( "a", "b", "c" ) );
+
+		// a journal that is compacted no longer contains the removed resources
+		manager.remove( "b" );
+		manager.setJournalCompactionFactor( 1.0 );
+		manager.writeJournal( file );
+		assertEquals( "a2 unchanged unchanged", read( "a", "b", "c" ) );
+	}
+
+	@Test
+	public void unknownResources() throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		manager.put( "a", new Value( "a" ) );
+		manager.put( "b", new Value( "b" ) );
+		manager.writeJournal( file );
+
+		// "b" is unknown to the reader, but it is kept
+		ApplicationResourceManager reader = new ApplicationResourceManager();
+		Value readA = new Value( null );
+		reader.put( "a", readA );
+		reader.readJournal( file );
+		readA.set( "a2" );
+		reader.writeJournal( file );
+		assertEquals( "a2 b", read( "a", "b" ) );
+
+		File other = File.createTempFile( "journal", ".test" );
+		other.deleteOnExit();
+		reader.writeJournal( other );
+		assertEquals( "a2 b", read( other, "a", "b" ) );
+
+		// once "b" is known, its new content replaces the buffered content
+		Value readB = new Value( null );
+		reader.put( "b", readB );
+		assertEquals( "b", readB.value );
+		readB.set( "b2" );
+		reader.writeJournal( other );
+		assertEquals( "a2 b2", read( other, "a", "b" ) );
+		reader.writeJournal( file );
+		assertEquals( "a2 b2", read( "a", "b" ) );
+
+		// removing an unknown resource removes its content
+		ApplicationResourceManager third = new ApplicationResourceManager();
+		third.readJournal( file );
+		third.remove( "b" );
+		third.writeJournal( file );
+		assertEquals( "a2 unchanged", read( "a", "b" ) );
+	}
+
+	private String read( String... keys ) throws IOException{
+		return read( file, keys );
+	}
+
+	private String read( File file, String... keys ) throws IOException{
+		ApplicationResourceManager manager = new ApplicationResourceManager();
+		Value[] values = new Value[ keys.length ];
+		for( int i = 0; i < keys.length; i++ ){
+			values[i] = new Value( "unchanged" );
+			manager.put( keys[i], values[i] );
+		}
+		manager.readJournal( file );
+		StringBuilder builder = new StringBuilder();
+		for( int i = 0; i < keys.length; i++ ){
+			if( i > 0 ){
+				builder.append( " " );
+			}
+			builder.append( values[i].value );
+		}
+		return builder.toString();
+	}
+
+	private byte[] content() throws IOException{
+		byte[] content = new byte[ (int)file.length() ];
+		DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+		try{
+			in.readFully( content );
+		}
+		finally{
+			in.close();
+		}
+		return content;
+	}
+
+	private void write( byte[] content ) throws IOException{
+		RandomAccessFile out = new RandomAccessFile( file, "rw" );
+		try{
+			out.setLength( 0 );
+			out.write( content );
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	private void truncate( long length ) throws IOException{
+		RandomAccessFile out = new RandomAccessFile( file, "rw" );
+		try{
+			out.setLength( length );
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * A resource which knows whether it changed.
+	 */
+	private static class Value implements TrackedApplicationResource{
+		private String value;
+		private boolean changed = true;
+
+		public Value( String value ){
+			this.value = value;
+		}
+
+		public void set( String value ){
+			this.value = value;
+			changed = true;
+		}
+
+		public boolean isChanged(){
+			return changed;
+		}
+
+		public void clearChanged(){
+			changed = false;
+		}
+
+		public void write( DataOutputStream out ) throws IOException{
+			out.writeUTF( value );
+		}
+
+		public void read( DataInputStream in ) throws IOException{
+			value = in.readUTF();
+		}
+
+		public void writeXML( XElement element ){
+			element.setString( value );
+		}
+
+		public void readXML( XElement element ){
+			value = element.getString();
+		}
+	}
+
+	/**
+	 * A resource which does not track its changes.
+	 */
+	private static class Plain implements ApplicationResource{
+		private String value;
+
+		public Plain( String value ){
+			this.value = value;
+		}
+
+		public void write( DataOutputStream out ) throws IOException{
+			out.writeUTF( value );
+		}
+
+		public void read( DataInputStream in ) throws IOException{
+			value = in.readUTF();
+		}
+
+		public void writeXML( XElement element ){
+			element.setString( value );
+		}
+
+		public void readXML( XElement element ){
+			value = element.getString();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package bibliothek.gui.dock.support.util;
+
+import static junit.framework.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncResourceWriterTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException{
+		directory = File.createTempFile( "writer", "test" );
+		directory.delete();
+		directory.mkdirs();
+		directory.deleteOnExit();
+	}
+
+	@Test
+	public void coalescing() throws Exception{
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final List<Integer> written = new ArrayList<Integer>();
+
+		AsyncResourceWriter writer = new AsyncResourceWriter(){
+			@Override
+			protected void writeFile( File file, Snapshot snapshot ) throws IOException{
+				started.countDown();
+				try{
+					release.await();
+				}
+				catch( InterruptedException e ){
+					throw new IOException( e.getMessage() );
+				}
+				super.writeFile( file, snapshot );
+				synchronized( written ){
+					written.add( read( file ) );
+				}
+			}
+		};
+
+		try{
+			File file = file( "coalescing" );
+			Future<File> first = writer.write( file, snapshot( 1 ) );
+			assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+			// the first write is running, the next snapshots replace each other
+			Future<File> second = writer.write( file, snapshot( 2 ) );
+			Future<File> third = writer.write( file, snapshot( 3 ) );
+			Future<File> fourth = writer.write( file, snapshot( 4 ) );
+			assertFalse( first == second );
+			assertSame( second, third );
+			assertSame( second, fourth );
+
+			release.countDown();
+			assertEquals( file, first.get( 10, TimeUnit.SECONDS ) );
+			assertEquals( file, fourth.get( 10, TimeUnit.SECONDS ) );
+
+			synchronized( written ){
+				assertEquals( 2, written.size() );
+				assertEquals( 1, written.get( 0 ).intValue() );
+				assertEquals( 4, written.get( 1 ).intValue() );
+			}
+			assertEquals( 4, read( file ) );
+		}
+		finally{
+			release.countDown();
+			writer.shutdown();
+		}
+		assertTrue( writer.awaitTermination( 10, TimeUnit.SECONDS ) );
+	}
+
+	@Test
+	public void lastWriterWinsWithPool() throws Exception{
+		ExecutorService pool = Executors.newFixedThreadPool( 4 );
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+
+		AsyncResourceWriter writer = new AsyncResourceWriter( pool ){
+			@Override
+			protected void writeFile( File file, Snapshot snapshot ) throws IOException{
+				if( running.incrementAndGet() > 1 ){
+					overlaps.incrementAndGet();
+				}
+				try{
+					// give the other threads of the pool a chance to start a concurrent write
+					Thread.sleep( 2 );
+					super.writeFile( file, snapshot );
+				}
+				catch( InterruptedException e ){
+					throw new IOException( e.getMessage() );
+				}
+				finally{
+					running.decrementAndGet();
+				}
+			}
+		};
+
+		try{
+			File file = file( "pool" );
+			List<Future<File>> futures = new ArrayList<Future<File>>();
+			for( int i = 0; i <= 200; i++ ){
+				futures.add( writer.write( file, snapshot( i ) ) );
+				if( i % 7 == 0 ){
+					Thread.sleep( 1 );
+				}
+			}
+			for( Future<File> future : futures ){
+				future.get( 10, TimeUnit.SECONDS );
+			}
+
+			assertEquals( 0, overlaps.get() );
+			assertEquals( 200, read( file ) );
+		}
+		finally{
+			writer.shutdown();
+		}
+		assertTrue( writer.awaitTermination( 10, TimeUnit.SECONDS ) );
+	}
+
+	@Test
+	public void differentFiles() throws Exception{
+		AsyncResourceWriter writer = new AsyncResourceWriter( Executors.newFixedThreadPool( 3 ) );
+		try{
+			List<Future<File>> futures = new ArrayList<Future<File>>();
+			for( int i = 0; i < 30; i++ ){
+				futures.add( writer.write( file( "file" + (i % 3) ), snapshot( i ) ) );
+			}
+			for( Future<File> future : futures ){
+				future.get( 10, TimeUnit.SECONDS );
+			}
+			assertEquals( 27, read( file( "file0" ) ) );
+			assertEquals( 28, read( file( "file1" ) ) );
+			assertEquals( 29, read( file( "file2" ) ) );
+		}
+		finally{
+			writer.shutdown();
+		}
+		assertTrue( writer.awaitTermination( 10, TimeUnit.SECONDS ) );
+	}
+
+	@Test
+	public void pendingWritesAfterShutdown() throws Exception{
+		AsyncResourceWriter writer = new AsyncResourceWriter();
+		File file = file( "shutdown" );
+		for( int i = 0; i < 10; i++ ){
+			writer.write( file, snapshot( i ) );
+		}
+		writer.shutdown();
+		assertTrue( writer.awaitTermination( 10, TimeUnit.SECONDS ) );
+		assertEquals( 9, read( file ) );
+	}
+
+	private File file( String name ){
+		File file = new File( directory, name );
+		file.deleteOnExit();
+		return file;
+	}
+
+	private AsyncResourceWriter.Snapshot snapshot( final int value ){
+		return new AsyncResourceWriter.Snapshot(){
+			public void write( OutputStream out ) throws IOException{
+				DataOutputStream data = new DataOutputStream( out );
+				data.writeInt( value );
+				data.flush();
+			}
+		};
+	}
+
+	private int read( File file ) throws IOException{
+		DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+		try{
+			return in.readInt();
+		}
+		finally{
+			in.close();
+		}
+	}
+}
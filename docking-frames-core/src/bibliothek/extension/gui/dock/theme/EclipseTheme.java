@@ -42,6 +42,8 @@ import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.ArchGradientPainter
 import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.BasicTabDockTitle;
 import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.DockTitleTab;
 import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.RectGradientPainter;
+import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.TabComponent;
+import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.TabPaintCache;
 import bibliothek.extension.gui.dock.theme.eclipse.stack.tab.TabPainter;
 import bibliothek.gui.DockController;
 import bibliothek.gui.Dockable;
@@ -108,6 +110,17 @@ public class EclipseTheme extends BasicTheme {
 	 */
 	public static final PropertyKey<TabPainter> TAB_PAINTER = new PropertyKey<TabPainter>( "EclipseTheme tab painter", new ConstantPropertyFactory<TabPainter>( ArchGradientPainter.FACTORY ), true );
 
+	/**
+	 * A cache for the paints used by the {@link TabComponent}s created by the {@link #TAB_PAINTER}. Every
+	 * {@link DockController} has its own cache, the cache is cleared when this theme is uninstalled.
+	 */
+	public static final PropertyKey<TabPaintCache> TAB_PAINT_CACHE = new PropertyKey<TabPaintCache>( "EclipseTheme tab paint cache", 
+			new DynamicPropertyFactory<TabPaintCache>(){
+				public TabPaintCache getDefault( PropertyKey<TabPaintCache> key, DockProperties properties ){
+					return new TabPaintCache();
+				}
+			}, true );
+
 	/**
 	 * Provides additional dockable-wise information used to layout components
 	 * in the EclipseTheme. Note that changing this property will show full effect
@@ -302,6 +315,7 @@ public class EclipseTheme extends BasicTheme {
 		controller.getActionViewConverter().putTheme( ActionType.MENU, ViewTarget.TITLE, null );
 		controller.getActionViewConverter().putTheme( ActionType.RADIO, ViewTarget.TITLE, null );
 		controller.getActionViewConverter().putTheme( ActionType.DROP_DOWN, ViewTarget.TITLE, null );
+		controller.getProperties().get( TAB_PAINT_CACHE ).clear();
 	}
 
 	/**
@@ -43,6 +43,7 @@ import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.themes.color.TitleColor;
 import bibliothek.gui.dock.title.AbstractDockTitle;
 import bibliothek.gui.dock.title.DockTitleVersion;
+import bibliothek.gui.dock.util.AnimationClock;
 import bibliothek.gui.dock.util.Transparency;
 import bibliothek.util.Path;
 
@@ -161,6 +162,7 @@ public abstract class AbstractBubbleDockTitle extends AbstractDockTitle{
     @Override
     public void bind() {
         super.bind();
+        animation.setClock( AnimationClock.getClock( getDockable().getController() ));
         animation.kick();
     }
 
@@ -221,7 +223,7 @@ public abstract class AbstractBubbleDockTitle extends AbstractDockTitle{
      */
     protected void pulse(){
         setForeground( animation.getColor( ANIMATION_KEY_TEXT ));
-        repaint();
+        animation.getClock().repaint( this );
     }
 
     @Override
@@ -27,14 +27,12 @@
 package bibliothek.extension.gui.dock.theme.bubble;
 
 import java.awt.Color;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.swing.Timer;
+import bibliothek.gui.dock.util.AnimationClock;
 
 /**
  * A <code>BubbleColorAnimation</code> has the ability to convert one or many color-pairs smoothly from source
@@ -42,7 +40,8 @@ import javax.swing.Timer;
  * Clients have to call {@link #putColor(String, Color)} to start an animation. They
  * can call {@link #getColor(String)} any time to get the current intermediate color. Adding a {@link #addTask(Runnable) task}
  * will allow a client to be informed whenever the colors change.<br>
- * The animation itself takes {@link #setDuration(int) duration} milliseconds.  
+ * The animation itself takes {@link #setDuration(int) duration} milliseconds. The steps of the animation
+ * are triggered by an {@link AnimationClock}.
  * @author Benjamin Sigg
  */
 public class BubbleColorAnimation {
@@ -51,11 +50,23 @@ public class BubbleColorAnimation {
     
     /** The color pairs that can be animated */
     private Map<String, Entry> colors = new HashMap<String, Entry>();
-    /** The timer that triggers steps of the animation */
-    private Timer timer;
+    /** The clock that triggers steps of the animation */
+    private AnimationClock clock = AnimationClock.getDefault();
+    /** Whether the animation is currently running */
+    private boolean running = false;
     /** The current time in milliseconds*/
     private long time = 0;
     
+    /** The callback of {@link #clock} */
+    private AnimationClock.Animation step = new AnimationClock.Animation(){
+		public boolean step( AnimationClock clock, long nanoTime ){
+			if( running ){
+				pulse();
+			}
+			return running;
+		}
+	};
+    
     /** The tasks that are executed at every step of the animation */
     private List<Runnable> tasks = new ArrayList<Runnable>();
     
@@ -63,14 +74,34 @@ public class BubbleColorAnimation {
      * Creates a new animation.
      */
     public BubbleColorAnimation(){
-    	timer = new Timer( 25, new ActionListener(){
-            public void actionPerformed( ActionEvent e ) {
-                pulse();
-            }
-        });
-    	timer.setCoalesce( true );
+    	// nothing
     }
     
+    /**
+     * Sets the clock which triggers the steps of this animation.
+     * @param clock the new clock, <code>null</code> to use the {@link AnimationClock#getDefault() default clock}
+     */
+    public void setClock( AnimationClock clock ){
+    	if( clock == null ){
+    		clock = AnimationClock.getDefault();
+    	}
+		if( this.clock != clock ){
+			if( running ){
+				this.clock.stop( step );
+				clock.start( step );
+			}
+			this.clock = clock;
+		}
+	}
+    
+    /**
+     * Gets the clock which triggers the steps of this animation.
+     * @return the clock, not <code>null</code>
+     */
+    public AnimationClock getClock(){
+		return clock;
+	}
+    
     /**
      * Sets a color-pair. The color <code>destination</code> is shown
      * after maximal {@link #getDuration() duration} milliseconds. This method
@@ -162,14 +193,15 @@ public class BubbleColorAnimation {
      *
      */
     public void stop(){
-        timer.stop();
+    	running = false;
+        clock.stop( step );
     }
     
     /**
      * Immediately puts all colors to their final state and stops the animation.
      */
     public void kick(){
-        if( timer.isRunning() ){
+        if( running ){
             stop();
             for( Entry entry : colors.values() )
                 entry.kick();
@@ -183,9 +215,10 @@ public class BubbleColorAnimation {
      * Starts the animation if it is not yet running.
      */
     protected void start(){
-        if( !timer.isRunning() ){
+        if( !running ){
             time = System.currentTimeMillis();
-            timer.start();
+            running = true;
+            clock.start( step );
         }
     }
     
@@ -202,7 +235,7 @@ public class BubbleColorAnimation {
             run = entry.step( delta ) | run;
         
         if( !run )
-            timer.stop();
+            running = false;
         
         for( Runnable task : tasks )
             task.run();
@@ -111,6 +111,21 @@ public class ArchGradientPainter extends BaseTabComponent {
 
 	/** number of pixels at the left side that are empty and under the selected predecessor of this tab */
 	private final int TAB_OVERLAP = 24;
+	
+	/** the outline of the left side of this tab, used to find out whether a point is inside this tab */
+	private Polygon cachedLeft;
+	/** the outline of the left side of this tab, used to paint this tab */
+	private Polygon cachedPaintLeft;
+	/** the outline of the right side of this tab */
+	private Polygon cachedRight;
+	/** the width for which the cached polygons were created */
+	private int cachedWidth = -1;
+	/** the height for which the cached polygons were created */
+	private int cachedHeight = -1;
+	/** the space required for the icon for which the cached polygons were created */
+	private int cachedLabelMin = -1;
+	/** the orientation for which the cached polygons were created */
+	private TabPlacement cachedOrientation;
 
 	/**
 	 * Creates a new painter.
@@ -347,15 +362,7 @@ public class ArchGradientPainter extends BaseTabComponent {
 		}
 		else{
 			if( getTransparency() != Transparency.TRANSPARENT ){
-				GradientPaint gradient = color1.equals( color2 ) ? null : new GradientPaint( x, y, color1, x, y + h, color2 );
-				Paint old = g2d.getPaint();
-				if( gradient != null )
-					g2d.setPaint(gradient);
-				else
-					g2d.setPaint( color1 );
-	
-				g2d.fillRect( x, y, w, h-1 );
-				g2d.setPaint(old);
+				getPaintCache().fillGradient( g2d, color1, color2, h, true, x, y, w, h-1 );
 			}
 		}
 	}
@@ -386,14 +393,13 @@ public class ArchGradientPainter extends BaseTabComponent {
 		}
 		
 		if( isSelected() ){
-			int w = getWidth();
-			int h = getHeight();
+			validateShapes();
 			
-			Polygon left = leftSide( 0, 0, w, h );
+			Polygon left = cachedLeft;
 			if( left.contains( x, y ))
 				return true;
 			
-			Polygon right = rightSide( 0, 0, w, h );
+			Polygon right = cachedRight;
 			if( right.contains( x, y ))
 				return true;
 			
@@ -428,26 +434,47 @@ public class ArchGradientPainter extends BaseTabComponent {
 	 * @param bottom the color at the bottom
 	 */
 	private void paintSelected( Graphics g, Color top, Color bottom ){
+		Graphics2D g2d = (Graphics2D) g;
+		
+		validateShapes();
+		Polygon left = cachedPaintLeft;
+		Polygon right = cachedRight;
+		
+		int leftX = left.xpoints[0];
+		int leftY = left.ypoints[0];
+		int rightX = right.xpoints[0];
+		int rightY = right.ypoints[0];
+		
+		try{
+			paintSelected( g2d, top, bottom, left, right );
+		}
+		finally{
+			// the polygons are cached and must not be modified
+			left.translate( leftX - left.xpoints[0], leftY - left.ypoints[0] );
+			right.translate( rightX - right.xpoints[0], rightY - right.ypoints[0] );
+		}
+	}
+	
+	/**
+	 * Paints the background of a selected tab. This method may translate <code>left</code> and <code>right</code>.
+	 * @param g2d the graphics context to use
+	 * @param top the color at the top
+	 * @param bottom the color at the bottom
+	 * @param left the outline of the left side of the tab
+	 * @param right the outline of the right side of the tab
+	 */
+	private void paintSelected( Graphics2D g2d, Color top, Color bottom, Polygon left, Polygon right ){
+		Graphics g = g2d;
 		int x = 0;
 		int y = 0;
 		int w = getWidth();
 		int h = getHeight();
-		Graphics2D g2d = (Graphics2D) g;
 		Color lineColor = colorStackBorder.value();
 		
 		boolean firstTab = getTabIndex() == 0;
 		
 		TabPlacement orientation = getOrientation();
 		
-		Polygon left, right;
-		if( orientation.isHorizontal() ){
-			left = leftSide( x-1, y-1, w, h+1 );
-		}
-		else{
-			left = leftSide( x-1, y-1, w+1, h );
-		}
-		
-		right = rightSide( x, y, w, h );
 		g2d.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF );
 		
 		// draw shadow
@@ -469,10 +496,10 @@ public class ArchGradientPainter extends BaseTabComponent {
 		if( !top.equals( bottom )){
 			// fill inner areas
 			if( getOrientation().isHorizontal() ){
-				gradient = new GradientPaint( x, y, top, x, y + h, bottom );
+				gradient = getPaintCache().getGradient( x, y, top, x, y + h, bottom );
 			}
 			else{
-				gradient = new GradientPaint( x, y, top, x+w, y, bottom );
+				gradient = getPaintCache().getGradient( x, y, top, x+w, y, bottom );
 			}
 		}
 		
@@ -576,6 +603,51 @@ public class ArchGradientPainter extends BaseTabComponent {
 		}
 	}
 	
+	/**
+	 * Gets the minimal space that is required to paint the icon of this tab.
+	 * @return the minimal space
+	 */
+	private int getLabelMin(){
+		int labelMin = 6;
+		
+		if( getIcon() != null ){
+			if( getOrientation().isHorizontal() ){
+				labelMin += getIcon().getIconWidth() + getLabel().getIconOffset();
+			}
+			else{
+				labelMin += getIcon().getIconHeight() + getLabel().getIconOffset();
+			}
+		}
+		
+		return labelMin;
+	}
+	
+	/**
+	 * Ensures that the cached outlines of this tab match the current size, orientation and icon.
+	 */
+	private void validateShapes(){
+		int w = getWidth();
+		int h = getHeight();
+		int labelMin = getLabelMin();
+		TabPlacement orientation = getOrientation();
+		
+		if( cachedLeft == null || w != cachedWidth || h != cachedHeight || labelMin != cachedLabelMin || orientation != cachedOrientation ){
+			cachedWidth = w;
+			cachedHeight = h;
+			cachedLabelMin = labelMin;
+			cachedOrientation = orientation;
+			
+			cachedLeft = leftSide( 0, 0, w, h );
+			cachedRight = rightSide( 0, 0, w, h );
+			if( orientation.isHorizontal() ){
+				cachedPaintLeft = leftSide( -1, -1, w, h+1 );
+			}
+			else{
+				cachedPaintLeft = leftSide( -1, -1, w+1, h );
+			}
+		}
+	}
+	
 	private void transformFromTopToOrientation( Polygon polygon ){
 		switch( getOrientation() ){
 			case BOTTOM_OF_DOCKABLE:
@@ -651,16 +723,7 @@ public class ArchGradientPainter extends BaseTabComponent {
 	 * @return the new polygon
 	 */
 	private Polygon rightSide( int x, int y, int w, int h ){
-		int labelMin = 6;
-		
-		if( getIcon() != null ){
-			if( getOrientation().isHorizontal() ){
-				labelMin += getIcon().getIconWidth() + getLabel().getIconOffset();
-			}
-			else{
-				labelMin += getIcon().getIconHeight() + getLabel().getIconOffset();
-			}
-		}
+		int labelMin = getLabelMin();
 		
 		if( getOrientation().isVertical() ){
 			int t = x;
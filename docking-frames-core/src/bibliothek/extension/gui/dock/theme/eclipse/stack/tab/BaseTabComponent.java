@@ -39,6 +39,7 @@ import javax.swing.Icon;
 import javax.swing.SwingUtilities;
 import javax.swing.event.MouseInputListener;
 
+import bibliothek.extension.gui.dock.theme.EclipseTheme;
 import bibliothek.extension.gui.dock.theme.eclipse.EclipseDockActionSource;
 import bibliothek.extension.gui.dock.theme.eclipse.EclipseTabStateInfo;
 import bibliothek.extension.gui.dock.theme.eclipse.stack.EclipseTab;
@@ -165,6 +166,9 @@ public abstract class BaseTabComponent extends ConfiguredBackgroundPanel impleme
     
     private TabComponentLayoutManager layoutManager;
     
+    /** the cache used while this tab is not bound to a {@link DockController} */
+    private TabPaintCache paintCache;
+    
     /**
      * Creates a new {@link TabComponent}
      * @param pane the owner of this tab, not <code>null</code>
@@ -508,6 +512,21 @@ public abstract class BaseTabComponent extends ConfiguredBackgroundPanel impleme
         return pane.getStation();
     }
     
+    /**
+     * Gets the cache for paints that is shared by all the tabs of the current {@link DockController}.
+     * @return the cache, not <code>null</code>
+     */
+    protected TabPaintCache getPaintCache(){
+    	DockController controller = getController();
+    	if( controller == null ){
+    		if( paintCache == null ){
+    			paintCache = new TabPaintCache( 16 );
+    		}
+    		return paintCache;
+    	}
+    	return controller.getProperties().get( EclipseTheme.TAB_PAINT_CACHE );
+    }
+    
     @Override
     protected void setupRenderingHints( Graphics g ) {
     	DockController controller = getController();
@@ -274,42 +274,44 @@ public class RectGradientPainter extends BaseTabComponent {
         	color2 = temp;
         }
 		
-        GradientPaint gradient = null;
-        if( !color1.equals( color2 )){
-        	if( orientation.isHorizontal() ){
-        		gradient = new GradientPaint( 0, 0, color1, 0, height, color2 );		
-        	}
-        	else{
-        		gradient = new GradientPaint( 0, 0, color1, width, 0, color2 );
-        	}
-        }
-        
 		int tabIndex = getTabIndex();
 		
 		g2d.setColor( lineColor );
 		Paint old = g2d.getPaint();
-        if( gradient != null )
-            g2d.setPaint(gradient);
-        else
-            g2d.setPaint( color1 );
 		
 		if (isSelected) {
+	        GradientPaint gradient = null;
+	        if( !color1.equals( color2 )){
+	        	if( orientation.isHorizontal() ){
+	        		gradient = getPaintCache().getGradient( 0, 0, color1, 0, height, color2 );		
+	        	}
+	        	else{
+	        		gradient = getPaintCache().getGradient( 0, 0, color1, width, 0, color2 );
+	        	}
+	        }
+	        
+	        if( gradient != null )
+	            g2d.setPaint(gradient);
+	        else
+	            g2d.setPaint( color1 );
+	        
 			paintSelected( g2d, tabIndex, old );
 		}
 		else{
 			if( getTransparency() != Transparency.TRANSPARENT ){
+				TabPaintCache cache = getPaintCache();
 				switch( orientation ){
 					case TOP_OF_DOCKABLE:
-						g.fillRect( 0, 0, getWidth(), getHeight()-1 );
+						cache.fillGradient( g2d, color1, color2, height, true, 0, 0, width, height-1 );
 						break;
 					case BOTTOM_OF_DOCKABLE:
-						g.fillRect( 0, 1, getWidth(), getHeight()-1 );
+						cache.fillGradient( g2d, color1, color2, height, true, 0, 1, width, height-1 );
 						break;
 					case LEFT_OF_DOCKABLE:
-						g.fillRect( 0, 0, getWidth()-1, getHeight() );
+						cache.fillGradient( g2d, color1, color2, width, false, 0, 0, width-1, height );
 						break;
 					case RIGHT_OF_DOCKABLE:
-						g.fillRect( 1, 0, getWidth()-1, getHeight() );
+						cache.fillGradient( g2d, color1, color2, width, false, 1, 0, width-1, height );
 						break;
 				}
 			}
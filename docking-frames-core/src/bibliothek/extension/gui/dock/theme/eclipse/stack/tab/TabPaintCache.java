@@ -0,0 +1,346 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.extension.gui.dock.theme.eclipse.stack.tab;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Paint;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import bibliothek.extension.gui.dock.theme.EclipseTheme;
+
+/**
+ * A cache for {@link GradientPaint}s and for the rasterized gradients that are used to paint the background of 
+ * tabs. Many tabs of an {@link EclipseTheme} share the same colors and the same height, hence they
+ * can share the objects that are required to paint them. The cache is bounded, the entries that were not used for
+ * the longest time are removed first. Since the colors are part of the keys, a cache never returns
+ * outdated paints, entries for colors that are no longer used are just evicted over time.<br>
+ * A cache is available through the property {@link EclipseTheme#TAB_PAINT_CACHE}, and is cleared when the
+ * {@link EclipseTheme} is uninstalled. The cache should only be used by the <code>EventDispatchThread</code>.
+ * @author Benjamin Sigg
+ */
+public class TabPaintCache {
+	/** the maximum number of entries */
+	private int capacity;
+	
+	/** whether gradients are rasterized */
+	private boolean rasterEnabled = true;
+	
+	/** all the cached paints and rasters */
+	private Map<Object, Object> entries = new LinkedHashMap<Object, Object>( 16, 0.75f, true ){
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<Object, Object> eldest ){
+			return size() > capacity;
+		}
+	};
+	
+	/**
+	 * Creates a new cache with a capacity of 256 entries.
+	 */
+	public TabPaintCache(){
+		this( 256 );
+	}
+	
+	/**
+	 * Creates a new cache.
+	 * @param capacity the maximum number of entries, at least 1
+	 */
+	public TabPaintCache( int capacity ){
+		setCapacity( capacity );
+	}
+	
+	/**
+	 * Sets the maximum number of paints and rasters stored in this cache.
+	 * @param capacity the maximum number of entries, at least 1
+	 */
+	public void setCapacity( int capacity ){
+		if( capacity < 1 ){
+			throw new IllegalArgumentException( "capacity must be at least 1: " + capacity );
+		}
+		this.capacity = capacity;
+		if( entries.size() > capacity ){
+			entries.clear();
+		}
+	}
+	
+	/**
+	 * Gets the maximum number of entries of this cache.
+	 * @return the capacity
+	 */
+	public int getCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * Sets whether {@link #fillGradient(Graphics2D, Color, Color, int, boolean, int, int, int, int)} uses 
+	 * rasterized gradients. Rasters are small images that are stretched over the area they have to fill.
+	 * @param rasterEnabled whether to use rasters
+	 */
+	public void setRasterEnabled( boolean rasterEnabled ){
+		this.rasterEnabled = rasterEnabled;
+	}
+	
+	/**
+	 * Tells whether gradients are rasterized.
+	 * @return whether rasters are used
+	 * @see #setRasterEnabled(boolean)
+	 */
+	public boolean isRasterEnabled(){
+		return rasterEnabled;
+	}
+	
+	/**
+	 * Removes all entries from this cache.
+	 */
+	public void clear(){
+		entries.clear();
+	}
+	
+	/**
+	 * Gets the number of entries that are currently stored in this cache.
+	 * @return the number of entries
+	 */
+	public int size(){
+		return entries.size();
+	}
+	
+	/**
+	 * Gets a {@link GradientPaint} that starts at <code>x1/y1</code> with <code>color1</code> and
+	 * ends at <code>x2/y2</code> with <code>color2</code>.
+	 * @param x1 the x-coordinate of the first point
+	 * @param y1 the y-coordinate of the first point
+	 * @param color1 the color at the first point
+	 * @param x2 the x-coordinate of the second point
+	 * @param y2 the y-coordinate of the second point
+	 * @param color2 the color at the second point
+	 * @return the paint, may be shared with other clients
+	 */
+	public GradientPaint getGradient( int x1, int y1, Color color1, int x2, int y2, Color color2 ){
+		Key key = new Key( 0, color1, color2, x1, y1, x2, y2 );
+		GradientPaint result = (GradientPaint)entries.get( key );
+		if( result == null ){
+			result = new GradientPaint( x1, y1, color1, x2, y2, color2 );
+			entries.put( key, result );
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets an image that was stored with {@link #putImage(Object, BufferedImage)}.
+	 * @param key the key of the image, must implement {@link Object#equals(Object)} and {@link Object#hashCode()}
+	 * @return the image or <code>null</code> if no image is stored or if the image was already evicted
+	 */
+	public BufferedImage getImage( Object key ){
+		Object result = entries.get( new ImageKey( key ) );
+		return (BufferedImage)result;
+	}
+	
+	/**
+	 * Stores an image in this cache. Clients can use this method to store the rasterized backgrounds of tabs
+	 * with complex shapes. The key should contain all the properties which affect the content of the image, 
+	 * like the size, the orientation and the colors.
+	 * @param key the key of the image, must not be modified afterwards
+	 * @param image the image to store
+	 */
+	public void putImage( Object key, BufferedImage image ){
+		if( key == null ){
+			throw new IllegalArgumentException( "key must not be null" );
+		}
+		if( image == null ){
+			throw new IllegalArgumentException( "image must not be null" );
+		}
+		entries.put( new ImageKey( key ), image );
+	}
+	
+	/**
+	 * Fills a rectangle with a gradient that has the color <code>from</code> at coordinate <code>0</code> and
+	 * the color <code>to</code> at coordinate <code>length</code>. The result is the same as filling the rectangle
+	 * with a {@link GradientPaint} starting at <code>0/0</code>. 
+	 * @param g the graphics context to paint on
+	 * @param from the color at the beginning of the gradient
+	 * @param to the color at the end of the gradient
+	 * @param length the length of the gradient
+	 * @param vertical if <code>true</code> the gradient runs along the y-axis, otherwise along the x-axis
+	 * @param x the x-coordinate of the rectangle
+	 * @param y the y-coordinate of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 */
+	public void fillGradient( Graphics2D g, Color from, Color to, int length, boolean vertical, int x, int y, int width, int height ){
+		if( width <= 0 || height <= 0 ){
+			return;
+		}
+		
+		if( from.equals( to )){
+			Color old = g.getColor();
+			g.setColor( from );
+			g.fillRect( x, y, width, height );
+			g.setColor( old );
+			return;
+		}
+		
+		if( rasterEnabled ){
+			BufferedImage raster = getRaster( g, from, to, length, vertical, vertical ? y : x, vertical ? height : width );
+			g.drawImage( raster, x, y, width, height, null );
+		}
+		else{
+			Paint old = g.getPaint();
+			if( vertical ){
+				g.setPaint( getGradient( 0, 0, from, 0, length, to ));
+			}
+			else{
+				g.setPaint( getGradient( 0, 0, from, length, 0, to ));
+			}
+			g.fillRect( x, y, width, height );
+			g.setPaint( old );
+		}
+	}
+	
+	/**
+	 * Gets an image that is only 1 pixel wide (or high) and contains one part of a gradient.
+	 * @param g the graphics context on which the image will be painted
+	 * @param from the color at the beginning of the gradient
+	 * @param to the color at the end of the gradient
+	 * @param length the length of the gradient
+	 * @param vertical the direction of the gradient
+	 * @param offset the first pixel of the gradient that is shown
+	 * @param size the number of pixels that are shown
+	 * @return the image
+	 */
+	private BufferedImage getRaster( Graphics2D g, Color from, Color to, int length, boolean vertical, int offset, int size ){
+		Key key = new Key( vertical ? 1 : 2, from, to, length, offset, size, 0 );
+		BufferedImage result = (BufferedImage)entries.get( key );
+		if( result == null ){
+			int transparency = from.getAlpha() == 255 && to.getAlpha() == 255 ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+			int width = vertical ? 1 : size;
+			int height = vertical ? size : 1;
+			
+			GraphicsConfiguration configuration = g.getDeviceConfiguration();
+			if( configuration == null ){
+				result = new BufferedImage( width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB );
+			}
+			else{
+				result = configuration.createCompatibleImage( width, height, transparency );
+			}
+			
+			Graphics2D rg = result.createGraphics();
+			if( vertical ){
+				rg.setPaint( new GradientPaint( 0, -offset, from, 0, length-offset, to ));
+			}
+			else{
+				rg.setPaint( new GradientPaint( -offset, 0, from, length-offset, 0, to ));
+			}
+			rg.fillRect( 0, 0, width, height );
+			rg.dispose();
+			
+			entries.put( key, result );
+		}
+		return result;
+	}
+	
+	/**
+	 * Wraps around the key of a client, ensures that the keys of clients do not collide with
+	 * the keys of this cache.
+	 * @author Benjamin Sigg
+	 */
+	private static class ImageKey{
+		private final Object key;
+		
+		public ImageKey( Object key ){
+			this.key = key;
+		}
+		
+		@Override
+		public int hashCode(){
+			return key.hashCode();
+		}
+		
+		@Override
+		public boolean equals( Object obj ){
+			if( this == obj ){
+				return true;
+			}
+			if( !(obj instanceof ImageKey) ){
+				return false;
+			}
+			return key.equals( ((ImageKey)obj).key );
+		}
+	}
+	
+	/**
+	 * A key for the map of entries.
+	 * @author Benjamin Sigg
+	 */
+	private static class Key{
+		private final int type;
+		private final Color color1;
+		private final Color color2;
+		private final int a;
+		private final int b;
+		private final int c;
+		private final int d;
+		
+		public Key( int type, Color color1, Color color2, int a, int b, int c, int d ){
+			this.type = type;
+			this.color1 = color1;
+			this.color2 = color2;
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.d = d;
+		}
+		
+		@Override
+		public int hashCode(){
+			int hash = type;
+			hash = hash * 31 + color1.hashCode();
+			hash = hash * 31 + color2.hashCode();
+			hash = hash * 31 + a;
+			hash = hash * 31 + b;
+			hash = hash * 31 + c;
+			hash = hash * 31 + d;
+			return hash;
+		}
+		
+		@Override
+		public boolean equals( Object obj ){
+			if( this == obj ){
+				return true;
+			}
+			if( !(obj instanceof Key) ){
+				return false;
+			}
+			Key other = (Key)obj;
+			return type == other.type && a == other.a && b == other.b && c == other.c && d == other.d &&
+				color1.equals( other.color1 ) && color2.equals( other.color2 );
+		}
+	}
+}
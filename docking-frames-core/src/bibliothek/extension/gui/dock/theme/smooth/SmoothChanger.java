@@ -29,14 +29,15 @@ package bibliothek.extension.gui.dock.theme.smooth;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
-import javax.swing.Timer;
+import bibliothek.gui.dock.util.AnimationClock;
 
 /**
  * A class which counts milliseconds from 0 to {@link #setDuration(int) duration}
  * or in the other direction. This class contains an array of states: one state is
  * counted upwards (the {@link #destination()}), all the other states are counted
  * downwards. Clients can use this class to smoothly switch between different states.<br>
- * This class works on the EDT, no new threads are created.
+ * This class works on the EDT, no new threads are created. The steps of the transitions are
+ * triggered by an {@link AnimationClock}.
  * @author Benjamin Sigg
  *
  */
@@ -50,8 +51,21 @@ public abstract class SmoothChanger implements ActionListener{
     /** the duration of the change */
     private int duration;
     
-    /** a timer which pulses this changer */
-    private Timer timer;
+    /** the clock which pulses this changer */
+    private AnimationClock clock = AnimationClock.getDefault();
+    
+    /** whether a transition is currently running */
+    private boolean running = false;
+    
+    /** the callback of {@link #clock} */
+    private AnimationClock.Animation step = new AnimationClock.Animation(){
+    	public boolean step( AnimationClock clock, long nanoTime ){
+    		if( running ){
+    			actionPerformed( null );
+    		}
+    		return running;
+    	}
+    };
     
     /**
      * Constructor, sets {@link #setDuration(int) duration} to 250 milliseconds.
@@ -69,7 +83,6 @@ public abstract class SmoothChanger implements ActionListener{
      */
     public SmoothChanger( int duration, int states ){
         this.duration = duration;
-        timer = new Timer( 15, this );
         current = new int[ states ];
     }
     
@@ -111,9 +124,34 @@ public abstract class SmoothChanger implements ActionListener{
      * @return <code>true</code> if active, <code>false</code> if not
      */
     public boolean isRunning(){
-    	return timer.isRunning();
+    	return running;
     }
     
+    /**
+     * Sets the clock that pulses this changer.
+     * @param clock the new clock, <code>null</code> to use the {@link AnimationClock#getDefault() default clock}
+     */
+    public void setClock( AnimationClock clock ){
+    	if( clock == null ){
+    		clock = AnimationClock.getDefault();
+    	}
+    	if( this.clock != clock ){
+    		if( running ){
+    			this.clock.stop( step );
+    			clock.start( step );
+    		}
+    		this.clock = clock;
+    	}
+    }
+    
+    /**
+     * Gets the clock that pulses this changer.
+     * @return the clock, not <code>null</code>
+     */
+    public AnimationClock getClock(){
+		return clock;
+	}
+    
     /**
      * Gets the duration of a transition
      * @return the duration
@@ -127,8 +165,11 @@ public abstract class SmoothChanger implements ActionListener{
      * Starts a transition
      */
     public void trigger(){
-        timer.start();
-        last = System.currentTimeMillis();
+    	if( !running ){
+    		running = true;
+    		last = System.currentTimeMillis();
+    		clock.start( step );
+    	}
     }
     
     public void actionPerformed( ActionEvent e ){
@@ -151,7 +192,7 @@ public abstract class SmoothChanger implements ActionListener{
         }
         
         if( !incomplete ){
-        	timer.stop();
+        	running = false;
         }
                 
         repaint( current );
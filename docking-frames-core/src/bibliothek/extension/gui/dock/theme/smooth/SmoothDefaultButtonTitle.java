@@ -33,6 +33,7 @@ import bibliothek.gui.dock.FlapDockStation;
 import bibliothek.gui.dock.themes.basic.BasicButtonDockTitle;
 import bibliothek.gui.dock.title.DockTitleEvent;
 import bibliothek.gui.dock.title.DockTitleVersion;
+import bibliothek.gui.dock.util.AnimationClock;
 
 /**
  * A title intended for the {@link FlapDockStation}, this title changes its color
@@ -76,6 +77,12 @@ public class SmoothDefaultButtonTitle extends BasicButtonDockTitle {
 	}
 	
 
+    @Override
+    public void bind(){
+    	super.bind();
+    	changer.setClock( AnimationClock.getClock( getDockable().getController() ));
+    }
+    
     @Override
     public void setActive( boolean active ) {
         super.setActive(active);
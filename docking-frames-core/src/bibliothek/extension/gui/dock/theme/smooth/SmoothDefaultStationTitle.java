@@ -31,6 +31,7 @@ import java.awt.Color;
 import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.themes.basic.BasicStationTitle;
 import bibliothek.gui.dock.title.DockTitleVersion;
+import bibliothek.gui.dock.util.AnimationClock;
 import bibliothek.util.Colors;
 
 /**
@@ -68,6 +69,12 @@ public class SmoothDefaultStationTitle extends BasicStationTitle{
         }
     };
     
+    @Override
+    public void bind(){
+    	super.bind();
+    	changer.setClock( AnimationClock.getClock( getDockable().getController() ));
+    }
+    
     @Override
     public void setActive( boolean active ) {
         super.setActive(active);
@@ -36,6 +36,7 @@ import javax.swing.JComponent;
 import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.themes.basic.BasicDockTitle;
 import bibliothek.gui.dock.title.DockTitleVersion;
+import bibliothek.gui.dock.util.AnimationClock;
 import bibliothek.util.Colors;
 
 /**
@@ -69,7 +70,7 @@ public class SmoothDefaultTitle extends BasicDockTitle{
         protected void repaint( int[] current ) {
             SmoothDefaultTitle.this.current = current;
             updateForegroundColor();
-            SmoothDefaultTitle.this.repaint();
+            getClock().repaint( SmoothDefaultTitle.this );
         }
     };
     
@@ -99,6 +100,12 @@ public class SmoothDefaultTitle extends BasicDockTitle{
         changer.setDuration( duration );
     }
     
+    @Override
+    public void bind(){
+    	super.bind();
+    	changer.setClock( AnimationClock.getClock( getDockable().getController() ));
+    }
+    
     @Override
     public void setActive( boolean active ) {
         super.setActive(active);
@@ -81,6 +81,8 @@ import bibliothek.gui.dock.control.focus.FocusController;
 import bibliothek.gui.dock.control.focus.FocusHistory;
 import bibliothek.gui.dock.control.focus.FocusRequest;
 import bibliothek.gui.dock.control.focus.MouseFocusObserver;
+import bibliothek.gui.dock.event.ComponentHierarchyObserverEvent;
+import bibliothek.gui.dock.event.ComponentHierarchyObserverListener;
 import bibliothek.gui.dock.event.ControllerSetupListener;
 import bibliothek.gui.dock.event.DockControllerRepresentativeListener;
 import bibliothek.gui.dock.event.DockRegisterAdapter;
@@ -120,6 +122,7 @@ import bibliothek.gui.dock.util.property.ConstantPropertyFactory;
 import bibliothek.gui.dock.util.text.DefaultTextScheme;
 import bibliothek.gui.dock.util.text.TextBridge;
 import bibliothek.gui.dock.util.text.TextValue;
+import bibliothek.util.ListenerList;
 import bibliothek.util.Todo;
 import bibliothek.util.Todo.Compatibility;
 import bibliothek.util.Todo.Version;
@@ -238,9 +241,16 @@ public class DockController {
     /** tells which {@link Component} represents which {@link DockElement} */
     private Map<Component, DockElementRepresentative> componentToDockElements = 
     	new HashMap<Component, DockElementRepresentative>();
+    /** tells which {@link DockElementRepresentative}s were registered for which {@link DockElement} */
+    private Map<DockElement, List<DockElementRepresentative>> dockElementsToRepresentatives =
+    	new HashMap<DockElement, List<DockElementRepresentative>>();
+    /** the results of {@link #searchElement(Component)}, <code>null</code> if the cache is disabled */
+    private Map<Component, DockElementRepresentative> searchElementCache;
+    /** clears {@link #searchElementCache} whenever the tree of {@link Component}s changes */
+    private SearchElementCacheListener searchElementCacheListener;
     /** a list of listeners listening for changes in {@link #componentToDockElements} */
-    private List<DockControllerRepresentativeListener> componentToDockElementsListeners =
-        new ArrayList<DockControllerRepresentativeListener>();
+    private ListenerList<DockControllerRepresentativeListener> componentToDockElementsListeners =
+        new ListenerList<DockControllerRepresentativeListener>( DockControllerRepresentativeListener.class );
     
     /** the root window of the application */
     private WindowProviderWrapper rootWindowProvider;
@@ -850,10 +860,13 @@ public class DockController {
      * @see #searchElement(Component)
      */
     public void addRepresentative( DockElementRepresentative representative ) {
-        DockControllerRepresentativeListener[] listeners = componentToDockElementsListeners
-                .toArray( new DockControllerRepresentativeListener[componentToDockElementsListeners.size()] );
+        DockControllerRepresentativeListener[] listeners = componentToDockElementsListeners.getListeners();
         
         DockElementRepresentative old = componentToDockElements.put( representative.getComponent(), representative );
+        if( old != null ){
+        	unindexRepresentative( old );
+        }
+        indexRepresentative( representative );
     	
     	if( old != null ){
     	    for( DockControllerRepresentativeListener listener : listeners ){
@@ -873,8 +886,9 @@ public class DockController {
      */
     public void removeRepresentative( DockElementRepresentative representative ){
         if( componentToDockElements.remove( representative.getComponent() ) != null ){
-            DockControllerRepresentativeListener[] listeners = componentToDockElementsListeners
-                .toArray( new DockControllerRepresentativeListener[componentToDockElementsListeners.size()] );
+        	unindexRepresentative( representative );
+        	
+            DockControllerRepresentativeListener[] listeners = componentToDockElementsListeners.getListeners();
         
             for( DockControllerRepresentativeListener listener : listeners ){
                 listener.representativeRemoved( this, representative );
@@ -882,6 +896,50 @@ public class DockController {
         }
     }
     
+    /**
+     * Adds <code>representative</code> to the map of {@link DockElement}s and their representatives.
+     * @param representative the new representative
+     */
+    private void indexRepresentative( DockElementRepresentative representative ){
+    	DockElement element = representative.getElement();
+    	List<DockElementRepresentative> list = dockElementsToRepresentatives.get( element );
+    	if( list == null ){
+    		list = new ArrayList<DockElementRepresentative>( 2 );
+    		dockElementsToRepresentatives.put( element, list );
+    	}
+    	list.add( representative );
+    	
+    	if( searchElementCache != null ){
+    		searchElementCache.clear();
+    	}
+    }
+    
+    /**
+     * Removes <code>representative</code> from the map of {@link DockElement}s and their representatives.
+     * @param representative the removed representative
+     */
+    private void unindexRepresentative( DockElementRepresentative representative ){
+    	DockElement element = representative.getElement();
+    	List<DockElementRepresentative> list = dockElementsToRepresentatives.get( element );
+    	if( list == null || !list.remove( representative )){
+    		// the element of the representative changed, search the old entry
+    		for( Map.Entry<DockElement, List<DockElementRepresentative>> entry : dockElementsToRepresentatives.entrySet() ){
+    			if( entry.getValue().remove( representative )){
+    				element = entry.getKey();
+    				list = entry.getValue();
+    				break;
+    			}
+    		}
+    	}
+    	if( list != null && list.isEmpty() ){
+    		dockElementsToRepresentatives.remove( element );
+    	}
+    	
+    	if( searchElementCache != null ){
+    		searchElementCache.clear();
+    	}
+    }
+    
     /**
      * Searches the element which is parent or equal to <code>representative</code>.
      * This method searches through all elements given by {@link #addRepresentative(DockElementRepresentative)}. 
@@ -889,13 +947,28 @@ public class DockController {
      * @param representative some component
      * @return the parent or <code>null</code>
      * @see #addRepresentative(DockElementRepresentative)
+     * @see #setSearchElementCached(boolean)
      */
     public DockElementRepresentative searchElement( Component representative ){
+    	if( searchElementCache != null && representative != null ){
+    		DockElementRepresentative element = searchElementCache.get( representative );
+    		if( element != null && element.getElement().getController() == this ){
+    			return element;
+    		}
+    	}
+    	
+    	Component start = representative;
+    	
     	while( representative != null ){
     	    DockElementRepresentative element = componentToDockElements.get( representative );
     		if( element != null ){
-    		    if( element.getElement().getController() == this )
+    		    if( element.getElement().getController() == this ){
+    		    	if( searchElementCache != null && getComponentHierarchyObserver().getComponents().contains( start )){
+    		    		// only components whose parents are observed can be cached
+    		    		searchElementCache.put( start, element );
+    		    	}
     		        return element;
+    		    }
     		}
     		
     		representative = representative.getParent();
@@ -904,19 +977,52 @@ public class DockController {
     	return null;
     }
     
+    /**
+     * Enables or disables a cache for the results of {@link #searchElement(Component)}. The cache is
+     * cleared whenever a {@link DockElementRepresentative} is added or removed, or when the tree of
+     * {@link Component}s observed by the {@link #getComponentHierarchyObserver() ComponentHierarchyObserver}
+     * changes. Enabling the cache makes sense for applications with deep trees of {@link Component}s
+     * and many {@link DockElementRepresentative}s.<br>
+     * The cache is disabled by default.
+     * @param cached whether to cache the results of {@link #searchElement(Component)}
+     */
+    public void setSearchElementCached( boolean cached ){
+    	if( cached != isSearchElementCached() ){
+    		if( cached ){
+    			searchElementCache = new HashMap<Component, DockElementRepresentative>();
+    			searchElementCacheListener = new SearchElementCacheListener();
+    			getComponentHierarchyObserver().addListener( searchElementCacheListener );
+    			getRegister().addDockRegisterListener( searchElementCacheListener );
+    		}
+    		else{
+    			getComponentHierarchyObserver().removeListener( searchElementCacheListener );
+    			getRegister().removeDockRegisterListener( searchElementCacheListener );
+    			searchElementCache = null;
+    			searchElementCacheListener = null;
+    		}
+    	}
+    }
+    
+    /**
+     * Tells whether the results of {@link #searchElement(Component)} are cached.
+     * @return whether the cache is enabled
+     * @see #setSearchElementCached(boolean)
+     */
+    public boolean isSearchElementCached(){
+    	return searchElementCache != null;
+    }
+    
     /**
      * Searches all registered {@link DockElementRepresentative} whose element is <code>element</code>.
      * @param element the element whose {@link DockElementRepresentative} are searched
      * @return the representatives, may include <code>element</code> as well
      */
     public DockElementRepresentative[] getRepresentatives( DockElement element ){
-    	List<DockElementRepresentative> result = new ArrayList<DockElementRepresentative>();
-    	for( DockElementRepresentative representative : componentToDockElements.values() ){
-    		if( representative.getElement() == element ){
-    			result.add( representative );
-    		}
+    	List<DockElementRepresentative> list = dockElementsToRepresentatives.get( element );
+    	if( list == null ){
+    		return new DockElementRepresentative[]{};
     	}
-    	return result.toArray( new DockElementRepresentative[ result.size() ] );
+    	return list.toArray( new DockElementRepresentative[ list.size() ] );
     }
     
     /**
@@ -1459,6 +1565,37 @@ public class DockController {
         }
     }
     
+    /**
+     * Clears the cache of {@link DockController#searchElement(Component)} whenever the tree of {@link Component}s
+     * or the set of registered {@link Dockable}s changes.
+     * @author Benjamin Sigg
+     */
+    private class SearchElementCacheListener extends DockRegisterAdapter implements ComponentHierarchyObserverListener{
+    	private void clear(){
+    		if( searchElementCache != null ){
+    			searchElementCache.clear();
+    		}
+    	}
+    	
+    	public void added( ComponentHierarchyObserverEvent event ){
+    		clear();
+    	}
+    	
+    	public void removed( ComponentHierarchyObserverEvent event ){
+    		clear();
+    	}
+    	
+    	@Override
+    	public void dockableRegistered( DockController controller, Dockable dockable ){
+    		clear();
+    	}
+    	
+    	@Override
+    	public void dockableUnregistered( DockController controller, Dockable dockable ){
+    		clear();
+    	}
+    }
+    
     /**
      * Added to the current {@link FocusController} to track the active titles.
      */
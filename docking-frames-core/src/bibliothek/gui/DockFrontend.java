@@ -26,6 +26,7 @@
 
 package bibliothek.gui;
 
+import java.awt.EventQueue;
 import java.awt.Window;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -37,6 +38,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -67,9 +69,11 @@ import bibliothek.gui.dock.frontend.DockFrontendExtension;
 import bibliothek.gui.dock.frontend.DockFrontendInternals;
 import bibliothek.gui.dock.frontend.DockFrontendPerspective;
 import bibliothek.gui.dock.frontend.FrontendEntry;
+import bibliothek.gui.dock.frontend.FrontendSnapshot;
 import bibliothek.gui.dock.frontend.FrontendPerspectiveCache;
 import bibliothek.gui.dock.frontend.LayoutChangeStrategy;
 import bibliothek.gui.dock.frontend.MissingDockableStrategy;
+import bibliothek.gui.dock.frontend.PreparedLayoutCache;
 import bibliothek.gui.dock.frontend.Setting;
 import bibliothek.gui.dock.frontend.SettingsBlop;
 import bibliothek.gui.dock.frontend.VetoManager;
@@ -95,6 +99,7 @@ import bibliothek.gui.dock.station.split.SplitDockPropertyFactory;
 import bibliothek.gui.dock.station.split.SplitDockStationFactory;
 import bibliothek.gui.dock.station.stack.StackDockPropertyFactory;
 import bibliothek.gui.dock.station.stack.StackDockStationFactory;
+import bibliothek.gui.dock.station.support.PlaceholderStrategy;
 import bibliothek.gui.dock.util.DirectWindowProvider;
 import bibliothek.gui.dock.util.DockProperties;
 import bibliothek.gui.dock.util.DockUtilities;
@@ -108,8 +113,11 @@ import bibliothek.util.Todo;
 import bibliothek.util.Todo.Compatibility;
 import bibliothek.util.Todo.Priority;
 import bibliothek.util.Version;
+import bibliothek.util.VersionedDataOutputStream;
 import bibliothek.util.xml.XAttribute;
 import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
 import bibliothek.util.xml.XException;
 
 /**
@@ -197,6 +205,17 @@ public class DockFrontend {
     /** A map of all known settings */
     private Map<String, Setting> settings = new HashMap<String, Setting>();
     
+    /** The resolved layouts of the known settings */
+    private PreparedLayoutCache preparedLayouts = new PreparedLayoutCache();
+    
+    /** The prepared layouts depend on the {@link PlaceholderStrategy}, they are discarded if the strategy changes */
+    private PropertyValue<PlaceholderStrategy> placeholderStrategy = new PropertyValue<PlaceholderStrategy>( PlaceholderStrategy.PLACEHOLDER_STRATEGY ){
+    	@Override
+    	protected void valueChanged( PlaceholderStrategy oldValue, PlaceholderStrategy newValue ){
+    		preparedLayouts.clear();
+    	}
+    };
+    
     /** A list of observers */
     private List<DockFrontendListener> listeners = new ArrayList<DockFrontendListener>();
     
@@ -217,6 +236,9 @@ public class DockFrontend {
     /** algorithm for changing the layout of this frontend */
     private LayoutChangeStrategy layoutChangeStrategy = new DefaultLayoutChangeStrategy();
     
+    /** the version of the binary format used by {@link #write(DataOutputStream)} */
+    private Version writeFormat = Version.VERSION_1_1_2a;
+    
     /**
      * Tells whether to show the hide-action on hideable dockables or not
      */
@@ -319,6 +341,7 @@ public class DockFrontend {
         
         this.controller = controller;
         controller.setRootWindowProvider( owner );
+        placeholderStrategy.setProperties( controller );
         
         veto = new VetoManager( this );
         
@@ -389,6 +412,8 @@ public class DockFrontend {
      * can be removed by the garbage collector.
      */
     public void kill(){
+    	placeholderStrategy.setProperties( (DockController)null );
+    	preparedLayouts.clear();
     	controller.kill();
     	
     	for( DockFrontendExtension extension : extensions ){
@@ -453,6 +478,7 @@ public class DockFrontend {
     		throw new IllegalArgumentException( "factory must not be null" );
     	
         dockFactories.add( factory );
+        preparedLayouts.clear();
         fillMissing( factory );
     }
 
@@ -484,6 +510,7 @@ public class DockFrontend {
         dockFactories.add( factory );
         if( backup )
             backupDockFactories.add( factory );
+        preparedLayouts.clear();
         fillMissing( factory );
     }
     
@@ -501,6 +528,7 @@ public class DockFrontend {
             throw new IllegalArgumentException( "factory must not be null" );
         
         backupDockFactories.add( factory );
+        preparedLayouts.clear();
         fillMissing( factory );
     }
     
@@ -514,6 +542,7 @@ public class DockFrontend {
             throw new IllegalArgumentException( "factory must not be null" );
         
         adjacentDockFactories.add( factory );
+        preparedLayouts.clear();
     }
     
     /**
@@ -524,6 +553,7 @@ public class DockFrontend {
      */
     public void unregisterFactory( DockFactory<?,?,?> factory ){
         dockFactories.remove( factory );
+        preparedLayouts.clear();
     }
     
     /**
@@ -532,6 +562,7 @@ public class DockFrontend {
      */
     public void unregisterBackupFactory( DockFactory<?,?,?> factory ){
         backupDockFactories.remove( factory );
+        preparedLayouts.clear();
     }
     
     /**
@@ -540,6 +571,7 @@ public class DockFrontend {
      */
     public void unregisterAdjacentFactory( AdjacentDockFactory<?> factory ){
         adjacentDockFactories.remove( factory );
+        preparedLayouts.clear();
     }
     
     /**
@@ -647,6 +679,7 @@ public class DockFrontend {
     	if( strategy == null )
     		throw new IllegalArgumentException( "strategy must not be null" );
 		this.layoutChangeStrategy = strategy;
+		preparedLayouts.clear();
 	}
     
     /**
@@ -657,6 +690,30 @@ public class DockFrontend {
 		return layoutChangeStrategy;
 	}
     
+    /**
+     * Sets the version of the binary format that is used by {@link #write(DataOutputStream)} and 
+     * {@link #writeBlop(SettingsBlop, DataOutputStream)}. The default format cannot be read by versions of
+     * this library released before 1.1.2a. Applications that have to share their files with older versions
+     * can select an older format, e.g. {@link Version#VERSION_1_1_1a}. See {@link DockSituation#setWriteFormat(Version)}.<br>
+     * Reading is not affected by this property, all formats can always be read.
+     * @param writeFormat the version of the format, not <code>null</code>
+     */
+    public void setWriteFormat( Version writeFormat ){
+    	if( writeFormat == null ){
+    		throw new IllegalArgumentException( "writeFormat must not be null" );
+    	}
+		this.writeFormat = writeFormat;
+	}
+    
+    /**
+     * Gets the version of the binary format that is used to write {@link Setting}s.
+     * @return the version, not <code>null</code>
+     * @see #setWriteFormat(Version)
+     */
+    public Version getWriteFormat(){
+		return writeFormat;
+	}
+    
     /**
      * Creates a new {@link PropertyTransformer} that can be used to read and write
      * {@link DockableProperty}s that are associated with this {@link DockFrontend}.
@@ -1107,7 +1164,10 @@ public class DockFrontend {
     	if( setting == null ){
     		throw new IllegalArgumentException( "setting is null" );
     	}
-    	settings.put( name, setting );
+    	Setting old = settings.put( name, setting );
+    	if( old != null && old != setting ){
+    		preparedLayouts.remove( old );
+    	}
     }
     
     /**
@@ -1560,6 +1620,60 @@ public class DockFrontend {
         fireLoaded( name );
     }
     
+    /**
+     * Resolves the setting <code>name</code> without applying it. The resolved layout is cached, a later call to
+     * {@link #load(String, boolean)} with the same arguments does not have to resolve the setting again. The cache
+     * is cleared whenever a factory or the {@link PlaceholderStrategy} changes.
+     * @param name the name of the setting
+     * @param entry the value that will be used to {@link #load(String, boolean) load} the setting
+     * @throws IllegalArgumentException if no setting <code>name</code> could be found
+     * @see #prepareLater(boolean)
+     */
+    public void prepare( String name, boolean entry ){
+    	if( name == null )
+    		throw new IllegalArgumentException( "name must not be null" );
+    	
+    	Setting setting = settings.get( name );
+        if( setting == null )
+            throw new IllegalArgumentException( "Unknown setting \""+ name +"\"");
+        
+        try{
+        	layoutChangeStrategy.prepareLayout( new Internals(), setting, entry );
+        }
+        catch( IOException e ){
+            throw new IllegalArgumentException( "Cannot prepare Setting", e );
+        }
+        catch( XException e ){
+            throw new IllegalArgumentException( "Cannot prepare Setting", e );
+        }
+    }
+    
+    /**
+     * Calls {@link #prepare(String, boolean)} for all the settings that are currently known. Each setting is
+     * prepared by its own task, the tasks are queued one after the other on the <code>EventDispatchThread</code>. 
+     * Clients can call this method at startup, after all factories and elements are registered, to resolve the
+     * settings while the application is idle.
+     * @param entry the value that will be used to {@link #load(String, boolean) load} the settings
+     */
+    public void prepareLater( final boolean entry ){
+    	final LinkedList<String> names = new LinkedList<String>( settings.keySet() );
+    	EventQueue.invokeLater( new Runnable(){
+			public void run(){
+				String name = names.poll();
+				if( name != null ){
+					try{
+						if( settings.containsKey( name )){
+							prepare( name, entry );
+						}
+					}
+					finally{
+						EventQueue.invokeLater( this );
+					}
+				}
+			}
+		});
+    }
+    
     /**
      * Creates a new {@link Setting} which describes the current set of
      * properties of this frontend. The setting contains information about
@@ -1926,8 +2040,11 @@ public class DockFrontend {
     	if( name == null )
     		throw new IllegalArgumentException( "name must not be null" );
     	
-        boolean deleted = settings.remove( name ) != null;
+        Setting setting = settings.remove( name );
+        boolean deleted = setting != null;
         if( deleted ){
+        	preparedLayouts.remove( setting );
+        	
         	if( name.equals( currentSetting ))
         		currentSetting = null;
         	
@@ -1953,6 +2070,10 @@ public class DockFrontend {
      * @throws IOException if there are any problems
      */
     public void writeBlop( SettingsBlop blop, DataOutputStream out ) throws IOException{
+    	if( Version.VERSION_1_1_2a.compareTo( writeFormat ) > 0 && !(out instanceof VersionedDataOutputStream) ){
+    		out = new VersionedDataOutputStream( out, writeFormat );
+    	}
+    	
     	Version.write( out, Version.VERSION_1_1_1a );
     	
     	String currentSetting = blop.getCurrentName();
@@ -1985,6 +2106,7 @@ public class DockFrontend {
     protected void write( Setting setting, boolean entry, DataOutputStream out ) throws IOException{
     	Internals internals = new Internals();
         DockSituation situation = layoutChangeStrategy.createSituation( internals, entry );
+        situation.setWriteFormat( writeFormat );
         PropertyTransformer properties = layoutChangeStrategy.createTransformer( internals );
         setting.write( situation, properties, entry, out );
     }
@@ -2112,6 +2234,68 @@ public class DockFrontend {
         setting.writeXML( situation, properties, entry, element );
     }
     
+    /**
+     * Writes all properties of this frontend into <code>writer</code>. The output is the same as the output
+     * of {@link #writeXML(XElement)}, but the settings are written one after the other.
+     * @param writer the writer to write into, the current element of <code>writer</code> is the parent
+     * of the settings
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeXML( XElementWriter writer ) throws IOException{
+    	writeBlopXML( writeBlop(), writer );
+    }
+    
+    /**
+     * Writes all the {@link Setting}s of <code>blop</code> into <code>writer</code>, this
+     * method does use the factories installed on this {@link DockFrontend}, but does not
+     * change any properties of the frontend. The output is the same as the output of 
+     * {@link #writeBlopXML(SettingsBlop, XElement)}.
+     * @param blop the settings to write
+     * @param writer the writer to write into, the current element of <code>writer</code> is the parent
+     * of the settings
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeBlopXML( SettingsBlop blop, XElementWriter writer ) throws IOException{
+    	String[] names = blop.getNames();
+    	
+    	if( names.length > 0 ){
+    		writer.start( new XElement( "settings" ) );
+            for( String name : names ){
+            	XElement xsetting = new XElement( "setting" );
+                xsetting.addString( "name", name );
+                writer.start( xsetting );
+                writeXML( blop.getSetting( name ), true, writer );
+                writer.end();
+            }
+            writer.end();
+        }
+        
+        XElement xcurrent = new XElement( "current" );
+        String current = blop.getCurrentName();
+        if( current != null )
+            xcurrent.addString( "name", current );
+        
+        writer.start( xcurrent );
+        writeXML( blop.getCurrentSetting(), false, writer );
+        writer.end();
+    }
+    
+    /**
+     * Calls {@link Setting#writeXML(DockSituation, PropertyTransformer, boolean, XElementWriter)}.
+     * @param setting the setting to write
+     * @param entry whether <code>setting</code> is an ordinary entry, or
+     * the final setting that contains more data.
+     * @param writer the writer to write into, the current element of <code>writer</code> represents
+     * <code>setting</code>
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    protected void writeXML( Setting setting, boolean entry, XElementWriter writer ) throws IOException{
+    	Internals internals = new Internals();
+        DockSituation situation = layoutChangeStrategy.createSituation( internals, entry );
+        PropertyTransformer properties = layoutChangeStrategy.createTransformer( internals );
+        setting.writeXML( situation, properties, entry, writer );
+    }
+    
     /**
      * Reads the contents of this frontend from an xml element. All existing settings
      * are deleted (see {@link #deleteAll()}) by this method.
@@ -2180,6 +2364,92 @@ public class DockFrontend {
         return setting;
     }
     
+    /**
+     * Reads the contents of this frontend from <code>reader</code>, the settings are read one after
+     * the other. All existing settings are deleted (see {@link #deleteAll()}) by this method.
+     * @param reader the reader to read from, all the remaining children of its current element are read
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public void readXML( XElementReader reader ) throws IOException{
+    	readXML( reader, false );
+    }
+    
+    /**
+     * Reads the contents of this frontend from <code>reader</code>, the settings are read one after
+     * the other.
+     * @param reader the reader to read from, all the remaining children of its current element are read
+     * @param keepExistingSettings whether to keep or to delete (see {@link #deleteAll()}) the
+     * existing settings.
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public void readXML( XElementReader reader, boolean keepExistingSettings ) throws IOException{
+    	readBlop( readBlopXML( reader ), keepExistingSettings );
+    }
+    
+    /**
+     * Reads the contents of <code>reader</code> using all the factories installed on this
+     * {@link DockFrontend}, without actually changing any property of this frontend. This
+     * method reads the format of {@link #readBlopXML(XElement)}.
+     * @param reader the reader to read from, all the remaining children of its current element are read
+     * @return all the layouts that were read
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public SettingsBlop readBlopXML( XElementReader reader ) throws IOException{
+    	SettingsBlop blop = new SettingsBlop();
+    	
+    	XElement xelement = reader.start();
+    	while( xelement != null ){
+    		if( xelement.getName().equals( "settings" )){
+    			XElement xsetting = reader.start();
+    			while( xsetting != null ){
+    				if( xsetting.getName().equals( "setting" )){
+    					String key = xsetting.getString( "name" );
+    					Setting setting = readXML( true, reader );
+    					blop.put( key, setting );
+    				}
+    				else{
+    					reader.readChildren( xsetting );
+    				}
+    				xsetting = reader.start();
+    			}
+    		}
+    		else if( xelement.getName().equals( "current" )){
+    			XAttribute xname = xelement.getAttribute( "name" );
+                String name = null;
+                if( xname != null ){
+                	name = xname.getString();
+                }
+                
+                blop.setCurrent( name, readXML( false, reader ) );
+    		}
+    		else{
+    			reader.readChildren( xelement );
+    		}
+    		xelement = reader.start();
+    	}
+    	return blop;
+    }
+    
+    /**
+     * Calls {@link #createSetting()} and then
+     * {@link Setting#readXML(DockSituation, PropertyTransformer, boolean, XElementReader)}.
+     * @param entry whether the set of properties is used as ordinary entry,
+     * or contains more data than usual.
+     * @param reader the reader to read from, the current element of <code>reader</code> contains
+     * the data for the new setting
+     * @return the new setting
+     * @throws IOException if <code>reader</code> throws an exception
+     * @see #createSetting()
+     */
+    protected Setting readXML( boolean entry, XElementReader reader ) throws IOException{
+        Setting setting = createSetting();
+        Internals internals = new Internals();
+        DockSituation situation = layoutChangeStrategy.createSituation( internals, entry );
+        PropertyTransformer properties = layoutChangeStrategy.createTransformer( internals );
+        setting.readXML( situation, properties, entry, reader );
+        return setting;
+    }
+    
     /**
      * Stores all the current {@link Setting}s of this {@link DockFrontend} in a new {@link SettingsBlop}.
      * @return the blop that contains all the settings of this frontend
@@ -2193,6 +2463,23 @@ public class DockFrontend {
     	return blop;
     }
     
+    /**
+     * Creates a snapshot of all the current {@link Setting}s of this {@link DockFrontend}. The layouts are
+     * converted into {@link DockLayoutComposition}s by this method, but they are only encoded when
+     * the snapshot is written. This method has to be called from the <code>EventDispatchThread</code>,
+     * the snapshot can be written by any thread.
+     * @return the new snapshot
+     */
+    public FrontendSnapshot createSnapshot(){
+    	Internals internals = new Internals();
+    	DockSituation entrySituation = layoutChangeStrategy.createSituation( internals, true );
+    	PropertyTransformer entryTransformer = layoutChangeStrategy.createTransformer( internals );
+    	DockSituation finalSituation = layoutChangeStrategy.createSituation( internals, false );
+    	PropertyTransformer finalTransformer = layoutChangeStrategy.createTransformer( internals );
+    	
+    	return new FrontendSnapshot( writeBlop(), writeFormat, entrySituation, entryTransformer, finalSituation, finalTransformer );
+    }
+    
     /**
      * Reads and applies the {@link Setting}s stored in <code>blop</code>.
      * @param blop the settings to read
@@ -2503,6 +2790,10 @@ public class DockFrontend {
 		public VetoManager getVetos(){
 			return veto;
 		}
+		
+		public PreparedLayoutCache getPreparedLayouts(){
+			return preparedLayouts;
+		}
     }
     
     /**
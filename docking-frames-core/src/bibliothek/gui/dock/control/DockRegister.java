@@ -30,11 +30,14 @@ import java.util.*;
 import bibliothek.gui.DockController;
 import bibliothek.gui.DockStation;
 import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.event.DockRegisterBatchEvent;
+import bibliothek.gui.dock.event.DockRegisterBatchListener;
 import bibliothek.gui.dock.event.DockRegisterListener;
 import bibliothek.gui.dock.event.DockStationAdapter;
 import bibliothek.gui.dock.event.DockStationListener;
 import bibliothek.gui.dock.station.LayoutLocked;
 import bibliothek.gui.dock.util.DockUtilities;
+import bibliothek.util.ListenerList;
 
 /**
  * A set of all {@link bibliothek.gui.Dockable Dockables} and
@@ -55,7 +58,10 @@ public class DockRegister {
     private DockController controller;
     
     /** a list of registerListeners which are informed whenever the registered dockables and stations change */
-    private List<DockRegisterListener> registerListeners = new ArrayList<DockRegisterListener>();
+    private ListenerList<DockRegisterListener> registerListeners = new ListenerList<DockRegisterListener>( DockRegisterListener.class );
+    
+    /** listeners which are informed once about a whole batch of changes */
+    private ListenerList<DockRegisterBatchListener> batchListeners = new ListenerList<DockRegisterBatchListener>( DockRegisterBatchListener.class );
     
     /** an observer of the stations */
     private StationListener stationListener = new StationListener();
@@ -68,6 +74,20 @@ public class DockRegister {
 	
 	/** the order in which the elements of {@link #changeMap} first appeared */
 	private LinkedList<Dockable> changeQueue = new LinkedList<Dockable>();
+	
+	/** how many operations are currently collecting changes for the {@link #batchListeners} */
+	private int batchDepth = 0;
+	
+	/** the {@link Dockable}s that were registered in the current batch */
+	private Set<Dockable> batchAddedDockables = new LinkedHashSet<Dockable>();
+	/** the {@link Dockable}s that were unregistered in the current batch */
+	private Set<Dockable> batchRemovedDockables = new LinkedHashSet<Dockable>();
+	/** the {@link Dockable}s that were registered and unregistered, or the other way round, in the current batch */
+	private Set<Dockable> batchCycledDockables = new LinkedHashSet<Dockable>();
+	/** the {@link DockStation}s that were registered in the current batch */
+	private Set<DockStation> batchAddedStations = new LinkedHashSet<DockStation>();
+	/** the {@link DockStation}s that were unregistered in the current batch */
+	private Set<DockStation> batchRemovedStations = new LinkedHashSet<DockStation>();
     
     /**
      * Creates a new register.
@@ -108,6 +128,29 @@ public class DockRegister {
     	registerListeners.remove( listener );
     }
     
+    /**
+     * Registers a listener which will be informed about all the changes of this register, but unlike a
+     * {@link DockRegisterListener} the listener is called only once per batch of changes. A batch
+     * ends when this register is no longer {@link #setStalled(boolean) stalled}, or when a root
+     * station was {@link #add(DockStation) added} or {@link #remove(DockStation) removed}.
+     * @param listener the new listener
+     */
+    public void addDockRegisterBatchListener( DockRegisterBatchListener listener ){
+    	if( listener == null ){
+    		throw new IllegalArgumentException( "listener must not be null" );
+    	}
+    	batchListeners.add( listener );
+    }
+    
+    /**
+     * Removes a listener from this register.
+     * @param listener the listener to remove
+     * @see #addDockRegisterBatchListener(DockRegisterBatchListener)
+     */
+    public void removeDockRegisterBatchListener( DockRegisterBatchListener listener ){
+    	batchListeners.remove( listener );
+    }
+    
     /**
      * Removes all registerListeners and connections to the stations and dockables
      * known to this register.
@@ -177,16 +220,22 @@ public class DockRegister {
                 other.getRegister().remove( station );
             }
             
-            DockUtilities.visit( station, new DockUtilities.DockVisitor(){
-                @Override
-                public void handleDockable( Dockable dockable ) {
-                    register( dockable );
-                }
-                @Override
-                public void handleDockStation( DockStation station ) {
-                    register( station, requiresListeners );
-                }
-            });
+            beginBatch();
+            try{
+	            DockUtilities.visit( station, new DockUtilities.DockVisitor(){
+	                @Override
+	                public void handleDockable( Dockable dockable ) {
+	                    register( dockable );
+	                }
+	                @Override
+	                public void handleDockStation( DockStation station ) {
+	                    register( station, requiresListeners );
+	                }
+	            });
+            }
+            finally{
+            	endBatch();
+            }
         }
     }
     
@@ -196,42 +245,56 @@ public class DockRegister {
      */
     public void remove( DockStation station ){
         if( stations.contains( station )){
-        	setProtected( station, false );
-            Dockable dock = station.asDockable();
-            if( dock != null ){
-                DockStation parent = dock.getDockParent();
-                if( parent != null )
-                    parent.drag( dock );
-            }
-            
-            DockUtilities.visit( station, new DockUtilities.DockVisitor(){
-            	private Set<DockStation> ignored = new HashSet<DockStation>();
-            	
-                @Override
-                public void handleDockable( Dockable dockable ) {
-                	DockStation station = dockable.asDockStation();
-                	if( station == null || !isProtected( station )){
-	                	for( DockStation parent : ignored ){
-	                		if( DockUtilities.isAncestor( parent, dockable )){
-	                			return;
-	                		}
-	                	}
-	                    unregister( dockable );
-                	}
-                }
-                @Override
-                public void handleDockStation( DockStation station ) {
-                	if( isProtected( station )){
-                		ignored.add( station );
-                	}
-                	else{
-                		unregister( station );
-                	}
-                }
-            });
+        	beginBatch();
+        	try{
+        		removeStation( station );
+        	}
+        	finally{
+        		endBatch();
+        	}
         }
     }
     
+    /**
+     * Removes <code>station</code>, which is known to be registered at this register, and all its children.
+     * @param station the station to remove
+     */
+    private void removeStation( DockStation station ){
+    	setProtected( station, false );
+        Dockable dock = station.asDockable();
+        if( dock != null ){
+            DockStation parent = dock.getDockParent();
+            if( parent != null )
+                parent.drag( dock );
+        }
+        
+        DockUtilities.visit( station, new DockUtilities.DockVisitor(){
+        	private Set<DockStation> ignored = new HashSet<DockStation>();
+        	
+            @Override
+            public void handleDockable( Dockable dockable ) {
+            	DockStation station = dockable.asDockStation();
+            	if( station == null || !isProtected( station )){
+	            	for( DockStation parent : ignored ){
+	            		if( DockUtilities.isAncestor( parent, dockable )){
+	            			return;
+	            		}
+	            	}
+	                unregister( dockable );
+            	}
+            }
+            @Override
+            public void handleDockStation( DockStation station ) {
+            	if( isProtected( station )){
+            		ignored.add( station );
+            	}
+            	else{
+            		unregister( station );
+            	}
+            }
+        });
+    }
+    
     /**
      * Gest the number of stations that are registered.
      * @return the number of stations
@@ -347,6 +410,17 @@ public class DockRegister {
             dockable.setController( controller );
             
             fireDockableRegistered( dockable );
+            
+            if( !batchListeners.isEmpty() ){
+            	beginBatch();
+            	if( batchRemovedDockables.remove( dockable )){
+            		batchCycledDockables.add( dockable );
+            	}
+            	else if( !batchCycledDockables.contains( dockable )){
+            		batchAddedDockables.add( dockable );
+            	}
+            	endBatch();
+            }
         }
     }
     
@@ -361,6 +435,17 @@ public class DockRegister {
             dockable.setController( null );
             
             fireDockableUnregistered( dockable );
+            
+            if( !batchListeners.isEmpty() ){
+            	beginBatch();
+            	if( batchAddedDockables.remove( dockable )){
+            		batchCycledDockables.add( dockable );
+            	}
+            	else if( !batchCycledDockables.contains( dockable )){
+            		batchRemovedDockables.add( dockable );
+            	}
+            	endBatch();
+            }
         }
     }
     
@@ -387,6 +472,14 @@ public class DockRegister {
             }
             
             fireDockStationRegistered( station );
+            
+            if( !batchListeners.isEmpty() ){
+            	beginBatch();
+            	if( !batchRemovedStations.remove( station )){
+            		batchAddedStations.add( station );
+            	}
+            	endBatch();
+            }
         }
     }
     
@@ -402,15 +495,72 @@ public class DockRegister {
             station.removeDockStationListener( stationListener );
             
             fireDockStationUnregistered( station );
+            
+            if( !batchListeners.isEmpty() ){
+            	beginBatch();
+            	if( !batchAddedStations.remove( station )){
+            		batchRemovedStations.add( station );
+            	}
+            	endBatch();
+            }
         }
     }
 
     /**
-     * Gets a list of all registerListeners which are registered.
+     * Gets a list of all registerListeners which are registered. The array is shared and
+     * must not be modified.
      * @return the list of registerListeners
      */
     protected DockRegisterListener[] listDockRegisterListeners(){
-    	return registerListeners.toArray( new DockRegisterListener[ registerListeners.size() ] );
+    	return registerListeners.getListeners();
+    }
+    
+    /**
+     * Starts collecting changes for the {@link DockRegisterBatchListener}s. Calls to this method
+     * can be nested, the changes are forwarded once the last batch ends.
+     * @see #endBatch()
+     */
+    private void beginBatch(){
+    	batchDepth++;
+    }
+    
+    /**
+     * Ends a batch that was started by {@link #beginBatch()}. If this was the outermost batch, then
+     * all the collected changes are forwarded to the {@link DockRegisterBatchListener}s.
+     */
+    private void endBatch(){
+    	batchDepth--;
+    	if( batchDepth == 0 ){
+    		if( batchAddedDockables.isEmpty() && batchRemovedDockables.isEmpty() && batchCycledDockables.isEmpty() &&
+    				batchAddedStations.isEmpty() && batchRemovedStations.isEmpty() ){
+    			return;
+    		}
+    		
+    		DockRegisterBatchEvent event = new DockRegisterBatchEvent( controller,
+    				batchAddedDockables.toArray( new Dockable[ batchAddedDockables.size() ] ),
+    				batchRemovedDockables.toArray( new Dockable[ batchRemovedDockables.size() ] ),
+    				batchCycledDockables.toArray( new Dockable[ batchCycledDockables.size() ] ),
+    				batchAddedStations.toArray( new DockStation[ batchAddedStations.size() ] ),
+    				batchRemovedStations.toArray( new DockStation[ batchRemovedStations.size() ] ));
+    		
+    		batchAddedDockables.clear();
+    		batchRemovedDockables.clear();
+    		batchCycledDockables.clear();
+    		batchAddedStations.clear();
+    		batchRemovedStations.clear();
+    		
+    		fireBatch( event );
+    	}
+    }
+    
+    /**
+     * Informs all {@link DockRegisterBatchListener}s about a batch of changes.
+     * @param event the changes, not empty
+     */
+    protected void fireBatch( DockRegisterBatchEvent event ){
+    	for( DockRegisterBatchListener listener : batchListeners.getListeners() ){
+    		listener.changed( event );
+    	}
     }
     
     /**
@@ -562,6 +712,7 @@ public class DockRegister {
             if( !firing ){
                 try{
                     firing = true;
+                    beginBatch();
                     
                     while( !changeQueue.isEmpty() ){
                     	Dockable next = changeQueue.removeFirst();
@@ -577,12 +728,18 @@ public class DockRegister {
                     		case ADDED_AND_REMOVED:
                     		case REMOVED_AND_ADDED:
                     			fireStalledChange( next );
+                    			if( !batchListeners.isEmpty() ){
+                    				batchAddedDockables.remove( next );
+                    				batchRemovedDockables.remove( next );
+                    				batchCycledDockables.add( next );
+                    			}
                     			break;
                     	}
                     }
                 }
                 finally{
                     firing = false;
+                    endBatch();
                 }
             }
         }
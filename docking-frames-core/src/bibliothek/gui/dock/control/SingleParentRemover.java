@@ -32,7 +32,8 @@ import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.accept.DockAcceptance;
 import bibliothek.gui.dock.control.relocator.DockRelocatorEvent;
 import bibliothek.gui.dock.control.relocator.VetoableDockRelocatorAdapter;
-import bibliothek.gui.dock.event.DockRegisterAdapter;
+import bibliothek.gui.dock.event.DockRegisterBatchEvent;
+import bibliothek.gui.dock.event.DockRegisterBatchListener;
 
 /**
  * An observer of a {@link DockController}. The remover
@@ -63,7 +64,7 @@ public class SingleParentRemover{
     	this.controller = controller;
     	
         controller.getRelocator().addVetoableDockRelocatorListener( dockRelocatorObserver );
-        controller.getRegister().addDockRegisterListener( dockRegisterObserver );
+        controller.getRegister().addDockRegisterBatchListener( dockRegisterObserver );
         testAll( controller );
     }
     
@@ -77,7 +78,7 @@ public class SingleParentRemover{
     		throw new IllegalArgumentException( "controller is not installed" );
     	}
         controller.getRelocator().removeVetoableDockRelocatorListener( dockRelocatorObserver );
-        controller.getRegister().removeDockRegisterListener( dockRegisterObserver );
+        controller.getRegister().removeDockRegisterBatchListener( dockRegisterObserver );
         this.controller = null;
     }
     
@@ -199,34 +200,26 @@ public class SingleParentRemover{
      * if the structure of the dock-tree changes.
      * @author Benjamin Sigg
      */
-    private class DockRegisterObserver extends DockRegisterAdapter{
-        @Override
-        public void dockableCycledRegister( DockController controller, Dockable dockable ) {
-            testAll( controller );
-        }
-        
-        @Override
-        public void dockableRegistered( DockController controller, Dockable dockable ){
-        	if( !controller.getRelocator().isOnPut() ){
-                testAll( controller );
-            }
-        }
-        
-        @Override
-        public void dockableUnregistered( DockController controller, Dockable dockable ) {
-            if( !controller.getRelocator().isOnPut() ){
-                testAll( controller );
-            }
-        }
-        
-        @Override
-        public void dockStationRegistered( final DockController controller, DockStation station ){
-        	controller.getHierarchyLock().onRelease( new Runnable(){
-				public void run(){
-					testAll( controller );	
-				}
-			});
-        }
+    private class DockRegisterObserver implements DockRegisterBatchListener{
+    	public void changed( DockRegisterBatchEvent event ){
+    		final DockController controller = event.getController();
+    		
+    		boolean test = event.getCycledDockables().length > 0;
+    		if( !test && event.hasDockableChanges() ){
+    			test = !controller.getRelocator().isOnPut();
+    		}
+    		if( test ){
+    			testAll( controller );
+    		}
+    		
+    		if( event.getAddedStations().length > 0 ){
+    			controller.getHierarchyLock().onRelease( new Runnable(){
+					public void run(){
+						testAll( controller );	
+					}
+				});
+    		}
+    	}
     }
     
     /**
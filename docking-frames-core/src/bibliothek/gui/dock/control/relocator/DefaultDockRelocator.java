@@ -32,12 +32,14 @@ import java.awt.Container;
 import java.awt.EventQueue;
 import java.awt.GridLayout;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.Window;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,8 +67,8 @@ import bibliothek.gui.dock.event.DockControllerRepresentativeListener;
 import bibliothek.gui.dock.station.StationDragOperation;
 import bibliothek.gui.dock.station.StationDropItem;
 import bibliothek.gui.dock.station.StationDropOperation;
-import bibliothek.gui.dock.station.layer.DockStationDropLayerFactory;
-import bibliothek.gui.dock.station.layer.OrderedLayerCollection;
+import bibliothek.gui.dock.station.StationDropRegion;
+import bibliothek.gui.dock.station.layer.DropLayerIndex;
 import bibliothek.gui.dock.title.DockTitle;
 import bibliothek.gui.dock.util.DockUtilities;
 import bibliothek.gui.dock.util.PropertyKey;
@@ -93,6 +95,17 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
 			new PropertyKey<Boolean>( "dock.default.relocator.autodrop", 
 					new ConstantPropertyFactory<Boolean>( true ), true );
 	
+	/**
+	 * If <code>true</code>, then {@link StationDropOperation}s which implement {@link StationDropRegion} are reused
+	 * as long as the mouse does not leave their region. Reusing an operation means that neither
+	 * {@link DockStation#prepareDrop(StationDropItem)} nor {@link VetoableDockRelocatorListener#searched(DockRelocatorEvent)}
+	 * are called again.<br>
+	 * The default value is <code>true</code>.
+	 */
+	public static final PropertyKey<Boolean> REUSE_DROP_REGIONS =
+			new PropertyKey<Boolean>( "dock.default.relocator.reuseDropRegions",
+					new ConstantPropertyFactory<Boolean>( true ), true );
+	
 	/** Path of an {@link ExtensionName} that adds new {@link Merger}s */
 	public static final Path MERGE_EXTENSION = new Path( "dock.merger" );
 	
@@ -125,6 +138,19 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
     /** information about the last dragged dockable */
     private StationDropItem lastItem;
     
+    /** spatial index of all the possible targets of the current drag and drop operation */
+    private DropLayerIndex dropTargets;
+    
+    /** the operations of the current drag and drop operation which are valid for an entire region */
+    private Map<DockStation, DropRegionEntry> dropRegions = new HashMap<DockStation, DropRegionEntry>();
+    
+    /** decides which stations are stored in {@link #dropTargets} */
+    private DropLayerIndex.Filter dropTargetFilter = new DropLayerIndex.Filter(){
+    	public boolean isCandidate( DockStation station, Dockable moved ){
+    		return isDropTarget( station, moved );
+    	}
+    };
+    
     /** The {@link DockControllerRepresentativeListener} that creates all the {@link MouseListener}s */
     private Listener listeners;
     
@@ -137,6 +163,8 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
 	public DefaultDockRelocator( DockController controller, ControllerSetupCollection setup ){
 		super( controller );
 		
+		dropTargets = new DropLayerIndex( controller );
+		
 		final MultiMerger merger = new MultiMerger();
 		merger.add( new StackMerger() );
 		merger.add( new TabMerger() );
@@ -299,6 +327,11 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
         		operation = inserter.before( inserterSource );
         	}
         	if( operation == null ){
+        		RelocateOperation reused = reuseDropRegion( station, item );
+        		if( reused != null ){
+        			return reused;
+        		}
+        		
         		operation = station.prepareDrop( item );
         		if( inserter != null ){
         			inserterSource.setOperation( operation );
@@ -335,6 +368,9 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
 	        		return null;
 	        	}
 	        	if( result != null ){
+	        		if( operation instanceof StationDropRegion ){
+	        			dropRegions.put( station, new DropRegionEntry( (StationDropRegion)operation, merge ) );
+	        		}
 	        		return result;
 	        	}
         	}
@@ -343,6 +379,34 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
         return null;
     }
     
+    /**
+     * Searches an operation that was created for <code>station</code> during the current drag and drop 
+     * operation, and whose {@link StationDropRegion#getDropRegion() region} contains the mouse.
+     * @param station the station whose operation is searched
+     * @param item the current location of the mouse and the dragged element
+     * @return a new {@link RelocateOperation} wrapping the old {@link StationDropOperation}, or <code>null</code>
+     * if {@link DockStation#prepareDrop(StationDropItem)} has to be called
+     */
+    private RelocateOperation reuseDropRegion( DockStation station, StationDropItem item ){
+    	DropRegionEntry entry = dropRegions.get( station );
+    	if( entry == null ){
+    		return null;
+    	}
+    	if( entry.operation.getItem() == item.getDockable() && getController().getProperties().get( REUSE_DROP_REGIONS ) ){
+    		Rectangle region = entry.operation.getDropRegion();
+    		if( region != null && region.contains( item.getMouseX(), item.getMouseY() )){
+    			if( entry.merge ){
+    				return new MergeOperation( getController(), getMerger(), station, entry.operation, item );
+    			}
+    			else{
+    				return new DropOperation( getController(), station, entry.operation, item );
+    			}
+    		}
+    	}
+    	dropRegions.remove( station );
+    	return null;
+    }
+    
     /**
      * Checks whether the current {@link #getMerger() Merger} can merge <code>parent</code>
      * with <code>child</code>.
@@ -399,27 +463,42 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
      * @return a list of stations
      */
     protected List<DockStation> listStationsOrdered( int x, int y, Dockable moved ){
-    	DockController controller = getController();
-    	DisablingStrategy disabling = controller.getProperties().get( DisablingStrategy.STRATEGY );
-    	DockStationDropLayerFactory dropLayerFactory = controller.getProperties().get( DockStationDropLayerFactory.DROP_LAYER_FACTORY );
+    	DisablingStrategy disabling = getController().getProperties().get( DisablingStrategy.STRATEGY );
     	
-    	OrderedLayerCollection collection = new OrderedLayerCollection( dropLayerFactory );
+    	if( disabling != null && disabling.isDisabled( moved )){
+    		return Collections.emptyList();
+    	}
+    	if( isCancelLocation( x, y, moved )){
+    		return Collections.emptyList();
+    	}
     	
-    	if( disabling == null || !disabling.isDisabled( moved )){
-	        DockStation movedStation = moved.asDockStation();
-	        if( !isCancelLocation( x, y, moved )){
-	        	for( DockStation station : controller.getRegister().listDockStations() ){
-	        		if( disabling == null || !disabling.isDisabled( station )){
-		        		if( movedStation == null || (!DockUtilities.isAncestor( movedStation, station ) && movedStation != station )){
-		        			if( station.isStationShowing() && isStationValid( station ) ){
-		        				collection.add( station );
-			                }
-			            }
-	        		}
-		        }
-	        }
+    	List<DockStation> result = dropTargets.search( x, y, moved, dropTargetFilter );
+    	for( int i = result.size()-1; i >= 0; i-- ){
+    		// the index is only updated if the stations change, but the result of the filter may change at any time
+    		if( !isDropTarget( result.get( i ), moved )){
+    			result.remove( i );
+    		}
+    	}
+    	return result;
+    }
+    
+    /**
+     * Tells whether <code>station</code> is a possible new parent for <code>moved</code>, without
+     * checking the location of the mouse.
+     * @param station the station to check
+     * @param moved the element that is dragged
+     * @return <code>true</code> if <code>station</code> should be considered during a search for a new parent
+     */
+    protected boolean isDropTarget( DockStation station, Dockable moved ){
+    	DisablingStrategy disabling = getController().getProperties().get( DisablingStrategy.STRATEGY );
+    	if( disabling != null && disabling.isDisabled( station )){
+    		return false;
+    	}
+    	DockStation movedStation = moved.asDockStation();
+    	if( movedStation != null && (movedStation == station || DockUtilities.isAncestor( movedStation, station ))){
+    		return false;
     	}
-	    return collection.sort( x, y );
+    	return station.isStationShowing() && isStationValid( station );
     }
     
     /**
@@ -641,6 +720,8 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
             movingImageWindow = null;
         }
     	lastItem = null;
+    	dropTargets.clear();
+    	dropRegions.clear();
     	
     	Dockable[] implicit = new Dockable[]{};
     	DefaultDockRelocatorEvent event = new DefaultDockRelocatorEvent( getController(), dockable, implicit, null, mouse, false );
@@ -898,6 +979,8 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
                 movingImageWindow.close();
             
             lastItem = null;
+            dropTargets.clear();
+            dropRegions.clear();
             
             if( dragOperation != null ){
             	dragOperation.canceled();
@@ -973,6 +1056,8 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
 	            movingImageWindow.close();
 	        
 	        lastItem = null;
+	        dropTargets.clear();
+	        dropRegions.clear();
 	        movingImageWindow = null;
 	        pressPointScreen = null;
 	        pressPointLocal = null;
@@ -1010,6 +1095,22 @@ public class DefaultDockRelocator extends AbstractDockRelocator{
         return window;
     }
     
+    /**
+     * An operation that remains valid as long as the mouse stays in its region.
+     * @author Benjamin Sigg
+     */
+    private static class DropRegionEntry{
+    	/** the reusable operation */
+    	private final StationDropRegion operation;
+    	/** whether {@link #operation} was wrapped into a {@link MergeOperation} */
+    	private final boolean merge;
+    	
+    	public DropRegionEntry( StationDropRegion operation, boolean merge ){
+    		this.operation = operation;
+    		this.merge = merge;
+    	}
+    }
+    
     /**
      * An implementation connecting a {@link RemoteRelocator} to the
      * enclosing {@link DefaultDockRelocator}.
@@ -26,8 +26,6 @@
 package bibliothek.gui.dock.dockable;
 
 import java.awt.EventQueue;
-import java.util.ArrayList;
-import java.util.List;
 
 import bibliothek.gui.DockStation;
 import bibliothek.gui.Dockable;
@@ -35,6 +33,7 @@ import bibliothek.gui.dock.event.DockHierarchyEvent;
 import bibliothek.gui.dock.event.DockHierarchyListener;
 import bibliothek.gui.dock.event.DockStationAdapter;
 import bibliothek.gui.dock.event.DockStationListener;
+import bibliothek.util.ListenerList;
 
 /**
  * A handler for invoking {@link DockableStateListener}s. Can be used by {@link Dockable}s.<br>
@@ -49,7 +48,7 @@ import bibliothek.gui.dock.event.DockStationListener;
  */
 public class DockableStateListenerManager {
 	/** all the listeners that are currently registered */
-	private List<DockableStateListener> listeners = new ArrayList<DockableStateListener>();
+	private ListenerList<DockableStateListener> listeners = new ListenerList<DockableStateListener>( DockableStateListener.class );
 
 	/** the currently pending events */
 	private int current = 0;
@@ -198,7 +197,7 @@ public class DockableStateListenerManager {
 	 * @return whether there is at least one listener
 	 */
 	protected boolean hasListeners(){
-		return listeners.size() > 0;
+		return !listeners.isEmpty();
 	}
 
 	/**
@@ -224,10 +223,10 @@ public class DockableStateListenerManager {
 	 */
 	private void fireNow(){
 		if( current != 0 ) {
-			if( listeners.size() > 0 ) {
+			if( !listeners.isEmpty() ) {
 				DockableStateEvent event = new DockableStateEvent( dockable, current );
 				current = 0;
-				for( DockableStateListener listener : listeners.toArray( new DockableStateListener[listeners.size()] ) ) {
+				for( DockableStateListener listener : listeners.getListeners() ) {
 					listener.changed( event );
 				}
 			}
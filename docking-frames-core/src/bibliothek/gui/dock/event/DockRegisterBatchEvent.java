@@ -0,0 +1,142 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.event;
+
+import bibliothek.gui.DockController;
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.control.DockRegister;
+
+/**
+ * Describes all the changes a {@link DockRegister} went through in one batch. A batch ends when the
+ * {@link DockRegister} is no longer {@link DockRegister#setStalled(boolean) stalled}, or when a single
+ * operation like adding or removing a root station has finished. The lists of this event are already
+ * coalesced: an element that was added and removed in the same batch is not reported as added or removed.
+ * This event cannot be modified.
+ * @author Benjamin Sigg
+ */
+public class DockRegisterBatchEvent {
+	/** the controller whose register changed */
+	private DockController controller;
+	/** the {@link Dockable}s that are now registered */
+	private Dockable[] addedDockables;
+	/** the {@link Dockable}s that are no longer registered */
+	private Dockable[] removedDockables;
+	/** the {@link Dockable}s that were added and removed, or removed and added */
+	private Dockable[] cycledDockables;
+	/** the {@link DockStation}s that are now registered */
+	private DockStation[] addedStations;
+	/** the {@link DockStation}s that are no longer registered */
+	private DockStation[] removedStations;
+	
+	/**
+	 * Creates a new event.
+	 * @param controller the controller whose register changed
+	 * @param addedDockables the {@link Dockable}s that are now registered
+	 * @param removedDockables the {@link Dockable}s that are no longer registered
+	 * @param cycledDockables the {@link Dockable}s that were added and removed, or removed and added again
+	 * @param addedStations the {@link DockStation}s that are now registered
+	 * @param removedStations the {@link DockStation}s that are no longer registered
+	 */
+	public DockRegisterBatchEvent( DockController controller, Dockable[] addedDockables, Dockable[] removedDockables, Dockable[] cycledDockables,
+			DockStation[] addedStations, DockStation[] removedStations ){
+		this.controller = controller;
+		this.addedDockables = addedDockables;
+		this.removedDockables = removedDockables;
+		this.cycledDockables = cycledDockables;
+		this.addedStations = addedStations;
+		this.removedStations = removedStations;
+	}
+	
+	/**
+	 * Gets the controller whose {@link DockRegister} changed.
+	 * @return the controller
+	 */
+	public DockController getController(){
+		return controller;
+	}
+	
+	/**
+	 * Gets all the {@link Dockable}s that were registered in this batch, in the order in which they
+	 * were registered.
+	 * @return the new {@link Dockable}s, a copy of the internal array
+	 */
+	public Dockable[] getAddedDockables(){
+		return addedDockables.clone();
+	}
+	
+	/**
+	 * Gets all the {@link Dockable}s that were unregistered in this batch, in the order in which they
+	 * were unregistered.
+	 * @return the removed {@link Dockable}s, a copy of the internal array
+	 */
+	public Dockable[] getRemovedDockables(){
+		return removedDockables.clone();
+	}
+	
+	/**
+	 * Gets all the {@link Dockable}s that were added and removed, or removed and added, in this batch. These are
+	 * the elements for which {@link DockRegisterListener#dockableCycledRegister(DockController, Dockable)} was
+	 * called, but also elements that really were registered and unregistered again. Most of them just
+	 * changed their parent. 
+	 * @return the cycled {@link Dockable}s, a copy of the internal array
+	 */
+	public Dockable[] getCycledDockables(){
+		return cycledDockables.clone();
+	}
+	
+	/**
+	 * Gets all the {@link DockStation}s that were registered in this batch.
+	 * @return the new stations, a copy of the internal array
+	 */
+	public DockStation[] getAddedStations(){
+		return addedStations.clone();
+	}
+	
+	/**
+	 * Gets all the {@link DockStation}s that were unregistered in this batch.
+	 * @return the removed stations, a copy of the internal array
+	 */
+	public DockStation[] getRemovedStations(){
+		return removedStations.clone();
+	}
+	
+	/**
+	 * Tells whether any {@link Dockable} was added, removed or cycled.
+	 * @return whether the set of {@link Dockable}s changed
+	 */
+	public boolean hasDockableChanges(){
+		return addedDockables.length > 0 || removedDockables.length > 0 || cycledDockables.length > 0;
+	}
+	
+	/**
+	 * Tells whether any {@link DockStation} was added or removed.
+	 * @return whether the set of {@link DockStation}s changed
+	 */
+	public boolean hasStationChanges(){
+		return addedStations.length > 0 || removedStations.length > 0;
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.event;
+
+import bibliothek.gui.dock.control.DockRegister;
+
+/**
+ * A listener that is added to a {@link DockRegister} and that receives all the changes of the 
+ * register combined into one event. While a {@link DockRegisterListener} is informed about each
+ * single {@link bibliothek.gui.Dockable} that is added or removed, this listener is called only
+ * once per batch, which allows clients to update their data structures in one pass.
+ * @author Benjamin Sigg
+ * @see DockRegister#addDockRegisterBatchListener(DockRegisterBatchListener)
+ */
+public interface DockRegisterBatchListener {
+	/**
+	 * Called after a batch of changes has been applied to the {@link DockRegister}. All the 
+	 * {@link DockRegisterListener}s have already been informed about the changes when this method
+	 * is called.
+	 * @param event the changes, not empty
+	 */
+	public void changed( DockRegisterBatchEvent event );
+}
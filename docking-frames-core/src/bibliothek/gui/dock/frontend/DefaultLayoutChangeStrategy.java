@@ -25,9 +25,13 @@
  */
 package bibliothek.gui.dock.frontend;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -42,7 +46,9 @@ import bibliothek.gui.DockFrontend.RootInfo;
 import bibliothek.gui.dock.DockElement;
 import bibliothek.gui.dock.DockFactory;
 import bibliothek.gui.dock.layout.AdjacentDockFactory;
+import bibliothek.gui.dock.layout.DockLayout;
 import bibliothek.gui.dock.layout.DockLayoutComposition;
+import bibliothek.gui.dock.layout.DockLayoutInfo;
 import bibliothek.gui.dock.layout.DockSituation;
 import bibliothek.gui.dock.layout.DockSituationIgnore;
 import bibliothek.gui.dock.layout.DockableProperty;
@@ -54,16 +60,28 @@ import bibliothek.gui.dock.perspective.PerspectiveStation;
 import bibliothek.gui.dock.perspective.PredefinedMap;
 import bibliothek.gui.dock.perspective.PredefinedPerspective;
 import bibliothek.gui.dock.station.support.PlaceholderStrategy;
+import bibliothek.gui.dock.util.DockUtilities;
 import bibliothek.util.xml.XException;
 
 /**
  * This default implementation of a {@link LayoutChangeStrategy} heavily depends on the methods of {@link PredefinedDockSituation}. It
- * also offers a set of methods that may be interesting for subclasses which do not use a {@link PredefinedDockSituation}.
+ * also offers a set of methods that may be interesting for subclasses which do not use a {@link PredefinedDockSituation}.<br>
+ * Before applying a new layout this strategy compares the layout of each root station with its current layout, roots
+ * whose layout does not change are neither cleaned nor rebuilt. This way switching between two layouts that differ only
+ * in some of the roots does not create new components for the other roots.<br>
+ * The resolved layouts of the roots are stored in the {@link DockFrontendInternals#getPreparedLayouts() cache} of the
+ * {@link DockFrontend}, applying the same {@link Setting} again does not require to resolve its layout again.
  * @author Benjamin Sigg
  */
 public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
 	private boolean updatingFullLayout = false;
 	
+	/** the root stations whose layout is not changed by the current call to {@link #setLayout(DockFrontendInternals, Setting, boolean)} */
+	private Set<DockStation> unchangedRoots = new HashSet<DockStation>();
+	
+	/** the resolved layouts of the roots that are used by the current call to {@link #setLayout(DockFrontendInternals, Setting, boolean)} */
+	private Map<String, PreparedLayout> preparedRoots = new HashMap<String, PreparedLayout>();
+	
 	public boolean setLayout( DockFrontendInternals frontend, Setting setting, boolean entry ) throws IOException, XException{
 		try{
 			updatingFullLayout = true;
@@ -71,7 +89,55 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
 		}
 		finally{
 			updatingFullLayout = false;
+			unchangedRoots.clear();
+			preparedRoots.clear();
+		}
+	}
+	
+	public void prepareLayout( DockFrontendInternals frontend, Setting setting, boolean entry ) throws IOException, XException{
+		DockSituation situation = createSituation( frontend, entry, true );
+		for( RootInfo info : frontend.getRoots() ){
+			prepareLayout( frontend, situation, setting, info.getName(), entry );
+		}
+	}
+	
+	/**
+	 * Gets the resolved layout of the root <code>root</code> of <code>setting</code>. The layout is read from the
+	 * {@link DockFrontendInternals#getPreparedLayouts() cache} of <code>frontend</code>, or resolved and stored in
+	 * the cache if missing.
+	 * @param frontend the caller of this method
+	 * @param situation the situation that is used to resolve the layout
+	 * @param setting the setting whose layout is resolved
+	 * @param root the name of a root station
+	 * @param entry whether the layout is a full or regular layout
+	 * @return the resolved layout or <code>null</code> if <code>setting</code> does not contain a layout for <code>root</code>
+	 * @throws IOException if the layout cannot be resolved
+	 * @throws XException if the layout cannot be resolved
+	 */
+	protected PreparedLayout prepareLayout( DockFrontendInternals frontend, DockSituation situation, Setting setting, String root, boolean entry ) throws IOException, XException{
+		DockLayoutComposition source = setting.getRoot( root );
+		if( source == null ){
+			return null;
 		}
+		
+		Set<String> keys;
+		if( situation instanceof PredefinedDockSituation ){
+			keys = ((PredefinedDockSituation)situation).getPredefinedKeys();
+		}
+		else{
+			keys = Collections.emptySet();
+		}
+		
+		PreparedLayoutCache cache = frontend.getPreparedLayouts();
+		PreparedLayout prepared = cache.get( setting, entry, root );
+		if( prepared == null || !prepared.isValid( source, keys )){
+			DockLayoutComposition layout = situation.fillMissing( source );
+			Map<String, DockableProperty> missingLocations = listEstimateLocations( situation, layout );
+			Map<String, DockLayoutComposition> missingLayouts = listLayouts( situation, layout );
+			prepared = new PreparedLayout( root, source, layout, keys, missingLocations, missingLayouts );
+			cache.put( setting, entry, prepared );
+		}
+		return prepared;
 	}
 	
 	public boolean shouldUpdateLayoutOnAdd( Dockable dockable ) {
@@ -99,6 +165,13 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
             };
         }
         
+        for( RootInfo info : frontend.getRoots() ){
+        	PreparedLayout prepared = prepareLayout( frontend, situation, setting, info.getName(), entry );
+        	if( prepared != null ){
+        		preparedRoots.put( info.getName(), prepared );
+        	}
+        }
+        
         SettingAccess access = createAccess( frontend, setting );
         
         // maybe cancel the operation
@@ -106,6 +179,37 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
         	return false;
         }
         
+        // roots which already show the new layout are not touched
+        for( RootInfo info : frontend.getRoots() ){
+        	DockLayoutComposition layout = access.getRoot( info.getName() );
+        	if( layout != null ){
+        		PreparedLayout prepared = preparedRoots.get( info.getName() );
+        		if( prepared == null || prepared.getLayout() != layout ){
+        			layout = situation.fillMissing( layout );
+        		}
+        		if( isUnchanged( situation, info.getStation(), layout )){
+        			unchangedRoots.add( info.getStation() );
+        		}
+        	}
+        }
+        if( !unchangedRoots.isEmpty() ){
+        	final DockSituationIgnore base = ignore;
+        	ignore = new DockSituationIgnore(){
+        		public boolean ignoreChildren( DockStation station ){
+        			return isUnchanged( station ) || base.ignoreChildren( station );
+        		}
+        		public boolean ignoreElement( DockElement element ){
+        			return base.ignoreElement( element );
+        		}
+        		public boolean ignoreChildren( PerspectiveStation station ){
+        			return base.ignoreChildren( station );
+        		}
+        		public boolean ignoreElement( PerspectiveElement element ){
+        			return base.ignoreElement( element );
+        		}
+        	};
+        }
+        
         // split up all child parent relations
         frontend.clean( ignore );
         
@@ -116,6 +220,128 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
         return true;
 	}
 	
+	/**
+	 * Tells whether the current layout of <code>station</code> is the same as <code>layout</code>. Two layouts are
+	 * considered to be the same if <code>situation</code> writes them as the same sequence of bytes. Layouts whose
+	 * trees have a different shape are not written at all, and the bytes of a {@link PreparedLayout} are written only
+	 * once. If this method
+	 * returns <code>true</code>, then the children of <code>station</code> are neither removed nor replaced
+	 * when applying <code>layout</code>. 
+	 * @param situation the situation that is used to apply <code>layout</code>
+	 * @param station a root station whose layout may be replaced
+	 * @param layout the new layout of <code>station</code>
+	 * @return <code>true</code> if applying <code>layout</code> would not change <code>station</code>
+	 */
+	protected boolean isUnchanged( DockSituation situation, DockStation station, DockLayoutComposition layout ){
+		Dockable dockable = station.asDockable();
+		if( dockable != null && dockable.getDockParent() != null ){
+			return false;
+		}
+		
+		DockLayoutComposition current = situation.convert( station );
+		if( current == null ){
+			return false;
+		}
+		
+		if( !isSameShape( current, layout )){
+			return false;
+		}
+		
+		try{
+			return Arrays.equals( toBytes( situation, current ), toPreparedBytes( situation, layout ) );
+		}
+		catch( IOException ex ){
+			return false;
+		}
+	}
+	
+	/**
+	 * Tells whether <code>station</code> is a root station, or the child of a root station, whose layout is not
+	 * changed by the current call to {@link #setLayout(DockFrontendInternals, Setting, boolean)}.
+	 * @param station some station
+	 * @return whether the children of <code>station</code> remain where they are
+	 */
+	private boolean isUnchanged( DockStation station ){
+		for( DockStation root : unchangedRoots ){
+			if( DockUtilities.isAncestor( root, station )){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Tells whether <code>a</code> and <code>b</code> have the same kinds of elements, factories and number of
+	 * children. Layouts that do not have the same shape are never written as the same sequence of bytes.
+	 * @param a the first layout
+	 * @param b the second layout
+	 * @return <code>false</code> if <code>a</code> and <code>b</code> certainly differ
+	 */
+	private boolean isSameShape( DockLayoutComposition a, DockLayoutComposition b ){
+		DockLayoutInfo infoA = a.getLayout();
+		DockLayoutInfo infoB = b.getLayout();
+		if( infoA.getKind() != infoB.getKind() ){
+			return false;
+		}
+		if( infoA.getKind() == DockLayoutInfo.Data.DOCK_LAYOUT ){
+			if( !infoA.getDataLayout().getFactoryID().equals( infoB.getDataLayout().getFactoryID() )){
+				return false;
+			}
+		}
+		if( a.isIgnoreChildren() != b.isIgnoreChildren() ){
+			return false;
+		}
+		
+		List<DockLayout<?>> adjacentA = a.getAdjacent();
+		List<DockLayout<?>> adjacentB = b.getAdjacent();
+		if( (adjacentA == null ? 0 : adjacentA.size()) != (adjacentB == null ? 0 : adjacentB.size()) ){
+			return false;
+		}
+		
+		List<DockLayoutComposition> childrenA = a.getChildren();
+		List<DockLayoutComposition> childrenB = b.getChildren();
+		if( childrenA.size() != childrenB.size() ){
+			return false;
+		}
+		for( int i = 0, n = childrenA.size(); i < n; i++ ){
+			if( !isSameShape( childrenA.get( i ), childrenB.get( i ) )){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes <code>layout</code>. If <code>layout</code> belongs to one of the {@link PreparedLayout}s of the current
+	 * call to {@link #setLayout(DockFrontendInternals, Setting, boolean)}, then the bytes are stored in that
+	 * {@link PreparedLayout} and reused the next time.
+	 * @param situation the situation used to write <code>layout</code>
+	 * @param layout the layout to write
+	 * @return the written layout
+	 * @throws IOException if <code>layout</code> cannot be written
+	 */
+	private byte[] toPreparedBytes( DockSituation situation, DockLayoutComposition layout ) throws IOException{
+		for( PreparedLayout prepared : preparedRoots.values() ){
+			if( prepared.getLayout() == layout ){
+				byte[] bytes = prepared.getBytes();
+				if( bytes == null ){
+					bytes = toBytes( situation, layout );
+					prepared.setBytes( bytes );
+				}
+				return bytes;
+			}
+		}
+		return toBytes( situation, layout );
+	}
+	
+	private byte[] toBytes( DockSituation situation, DockLayoutComposition layout ) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( bytes );
+		situation.writeComposition( layout, out );
+		out.close();
+		return bytes.toByteArray();
+	}
+	
 	/**
 	 * Creates a wrapper around <code>setting</code> that allows the algorithm of this 
 	 * {@link LayoutChangeStrategy} to access the setting.
@@ -278,7 +504,9 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
     /**
      * Applies the layout described in <code>setting</code> to the visible elements. 
      * This implementation tries to estimate the location of missing dockables using
-     * {@link #listEstimateLocations(DockSituation, DockLayoutComposition)}. 
+     * {@link #listEstimateLocations(DockSituation, DockLayoutComposition)}. If the layout of a root is
+     * the {@link PreparedLayout#getLayout() prepared layout}, then the cached estimations are used. Roots whose layout
+     * does not change are not converted. 
      * @param frontend the caller of this method
      * @param situation used to convert the layout
      * @param setting the new layout
@@ -293,9 +521,18 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
     	for( RootInfo info : frontend.getRoots() ){
             DockLayoutComposition layout = setting.getRoot( info.getName() );
             if( layout != null ){
-                layout = situation.fillMissing( layout );
+            	PreparedLayout prepared = preparedRoots.get( info.getName() );
+            	boolean cached = prepared != null && prepared.getLayout() == layout;
+            	
+            	Map<String, DockableProperty> missingLocations;
+            	if( cached ){
+            		missingLocations = prepared.getMissingLocations();
+            	}
+            	else{
+            		layout = situation.fillMissing( layout );
+            		missingLocations = listEstimateLocations( situation, layout );
+            	}
                 
-                Map<String, DockableProperty> missingLocations =  listEstimateLocations( situation, layout );
                 if( missingLocations != null ){
                     for( Map.Entry<String, DockableProperty> missing : missingLocations.entrySet() ){
                         String key = missing.getKey();
@@ -313,7 +550,13 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
                     }
                 }
                 
-                Map<String, DockLayoutComposition> missingLayouts = listLayouts( situation, layout );
+                Map<String, DockLayoutComposition> missingLayouts;
+                if( cached ){
+                	missingLayouts = prepared.getMissingLayouts();
+                }
+                else{
+                	missingLayouts = listLayouts( situation, layout );
+                }
                 
                 if( missingLayouts != null ){
                     for( Map.Entry<String, DockLayoutComposition> missing : missingLayouts.entrySet() ){
@@ -335,7 +578,9 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
                     
                 }
                 
-                situation.convert( layout );
+                if( !unchangedRoots.contains( info.getStation() )){
+                	situation.convert( layout );
+                }
             }
         }
     }
@@ -554,12 +799,18 @@ public class DefaultLayoutChangeStrategy implements LayoutChangeStrategy{
 		}
     	
         /**
-         * Gets the layout of a root.
+         * Gets the layout of a root. If the layout was already {@link PreparedLayout resolved}, then
+         * the resolved layout is returned.
          * @param root the root
          * @return the layout or <code>null</code>
          */
         public DockLayoutComposition getRoot( String root ){
-            return setting.getRoot( root );
+        	DockLayoutComposition layout = setting.getRoot( root );
+        	PreparedLayout prepared = preparedRoots.get( root );
+        	if( prepared != null && prepared.getSource() == layout ){
+        		return prepared.getLayout();
+        	}
+            return layout;
         }
         
         /**
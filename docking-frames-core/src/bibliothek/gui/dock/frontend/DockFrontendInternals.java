@@ -115,4 +115,10 @@ public interface DockFrontendInternals {
      * @return all the listeners that could have a veto
      */
     public VetoManager getVetos();
+    
+    /**
+     * Gets the cache which stores the resolved layouts of the {@link Setting}s of the {@link DockFrontend}.
+     * @return the cache, not <code>null</code>
+     */
+    public PreparedLayoutCache getPreparedLayouts();
 }
@@ -0,0 +1,181 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.frontend;
+
+import bibliothek.gui.DockController;
+import bibliothek.gui.DockFrontend;
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.control.DockRegister;
+import bibliothek.gui.dock.event.DockFrontendAdapter;
+import bibliothek.gui.dock.event.DockRegisterAdapter;
+import bibliothek.gui.dock.event.DockStationAdapter;
+
+/**
+ * Observes a {@link DockFrontend} and all the {@link DockStation}s of its {@link DockController}, and
+ * tells whether the layout may have changed since {@link #clearChanged()} was called the last time.
+ * The tracker relies on the events of the {@link DockFrontend} and of the {@link DockStation}s, a change 
+ * that does not fire any event has to be reported by calling {@link #markChanged()}.<br>
+ * A new tracker reports the layout as changed.
+ * @author Benjamin Sigg
+ */
+public class FrontendChangeTracker {
+	/** the observed frontend */
+	private DockFrontend frontend;
+	
+	/** whether the layout may have changed */
+	private volatile boolean changed = true;
+	
+	/** marks the layout as changed whenever a station changes */
+	private DockStationAdapter stationListener = new DockStationAdapter(){
+		@Override
+		public void dockableAdded( DockStation station, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void dockableRemoved( DockStation station, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void dockableShowingChanged( DockStation station, Dockable dockable, boolean showing ){
+			markChanged();
+		}
+		@Override
+		public void dockableSelected( DockStation station, Dockable oldSelection, Dockable newSelection ){
+			markChanged();
+		}
+		@Override
+		public void dockablesRepositioned( DockStation station, Dockable[] dockables ){
+			markChanged();
+		}
+	};
+	
+	/** adds or removes {@link #stationListener} */
+	private DockRegisterAdapter registerListener = new DockRegisterAdapter(){
+		@Override
+		public void dockStationRegistered( DockController controller, DockStation station ){
+			station.addDockStationListener( stationListener );
+			markChanged();
+		}
+		@Override
+		public void dockStationUnregistered( DockController controller, DockStation station ){
+			station.removeDockStationListener( stationListener );
+			markChanged();
+		}
+	};
+	
+	/** marks the layout as changed whenever the settings of {@link #frontend} change */
+	private DockFrontendAdapter frontendListener = new DockFrontendAdapter(){
+		@Override
+		public void added( DockFrontend frontend, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void removed( DockFrontend frontend, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void shown( DockFrontend frontend, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void hidden( DockFrontend frontend, Dockable dockable ){
+			markChanged();
+		}
+		@Override
+		public void hideable( DockFrontend frontend, Dockable dockable, boolean hideable ){
+			markChanged();
+		}
+		@Override
+		public void loaded( DockFrontend frontend, String name ){
+			markChanged();
+		}
+		@Override
+		public void read( DockFrontend frontend, String name ){
+			markChanged();
+		}
+		@Override
+		public void saved( DockFrontend frontend, String name ){
+			markChanged();
+		}
+		@Override
+		public void deleted( DockFrontend frontend, String name ){
+			markChanged();
+		}
+	};
+	
+	/**
+	 * Creates a new tracker and starts observing <code>frontend</code>.
+	 * @param frontend the frontend to observe, not <code>null</code>
+	 */
+	public FrontendChangeTracker( DockFrontend frontend ){
+		if( frontend == null ){
+			throw new IllegalArgumentException( "frontend must not be null" );
+		}
+		this.frontend = frontend;
+		
+		frontend.addFrontendListener( frontendListener );
+		DockRegister register = frontend.getController().getRegister();
+		register.addDockRegisterListener( registerListener );
+		for( DockStation station : register.listDockStations() ){
+			station.addDockStationListener( stationListener );
+		}
+	}
+	
+	/**
+	 * Stops observing the frontend.
+	 */
+	public void destroy(){
+		frontend.removeFrontendListener( frontendListener );
+		DockRegister register = frontend.getController().getRegister();
+		register.removeDockRegisterListener( registerListener );
+		for( DockStation station : register.listDockStations() ){
+			station.removeDockStationListener( stationListener );
+		}
+	}
+	
+	/**
+	 * Tells whether the layout may have changed since {@link #clearChanged()} was called the last time.
+	 * @return <code>true</code> if the layout may have changed
+	 */
+	public boolean isChanged(){
+		return changed;
+	}
+	
+	/**
+	 * Marks the layout as changed.
+	 */
+	public void markChanged(){
+		changed = true;
+	}
+	
+	/**
+	 * Marks the layout as unchanged, usually called after the layout was stored.
+	 */
+	public void clearChanged(){
+		changed = false;
+	}
+}
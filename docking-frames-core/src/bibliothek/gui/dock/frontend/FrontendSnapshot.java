@@ -0,0 +1,164 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.frontend;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import bibliothek.gui.DockFrontend;
+import bibliothek.gui.dock.layout.DockSituation;
+import bibliothek.gui.dock.layout.PropertyTransformer;
+import bibliothek.util.Version;
+import bibliothek.util.VersionedDataOutputStream;
+import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementWriter;
+
+/**
+ * A snapshot of all the {@link Setting}s of a {@link DockFrontend}, created by {@link DockFrontend#createSnapshot()}.
+ * The snapshot contains the layouts as {@link bibliothek.gui.dock.layout.DockLayoutComposition}s and the
+ * {@link DockSituation}s that are required to encode them. Creating the snapshot requires the 
+ * <code>EventDispatchThread</code>, but the snapshot can be written by any thread, and while it is written
+ * the {@link DockFrontend} can be used normally. Hence the {@link bibliothek.gui.dock.DockFactory}s 
+ * of the frontend must be able to write their layouts from any thread.<br>
+ * The snapshot writes the same format as {@link DockFrontend#write(DataOutputStream)} and
+ * {@link DockFrontend#writeXML(XElement)}.
+ * @author Benjamin Sigg
+ */
+public class FrontendSnapshot {
+	/** the settings to write */
+	private SettingsBlop blop;
+	
+	/** the format to use for writing the binary layouts */
+	private Version writeFormat;
+	
+	/** the situation for writing the entries of {@link #blop} */
+	private DockSituation entrySituation;
+	/** the transformer for writing the entries of {@link #blop} */
+	private PropertyTransformer entryTransformer;
+	/** the situation for writing the current setting of {@link #blop} */
+	private DockSituation finalSituation;
+	/** the transformer for writing the current setting of {@link #blop} */
+	private PropertyTransformer finalTransformer;
+	
+	/**
+	 * Creates a new snapshot.
+	 * @param blop the settings to write, must not be modified anymore
+	 * @param writeFormat the format to use for writing the binary layouts, see {@link DockFrontend#setWriteFormat(Version)}
+	 * @param entrySituation the situation for writing the entries of <code>blop</code>
+	 * @param entryTransformer the transformer for writing the entries of <code>blop</code>
+	 * @param finalSituation the situation for writing the current setting of <code>blop</code>
+	 * @param finalTransformer the transformer for writing the current setting of <code>blop</code>
+	 */
+	public FrontendSnapshot( SettingsBlop blop, Version writeFormat,
+			DockSituation entrySituation, PropertyTransformer entryTransformer,
+			DockSituation finalSituation, PropertyTransformer finalTransformer ){
+		
+		if( blop == null ){
+			throw new IllegalArgumentException( "blop must not be null" );
+		}
+		if( writeFormat == null ){
+			throw new IllegalArgumentException( "writeFormat must not be null" );
+		}
+		this.blop = blop;
+		this.writeFormat = writeFormat;
+		this.entrySituation = entrySituation;
+		this.entryTransformer = entryTransformer;
+		this.finalSituation = finalSituation;
+		this.finalTransformer = finalTransformer;
+		
+		entrySituation.setWriteFormat( writeFormat );
+		finalSituation.setWriteFormat( writeFormat );
+	}
+	
+	/**
+	 * Gets the settings of this snapshot.
+	 * @return the settings, must not be modified
+	 */
+	public SettingsBlop getBlop(){
+		return blop;
+	}
+	
+	/**
+	 * Writes the settings of this snapshot in the format of {@link DockFrontend#writeBlop(SettingsBlop, DataOutputStream)}.
+	 * @param out the stream to write into
+	 * @throws IOException if <code>out</code> throws an exception
+	 */
+	public void write( DataOutputStream out ) throws IOException{
+		if( Version.VERSION_1_1_2a.compareTo( writeFormat ) > 0 && !(out instanceof VersionedDataOutputStream) ){
+			out = new VersionedDataOutputStream( out, writeFormat );
+		}
+		
+		Version.write( out, Version.VERSION_1_1_1a );
+		
+		String currentSetting = blop.getCurrentName();
+		if( currentSetting == null ){
+			out.writeBoolean( false );
+		}
+		else{
+			out.writeBoolean( true );
+			out.writeUTF( currentSetting );
+		}
+		
+		String[] names = blop.getNames();
+		out.writeInt( names.length );
+		for( String name : names ){
+			out.writeUTF( name );
+			blop.getSetting( name ).write( entrySituation, entryTransformer, true, out );
+		}
+		
+		blop.getCurrentSetting().write( finalSituation, finalTransformer, false, out );
+	}
+	
+	/**
+	 * Writes the settings of this snapshot in the format of {@link DockFrontend#writeBlopXML(SettingsBlop, XElementWriter)}.
+	 * @param writer the writer to write into, the current element of <code>writer</code> is the parent of the settings
+	 * @throws IOException if <code>writer</code> throws an exception
+	 */
+	public void writeXML( XElementWriter writer ) throws IOException{
+		String[] names = blop.getNames();
+		
+		if( names.length > 0 ){
+			writer.start( new XElement( "settings" ) );
+			for( String name : names ){
+				XElement xsetting = new XElement( "setting" );
+				xsetting.addString( "name", name );
+				writer.start( xsetting );
+				blop.getSetting( name ).writeXML( entrySituation, entryTransformer, true, writer );
+				writer.end();
+			}
+			writer.end();
+		}
+		
+		XElement xcurrent = new XElement( "current" );
+		String current = blop.getCurrentName();
+		if( current != null ){
+			xcurrent.addString( "name", current );
+		}
+		writer.start( xcurrent );
+		blop.getCurrentSetting().writeXML( finalSituation, finalTransformer, false, writer );
+		writer.end();
+	}
+}
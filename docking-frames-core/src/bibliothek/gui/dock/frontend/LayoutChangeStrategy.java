@@ -67,6 +67,20 @@ public interface LayoutChangeStrategy {
 	 */
 	public boolean setLayout( DockFrontendInternals frontend, Setting setting, boolean entry ) throws IOException, XException;
 	
+	/**
+	 * Resolves the layout described by <code>setting</code> without applying it, and stores the result in the
+	 * {@link DockFrontendInternals#getPreparedLayouts() cache} of <code>frontend</code>. A later call to
+	 * {@link #setLayout(DockFrontendInternals, Setting, boolean)} with the same arguments can then skip
+	 * resolving the layout. Strategies that do not use the cache may ignore this call.
+	 * @param frontend internal information about a {@link DockFrontend}
+	 * @param setting the layout to resolve
+	 * @param entry <code>true</code> if <code>setting</code> contains only little information about
+	 * the layout, <code>false</code> if there is much information abut the layout.
+	 * @throws IOException in case of some stream that cannot be read
+	 * @throws XException in case of some {@link XElement} that cannot be read
+	 */
+	public void prepareLayout( DockFrontendInternals frontend, Setting setting, boolean entry ) throws IOException, XException;
+	
     /**
      * Creates a new {@link DockSituation} that is used to write and read the current setting from and
      * to a stream.<br>
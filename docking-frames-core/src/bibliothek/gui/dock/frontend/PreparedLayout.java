@@ -0,0 +1,173 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.frontend;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import bibliothek.gui.dock.layout.DockLayoutComposition;
+import bibliothek.gui.dock.layout.DockSituation;
+import bibliothek.gui.dock.layout.DockableProperty;
+import bibliothek.gui.dock.layout.PredefinedDockSituation;
+
+/**
+ * The resolved layout of one root station of a {@link Setting}. A {@link PreparedLayout} contains the
+ * result of {@link DockSituation#fillMissing(DockLayoutComposition) filling the gaps} of the layout, and the 
+ * locations and layouts of the elements that are missing. A {@link PreparedLayout} remains valid as long as the factories,
+ * the {@link bibliothek.gui.dock.station.support.PlaceholderStrategy} and the set of predefined elements do not change.
+ * @author Benjamin Sigg
+ * @see PreparedLayoutCache
+ */
+public class PreparedLayout {
+	/** the name of the root station */
+	private String root;
+	
+	/** the layout that was read from the {@link Setting} */
+	private DockLayoutComposition source;
+	
+	/** the layout after filling its gaps */
+	private DockLayoutComposition layout;
+	
+	/** the keys of the elements that were predefined when this layout was resolved */
+	private Set<String> predefinedKeys;
+	
+	/** the estimated locations of the missing elements */
+	private Map<String, DockableProperty> missingLocations;
+	
+	/** the layouts of the missing elements */
+	private Map<String, DockLayoutComposition> missingLayouts;
+	
+	/** {@link #layout} as written by a {@link DockSituation}, <code>null</code> if not yet written */
+	private byte[] bytes;
+	
+	/**
+	 * Creates a new prepared layout.
+	 * @param root the name of the root station, not <code>null</code>
+	 * @param source the layout as it is stored in the {@link Setting}, not <code>null</code>
+	 * @param layout <code>source</code> after its gaps were filled, not <code>null</code>
+	 * @param predefinedKeys the keys of the elements that were {@link PredefinedDockSituation#getPredefinedKeys() predefined}
+	 * when <code>layout</code> was resolved, not <code>null</code>
+	 * @param missingLocations the estimated locations of the elements that are missing, can be <code>null</code>
+	 * @param missingLayouts the layouts of the elements that are missing, can be <code>null</code>
+	 */
+	public PreparedLayout( String root, DockLayoutComposition source, DockLayoutComposition layout, Set<String> predefinedKeys,
+			Map<String, DockableProperty> missingLocations, Map<String, DockLayoutComposition> missingLayouts ){
+		if( root == null ){
+			throw new IllegalArgumentException( "root must not be null" );
+		}
+		if( source == null ){
+			throw new IllegalArgumentException( "source must not be null" );
+		}
+		if( layout == null ){
+			throw new IllegalArgumentException( "layout must not be null" );
+		}
+		if( predefinedKeys == null ){
+			throw new IllegalArgumentException( "predefinedKeys must not be null" );
+		}
+		
+		this.root = root;
+		this.source = source;
+		this.layout = layout;
+		this.predefinedKeys = new HashSet<String>( predefinedKeys );
+		if( missingLocations != null ){
+			this.missingLocations = Collections.unmodifiableMap( missingLocations );
+		}
+		if( missingLayouts != null ){
+			this.missingLayouts = Collections.unmodifiableMap( missingLayouts );
+		}
+	}
+	
+	/**
+	 * Tells whether this layout can still be applied.
+	 * @param source the layout that is currently stored in the {@link Setting}
+	 * @param predefinedKeys the keys of the elements that are currently predefined
+	 * @return <code>true</code> if this layout was resolved from <code>source</code> and with the same
+	 * set of predefined elements
+	 */
+	public boolean isValid( DockLayoutComposition source, Set<String> predefinedKeys ){
+		return this.source == source && this.predefinedKeys.equals( predefinedKeys );
+	}
+	
+	/**
+	 * Gets the name of the root station whose layout this is.
+	 * @return the name, not <code>null</code>
+	 */
+	public String getRoot(){
+		return root;
+	}
+	
+	/**
+	 * Gets the layout that was stored in the {@link Setting}.
+	 * @return the original layout
+	 */
+	public DockLayoutComposition getSource(){
+		return source;
+	}
+	
+	/**
+	 * Gets the layout whose gaps are filled.
+	 * @return the resolved layout
+	 */
+	public DockLayoutComposition getLayout(){
+		return layout;
+	}
+	
+	/**
+	 * Gets the estimated locations of the elements that are missing.
+	 * @return an unmodifiable map with the names of the elements as keys, can be <code>null</code>
+	 */
+	public Map<String, DockableProperty> getMissingLocations(){
+		return missingLocations;
+	}
+	
+	/**
+	 * Gets the layouts of the elements that are missing.
+	 * @return an unmodifiable map with the names of the elements as keys, can be <code>null</code>
+	 */
+	public Map<String, DockLayoutComposition> getMissingLayouts(){
+		return missingLayouts;
+	}
+	
+	/**
+	 * Stores the result of {@link DockSituation#writeComposition(DockLayoutComposition, java.io.DataOutputStream) writing}
+	 * the {@link #getLayout() resolved layout}. The bytes are used to compare the layout with the current layout of
+	 * the root station.
+	 * @param bytes the written layout, can be <code>null</code>
+	 */
+	public void setBytes( byte[] bytes ){
+		this.bytes = bytes;
+	}
+	
+	/**
+	 * Gets the written form of the {@link #getLayout() resolved layout}.
+	 * @return the written layout, <code>null</code> if not yet {@link #setBytes(byte[]) set}
+	 */
+	public byte[] getBytes(){
+		return bytes;
+	}
+}
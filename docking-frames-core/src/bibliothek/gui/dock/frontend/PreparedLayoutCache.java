@@ -0,0 +1,116 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.frontend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import bibliothek.gui.DockFrontend;
+
+/**
+ * A cache of {@link PreparedLayout}s, used by a {@link DockFrontend} to resolve the layout of a {@link Setting} only
+ * once. Switching between a few settings then only requires to convert the resolved layouts.<br>
+ * The cache does not prevent {@link Setting}s from being collected by the garbage collector. The {@link DockFrontend}
+ * clears the cache whenever a factory or the {@link bibliothek.gui.dock.station.support.PlaceholderStrategy} changes.<br>
+ * The cache should only be used by the <code>EventDispatchThread</code>.
+ * @author Benjamin Sigg
+ */
+public class PreparedLayoutCache {
+	/** the prepared layouts of settings that were applied as entries */
+	private Map<Setting, Map<String, PreparedLayout>> entries = new WeakHashMap<Setting, Map<String,PreparedLayout>>();
+	
+	/** the prepared layouts of settings that were applied as full settings */
+	private Map<Setting, Map<String, PreparedLayout>> fulls = new WeakHashMap<Setting, Map<String,PreparedLayout>>();
+	
+	/**
+	 * Searches the prepared layout of the root <code>root</code> of <code>setting</code>.
+	 * @param setting the setting whose layout is searched
+	 * @param entry whether <code>setting</code> is applied as entry or as full setting
+	 * @param root the name of a root station
+	 * @return the layout, <code>null</code> if not present or if the layout of <code>root</code> 
+	 * in <code>setting</code> was replaced
+	 */
+	public PreparedLayout get( Setting setting, boolean entry, String root ){
+		Map<String, PreparedLayout> layouts = (entry ? entries : fulls).get( setting );
+		if( layouts == null ){
+			return null;
+		}
+		PreparedLayout layout = layouts.get( root );
+		if( layout != null && layout.getSource() != setting.getRoot( root )){
+			layouts.remove( root );
+			return null;
+		}
+		return layout;
+	}
+	
+	/**
+	 * Stores the prepared layout of one root of <code>setting</code>, replacing any older layout of the same root.
+	 * @param setting the setting to which <code>layout</code> belongs
+	 * @param entry whether <code>setting</code> is applied as entry or as full setting
+	 * @param layout the new layout, not <code>null</code>
+	 */
+	public void put( Setting setting, boolean entry, PreparedLayout layout ){
+		if( setting == null ){
+			throw new IllegalArgumentException( "setting must not be null" );
+		}
+		if( layout == null ){
+			throw new IllegalArgumentException( "layout must not be null" );
+		}
+		Map<Setting, Map<String, PreparedLayout>> map = entry ? entries : fulls;
+		Map<String, PreparedLayout> layouts = map.get( setting );
+		if( layouts == null ){
+			layouts = new HashMap<String, PreparedLayout>();
+			map.put( setting, layouts );
+		}
+		layouts.put( layout.getRoot(), layout );
+	}
+	
+	/**
+	 * Removes all the layouts of <code>setting</code>.
+	 * @param setting the setting that is no longer used
+	 */
+	public void remove( Setting setting ){
+		entries.remove( setting );
+		fulls.remove( setting );
+	}
+	
+	/**
+	 * Removes all layouts from this cache.
+	 */
+	public void clear(){
+		entries.clear();
+		fulls.clear();
+	}
+	
+	/**
+	 * Tells whether this cache contains no layouts at all.
+	 * @return <code>true</code> if this cache is empty
+	 */
+	public boolean isEmpty(){
+		return entries.isEmpty() && fulls.isEmpty();
+	}
+}
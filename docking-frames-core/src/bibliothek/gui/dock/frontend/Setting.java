@@ -35,6 +35,8 @@ import bibliothek.gui.dock.layout.*;
 import bibliothek.util.Version;
 import bibliothek.util.xml.XAttribute;
 import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
 import bibliothek.util.xml.XException;
 
 
@@ -233,26 +235,68 @@ public class Setting{
         
         XElement xchildren = element.addElement( "children" );
         for( int i = 0, n = getInvisibleCount(); i<n; i++ ){
-            XElement xchild = xchildren.addElement( "child" );
-            xchild.addString( "key", getInvisibleKey( i ) );
-            String root = getInvisibleRoot( i );
-            if( root != null ){
-                xchild.addString( "root", root );
-            }
-            
-            DockableProperty location = getInvisibleLocation( i );
-            if( location == null ){
-                xchild.addBoolean( "location", false );
-            }
-            else{
-                xchild.addBoolean( "location", true );
-                transformer.writeXML( getInvisibleLocation( i ), xchild.addElement( "location" ) );
-            }
-            
-            DockLayoutComposition layout = getInvisibleLayout( i );
-            if( layout != null ){
-                situation.writeCompositionXML( layout, xchild.addElement( "layout" ) );
-            }
+            writeInvisibleXML( situation, transformer, i, xchildren.addElement( "child" ) );
+        }
+    }
+    
+    /**
+     * Writes the properties of this setting in xml format. The output is the same as the output
+     * of {@link #writeXML(DockSituation, PropertyTransformer, boolean, XElement)}, but only the tree of
+     * one root or one invisible element is kept in memory at any time. Subclasses overriding
+     * {@link #writeXML(DockSituation, PropertyTransformer, boolean, XElement)} must override this method as well.
+     * @param situation can be used to write {@link DockLayout}s
+     * @param transformer can be used to write {@link DockableProperty}s
+     * @param entry if <code>true</code>, then this setting is used as one of
+     * the settings a user can choose. If <code>false</code> then this setting
+     * is used as the final setting that is written when the application
+     * shuts down.
+     * @param writer the writer to write into, the current element of <code>writer</code> represents this setting
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeXML( DockSituation situation, PropertyTransformer transformer, boolean entry, XElementWriter writer ) throws IOException{
+    	writer.start( new XElement( "roots" ) );
+    	Map<String, DockLayoutComposition> compositions = new LinkedHashMap<String, DockLayoutComposition>();
+    	for( String root : getRootKeys() ){
+    		compositions.put( root, getRoot( root ) );
+    	}
+    	situation.writeCompositionsXML( compositions, writer, "root" );
+    	writer.end();
+    	
+    	writer.start( new XElement( "children" ) );
+    	for( int i = 0, n = getInvisibleCount(); i<n; i++ ){
+    		XElement xchild = new XElement( "child" );
+    		writeInvisibleXML( situation, transformer, i, xchild );
+    		writer.write( xchild );
+    	}
+    	writer.end();
+    }
+    
+    /**
+     * Writes the invisible element <code>index</code> into <code>xchild</code>.
+     * @param situation used to write the layout of the element
+     * @param transformer used to write the location of the element
+     * @param index the index of the element
+     * @param xchild the element to write into
+     */
+    private void writeInvisibleXML( DockSituation situation, PropertyTransformer transformer, int index, XElement xchild ){
+        xchild.addString( "key", getInvisibleKey( index ) );
+        String root = getInvisibleRoot( index );
+        if( root != null ){
+            xchild.addString( "root", root );
+        }
+        
+        DockableProperty location = getInvisibleLocation( index );
+        if( location == null ){
+            xchild.addBoolean( "location", false );
+        }
+        else{
+            xchild.addBoolean( "location", true );
+            transformer.writeXML( location, xchild.addElement( "location" ) );
+        }
+        
+        DockLayoutComposition layout = getInvisibleLayout( index );
+        if( layout != null ){
+            situation.writeCompositionXML( layout, xchild.addElement( "layout" ) );
         }
     }
     
@@ -352,45 +396,98 @@ public class Setting{
         XElement xchildren = element.getElement( "children" );
         if( xchildren != null ){
             for( XElement xchild : xchildren.getElements( "child" )){
-                String key = xchild.getString( "key" );
-                String root = null;
-                
-                XAttribute aroot = xchild.getAttribute( "root" );
-                if( aroot != null ){
-                    root = aroot.getString();
-                }
-                
-                boolean oldStyle = true;
-                boolean hasLocation = false;
-                XAttribute alocation = xchild.getAttribute( "location" );
-                if( alocation != null ){
-                    oldStyle = false;
-                    hasLocation = alocation.getBoolean();
-                }
-                
-                DockableProperty location = null;
-                DockLayoutComposition layout = null;
-                
-                if( oldStyle ){
-                    location = transformer.readXML( xchild );
-                }
-                else{
-                    if( hasLocation ){
-                        XElement xlocation = xchild.getElement( "location" );
-                        location = transformer.readXML( xlocation );
-                    }
-                    
-                    XElement xlayout = xchild.getElement( "layout" );
-                    if( xlayout != null ){
-                        layout = situation.readCompositionXML( xlayout );
-                    }
-                }
-                
-                addInvisible( key, root, layout, location );
+                readInvisibleXML( situation, transformer, xchild );
             } 
         }
     }
     
+    /**
+     * Reads the properties of this setting. Old properties are deleted without
+     * further notice. This method reads the format of {@link #readXML(DockSituation, PropertyTransformer, boolean, XElement)},
+     * but only the tree of one root or one invisible element is kept in memory at any time. Subclasses overriding
+     * {@link #readXML(DockSituation, PropertyTransformer, boolean, XElement)} must override this method as well.
+     * @param situation can be used to read {@link DockLayout}s
+     * @param transformer can be used to read {@link DockableProperty}s
+     * @param entry if <code>true</code>, then this setting is used as one of
+     * the settings a user can choose. If <code>false</code> then this setting
+     * is used as the first setting that is read when the application
+     * starts up.
+     * @param reader the reader to read from, the current element of <code>reader</code> represents this
+     * setting, all its remaining children are read
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public void readXML( DockSituation situation, PropertyTransformer transformer, boolean entry, XElementReader reader ) throws IOException{
+        roots.clear();
+        dockables.clear();
+        
+        XElement xelement = reader.start();
+        while( xelement != null ){
+        	if( xelement.getName().equals( "roots" )){
+        		Map<String, DockLayoutComposition> compositions = situation.readCompositionsXML( reader, "root" );
+        		for( Map.Entry<String, DockLayoutComposition> composition : compositions.entrySet() ){
+        			putRoot( composition.getKey(), composition.getValue() );
+        		}
+        	}
+        	else if( xelement.getName().equals( "children" )){
+        		XElement xchild = reader.next();
+        		while( xchild != null ){
+        			if( xchild.getName().equals( "child" )){
+        				readInvisibleXML( situation, transformer, xchild );
+        			}
+        			xchild = reader.next();
+        		}
+        	}
+        	else{
+        		reader.readChildren( xelement );
+        	}
+        	xelement = reader.start();
+        }
+    }
+    
+    /**
+     * Reads one invisible element that was written by {@link #writeInvisibleXML(DockSituation, PropertyTransformer, int, XElement)}.
+     * @param situation used to read the layout of the element
+     * @param transformer used to read the location of the element
+     * @param xchild the element to read
+     */
+    private void readInvisibleXML( DockSituation situation, PropertyTransformer transformer, XElement xchild ){
+        String key = xchild.getString( "key" );
+        String root = null;
+        
+        XAttribute aroot = xchild.getAttribute( "root" );
+        if( aroot != null ){
+            root = aroot.getString();
+        }
+        
+        boolean oldStyle = true;
+        boolean hasLocation = false;
+        XAttribute alocation = xchild.getAttribute( "location" );
+        if( alocation != null ){
+            oldStyle = false;
+            hasLocation = alocation.getBoolean();
+        }
+        
+        DockableProperty location = null;
+        DockLayoutComposition layout = null;
+        
+        if( oldStyle ){
+            location = transformer.readXML( xchild );
+        }
+        else{
+            if( hasLocation ){
+                XElement xlocation = xchild.getElement( "location" );
+                location = transformer.readXML( xlocation );
+            }
+            
+            XElement xlayout = xchild.getElement( "layout" );
+            if( xlayout != null ){
+                layout = situation.readCompositionXML( xlayout );
+            }
+        }
+        
+        addInvisible( key, root, layout, location );
+    }
+    
     /**
      * Describes the location of an invisible element.
      * @author Benjamin Sigg
@@ -0,0 +1,69 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.layout;
+
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataInputStream} reading from a {@link ByteBuffer}. The stream does not buffer any data, the
+ * {@link ByteBuffer#position() position} of the buffer always points to the next byte that is read.<br>
+ * A {@link DockSituation} that reads from a {@link ByteBufferDataInputStream} does not decode the data of
+ * the {@link bibliothek.gui.dock.DockFactory}s immediately, instead it creates {@link LazyDockLayout}s which
+ * keep a view of the buffer. Hence the content of the buffer must not be modified as long as the 
+ * {@link DockLayoutComposition}s that were read are in use.
+ * @author Benjamin Sigg
+ * @see DockSituation#readComposition(DataInputStream)
+ */
+public class ByteBufferDataInputStream extends DataInputStream{
+	/** the source of all data */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * Creates a new stream.
+	 * @param buffer the buffer to read from, not <code>null</code>
+	 */
+	public ByteBufferDataInputStream( ByteBuffer buffer ){
+		super( new ByteBufferInputStream( buffer ) );
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Creates a new stream reading from <code>array</code>. 
+	 * @param array the array to read from, not <code>null</code>
+	 */
+	public ByteBufferDataInputStream( byte[] array ){
+		this( ByteBuffer.wrap( array ) );
+	}
+	
+	/**
+	 * Gets the buffer from which this stream reads.
+	 * @return the buffer, not <code>null</code>
+	 */
+	public ByteBuffer getBuffer(){
+		return buffer;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.layout;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} reading from a {@link ByteBuffer}. Reading from this stream advances the
+ * {@link ByteBuffer#position() position} of the buffer, hence the position of the buffer always points
+ * to the next byte this stream will read. Skipping bytes does not require to read them, which makes
+ * this stream a good choice for buffers that are mapped to a file.
+ * @author Benjamin Sigg
+ */
+class ByteBufferInputStream extends InputStream {
+	/** the source of all data */
+	private ByteBuffer buffer;
+	
+	/**
+	 * Creates a new stream.
+	 * @param buffer the buffer to read from, not <code>null</code>
+	 */
+	public ByteBufferInputStream( ByteBuffer buffer ){
+		if( buffer == null ){
+			throw new IllegalArgumentException( "buffer must not be null" );
+		}
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Gets the buffer from which this stream reads.
+	 * @return the buffer, not <code>null</code>
+	 */
+	public ByteBuffer getBuffer(){
+		return buffer;
+	}
+	
+	@Override
+	public int read(){
+		if( !buffer.hasRemaining() ){
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+	
+	@Override
+	public int read( byte[] b, int off, int len ){
+		if( len == 0 ){
+			return 0;
+		}
+		if( !buffer.hasRemaining() ){
+			return -1;
+		}
+		len = Math.min( len, buffer.remaining() );
+		buffer.get( b, off, len );
+		return len;
+	}
+	
+	@Override
+	public long skip( long n ){
+		if( n <= 0 ){
+			return 0;
+		}
+		int count = (int)Math.min( n, buffer.remaining() );
+		buffer.position( buffer.position() + count );
+		return count;
+	}
+	
+	@Override
+	public int available(){
+		return buffer.remaining();
+	}
+}
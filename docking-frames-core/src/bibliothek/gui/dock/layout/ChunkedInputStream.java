@@ -0,0 +1,160 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.layout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads one block of data that was written by a {@link ChunkedOutputStream}. This stream
+ * reports the end of the stream once the end of the block is reached, even if the underlying
+ * stream contains more data.<br>
+ * Calling {@link #close()} skips the remaining data of the block, but the underlying stream
+ * is never closed.
+ * @author Benjamin Sigg
+ */
+class ChunkedInputStream extends InputStream {
+	/** the stream to read from */
+	private DataInputStream in;
+	
+	/** the number of bytes left in the current chunk */
+	private int remaining = 0;
+	
+	/** whether the end of the block was reached */
+	private boolean finished = false;
+	
+	/**
+	 * Creates a new stream. The stream reads from <code>in</code> only when
+	 * its own read methods are called.
+	 * @param in the stream to read from, not <code>null</code>
+	 */
+	public ChunkedInputStream( DataInputStream in ){
+		if( in == null ){
+			throw new IllegalArgumentException( "in must not be null" );
+		}
+		this.in = in;
+	}
+	
+	/**
+	 * Makes sure that either {@link #remaining} is greater than 0, or that {@link #finished} is <code>true</code>.
+	 * @return <code>true</code> if there are bytes left in this block
+	 * @throws IOException if the underlying stream throws an exception
+	 */
+	private boolean nextChunk() throws IOException{
+		if( remaining == 0 && !finished ){
+			remaining = in.readInt();
+			if( remaining < 0 ){
+				throw new IOException( "illegal size of chunk: " + remaining );
+			}
+			if( remaining == 0 ){
+				finished = true;
+			}
+		}
+		return remaining > 0;
+	}
+	
+	@Override
+	public int read() throws IOException{
+		if( !nextChunk() ){
+			return -1;
+		}
+		int result = in.read();
+		if( result == -1 ){
+			throw new EOFException();
+		}
+		remaining--;
+		return result;
+	}
+	
+	@Override
+	public int read( byte[] b, int off, int len ) throws IOException{
+		if( len == 0 ){
+			return 0;
+		}
+		if( !nextChunk() ){
+			return -1;
+		}
+		int count = in.read( b, off, Math.min( len, remaining ));
+		if( count < 0 ){
+			throw new EOFException();
+		}
+		remaining -= count;
+		return count;
+	}
+	
+	@Override
+	public long skip( long n ) throws IOException{
+		if( n <= 0 || !nextChunk() ){
+			return 0;
+		}
+		int count = in.skipBytes( (int)Math.min( n, remaining ));
+		remaining -= count;
+		return count;
+	}
+	
+	@Override
+	public int available() throws IOException{
+		return Math.min( remaining, in.available() );
+	}
+	
+	/**
+	 * Skips all the data that is left in this block, afterwards the underlying stream points
+	 * to the first byte after the block.
+	 * @throws IOException if the underlying stream throws an exception
+	 */
+	public void finish() throws IOException{
+		while( nextChunk() ){
+			int count = in.skipBytes( remaining );
+			if( count <= 0 ){
+				throw new EOFException();
+			}
+			remaining -= count;
+		}
+	}
+	
+	/**
+	 * Reads all the data that is left in this block.
+	 * @return the data, may be empty
+	 * @throws IOException if the underlying stream throws an exception
+	 */
+	public byte[] readAll() throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[ 1024 ];
+		int count;
+		while( (count = read( buffer, 0, buffer.length )) > 0 ){
+			out.write( buffer, 0, count );
+		}
+		return out.toByteArray();
+	}
+	
+	@Override
+	public void close() throws IOException{
+		finish();
+	}
+}
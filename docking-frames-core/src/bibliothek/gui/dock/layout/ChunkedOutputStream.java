@@ -0,0 +1,145 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.layout;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} that splits the data it receives into chunks. Each chunk starts with an
+ * <code>int</code> telling its size, a chunk of size <code>0</code> marks the end of the data. A reader
+ * does not need to know the length of the data in advance, and the writer does not need to buffer all
+ * the data in order to find out its length. A single {@link ChunkedOutputStream} can be used to write
+ * many blocks of data, each block ends with a call to {@link #finish()}.<br>
+ * Calling {@link #close()} has no effect, the underlying stream is never closed by this stream.
+ * @author Benjamin Sigg
+ * @see ChunkedInputStream
+ */
+class ChunkedOutputStream extends OutputStream {
+	/** the default size of a chunk */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+	
+	/** the stream to write into */
+	private DataOutputStream out;
+	
+	/** buffer for the current chunk */
+	private byte[] buffer;
+	
+	/** how many bytes of {@link #buffer} are in use */
+	private int size = 0;
+	
+	/**
+	 * Creates a new stream.
+	 * @param out the stream to write into, not <code>null</code>
+	 * @param chunkSize the maximum size of one chunk, at least 1
+	 */
+	public ChunkedOutputStream( DataOutputStream out, int chunkSize ){
+		if( out == null ){
+			throw new IllegalArgumentException( "out must not be null" );
+		}
+		if( chunkSize < 1 ){
+			throw new IllegalArgumentException( "chunkSize must be at least 1: " + chunkSize );
+		}
+		this.out = out;
+		buffer = new byte[ chunkSize ];
+	}
+	
+	@Override
+	public void write( int b ) throws IOException{
+		if( size == buffer.length ){
+			writeChunk();
+		}
+		buffer[ size++ ] = (byte)b;
+	}
+	
+	@Override
+	public void write( byte[] b, int off, int len ) throws IOException{
+		while( len > 0 ){
+			if( size == 0 && len >= buffer.length ){
+				// large blocks are forwarded without copying them
+				out.writeInt( len );
+				out.write( b, off, len );
+				return;
+			}
+			
+			int count = Math.min( len, buffer.length - size );
+			System.arraycopy( b, off, buffer, size, count );
+			size += count;
+			off += count;
+			len -= count;
+			
+			if( size == buffer.length ){
+				writeChunk();
+			}
+		}
+	}
+	
+	/**
+	 * Writes the bytes that are still buffered and then marks the end of the current block of data.
+	 * Afterwards this stream can be used to write the next block.
+	 * @throws IOException if the underlying stream throws an exception
+	 */
+	public void finish() throws IOException{
+		writeChunk();
+		out.writeInt( 0 );
+	}
+	
+	/**
+	 * Writes a whole block of data at once, this has the same effect as calling {@link #write(byte[], int, int)}
+	 * and {@link #finish()}, but does not copy any bytes.
+	 * @param b the data to write
+	 * @param off the index of the first byte to write
+	 * @param len the number of bytes to write
+	 * @throws IOException if the underlying stream throws an exception
+	 */
+	public void writeBlock( byte[] b, int off, int len ) throws IOException{
+		writeChunk();
+		if( len > 0 ){
+			out.writeInt( len );
+			out.write( b, off, len );
+		}
+		out.writeInt( 0 );
+	}
+	
+	private void writeChunk() throws IOException{
+		if( size > 0 ){
+			out.writeInt( size );
+			out.write( buffer, 0, size );
+			size = 0;
+		}
+	}
+	
+	@Override
+	public void flush() throws IOException{
+		// buffered data cannot be written yet, since the chunk may not be complete
+	}
+	
+	@Override
+	public void close() throws IOException{
+		// ignore
+	}
+}
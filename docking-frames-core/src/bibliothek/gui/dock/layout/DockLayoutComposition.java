@@ -25,6 +25,8 @@
  */
 package bibliothek.gui.dock.layout;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 import bibliothek.gui.dock.DockElement;
@@ -65,22 +67,107 @@ public class DockLayoutComposition {
     }
     
     /**
-     * Gets the layout which describes the element of this composition.
+     * Gets the layout which describes the element of this composition. If the layout was read lazily 
+     * (see {@link LazyDockLayout}) it gets decoded by this method.
      * @return the layout, can be <code>null</code> to indicate that this composition
      * was not loaded properly
      */
     public DockLayoutInfo getLayout() {
+    	resolveLayout();
         return layout;
     }
     
     /**
-     * Gets the additional information about the element.
+     * Gets the layout of this composition without decoding it.
+     * @return the layout, may contain a {@link LazyDockLayout} that is not yet decoded
+     */
+    DockLayoutInfo getEncodedLayout(){
+    	return layout;
+    }
+    
+    /**
+     * Decodes {@link #layout} if it is a {@link LazyDockLayout}. A layout whose factory returns
+     * <code>null</code> is replaced by <code>null</code>, a layout that cannot be decoded is replaced by
+     * its raw bytes, just like layouts whose factory is missing. Both cases are the same results as
+     * {@link DockSituation} produces when reading the layout eagerly.
+     */
+    private void resolveLayout(){
+    	if( layout != null && layout.getKind() == DockLayoutInfo.Data.DOCK_LAYOUT ){
+    		DockLayout<?> data = layout.getDataLayout();
+    		if( data instanceof LazyDockLayout<?> ){
+    			LazyDockLayout<?> lazy = (LazyDockLayout<?>)data;
+    			if( !lazy.isDecoded() ){
+    				try{
+    					lazy.decode();
+    					if( lazy.getData() == null ){
+    						layout = null;
+    					}
+    				}
+    				catch( IOException ex ){
+    					DockLayoutInfo replacement;
+    					try{
+    						replacement = new DockLayoutInfo( lazy.toEntry() );
+    					}
+    					catch( IOException e ){
+    						replacement = null;
+    					}
+    					if( replacement != null ){
+    						replacement.setPlaceholder( layout.getPlaceholder() );
+    						replacement.setLocation( layout.getLocation() );
+    					}
+    					layout = replacement;
+    				}
+    			}
+    		}
+    	}
+    }
+    
+    /**
+     * Gets the additional information about the element. If some of the information was read lazily
+     * (see {@link LazyDockLayout}) it gets decoded by this method. 
      * @return the additional information or <code>null</code>
      */
     public List<DockLayout<?>> getAdjacent() {
+    	resolveAdjacent();
         return adjacent;
     }
     
+    /**
+     * Gets the additional information about the element without decoding it.
+     * @return the additional information or <code>null</code>, may contain {@link LazyDockLayout}s that are not yet decoded
+     */
+    List<DockLayout<?>> getEncodedAdjacent(){
+    	return adjacent;
+    }
+    
+    /**
+     * Decodes all the {@link LazyDockLayout}s of {@link #adjacent}. Layouts that cannot be decoded
+     * or whose data is <code>null</code> are removed, which is the same as {@link DockSituation}
+     * does when reading the layouts eagerly.
+     */
+    private void resolveAdjacent(){
+    	if( adjacent != null ){
+    		Iterator<DockLayout<?>> iterator = adjacent.iterator();
+    		while( iterator.hasNext() ){
+    			DockLayout<?> next = iterator.next();
+    			if( next instanceof LazyDockLayout<?> ){
+    				LazyDockLayout<?> lazy = (LazyDockLayout<?>)next;
+    				if( !lazy.isDecoded() ){
+    					try{
+    						lazy.decode();
+    						if( lazy.getData() == null ){
+    							iterator.remove();
+    						}
+    					}
+    					catch( IOException ex ){
+    						iterator.remove();
+    					}
+    				}
+    			}
+    		}
+    	}
+    }
+    
     /**
      * Searches for the {@link DockLayout} whose factory is set to <code>factoryId</code>.
      * @param factoryId the name of some {@link AdjacentDockFactory}.
@@ -31,10 +31,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -61,10 +66,13 @@ import bibliothek.gui.dock.util.extension.ExtensionName;
 import bibliothek.util.Path;
 import bibliothek.util.Todo;
 import bibliothek.util.Version;
+import bibliothek.util.VersionedDataOutputStream;
 import bibliothek.util.Todo.Compatibility;
 import bibliothek.util.Todo.Priority;
 import bibliothek.util.xml.XAttribute;
 import bibliothek.util.xml.XElement;
+import bibliothek.util.xml.XElementReader;
+import bibliothek.util.xml.XElementWriter;
 import bibliothek.util.xml.XException;
 
 /**
@@ -103,6 +111,9 @@ public class DockSituation {
     
     /** strategy used to filter placeholders when converting the intermediate format to real {@link DockElement}s */
     private PlaceholderStrategy placeholders;
+    
+    /** the version of the binary format that is written by {@link #writeComposition(DockLayoutComposition, DataOutputStream)} */
+    private Version writeFormat = Version.VERSION_1_1_2a;
 
     /**
      * Constructs a new DockSituation and sets some factories which are
@@ -213,6 +224,39 @@ public class DockSituation {
 		return intermediatePlaceholders;
 	}
     
+    /**
+     * Sets the version of the binary format that is used to write layouts. The default is {@link Version#VERSION_1_1_2a},
+     * which stores the data of the factories in chunks and cannot be read by versions of this library released before
+     * 1.1.2a. Any version older than {@link Version#VERSION_1_1_2a} selects the format of version 1.0.8, which
+     * can be read by older versions of this library. If the old format is selected, the factories write into a
+     * {@link VersionedDataOutputStream}, allowing them to use an old format as well.<br>
+     * Reading is not affected by this property, all formats can always be read.
+     * @param writeFormat the version of the format, not <code>null</code>
+     */
+    public void setWriteFormat( Version writeFormat ){
+    	if( writeFormat == null ){
+    		throw new IllegalArgumentException( "writeFormat must not be null" );
+    	}
+		this.writeFormat = writeFormat;
+	}
+    
+    /**
+     * Gets the version of the binary format that is used to write layouts.
+     * @return the version, not <code>null</code>
+     * @see #setWriteFormat(Version)
+     */
+    public Version getWriteFormat(){
+		return writeFormat;
+	}
+    
+    /**
+     * Tells whether {@link #getWriteFormat()} selects the chunked format of version 1.1.2a.
+     * @return <code>true</code> if the chunked format is written
+     */
+    private boolean isChunkedWriteFormat(){
+    	return Version.VERSION_1_1_2a.compareTo( writeFormat ) <= 0;
+    }
+    
     /**
      * Gets a placeholder for <code>element</code> using the current {@link PlaceholderStrategy}.
      * @param element some element, not <code>null</code>
@@ -372,6 +416,11 @@ public class DockSituation {
         if( factory == null )
             return null;
 
+        if( layout instanceof LazyDockLayout<?> && layout.getData() == null ){
+        	// the factory was not able to read the data
+        	return null;
+        }
+
         DockElement result = null;
         Map<Integer, Dockable> children = null;
 
@@ -409,6 +458,9 @@ public class DockSituation {
             if( adjacent != null ){
                 for( DockLayout<?> adjacentLayout : adjacent ){
                     AdjacentDockFactory<Object> adjacentFactory = (AdjacentDockFactory<Object>)getAdjacentFactory( adjacentLayout.getFactoryID() );
+                    if( adjacentLayout instanceof LazyDockLayout<?> && adjacentLayout.getData() == null ){
+                    	adjacentFactory = null;
+                    }
                     if( adjacentFactory != null ){
                         if( children == null ){
                             adjacentFactory.setLayout( result, adjacentLayout.getData(), placeholders );
@@ -426,7 +478,7 @@ public class DockSituation {
 
     /**
      * Writes the contents of <code>composition</code> and all its children
-     * to <code>out</code>.
+     * to <code>out</code>, using the format selected by {@link #setWriteFormat(Version)}.
      * @param composition the composition to write, should be created by
      * <code>this</code> {@link DockSituation} or a <code>DockSituation</code> with
      * similar properties.
@@ -434,13 +486,21 @@ public class DockSituation {
      * @throws IOException if an I/O-error occurs
      */
     public void writeComposition( DockLayoutComposition composition, DataOutputStream out ) throws IOException{
-        Version.write( out, Version.VERSION_1_0_8 );
-        writeCompositionStream( composition, out );
+    	if( isChunkedWriteFormat() ){
+	        Version.write( out, Version.VERSION_1_1_2a );
+	        ChunkedOutputStream chunks = new ChunkedOutputStream( out, ChunkedOutputStream.DEFAULT_CHUNK_SIZE );
+	        writeCompositionStream( composition, out, chunks, new DataOutputStream( chunks ) );
+    	}
+    	else{
+    		Version.write( out, Version.VERSION_1_0_8 );
+    		writeCompositionStream( composition, out );
+    	}
     }
-
+    
     /**
      * Writes the contents of <code>composition</code> and all its children
-     * to <code>out</code>.
+     * to <code>out</code> using the format of version 1.0.8. The data of each factory is
+     * buffered, because its size has to be written before the data itself.
      * @param composition the composition to write, should be created by
      * <code>this</code> {@link DockSituation} or a <code>DockSituation</code> with
      * similar properties.
@@ -473,7 +533,7 @@ public class DockSituation {
             
             // contents
             ByteArrayOutputStream bout = new ByteArrayOutputStream();
-            DataOutputStream dout = new DataOutputStream( bout );
+            DataOutputStream dout = new VersionedDataOutputStream( bout, writeFormat );
             factory.write( layout.getData(), dout );
             dout.close();
 
@@ -498,7 +558,7 @@ public class DockSituation {
                     throw new IOException( "Missing adjacent factory: " + adjacentLayout.getFactoryID() );
 
                 ByteArrayOutputStream adjacentBOut = new ByteArrayOutputStream();
-                DataOutputStream adjacentOut = new DataOutputStream( adjacentBOut );
+                DataOutputStream adjacentOut = new VersionedDataOutputStream( adjacentBOut, writeFormat );
                 adjacentFactory.write( adjacentLayout.getData(), adjacentOut );
                 adjacentOut.close();
 
@@ -520,7 +580,101 @@ public class DockSituation {
     }
 
     /**
-     * Reads one {@link DockLayoutComposition} and all its children.
+     * Writes the contents of <code>composition</code> and all its children
+     * to <code>out</code>. The data of the factories is written in chunks, hence
+     * neither the data of a factory nor the data of a child needs to be buffered.
+     * @param composition the composition to write, should be created by
+     * <code>this</code> {@link DockSituation} or a <code>DockSituation</code> with
+     * similar properties.
+     * @param out the stream to write into
+     * @param chunks a stream writing into <code>out</code>, used to write the data of the factories
+     * @param chunksOut a stream writing into <code>chunks</code>
+     * @throws IOException if an I/O-error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void writeCompositionStream( DockLayoutComposition composition, DataOutputStream out, ChunkedOutputStream chunks, DataOutputStream chunksOut ) throws IOException{
+        // lazy layouts that were never accessed are written without decoding them
+        DockLayoutInfo info = composition.getEncodedLayout();
+        
+        // placeholder
+        Path placeholder = info.getPlaceholder();
+        out.writeBoolean( placeholder != null );
+        if( placeholder != null ){
+        	out.writeUTF( placeholder.toString() );
+        }
+    	
+        if( info.getKind() == DockLayoutInfo.Data.BYTE ){
+            // data, the bytes are stored in the format of version 1.0.8
+            byte[] entry = info.getDataByte();
+            DataInputStream entryIn = new DataInputStream( new ByteArrayInputStream( entry ));
+            String factoryId = entryIn.readUTF();
+            int count = entryIn.readInt();
+            entryIn.close();
+            
+            out.writeUTF( factoryId );
+            chunks.writeBlock( entry, entry.length - count, count );
+        }
+        else if( info.getKind() == DockLayoutInfo.Data.DOCK_LAYOUT ){
+            DockLayout<?> layout = info.getDataLayout();
+            DockFactory<DockElement,?,Object> factory = (DockFactory<DockElement,?,Object>)getFactory( layout.getFactoryID() );
+            if( factory == null )
+                throw new IOException( "Missing factory: " + layout.getFactoryID() );
+            
+            // factory
+            out.writeUTF( getID( factory ) );
+            
+            // contents
+            if( layout instanceof LazyDockLayout<?> && !((LazyDockLayout<?>)layout).isDecoded() ){
+            	((LazyDockLayout<?>)layout).writeEncoded( out );
+            }
+            else{
+            	factory.write( layout.getData(), chunksOut );
+            	chunks.finish();
+            }
+        }
+        else{
+            // there is nothing to write...
+            throw new IllegalArgumentException( "Cannot store layout in stream: it was never translated and its raw format is not a byte stream" );
+        }
+
+        // adjacent
+        List<DockLayout<?>> adjacentLayouts = composition.getEncodedAdjacent();
+        if( adjacentLayouts == null ){
+            out.writeInt( 0 );
+        }
+        else{
+            out.writeInt( adjacentLayouts.size() );
+            for( DockLayout<?> adjacentLayout : adjacentLayouts ){
+                AdjacentDockFactory<Object> adjacentFactory = (AdjacentDockFactory<Object>)getAdjacentFactory( adjacentLayout.getFactoryID() );
+                if( adjacentFactory == null )
+                    throw new IOException( "Missing adjacent factory: " + adjacentLayout.getFactoryID() );
+
+                out.writeUTF( getAdjacentID( adjacentFactory ) );
+                if( adjacentLayout instanceof LazyDockLayout<?> && !((LazyDockLayout<?>)adjacentLayout).isDecoded() ){
+                	((LazyDockLayout<?>)adjacentLayout).writeEncoded( out );
+                }
+                else{
+                	adjacentFactory.write( adjacentLayout.getData(), chunksOut );
+                	chunks.finish();
+                }
+            }
+        }
+
+        // ignore
+        out.writeBoolean( composition.isIgnoreChildren() );
+
+        // children
+        List<DockLayoutComposition> children = composition.getChildren();
+        out.writeInt( children.size() );
+        for( DockLayoutComposition child : children ){
+            writeCompositionStream( child, out, chunks, chunksOut );
+        }
+    }
+
+    /**
+     * Reads one {@link DockLayoutComposition} and all its children. If <code>in</code> is a 
+     * {@link ByteBufferDataInputStream}, then the data of the {@link DockFactory}s is decoded lazily,
+     * see {@link #readComposition(ByteBuffer)}.
      * @param in the stream to read from
      * @return the new composition or <code>null</code> if the factory was missing
      * @throws IOException if an I/O-error occurs
@@ -528,18 +682,47 @@ public class DockSituation {
     public DockLayoutComposition readComposition( DataInputStream in ) throws IOException{
         Version version = Version.read( in );
         version.checkCurrent();
-        return readCompositionStream( in, version );
+        ByteBuffer source = null;
+        if( in instanceof ByteBufferDataInputStream ){
+        	source = ((ByteBufferDataInputStream)in).getBuffer();
+        }
+        return readCompositionStream( in, source, version );
+    }
+    
+    /**
+     * Reads one {@link DockLayoutComposition} and all its children from <code>buffer</code>, starting at the
+     * current {@link ByteBuffer#position() position} of <code>buffer</code>. Afterwards the position points
+     * to the first byte after the composition. If the composition was written in the format of version 1.1.2a
+     * or later, then the data of the {@link DockFactory}s is not decoded immediately. Instead {@link LazyDockLayout}s
+     * are created, which are decoded by the {@link DockLayoutComposition} when its {@link DockLayoutComposition#getLayout() layout}
+     * or its {@link DockLayoutComposition#getAdjacent() adjacent layouts} are accessed for the first time. Hence 
+     * <code>buffer</code> must not be modified as long as the composition is in use.<br>
+     * Only the structure of the tree is read eagerly, elements which are never {@link #convert(DockLayoutComposition) converted},
+     * {@link #estimateLocations(DockLayoutComposition) analyzed} or written as xml cost little more than their
+     * structure. Writing an element that was never accessed does not need to decode its data either.<br>
+     * <b>Note:</b> <code>buffer</code> should not be a {@link java.nio.MappedByteBuffer} of a file that is going to be 
+     * written again. A mapping remains valid until it is garbage collected, overwriting or truncating the file can
+     * crash the virtual machine or fail on some operating systems.
+     * @param buffer the buffer to read from
+     * @return the new composition or <code>null</code> if the factory was missing
+     * @throws IOException if the data cannot be read
+     * @see #readCompositions(File)
+     */
+    public DockLayoutComposition readComposition( ByteBuffer buffer ) throws IOException{
+    	return readComposition( new ByteBufferDataInputStream( buffer ) );
     }
 
     /**
      * Reads one {@link DockLayoutComposition} and all its children.
      * @param in the stream to read from
+     * @param source if not <code>null</code>, then the buffer from which <code>in</code> reads without buffering, in this
+     * case the data of the factories is decoded lazily
      * @param version the format of <code>in</code>
      * @return the new composition or <code>null</code> if the factory was missing
      * @throws IOException if an I/O-error occurs
      */
     @SuppressWarnings("unchecked")
-    private DockLayoutComposition readCompositionStream( DataInputStream in, Version version ) throws IOException{
+    private DockLayoutComposition readCompositionStream( DataInputStream in, ByteBuffer source, Version version ) throws IOException{
         // factory
     	Path entryPlaceholder = null;
     	
@@ -549,12 +732,59 @@ public class DockSituation {
 	   		}
     	}
     	
-        byte[] entry = readBuffer( in );
-
-        DockLayoutInfo info = readEntry( entry, entryPlaceholder );
+    	boolean chunked = Version.VERSION_1_1_2a.compareTo( version ) <= 0;
+    	
+    	DockLayoutInfo info;
+    	if( chunked ){
+    		info = readChunkedEntry( in, source, entryPlaceholder );
+    	}
+    	else{
+    		byte[] entry = readBuffer( in );
+    		info = readEntry( entry, entryPlaceholder );
+    	}
 
         List<DockLayout<?>> adjacentLayouts = null;
-        if( Version.VERSION_1_0_7.compareTo( version ) <= 0 ){
+        if( chunked ){
+        	int layoutCount = in.readInt();
+        	if( layoutCount > 0 ){
+        		adjacentLayouts = new ArrayList<DockLayout<?>>( layoutCount );
+        		
+        		for( int i = 0; i < layoutCount; i++ ){
+        			String adjacentFactoryId = in.readUTF();
+        			ChunkedInputStream chunks = new ChunkedInputStream( in );
+        			final AdjacentDockFactory<Object> adjacentFactory = (AdjacentDockFactory<Object>)getAdjacentFactory( adjacentFactoryId );
+        			Object data = null;
+        			if( adjacentFactory != null && source != null ){
+        				ByteBuffer encoded = readEncoded( source, chunks );
+        				final PlaceholderStrategy strategy = intermediatePlaceholders;
+        				adjacentLayouts.add( new LazyDockLayout<Object>( adjacentFactoryId, encoded ){
+        					@Override
+        					protected Object read( DataInputStream in ) throws IOException{
+        						return adjacentFactory.read( in, strategy );
+        					}
+        				});
+        			}
+        			else if( adjacentFactory == null ){
+        				if( missingAdjacent != null ){
+        					byte[] content = chunks.readAll();
+        					DataInputStream din = new DataInputStream( new ByteArrayInputStream( content ));
+        					data = missingAdjacent.read( getAdjacentFactoryID( adjacentFactoryId ), din, content.length );
+        					din.close();
+        				}
+        			}
+        			else{
+        				data = adjacentFactory.read( new DataInputStream( chunks ), intermediatePlaceholders );
+        			}
+        			// skips whatever the factory did not read
+        			chunks.finish();
+        			
+        			if( data != null ){
+        				adjacentLayouts.add( new DockLayout<Object>( adjacentFactoryId, data ) );
+        			}
+        		}
+        	}
+        }
+        else if( Version.VERSION_1_0_7.compareTo( version ) <= 0 ){
             // adjacent
             int layoutCount = in.readInt();
             if( layoutCount > 0 ){
@@ -603,7 +833,7 @@ public class DockSituation {
         List<DockLayoutComposition> children = new ArrayList<DockLayoutComposition>();
         int count = in.readInt();
         for( int i = 0; i < count; i++ ){
-            children.add( readCompositionStream( in, version ) );
+            children.add( readCompositionStream( in, source, version ) );
         }
 
         // result
@@ -667,6 +897,82 @@ public class DockSituation {
         return info;
     }
 
+    /**
+     * Reads one entry that was written in the chunked format of version 1.1.2a. The entry
+     * starts with an utf-String used as id for a {@link DockFactory}, followed by the data
+     * of the factory in chunks. The data of a known factory is read directly from <code>in</code>,
+     * only the data of unknown factories is copied into a buffer.
+     * @param in the stream to read from
+     * @param source if not <code>null</code>, then the buffer from which <code>in</code> reads, in this case
+     * the data of a known factory is not decoded but stored in a {@link LazyDockLayout}
+     * @param placeholder the placeholder which is associated with this element
+     * @return the information that was obtained, may be <code>null</code>
+     * @throws IOException if <code>in</code> has not the correct format
+     */
+    @SuppressWarnings("unchecked")
+    private DockLayoutInfo readChunkedEntry( DataInputStream in, ByteBuffer source, Path placeholder ) throws IOException{
+    	String factoryId = in.readUTF();
+    	ChunkedInputStream chunks = new ChunkedInputStream( in );
+    	
+    	final DockFactory<DockElement,?,Object> factory = (DockFactory<DockElement,?,Object>)getFactory( factoryId );
+    	if( factory != null && source != null ){
+    		ByteBuffer encoded = readEncoded( source, chunks );
+    		final PlaceholderStrategy strategy = intermediatePlaceholders;
+    		DockLayoutInfo info = new DockLayoutInfo( new LazyDockLayout<Object>( factoryId, encoded ){
+    			@Override
+    			protected Object read( DataInputStream in ) throws IOException{
+    				return factory.read( in, strategy );
+    			}
+    		});
+    		info.setPlaceholder( placeholder );
+    		return info;
+    	}
+    	
+    	if( factory == null ){
+    		// the bytes are stored in the format of version 1.0.8, so they can be written again
+    		byte[] content = chunks.readAll();
+    		
+    		ByteArrayOutputStream bout = new ByteArrayOutputStream( factoryId.length()*4 + 6 + content.length );
+    		DataOutputStream dout = new DataOutputStream( bout );
+    		dout.writeUTF( factoryId );
+    		dout.writeInt( content.length );
+    		dout.write( content );
+    		dout.close();
+    		
+    		return readEntry( bout.toByteArray(), placeholder );
+    	}
+    	
+    	Object data = factory.read( new DataInputStream( chunks ), intermediatePlaceholders );
+    	// skips whatever the factory did not read
+    	chunks.finish();
+    	
+    	if( data == null ){
+    		return null;
+    	}
+    	
+    	DockLayoutInfo info = new DockLayoutInfo( new DockLayout<Object>( factoryId, data ) );
+    	info.setPlaceholder( placeholder );
+    	return info;
+    }
+
+    /**
+     * Skips the chunks of <code>chunks</code> and returns a view of the skipped bytes.
+     * @param source the buffer which is read by <code>chunks</code>
+     * @param chunks the chunks to skip, nothing of <code>chunks</code> must have been read yet
+     * @return a view of <code>source</code> containing all the chunks, including the last empty chunk
+     * @throws IOException if the chunks cannot be read
+     */
+    private ByteBuffer readEncoded( ByteBuffer source, ChunkedInputStream chunks ) throws IOException{
+    	int start = source.position();
+    	chunks.finish();
+    	int end = source.position();
+    	
+    	ByteBuffer encoded = source.duplicate();
+    	encoded.position( start );
+    	encoded.limit( end );
+    	return encoded.slice();
+    }
+
     /**
      * Reads <code>count</code> bytes from <code>in</code> and returns them
      * in a new stream.
@@ -832,6 +1138,48 @@ public class DockSituation {
         return result;
     }
     
+    /**
+     * Reads <code>buffer</code> and returns the map of {@link DockLayoutComposition}s that was
+     * stored. The data of the {@link DockFactory}s is decoded lazily, see {@link #readComposition(ByteBuffer)}.
+     * @param buffer the buffer to read from, its position will be moved to the end of the data
+     * @return the roots of the layout
+     * @throws IOException if the data cannot be read
+     */
+    public Map<String, DockLayoutComposition> readCompositions( ByteBuffer buffer ) throws IOException{
+    	return readCompositions( new ByteBufferDataInputStream( buffer ) );
+    }
+    
+    /**
+     * Reads a file that was written with {@link #writeCompositions(Map, DataOutputStream)}. The file is
+     * read into memory with one operation and the data of the {@link DockFactory}s is decoded lazily, see
+     * {@link #readComposition(ByteBuffer)}. The file is not mapped into memory, hence it can be written
+     * again while the compositions are in use.
+     * @param file the file to read
+     * @return the roots of the layout
+     * @throws IOException if the file cannot be read
+     */
+    public Map<String, DockLayoutComposition> readCompositions( File file ) throws IOException{
+    	FileInputStream in = new FileInputStream( file );
+    	try{
+    		FileChannel channel = in.getChannel();
+    		long size = channel.size();
+    		if( size > Integer.MAX_VALUE ){
+    			throw new IOException( "file too large: " + file );
+    		}
+    		ByteBuffer buffer = ByteBuffer.allocate( (int)size );
+    		while( buffer.hasRemaining() ){
+    			if( channel.read( buffer ) < 0 ){
+    				throw new EOFException();
+    			}
+    		}
+    		buffer.flip();
+    		return readCompositions( buffer );
+    	}
+    	finally{
+    		in.close();
+    	}
+    }
+    
     /**
      * Writes the contents of <code>composition</code> into <code>element</code> without
      * changing the attributes of <code>element</code>.
@@ -1013,6 +1361,34 @@ public class DockSituation {
         }
     }
     
+    /**
+     * Writes the contents of <code>stations</code> into <code>writer</code>. Each composition is
+     * converted into a {@link XElement} and written before the next one is converted.
+     * @param stations the items to write
+     * @param writer the writer whose current element will be the parent of the compositions
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeCompositionsXML( Map<String, DockLayoutComposition> stations, XElementWriter writer ) throws IOException{
+    	writeCompositionsXML( stations, writer, "element" );
+    }
+    
+    /**
+     * Writes the contents of <code>stations</code> into <code>writer</code>. Each composition is
+     * converted into a {@link XElement} called <code>tag</code> and written before the next one is converted.
+     * @param stations the items to write
+     * @param writer the writer whose current element will be the parent of the compositions
+     * @param tag the name of the elements which contain the compositions
+     * @throws IOException if <code>writer</code> throws an exception
+     */
+    public void writeCompositionsXML( Map<String, DockLayoutComposition> stations, XElementWriter writer, String tag ) throws IOException{
+    	for( Map.Entry<String, DockLayoutComposition> entry : stations.entrySet() ){
+            XElement xchild = new XElement( tag );
+            xchild.addString( "name", entry.getKey() );
+            writeCompositionXML( entry.getValue(), xchild );
+            writer.write( xchild );
+        }
+    }
+    
     /**
      * Reads a set of {@link DockStation}s that were stored earlier.
      * @param root the xml element from which to read
@@ -1048,6 +1424,43 @@ public class DockSituation {
         return result;
     }
     
+    /**
+     * Reads a set of {@link DockLayoutComposition}s that were stored earlier. The compositions are read one
+     * after the other, the xml tree of a composition is discarded as soon as the composition is created.
+     * @param reader the reader whose current element is the parent of the compositions, all the remaining
+     * children of the current element are read
+     * @return the compositions that were found
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public Map<String, DockLayoutComposition> readCompositionsXML( XElementReader reader ) throws IOException{
+    	return readCompositionsXML( reader, "element" );
+    }
+    
+    /**
+     * Reads a set of {@link DockLayoutComposition}s that were stored earlier. The compositions are read one
+     * after the other, the xml tree of a composition is discarded as soon as the composition is created.
+     * @param reader the reader whose current element is the parent of the compositions, all the remaining
+     * children of the current element are read
+     * @param tag the name of the elements which contain the compositions, other elements are ignored
+     * @return the compositions that were found, in the order in which they were read
+     * @throws IOException if <code>reader</code> throws an exception
+     */
+    public Map<String, DockLayoutComposition> readCompositionsXML( XElementReader reader, String tag ) throws IOException{
+    	Map<String, DockLayoutComposition> result = new LinkedHashMap<String, DockLayoutComposition>();
+    	XElement xelement = reader.next();
+    	while( xelement != null ){
+    		if( xelement.getName().equals( tag )){
+	    		String name = xelement.getString( "name" );
+	            DockLayoutComposition composition = readCompositionXML( xelement );
+	            if( composition != null ){
+	            	result.put( name, composition );
+	            }
+    		}
+    		xelement = reader.next();
+    	}
+    	return result;
+    }
+    
     /**
      * Using the factories currently known to this {@link DockSituation}, this
      * method tries to fill gaps in <code>composition</code>. It checks
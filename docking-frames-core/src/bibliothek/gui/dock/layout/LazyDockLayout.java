@@ -0,0 +1,163 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.layout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DockLayout} whose data is decoded only when {@link #decode()} or {@link #getData()} is called for the first time.
+ * Until then the layout only holds a reference to the encoded data. A {@link DockSituation} creates these layouts when 
+ * reading from a {@link ByteBuffer}, and writes the encoded data again without decoding it if the layout was never accessed.<br>
+ * Clients usually never see an undecoded {@link LazyDockLayout}: a {@link DockLayoutComposition} decodes its layouts
+ * when they are accessed for the first time. If the data cannot be decoded, or if the factory returns <code>null</code>, 
+ * then the composition behaves as if the data had been read eagerly.
+ * @author Benjamin Sigg
+ * @param <L> the kind of data stored in this layout
+ * @see DockSituation#readComposition(ByteBuffer)
+ */
+public abstract class LazyDockLayout<L> extends DockLayout<L> {
+	/** the encoded data, in the chunked format of version 1.1.2a, <code>null</code> once the data is decoded */
+	private ByteBuffer encoded;
+	
+	/**
+	 * Creates a new layout.
+	 * @param factory the identifier of the factory that created the layout
+	 * @param encoded the encoded data, this buffer will not be modified
+	 */
+	public LazyDockLayout( String factory, ByteBuffer encoded ){
+		super( factory, null );
+		if( encoded == null ){
+			throw new IllegalArgumentException( "encoded must not be null" );
+		}
+		this.encoded = encoded.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Tells whether the data of this layout has already been decoded.
+	 * @return <code>true</code> if the data is available without reading the encoded data
+	 */
+	public boolean isDecoded(){
+		return encoded == null;
+	}
+	
+	/**
+	 * Decodes the data of this layout, does nothing if the data is already decoded. If decoding fails,
+	 * then this layout remains undecoded.
+	 * @throws IOException if the data cannot be decoded
+	 */
+	public void decode() throws IOException{
+		if( encoded != null ){
+			ByteBuffer source = encoded.duplicate();
+			source.rewind();
+			ChunkedInputStream chunks = new ChunkedInputStream( new DataInputStream( new ByteBufferInputStream( source )));
+			L data = read( new DataInputStream( chunks ) );
+			chunks.finish();
+			super.setData( data );
+			encoded = null;
+		}
+	}
+	
+	/**
+	 * Gets the data of this layout, decodes the data if necessary.
+	 * @return the data, may be <code>null</code> if the factory was not able to read the data
+	 * @throws IllegalStateException if the data cannot be decoded, this can only happen if this layout
+	 * is accessed without the help of its {@link DockLayoutComposition}
+	 */
+	@Override
+	public L getData(){
+		try{
+			decode();
+		}
+		catch( IOException ex ){
+			throw new IllegalStateException( "unable to decode layout of factory '" + getFactoryID() + "'", ex );
+		}
+		return super.getData();
+	}
+	
+	@Override
+	public void setData( L data ){
+		encoded = null;
+		super.setData( data );
+	}
+	
+	/**
+	 * Writes the encoded data of this layout into <code>out</code>. This method must only be called
+	 * if the layout is not yet {@link #isDecoded() decoded}.
+	 * @param out the stream to write into
+	 * @throws IOException if <code>out</code> throws an exception
+	 * @throws IllegalStateException if the data is already decoded
+	 */
+	public void writeEncoded( DataOutputStream out ) throws IOException{
+		if( encoded == null ){
+			throw new IllegalStateException( "the data is already decoded" );
+		}
+		ByteBuffer source = encoded.duplicate();
+		source.rewind();
+		byte[] buffer = new byte[ Math.min( source.remaining(), 4096 ) ];
+		while( source.hasRemaining() ){
+			int count = Math.min( buffer.length, source.remaining() );
+			source.get( buffer, 0, count );
+			out.write( buffer, 0, count );
+		}
+	}
+	
+	/**
+	 * Converts the encoded data of this layout into an entry of the format of version 1.0.8: an utf-String
+	 * with the identifier of the factory, the number of bytes, and the bytes themselves. This format is used by
+	 * {@link DockLayoutInfo}s whose data could not be read.
+	 * @return the entry
+	 * @throws IOException if the encoded data is corrupt
+	 * @throws IllegalStateException if the data is already decoded
+	 */
+	byte[] toEntry() throws IOException{
+		if( encoded == null ){
+			throw new IllegalStateException( "the data is already decoded" );
+		}
+		ByteBuffer source = encoded.duplicate();
+		source.rewind();
+		byte[] content = new ChunkedInputStream( new DataInputStream( new ByteBufferInputStream( source ))).readAll();
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream( getFactoryID().length()*4 + 6 + content.length );
+		DataOutputStream dout = new DataOutputStream( bout );
+		dout.writeUTF( getFactoryID() );
+		dout.writeInt( content.length );
+		dout.write( content );
+		dout.close();
+		return bout.toByteArray();
+	}
+	
+	/**
+	 * Decodes the data of this layout.
+	 * @param in the encoded data
+	 * @return the decoded data, may be <code>null</code>
+	 * @throws IOException if <code>in</code> cannot be read
+	 */
+	protected abstract L read( DataInputStream in ) throws IOException;
+}
@@ -32,6 +32,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -168,6 +169,14 @@ public class PredefinedDockSituation extends DockSituation {
         stringToElement.put( key, element );
         elementToString.put( element, key );
     }
+    
+    /**
+     * Gets the keys of all the elements that were {@link #put(String, DockElement) predefined}.
+     * @return the keys, an unmodifiable view of the keys
+     */
+    public Set<String> getPredefinedKeys(){
+    	return Collections.unmodifiableSet( stringToElement.keySet() );
+    }
 
     /**
      * Tells whether the layout of <code>element</code> itself should be stored
@@ -0,0 +1,52 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.station;
+
+import java.awt.Rectangle;
+
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+
+/**
+ * A {@link StationDropRegion} is a {@link StationDropOperation} which knows an area of the screen in which
+ * the mouse can be moved without changing the outcome of the operation. During a drag and drop operation 
+ * the {@link bibliothek.gui.dock.control.relocator.DefaultDockRelocator DefaultDockRelocator} reuses such
+ * an operation instead of calling {@link DockStation#prepareDrop(StationDropItem)} again, as long as the 
+ * mouse remains in the region.<br>
+ * Operations should only report a region if the result of {@link DockStation#prepareDrop(StationDropItem)}
+ * would be equivalent for any location inside the region.
+ * @author Benjamin Sigg
+ */
+public interface StationDropRegion extends StationDropOperation{
+	/**
+	 * Gets the region of the screen in which the mouse can be moved without changing the outcome of this
+	 * operation. This method is called every time the mouse is moved, hence it should be fast. The region
+	 * should be calculated anew for every call, to reflect any changes of the layout.
+	 * @return the region in screen coordinates, or <code>null</code> if this operation is only valid 
+	 * for the exact location where it was created, or if the {@link Dockable} is no longer in the region
+	 */
+	public Rectangle getDropRegion();
+}
@@ -34,6 +34,7 @@ import javax.swing.SwingUtilities;
 import bibliothek.gui.DockStation;
 import bibliothek.gui.dock.FlapDockStation;
 import bibliothek.gui.dock.FlapDockStation.Direction;
+import bibliothek.gui.dock.station.layer.BoundedDropLayer;
 import bibliothek.gui.dock.station.layer.DockStationDropLayer;
 import bibliothek.gui.dock.station.layer.LayerPriority;
 
@@ -42,7 +43,7 @@ import bibliothek.gui.dock.station.layer.LayerPriority;
  * are no children in the {@link FlapDockStation} (which makes the station very small).
  * @author Benjamin Sigg
  */
-public class FlapSideDropLayer implements DockStationDropLayer{
+public class FlapSideDropLayer implements BoundedDropLayer{
 	private FlapDockStation station;
 	private LayerPriority priority = LayerPriority.OUTSIDE_HIGH;
 	
@@ -66,6 +67,16 @@ public class FlapSideDropLayer implements DockStationDropLayer{
 		return child;
 	}
 
+	public Rectangle getScreenBounds(){
+		Component component = getComponent();
+		if( !component.isShowing() ){
+			return null;
+		}
+		int size = station.getBorderSideSnapSize();
+		Point location = component.getLocationOnScreen();
+		return new Rectangle( location.x - size, location.y - size, component.getWidth() + 2*size + 1, component.getHeight() + 2*size + 1 );
+	}
+	
 	public boolean contains( int x, int y ){
 		Point point = new Point( x, y );
 		SwingUtilities.convertPointFromScreen( point, getComponent() );
@@ -0,0 +1,46 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.station.layer;
+
+import java.awt.Rectangle;
+
+/**
+ * A {@link BoundedDropLayer} is a {@link DockStationDropLayer} which knows a rectangle on the screen
+ * outside of which {@link #contains(int, int)} never returns <code>true</code>. Spatial indices, like the 
+ * one used by the {@link bibliothek.gui.dock.control.relocator.DefaultDockRelocator DefaultDockRelocator}, 
+ * use these bounds to skip layers which are far away from the mouse.
+ * @author Benjamin Sigg
+ */
+public interface BoundedDropLayer extends DockStationDropLayer{
+	/**
+	 * Gets the boundaries of this layer in screen coordinates. The rectangle must contain all the points
+	 * for which {@link #contains(int, int)} could return <code>true</code>. The result only needs to be
+	 * updated if the {@link #getComponent() component} of this layer is moved or resized.
+	 * @return the boundaries or <code>null</code> if the boundaries are unknown, in which case this
+	 * layer is treated as if it would cover the entire screen
+	 */
+	public Rectangle getScreenBounds();
+}
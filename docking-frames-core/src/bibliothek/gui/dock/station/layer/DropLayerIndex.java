@@ -0,0 +1,423 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.station.layer;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
+import java.awt.event.HierarchyBoundsListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import bibliothek.gui.DockController;
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.event.DockRegisterAdapter;
+
+/**
+ * A {@link DropLayerIndex} is a spatial index of the {@link DockStationDropLayer}s of all the {@link DockStation}s
+ * that are registered at a {@link DockController}. The index is intended to be used during one drag and drop
+ * operation: it is built when {@link #search(int, int, Dockable, Filter) searching} the first time, and it is
+ * updated incrementally when stations are added or removed, or when their {@link Component}s are moved or resized.
+ * Calling {@link #clear()} releases all resources and stops the observation of the {@link Component}s.<br>
+ * The layers are stored in a uniform grid of cells, a search only checks the layers whose cells contain the
+ * mouse. Layers which do not implement {@link BoundedDropLayer}, or which do not know their boundaries,
+ * are checked for every search.<br>
+ * The order of the stations returned by {@link #search(int, int, Dockable, Filter)} is the same order an
+ * {@link OrderedLayerCollection} would produce.
+ * @author Benjamin Sigg
+ */
+public class DropLayerIndex {
+	/** the size of one cell of the grid in pixels */
+	private static final int CELL_SIZE = 128;
+	
+	/**
+	 * Decides which {@link DockStation}s are stored in a {@link DropLayerIndex}.
+	 * @author Benjamin Sigg
+	 */
+	public static interface Filter{
+		/**
+		 * Tells whether <code>station</code> could be the target of a drag and drop operation
+		 * in which <code>moved</code> is the dragged element.
+		 * @param station the station to check
+		 * @param moved the element that is dragged around
+		 * @return <code>true</code> if <code>station</code> should be considered as new parent
+		 */
+		public boolean isCandidate( DockStation station, Dockable moved );
+	}
+	
+	/** the controller whose stations are indexed */
+	private DockController controller;
+	
+	/** the element which is moved while {@link #layers} was built */
+	private Dockable moved;
+	
+	/** the factory which was used to build {@link #layers} */
+	private DockStationDropLayerFactory factory;
+	
+	/** all the known layers, in the order of {@link OrderedLayerCollection#listLayers()}, <code>null</code> if the index is invalid */
+	private List<Entry> layers;
+	
+	/** the layers which have no boundaries and need to be checked for any location */
+	private List<Entry> unbounded = new ArrayList<Entry>();
+	
+	/** the cells of the grid, the key is created by {@link #key(int, int)} */
+	private Map<Long, List<Entry>> cells = new HashMap<Long, List<Entry>>();
+	
+	/** all the {@link Component}s that are observed, and the layers that depend on them */
+	private Map<Component, List<Entry>> components = new HashMap<Component, List<Entry>>();
+	
+	/** the layers whose boundaries need to be recalculated */
+	private Set<Entry> dirty = new HashSet<Entry>();
+	
+	/** the collection used to order the layers */
+	private OrderedLayerCollection collection;
+	
+	/** observes the components of the stations and their layers */
+	private Listener listener = new Listener();
+	
+	/** observes the {@link DockController#getRegister() register} */
+	private DockRegisterAdapter registerListener = new DockRegisterAdapter(){
+		@Override
+		public void dockStationRegistered( DockController controller, DockStation station ){
+			invalidate();
+		}
+		
+		@Override
+		public void dockStationUnregistered( DockController controller, DockStation station ){
+			invalidate();
+		}
+		
+		@Override
+		public void dockableRegistered( DockController controller, Dockable dockable ){
+			invalidate();
+		}
+		
+		@Override
+		public void dockableUnregistered( DockController controller, Dockable dockable ){
+			invalidate();
+		}
+	};
+	
+	/**
+	 * Creates a new index.
+	 * @param controller the controller whose stations are to be indexed
+	 */
+	public DropLayerIndex( DockController controller ){
+		if( controller == null ){
+			throw new IllegalArgumentException( "controller must not be null" );
+		}
+		this.controller = controller;
+	}
+	
+	/**
+	 * Makes a list of all the stations that have a layer containing the point <code>x/y</code>. The stations 
+	 * are ordered by the priority of their layers.
+	 * @param x the x-coordinate of the mouse on the screen
+	 * @param y the y-coordinate of the mouse on the screen
+	 * @param moved the element that is dragged around
+	 * @param filter decides which stations are stored in this index, the filter is only called when
+	 * the index has to be rebuilt
+	 * @return the ordered list of stations, the station with the highest priority is the first station
+	 */
+	public List<DockStation> search( int x, int y, Dockable moved, Filter filter ){
+		DockStationDropLayerFactory factory = controller.getProperties().get( DockStationDropLayerFactory.DROP_LAYER_FACTORY );
+		if( layers == null || this.moved != moved || this.factory != factory ){
+			build( moved, factory, filter );
+		}
+		update();
+		
+		List<Entry> candidates = new ArrayList<Entry>();
+		List<Entry> cell = cells.get( key( cell( x ), cell( y ) ));
+		if( cell != null ){
+			for( Entry entry : cell ){
+				if( entry.layer.contains( x, y )){
+					candidates.add( entry );
+				}
+			}
+		}
+		for( Entry entry : unbounded ){
+			if( entry.layer.contains( x, y )){
+				candidates.add( entry );
+			}
+		}
+		
+		// keep the order of OrderedLayerCollection, the result of the sorting algorithm depends on it 
+		Collections.sort( candidates, new Comparator<Entry>(){
+			public int compare( Entry a, Entry b ){
+				return a.index - b.index;
+			}
+		});
+		
+		List<DockStationDropLayer> result = new ArrayList<DockStationDropLayer>( candidates.size() );
+		for( Entry entry : candidates ){
+			result.add( entry.layer );
+		}
+		return collection.toStations( collection.sort( result ) );
+	}
+	
+	/**
+	 * Marks this index as invalid, the index will be rebuilt the next time it is used. 
+	 */
+	public void invalidate(){
+		if( layers != null ){
+			clear();
+		}
+	}
+	
+	/**
+	 * Removes all the layers from this index and stops observing any {@link Component}s. This method
+	 * should be called once a drag and drop operation is finished.
+	 */
+	public void clear(){
+		if( layers != null ){
+			controller.getRegister().removeDockRegisterListener( registerListener );
+			for( Component component : components.keySet() ){
+				component.removeComponentListener( listener );
+				component.removeHierarchyListener( listener );
+				component.removeHierarchyBoundsListener( listener );
+			}
+		}
+		layers = null;
+		moved = null;
+		factory = null;
+		collection = null;
+		unbounded.clear();
+		cells.clear();
+		components.clear();
+		dirty.clear();
+	}
+	
+	/**
+	 * Rebuilds this index.
+	 * @param moved the element that is dragged around
+	 * @param factory the factory that creates the {@link DockStationDropLayer}s
+	 * @param filter decides which stations are to be stored
+	 */
+	private void build( Dockable moved, DockStationDropLayerFactory factory, Filter filter ){
+		clear();
+		this.moved = moved;
+		this.factory = factory;
+		
+		collection = new OrderedLayerCollection( factory );
+		for( DockStation station : controller.getRegister().listDockStations() ){
+			if( filter.isCandidate( station, moved )){
+				collection.add( station );
+			}
+			
+			// if a station is shown or hidden, the set of candidates changes
+			Dockable dockable = station.asDockable();
+			if( dockable != null ){
+				observe( dockable.getComponent(), null );
+			}
+		}
+		
+		layers = new ArrayList<Entry>();
+		for( DockStationDropLayer layer : collection.listLayers() ){
+			Entry entry = new Entry( layer, layers.size() );
+			layers.add( entry );
+			dirty.add( entry );
+			observe( layer.getComponent(), entry );
+		}
+		
+		controller.getRegister().addDockRegisterListener( registerListener );
+	}
+	
+	/**
+	 * Starts observing <code>component</code>.
+	 * @param component the component to observe, can be <code>null</code>
+	 * @param entry the layer which depends on <code>component</code>, can be <code>null</code>
+	 */
+	private void observe( Component component, Entry entry ){
+		if( component != null ){
+			List<Entry> entries = components.get( component );
+			if( entries == null ){
+				entries = new ArrayList<Entry>( 2 );
+				components.put( component, entries );
+				component.addComponentListener( listener );
+				component.addHierarchyListener( listener );
+				component.addHierarchyBoundsListener( listener );
+			}
+			if( entry != null ){
+				entries.add( entry );
+			}
+		}
+	}
+	
+	/**
+	 * Recalculates the boundaries of all the layers whose {@link Component}s were moved or resized.
+	 */
+	private void update(){
+		for( Entry entry : dirty ){
+			entry.update();
+		}
+		dirty.clear();
+	}
+	
+	/**
+	 * Marks all the layers depending on <code>component</code> as dirty.
+	 * @param component the component that was moved or resized
+	 */
+	private void moved( Component component ){
+		List<Entry> entries = components.get( component );
+		if( entries != null ){
+			dirty.addAll( entries );
+		}
+	}
+	
+	private static int cell( int coordinate ){
+		// rounds towards negative infinity, screens left or above of the main screen have negative coordinates
+		return (int)Math.floor( coordinate / (double)CELL_SIZE );
+	}
+	
+	private static Long key( int cellX, int cellY ){
+		return Long.valueOf( ((long)cellX << 32) | (cellY & 0xFFFFFFFFL) );
+	}
+	
+	/**
+	 * One layer of a {@link DockStation}, and the cells of the grid in which the layer is stored.
+	 * @author Benjamin Sigg
+	 */
+	private class Entry{
+		/** the layer represented by this entry */
+		private final DockStationDropLayer layer;
+		/** the location of {@link #layer} in the list of {@link OrderedLayerCollection#listLayers()} */
+		private final int index;
+		/** the cells in which this entry is currently stored, <code>null</code> if this entry is {@link #unbounded} */
+		private Rectangle area;
+		/** whether this entry is currently stored in {@link #unbounded} */
+		private boolean isUnbounded = false;
+		
+		public Entry( DockStationDropLayer layer, int index ){
+			this.layer = layer;
+			this.index = index;
+		}
+		
+		/**
+		 * Removes this entry from the grid, and inserts it again according to the current boundaries
+		 * of its layer.
+		 */
+		public void update(){
+			remove();
+			
+			Rectangle bounds = null;
+			if( layer instanceof BoundedDropLayer ){
+				bounds = ((BoundedDropLayer)layer).getScreenBounds();
+			}
+			
+			if( bounds == null ){
+				isUnbounded = true;
+				unbounded.add( this );
+			}
+			else if( !bounds.isEmpty() ){
+				int minX = cell( bounds.x );
+				int minY = cell( bounds.y );
+				int maxX = cell( bounds.x + bounds.width - 1 );
+				int maxY = cell( bounds.y + bounds.height - 1 );
+				area = new Rectangle( minX, minY, maxX - minX + 1, maxY - minY + 1 );
+				
+				for( int x = minX; x <= maxX; x++ ){
+					for( int y = minY; y <= maxY; y++ ){
+						Long key = key( x, y );
+						List<Entry> list = cells.get( key );
+						if( list == null ){
+							list = new ArrayList<Entry>( 4 );
+							cells.put( key, list );
+						}
+						list.add( this );
+					}
+				}
+			}
+		}
+		
+		private void remove(){
+			if( isUnbounded ){
+				unbounded.remove( this );
+				isUnbounded = false;
+			}
+			if( area != null ){
+				for( int x = area.x, maxX = area.x + area.width; x < maxX; x++ ){
+					for( int y = area.y, maxY = area.y + area.height; y < maxY; y++ ){
+						Long key = key( x, y );
+						List<Entry> list = cells.get( key );
+						if( list != null ){
+							list.remove( this );
+							if( list.isEmpty() ){
+								cells.remove( key );
+							}
+						}
+					}
+				}
+				area = null;
+			}
+		}
+	}
+	
+	/**
+	 * Observes the {@link Component}s of the stations and of their layers.
+	 * @author Benjamin Sigg
+	 */
+	private class Listener implements ComponentListener, HierarchyListener, HierarchyBoundsListener{
+		public void componentMoved( ComponentEvent e ){
+			moved( e.getComponent() );
+		}
+		
+		public void componentResized( ComponentEvent e ){
+			moved( e.getComponent() );
+		}
+		
+		public void componentShown( ComponentEvent e ){
+			invalidate();
+		}
+		
+		public void componentHidden( ComponentEvent e ){
+			invalidate();
+		}
+		
+		public void ancestorMoved( HierarchyEvent e ){
+			moved( e.getComponent() );
+		}
+		
+		public void ancestorResized( HierarchyEvent e ){
+			moved( e.getComponent() );
+		}
+		
+		public void hierarchyChanged( HierarchyEvent e ){
+			if( (e.getChangeFlags() & (HierarchyEvent.SHOWING_CHANGED | HierarchyEvent.PARENT_CHANGED)) != 0 ){
+				invalidate();
+			}
+		}
+	}
+}
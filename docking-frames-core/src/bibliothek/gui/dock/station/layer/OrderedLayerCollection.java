@@ -79,6 +79,24 @@ public class OrderedLayerCollection {
 	 * @return the ordered stations, where the first station is the station with the highest priority 
 	 */
 	public List<DockStation> sort( int x, int y ){
+		List<DockStationDropLayer> layers = new ArrayList<DockStationDropLayer>();
+		for( DockStationDropLayer layer : listLayers() ){
+			if( layer.contains( x, y )){
+				layers.add( layer );
+			}
+		}
+		
+		return toStations( sort( layers ) );
+	}
+	
+	/**
+	 * Collects the {@link DockStationDropLayer}s of all the stations currently known to this collection, and
+	 * allows each station to {@link DockStationDropLayer#modify(DockStationDropLayer) modify} the layers of
+	 * its children. The layers are not filtered by their location, the result of this method can be reused
+	 * for many different positions of the mouse as long as the set of stations does not change.
+	 * @return all the modified layers, children are listed before their parents
+	 */
+	public List<DockStationDropLayer> listLayers(){
 		Map<DockStation, Node> nodes = new HashMap<DockStation, OrderedLayerCollection.Node>();
 		for( DockStation station : stations ){
 			nodes.put( station, new Node( station ) );
@@ -97,14 +115,22 @@ public class OrderedLayerCollection {
 		
 		List<DockStationDropLayer> layers = new ArrayList<DockStationDropLayer>();
 		for( Node root : roots ){
-			root.collect( layers, x, y );
+			root.collect( layers );
 		}
-		
-		layers = sort( layers );
-		
+		return layers;
+	}
+	
+	/**
+	 * Converts a list of ordered layers into a list of ordered stations, each station
+	 * is listed only once.
+	 * @param layers the layers, the result of {@link #sort(List)}
+	 * @return the stations of <code>layers</code>
+	 */
+	public List<DockStation> toStations( List<DockStationDropLayer> layers ){
+		Set<DockStation> added = new HashSet<DockStation>();
 		List<DockStation> result = new ArrayList<DockStation>();
 		for( DockStationDropLayer layer : layers ){
-			if( nodes.remove( layer.getStation() ) != null ){
+			if( added.add( layer.getStation() )){
 				result.add( layer.getStation() );
 			}
 		}
@@ -342,22 +368,17 @@ public class OrderedLayerCollection {
 		}
 		
 		/**
-		 * Collects all layers of this node and of its children. Layers which do not contain
-		 * the point <code>x/y</code> are ignored.
+		 * Collects all layers of this node and of its children.
 		 * @param layers the list to fill
-		 * @param x the x-coordinate of the mouse on the screen
-		 * @param y the y-coordinate of the mouse on the screen 
 		 */
-		public void collect( List<DockStationDropLayer> layers, int x, int y ){
+		public void collect( List<DockStationDropLayer> layers ){
 			if( children != null ){
 				for( Node child : children ){
-					child.collect( layers, x, y );
+					child.collect( layers );
 				}
 			}
 			for( DockStationDropLayer layer : this.layers ){
-				if( layer.contains( x, y )){
-					layers.add( layer );
-				}
+				layers.add( layer );
 			}
 		}
 	}
@@ -26,6 +26,7 @@
 package bibliothek.gui.dock.station.screen.layer;
 
 import java.awt.Component;
+import java.awt.Rectangle;
 
 import bibliothek.gui.dock.ScreenDockStation;
 import bibliothek.gui.dock.station.layer.DefaultDropLayer;
@@ -50,6 +51,11 @@ public class ScreenWindowLayer extends DefaultDropLayer{
 		return window.contains( x, y );
 	}
 	
+	@Override
+	public Rectangle getScreenBounds(){
+		return window.getWindowBounds();
+	}
+	
 	@Override
 	public Component getComponent(){
 		return window.getDockableDisplayer().getComponent();
@@ -42,6 +42,15 @@ public class DefaultMagnetOperation implements MagnetOperation{
 	/** Tells which window is neighbor of which other window */
 	private StickMagnetGraph graph;
 	
+	/** all the windows that are attracted by the moved window */
+	private ScreenDockWindow[] partners;
+	
+	/** the sides of all the {@link #partners} that are not part of the {@link #graph}, these windows do not move */
+	private MagnetSideIndex fixedPartners;
+	
+	/** the indices of all the {@link #partners} that are part of the {@link #graph}, in ascending order */
+	private int[] movablePartners;
+	
 	/**
 	 * Creates a new operation
 	 * @param threshold the maximum distance between two items in pixels allowing them to interact with each other
@@ -53,6 +62,7 @@ public class DefaultMagnetOperation implements MagnetOperation{
 	public void attract( MagnetController controller, MagnetRequest request ){
 		if( graph == null ){
 			graph = new StickMagnetGraph( controller, request );
+			index( controller, request );
 		}
 		
 		if( request.isMoved() ){
@@ -67,20 +77,65 @@ public class DefaultMagnetOperation implements MagnetOperation{
 		// nothing
 	}
 	
+	/**
+	 * Collects the partners of the moved window and stores the sides of the partners that are not moved
+	 * by the {@link #graph} in an index. The windows that are not part of the graph keep their boundaries
+	 * during the whole operation, hence the index remains valid until the operation ends.
+	 * @param controller the caller
+	 * @param request information about the window that is moved
+	 */
+	private void index( MagnetController controller, MagnetRequest request ){
+		partners = controller.getAttracted( request.getWindow() );
+		fixedPartners = new MagnetSideIndex( controller, false );
+		
+		int[] movable = new int[ partners.length ];
+		int movableCount = 0;
+		
+		for( int i = 0; i < partners.length; i++ ){
+			if( graph.contains( partners[i] )){
+				movable[ movableCount++ ] = i;
+			}
+			else{
+				fixedPartners.add( i, partners[i] );
+			}
+		}
+		
+		movablePartners = new int[ movableCount ];
+		System.arraycopy( movable, 0, movablePartners, 0, movableCount );
+	}
+	
+	/**
+	 * Searches all the partners which may be within {@link #threshold} of <code>side</code> of the 
+	 * moved window.
+	 * @param controller the caller
+	 * @param request information about the window that is moved
+	 * @param side the side of the moved window
+	 * @param candidates the indices of partners that are already known to be candidates, in ascending order
+	 * @return the indices of all the candidates, in ascending order
+	 */
+	private int[] candidates( MagnetController controller, MagnetRequest request, Side side, int[] candidates ){
+		int value = controller.getValue( request.getWindow(), side, false );
+		return MagnetSideIndex.merge( candidates, fixedPartners.search( side.opposite(), value - threshold, value + threshold ) );
+	}
+	
 	/**
 	 * Called if a window was moved.
 	 * @param controller the caller
 	 * @param request information about the window that was moved
 	 */
 	protected void moved( MagnetController controller, MagnetRequest request ){
-		ScreenDockWindow[] partners = controller.getAttracted( request.getWindow() );
+		int[] candidates = movablePartners;
+		for( Side side : Side.values() ){
+			candidates = candidates( controller, request, side, candidates );
+		}
 		
 		int nearest = threshold;
 		ScreenDockWindow nearestWindow = null;
 		List<ScreenDockWindow> windows = new ArrayList<ScreenDockWindow>();
 		Side nearestSide = null;
 		
-		for( ScreenDockWindow partner : partners ){
+		for( int candidate : candidates ){
+			ScreenDockWindow partner = partners[ candidate ];
 			if( graph.getRoot().getNeighbor( partner ) == null ){
 				for( Side side : Side.values() ){
 					int distance = controller.distance( request.getWindow(), side, partner, side.opposite(), false );
@@ -164,8 +219,6 @@ public class DefaultMagnetOperation implements MagnetOperation{
 	 * @param request information about the window that was resized
 	 */
 	protected void resized( MagnetController controller, MagnetRequest request ){
-		ScreenDockWindow[] partners = controller.getAttracted( request.getWindow() );
-		
 		@SuppressWarnings("unchecked")
 		List<ScreenDockWindow>[] neighbors = new List[4];
 		
@@ -175,7 +228,8 @@ public class DefaultMagnetOperation implements MagnetOperation{
 			List<ScreenDockWindow> windows = new ArrayList<ScreenDockWindow>();
 			neighbors[ side.ordinal() ] = windows;
 			
-			for( ScreenDockWindow partner : partners ){
+			for( int candidate : candidates( controller, request, side, movablePartners ) ){
+				ScreenDockWindow partner = partners[ candidate ];
 				if( !request.is( side ) || graph.getRoot().getNeighbor( partner ) == null ){
 					int distance = controller.distance( request.getWindow(), side, partner, side.opposite(), false );
 					if( distance <= threshold || window == null ){
@@ -0,0 +1,237 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.station.screen.magnet;
+
+import java.util.Arrays;
+
+import bibliothek.gui.dock.station.screen.ScreenDockWindow;
+import bibliothek.gui.dock.station.screen.magnet.MagnetRequest.Side;
+
+/**
+ * A {@link MagnetSideIndex} stores the coordinates of the sides of a set of {@link ScreenDockWindow}s
+ * in sorted arrays. Searching all windows whose side is within some range of coordinates requires only
+ * a binary search instead of checking each window. The index does not observe the windows, it is meant to
+ * be created when an operation starts and to be thrown away once the operation is finished. Only windows 
+ * that are not moved during the operation should be stored in the index.<br>
+ * Each window is stored together with a key, the key is usually the location of the window in some array. The
+ * results of a search are the keys of the windows that were found.
+ * @author Benjamin Sigg
+ */
+public class MagnetSideIndex {
+	/** the controller which is used to read the coordinates of the sides */
+	private MagnetController controller;
+	
+	/** whether the initial boundaries of the windows are used */
+	private boolean initialBoundaries;
+	
+	/** the number of windows stored in this index */
+	private int size = 0;
+	
+	/** the keys of the windows in the order in which they were added */
+	private int[] keys = new int[ 8 ];
+	
+	/** for each side the coordinates of the windows, in the order in which they were added */
+	private int[][] values = new int[ 4 ][ 8 ];
+	
+	/** for each side the coordinates of the windows in ascending order, <code>null</code> if not yet sorted */
+	private int[][] sortedValues;
+	
+	/** for each side the keys of the windows in the same order as {@link #sortedValues} */
+	private int[][] sortedKeys;
+	
+	/**
+	 * Creates a new empty index.
+	 * @param controller the controller which is used to read the coordinates of the windows
+	 * @param initialBoundaries if <code>true</code>, then the initial boundaries of the windows are used
+	 */
+	public MagnetSideIndex( MagnetController controller, boolean initialBoundaries ){
+		if( controller == null ){
+			throw new IllegalArgumentException( "controller must not be null" );
+		}
+		this.controller = controller;
+		this.initialBoundaries = initialBoundaries;
+	}
+	
+	/**
+	 * Adds <code>window</code> to this index. The coordinates of the sides of <code>window</code> are read
+	 * immediately, later changes of the boundaries of <code>window</code> are not noticed by this index.
+	 * @param key the key which represents <code>window</code> in the results of {@link #search(Side, int, int)}
+	 * @param window the window to add
+	 */
+	public void add( int key, ScreenDockWindow window ){
+		if( size == keys.length ){
+			keys = Arrays.copyOf( keys, size * 2 );
+			for( int i = 0; i < values.length; i++ ){
+				values[i] = Arrays.copyOf( values[i], size * 2 );
+			}
+		}
+		keys[ size ] = key;
+		for( Side side : Side.values() ){
+			values[ side.ordinal() ][ size ] = controller.getValue( window, side, initialBoundaries );
+		}
+		size++;
+		sortedValues = null;
+		sortedKeys = null;
+	}
+	
+	/**
+	 * Gets the number of windows that are stored in this index.
+	 * @return the number of windows
+	 */
+	public int size(){
+		return size;
+	}
+	
+	/**
+	 * Searches all the windows whose side <code>side</code> is at a coordinate between <code>min</code>
+	 * and <code>max</code>. This method runs in <code>O(log n + k)</code> time, where <code>k</code> is the 
+	 * number of windows that are found.
+	 * @param side the side to check
+	 * @param min the minimal coordinate of the side, inclusive
+	 * @param max the maximal coordinate of the side, inclusive
+	 * @return the keys of all the windows that were found, in ascending order and without duplicates
+	 */
+	public int[] search( Side side, int min, int max ){
+		ensureSorted();
+		int[] values = sortedValues[ side.ordinal() ];
+		
+		int low = 0;
+		int high = size;
+		while( low < high ){
+			int mid = (low + high) >>> 1;
+			if( values[ mid ] < min ){
+				low = mid+1;
+			}
+			else{
+				high = mid;
+			}
+		}
+		
+		int end = low;
+		while( end < size && values[ end ] <= max ){
+			end++;
+		}
+		
+		int[] result = Arrays.copyOfRange( sortedKeys[ side.ordinal() ], low, end );
+		Arrays.sort( result );
+		return unique( result, result.length );
+	}
+	
+	/**
+	 * Creates the union of <code>a</code> and <code>b</code>.
+	 * @param a an array of keys in ascending order without duplicates
+	 * @param b an array of keys in ascending order without duplicates
+	 * @return the keys of <code>a</code> and <code>b</code>, in ascending order and without duplicates
+	 */
+	public static int[] merge( int[] a, int[] b ){
+		if( a.length == 0 ){
+			return b;
+		}
+		if( b.length == 0 ){
+			return a;
+		}
+		
+		int[] result = new int[ a.length + b.length ];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		
+		while( i < a.length && j < b.length ){
+			if( a[i] < b[j] ){
+				result[k++] = a[i++];
+			}
+			else if( a[i] > b[j] ){
+				result[k++] = b[j++];
+			}
+			else{
+				result[k++] = a[i++];
+				j++;
+			}
+		}
+		while( i < a.length ){
+			result[k++] = a[i++];
+		}
+		while( j < b.length ){
+			result[k++] = b[j++];
+		}
+		
+		if( k < result.length ){
+			result = Arrays.copyOf( result, k );
+		}
+		return result;
+	}
+	
+	/**
+	 * Removes duplicates from the sorted array <code>keys</code>.
+	 * @param keys the keys in ascending order
+	 * @param length the number of keys to check
+	 * @return the keys without duplicates
+	 */
+	private int[] unique( int[] keys, int length ){
+		if( length == 0 ){
+			return keys;
+		}
+		int k = 1;
+		for( int i = 1; i < length; i++ ){
+			if( keys[i] != keys[k-1] ){
+				keys[k++] = keys[i];
+			}
+		}
+		if( k < keys.length ){
+			keys = Arrays.copyOf( keys, k );
+		}
+		return keys;
+	}
+	
+	/**
+	 * Makes sure that {@link #sortedValues} and {@link #sortedKeys} are up to date.
+	 */
+	private void ensureSorted(){
+		if( sortedValues == null ){
+			sortedValues = new int[ values.length ][];
+			sortedKeys = new int[ values.length ][];
+			
+			long[] order = new long[ size ];
+			for( int side = 0; side < values.length; side++ ){
+				int[] sideValues = values[ side ];
+				for( int i = 0; i < size; i++ ){
+					order[i] = ((long)sideValues[i] << 32) | i;
+				}
+				Arrays.sort( order );
+				
+				int[] nextValues = new int[ size ];
+				int[] nextKeys = new int[ size ];
+				for( int i = 0; i < size; i++ ){
+					int index = (int)order[i];
+					nextValues[i] = sideValues[ index ];
+					nextKeys[i] = keys[ index ];
+				}
+				sortedValues[ side ] = nextValues;
+				sortedKeys[ side ] = nextKeys;
+			}
+		}
+	}
+}
@@ -26,11 +26,13 @@
 package bibliothek.gui.dock.station.screen.magnet;
 
 import java.awt.Rectangle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import bibliothek.gui.dock.ScreenDockStation;
 import bibliothek.gui.dock.station.screen.BoundaryRestriction;
@@ -62,6 +64,9 @@ public class StickMagnetGraph {
 	/** all edges of this graph */
 	private List<DefaultEdge> edges = new ArrayList<StickMagnetGraph.DefaultEdge>();
 	
+	/** the windows of all the nodes of this graph */
+	private Set<ScreenDockWindow> windows = new HashSet<ScreenDockWindow>();
+	
 	public StickMagnetGraph( MagnetController controller, MagnetRequest request ){
 		this.controller = controller;
 		this.request = request;
@@ -90,6 +95,17 @@ public class StickMagnetGraph {
 		return root;
 	}
 
+	/**
+	 * Tells whether <code>window</code> is represented by a node of this graph. Windows that are part
+	 * of this graph may be moved or resized together with the root window.
+	 * @param window the window to search
+	 * @return <code>true</code> if there is a node for <code>window</code>
+	 */
+	public boolean contains( ScreenDockWindow window ){
+		getRoot();
+		return windows.contains( window );
+	}
+
 	/**
 	 * Gets information about all known {@link ScreenDockWindow}s.
 	 * @return the information, not <code>null</code>
@@ -160,7 +176,9 @@ public class StickMagnetGraph {
 	}
 	
 	/**
-	 * Builds the entire stickiness graph using a breath first search algorithm. 
+	 * Builds the entire stickiness graph using a breath first search algorithm. The sides of the windows
+	 * are stored in a {@link MagnetSideIndex}, only windows that actually touch each other are compared
+	 * by {@link #relation(ScreenDockWindow, ScreenDockWindow)}.
 	 * @param index the node whose neighbors have to be found by this method
 	 * @param nodes an array containing all nodes that may be created. An entry of <code>null</code>
 	 * at index <code>a</code> indicates that the {@link ScreenDockWindow} in <code>windows</code> at
@@ -171,14 +189,20 @@ public class StickMagnetGraph {
 		if( nodes[index] == null ) {
 			nodes[index] = new DefaultNode( index, windows[index] );
 		}
+		
+		MagnetController controller = getController();
+		MagnetSideIndex sides = new MagnetSideIndex( controller, true );
+		for( int i = 0; i < windows.length; i++ ){
+			sides.add( i, windows[i] );
+		}
 
-		LinkedList<Integer> queue = new LinkedList<Integer>();
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
 		queue.add( index );
 		
 		while( !queue.isEmpty() ){
 			index = queue.poll();
 			
-			for( int i = 0, n = nodes.length; i < n; i++ ) {
+			for( int i : touching( controller, sides, windows[index] ) ) {
 				if( i != index ) {
 					Side relation = relation( windows[index], windows[i] );
 					if( relation != null ) {
@@ -199,9 +223,41 @@ public class StickMagnetGraph {
 		}
 	}
 	
+	/**
+	 * Gets the maximum distance in pixels between the opposite sides of two windows that are
+	 * passed to {@link #relation(ScreenDockWindow, ScreenDockWindow)}. Windows that are further
+	 * apart are never compared. Subclasses that override {@link #relation(ScreenDockWindow, ScreenDockWindow)}
+	 * such that windows with a larger gap stick together have to override this method as well.
+	 * @return the maximum distance, the default is <code>1</code>
+	 */
+	protected int getTouchTolerance(){
+		return 1;
+	}
+	
+	/**
+	 * Searches all the windows in <code>sides</code> which have a side that is at most
+	 * {@link #getTouchTolerance()} pixels away from the opposite side of <code>window</code>. These are the
+	 * only windows which are passed to {@link #relation(ScreenDockWindow, ScreenDockWindow)}.
+	 * @param controller the controller used to read the boundaries of <code>window</code>
+	 * @param sides the initial boundaries of all the windows
+	 * @param window the window whose neighbors are searched
+	 * @return the keys of the windows, in ascending order
+	 */
+	private int[] touching( MagnetController controller, MagnetSideIndex sides, ScreenDockWindow window ){
+		int tolerance = getTouchTolerance();
+		int[] result = new int[]{};
+		for( Side side : Side.values() ){
+			int value = controller.getValue( window, side, true );
+			result = MagnetSideIndex.merge( result, sides.search( side.opposite(), value-tolerance, value+tolerance ) );
+		}
+		return result;
+	}
+	
 	/**
 	 * Gets the relation of <code>moved</code> to <code>fixed</code>. The relation is <code>null</code>
-	 * if the two windows to not stick together.
+	 * if the two windows to not stick together. This method is only called for pairs of windows whose
+	 * initial boundaries are at most {@link #getTouchTolerance()} pixels apart, all other pairs are treated as
+	 * if this method returned <code>null</code>.
 	 * @param moved the window that was moved
 	 * @param fixed the window that was not moved
 	 * @return if <code>fixed</code> depends on <code>moved</code>: the side at which <code>fixed</code>
@@ -904,6 +960,7 @@ public class StickMagnetGraph {
 			this.window = window;
 			
 			nodes.add( this );
+			windows.add( window );
 		}
 		
 		public void visit( Visitor visitor ){
@@ -416,6 +416,33 @@ public class Leaf extends SpanSplitNode{
         return bounds;
     }
 
+    /**
+     * Gets the area in which {@link #isCenterPut(Rectangle, int, int)} returns <code>true</code>, and
+     * hence the area in which {@link #getPut(int, int, double, double, Dockable) getPut} results in
+     * {@link Put#CENTER}. Subclasses overriding {@link #isCenterPut(Rectangle, int, int)} should override
+     * this method as well.
+     * @return the area in the coordinate system of the owner station, or <code>null</code> if there is no such area
+     */
+    public Rectangle getCenterPutArea(){
+    	if( getDisplayer() == null || getRoot() == null ){
+    		return null;
+    	}
+    	
+    	Rectangle bounds = removeTitle( getBounds() );
+    	float sideSnapSize = getAccess().getOwner().getSideSnapSize();
+    	
+    	// the smallest and largest integer values that are strictly inside the area checked by isCenterPut
+    	int minX = (int)Math.floor( bounds.x + sideSnapSize*bounds.width ) + 1;
+    	int maxX = (int)Math.ceil( bounds.x + bounds.width - sideSnapSize*bounds.width ) - 1;
+    	int minY = (int)Math.floor( bounds.y + sideSnapSize*bounds.height ) + 1;
+    	int maxY = (int)Math.ceil( bounds.y + bounds.height - sideSnapSize*bounds.height ) - 1;
+    	
+    	if( maxX < minX || maxY < minY ){
+    		return null;
+    	}
+    	return new Rectangle( minX, minY, maxX - minX + 1, maxY - minY + 1 );
+    }
+    
     /**
      * Tells whether the position of the mouse <code>x/y</code> would result in a drag and drop operation where
      * {@link Put#CENTER} is appropriate.
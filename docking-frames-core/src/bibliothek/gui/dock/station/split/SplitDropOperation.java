@@ -25,19 +25,24 @@
  */
 package bibliothek.gui.dock.station.split;
 
+import java.awt.Point;
+import java.awt.Rectangle;
+
 import bibliothek.gui.DockStation;
 import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.SplitDockStation;
 import bibliothek.gui.dock.displayer.DisplayerCombinerTarget;
 import bibliothek.gui.dock.station.StationDropItem;
 import bibliothek.gui.dock.station.StationDropOperation;
+import bibliothek.gui.dock.station.StationDropRegion;
 import bibliothek.gui.dock.station.support.CombinerTarget;
 
 /**
- * Implementation of {@link StationDropOperation}.
+ * Implementation of {@link StationDropOperation}. If the {@link Dockable} is dropped in the center of a {@link Leaf},
+ * then this operation remains valid for the entire {@link Leaf#getCenterPutArea() center area}.
  * @author Benjamin Sigg
  */
-public class SplitDropOperation implements StationDropOperation{
+public class SplitDropOperation implements StationDropRegion{
 	private SplitDockAccess access;
 	private PutInfo putInfo;
 	private StationDropItem item;
@@ -74,6 +79,39 @@ public class SplitDropOperation implements StationDropOperation{
 		}
 	}
 	
+	public Rectangle getDropRegion(){
+		if( putInfo.getPut() != PutInfo.Put.CENTER || !(putInfo.getNode() instanceof Leaf) ){
+			return null;
+		}
+		if( getDisplayerCombination() != null ){
+			// the displayer may paint something different for each location of the mouse
+			return null;
+		}
+		
+		SplitDockStation station = access.getOwner();
+		if( station.isFullScreen() || !station.isShowing() ){
+			return null;
+		}
+		
+		Leaf leaf = (Leaf)putInfo.getNode();
+		if( leaf.getRoot() != station.getRoot() ){
+			return null;
+		}
+		
+		Rectangle region = leaf.getCenterPutArea();
+		if( region == null ){
+			return null;
+		}
+		
+		Point location = station.getLocationOnScreen();
+		region.translate( location.x, location.y );
+		if( !region.contains( item.getMouseX(), item.getMouseY() )){
+			// this operation was not created because the mouse was in the center
+			return null;
+		}
+		return region;
+	}
+	
 	public DockStation getTarget(){
 		return access.getOwner();
 	}
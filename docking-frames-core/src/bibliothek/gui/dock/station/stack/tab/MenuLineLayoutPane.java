@@ -30,10 +30,14 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+import bibliothek.gui.DockController;
 import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.station.stack.tab.layouting.LayoutBlock;
+import bibliothek.gui.dock.station.stack.tab.layouting.LineTabsLayoutBlock;
 import bibliothek.gui.dock.station.stack.tab.layouting.MenuLayoutBlock;
 import bibliothek.gui.dock.station.stack.tab.layouting.Size;
 import bibliothek.gui.dock.station.stack.tab.layouting.TabPlacement;
@@ -49,6 +53,9 @@ public class MenuLineLayoutPane extends AbstractTabLayoutManagerPane{
 	private TabsLayoutBlock tabs;
 	private MenuLineLayout layout;
 	
+	/** all the possible layouts of the last call to {@link #listLayouts()}, may be <code>null</code> */
+	private Possibilities possibilities;
+	
 	/**
 	 * Creates new layout information for <code>pane</code>.
 	 * @param layout the layout using this pane
@@ -210,53 +217,34 @@ public class MenuLineLayoutPane extends AbstractTabLayoutManagerPane{
 	 * and info.
 	 */
 	public void layout(){
-		AxisConversion conversion = getLayout().getConversion( getPane() );
-		
-		List<MenuLineLayoutPossibility> layouts = listLayouts();
-		
 		// search the layout that fits into the available space
+		AxisConversion conversion = getLayout().getConversion( getPane() );
 		Rectangle available = conversion.viewToModel( getPane().getAvailableArea() );
 		
-		int space = available.width;
-		
-		MenuLineLayoutPossibility best = null;
-		int bestSize = -1;
-		double bestScore = 0.0;
-		
-		MenuLineLayoutPossibility smallest = null;
-		int smallestSize = -1;
-		
-		for( MenuLineLayoutPossibility layout : layouts ){
-			Dimension size = conversion.viewToModel( layout.getSize() );
-			if( size.width <= space ){
-				double score = layout.getScore();
-				
-				if( best == null || (bestScore == score && bestSize < size.width ) || (bestScore < score)){
-					bestScore = score;
-					best = layout;
-				}
-			}
-			
-			if( smallest == null || size.width < smallestSize ){
-				smallest = layout;
-				smallestSize = size.width;
-			}
-		}
-		
+		listLayouts();
+		MenuLineLayoutPossibility best = possibilities.getBest( available.width );
 		if( best != null ){
 			best.apply();
 		}
-		else if( smallest != null ){
-			smallest.apply();
+	}
+	
+	/**
+	 * Forgets all the cached layouts, forces this pane to check all possible layouts
+	 * the next time {@link #layout()} is called.
+	 */
+	public void invalidate(){
+		possibilities = null;
+		if( tabs instanceof LineTabsLayoutBlock ){
+			((LineTabsLayoutBlock)tabs).invalidateSizes();
 		}
 	}
 	
 	/**
-	 * Creates a list of all available layouts.
+	 * Creates a list of all available layouts. The list is cached and reused as long as 
+	 * the sizes of tabs, menu and info do not change.
 	 * @return the list of all available layouts
 	 */
 	private List<MenuLineLayoutPossibility> listLayouts(){
-		List<MenuLineLayoutPossibility> results = new ArrayList<MenuLineLayoutPossibility>();
 		TabPlacement orientation = getPane().getDockTabPlacement();
 		
 		tabs.setOrientation( orientation );
@@ -265,16 +253,29 @@ public class MenuLineLayoutPane extends AbstractTabLayoutManagerPane{
 		menu.setOrientation( orientation );
 		Size[] sizesMenu = menu.getSizes();
 		
+		Size[] sizesInfo = null;
 		if( info != null ){
 			info.setOrientation( orientation );
-			Size[] sizesInfo = info.getSizes();
+			sizesInfo = info.getSizes();
+		}
+		
+		MenuLineLayoutStrategy strategy = getLayout().getStrategy();
+		if( possibilities != null && possibilities.isValid( orientation, strategy, sizesTabs, sizesMenu, info, sizesInfo )){
+			return possibilities.layouts;
+		}
+		
+		List<MenuLineLayoutPossibility> results = new ArrayList<MenuLineLayoutPossibility>();
+		
+		if( info != null ){
 			for( Size size : sizesInfo ){
 				listLayouts( results, size, sizesMenu, sizesTabs );
 			}
 		}
 		else{
 			listLayouts( results, null, sizesMenu, sizesTabs );
-		}	
+		}
+		
+		possibilities = new Possibilities( orientation, strategy, sizesTabs, sizesMenu, info, sizesInfo, results );
 		return results;
 	}
 	
@@ -319,6 +320,30 @@ public class MenuLineLayoutPane extends AbstractTabLayoutManagerPane{
 		return new MenuLineLayoutPossibility( this, tabSize, menuSize, infoSize );
 	}
 	
+	@Override
+	public void added( TabPane pane, Dockable dockable ){
+		super.added( pane, dockable );
+		invalidate();
+	}
+	
+	@Override
+	public void removed( TabPane pane, Dockable dockable ){
+		super.removed( pane, dockable );
+		invalidate();
+	}
+	
+	@Override
+	public void selectionChanged( TabPane pane ){
+		super.selectionChanged( pane );
+		invalidate();
+	}
+	
+	@Override
+	public void controllerChanged( TabPane pane, DockController controller ){
+		super.controllerChanged( pane, controller );
+		invalidate();
+	}
+	
 	@Override
 	public void infoComponentChanged( TabPane pane, LonelyTabPaneComponent oldInfo, LonelyTabPaneComponent newInfo ){
 		super.infoComponentChanged( pane, oldInfo, newInfo );
@@ -326,5 +351,169 @@ public class MenuLineLayoutPane extends AbstractTabLayoutManagerPane{
 			info = null;
 		else
 			info = newInfo.toLayoutBlock();
+		invalidate();
+	}
+	
+	/**
+	 * Tells whether <code>a</code> and <code>b</code> describe the same sizes.
+	 * @param a some sizes, may be <code>null</code>
+	 * @param b some sizes, may be <code>null</code>
+	 * @return whether the sizes are equal
+	 */
+	private static boolean sameSizes( Size[] a, Size[] b ){
+		if( a == b )
+			return true;
+		if( a == null || b == null || a.length != b.length )
+			return false;
+		
+		for( int i = 0; i < a.length; i++ ){
+			Size sa = a[i];
+			Size sb = b[i];
+			if( sa.getClass() != sb.getClass() || sa.getType() != sb.getType() || sa.getWidth() != sb.getWidth() ||
+					sa.getHeight() != sb.getHeight() || sa.getScore() != sb.getScore() ){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * A set of {@link MenuLineLayoutPossibility}s together with the sizes that were used to create 
+	 * them. The possibilities are sorted by the space they require, allowing a binary search for
+	 * the best layout that fits into some space.
+	 * @author Benjamin Sigg
+	 */
+	private class Possibilities{
+		private TabPlacement orientation;
+		private MenuLineLayoutStrategy strategy;
+		private Size[] tabSizes;
+		private Size[] menuSizes;
+		private LayoutBlock infoBlock;
+		private Size[] infoSizes;
+		
+		/** all the layouts in the order they were created */
+		private List<MenuLineLayoutPossibility> layouts;
+		
+		/** the width of the layouts, ordered ascending */
+		private int[] widths;
+		/** the best layout requiring not more space than the matching entry in {@link #widths} */
+		private MenuLineLayoutPossibility[] best;
+		/** the layout requiring the least space */
+		private MenuLineLayoutPossibility smallest;
+		
+		/** the space that was used in the last call to {@link #getBest(int)} */
+		private int lastSpace = -1;
+		/** the result of the last call to {@link #getBest(int)} */
+		private MenuLineLayoutPossibility lastBest;
+		
+		public Possibilities( TabPlacement orientation, MenuLineLayoutStrategy strategy, Size[] tabSizes, Size[] menuSizes, 
+				LayoutBlock infoBlock, Size[] infoSizes, List<MenuLineLayoutPossibility> layouts ){
+			this.orientation = orientation;
+			this.strategy = strategy;
+			this.tabSizes = tabSizes;
+			this.menuSizes = menuSizes;
+			this.infoBlock = infoBlock;
+			this.infoSizes = infoSizes;
+			this.layouts = layouts;
+			
+			int count = layouts.size();
+			AxisConversion conversion = getLayout().getConversion( getPane() );
+			
+			final int[] unsortedWidths = new int[ count ];
+			double[] scores = new double[ count ];
+			Integer[] order = new Integer[ count ];
+			
+			for( int i = 0; i < count; i++ ){
+				MenuLineLayoutPossibility layout = layouts.get( i );
+				unsortedWidths[i] = conversion.viewToModel( layout.getSize() ).width;
+				scores[i] = layout.getScore();
+				order[i] = i;
+			}
+			
+			// stable sort, layouts requiring the same space remain in the order they were created
+			Arrays.sort( order, new Comparator<Integer>(){
+				public int compare( Integer a, Integer b ){
+					int wa = unsortedWidths[a];
+					int wb = unsortedWidths[b];
+					return wa < wb ? -1 : (wa == wb ? 0 : 1);
+				}
+			});
+			
+			widths = new int[ count ];
+			best = new MenuLineLayoutPossibility[ count ];
+			
+			int bestIndex = -1;
+			for( int i = 0; i < count; i++ ){
+				int index = order[i];
+				widths[i] = unsortedWidths[ index ];
+				
+				// higher scores win, if the scores are equal the layout that was created later wins
+				if( bestIndex == -1 || scores[ index ] > scores[ bestIndex ] || (scores[ index ] == scores[ bestIndex ] && index > bestIndex )){
+					bestIndex = index;
+				}
+				best[i] = layouts.get( bestIndex );
+			}
+			if( count > 0 ){
+				smallest = layouts.get( order[0] );
+			}
+		}
+		
+		/**
+		 * Tells whether this set of layouts was created using the same sizes as given.
+		 * @param orientation the current orientation of the tabs
+		 * @param strategy the current strategy
+		 * @param tabSizes the current sizes of the tabs
+		 * @param menuSizes the current sizes of the menu
+		 * @param infoBlock the current info block
+		 * @param infoSizes the current sizes of the info block
+		 * @return <code>true</code> if this set can be reused
+		 */
+		public boolean isValid( TabPlacement orientation, MenuLineLayoutStrategy strategy, Size[] tabSizes, Size[] menuSizes, 
+				LayoutBlock infoBlock, Size[] infoSizes ){
+			return this.orientation == orientation && this.strategy == strategy && this.tabSizes == tabSizes &&
+				this.infoBlock == infoBlock && MenuLineLayoutPane.sameSizes( this.menuSizes, menuSizes ) && 
+				MenuLineLayoutPane.sameSizes( this.infoSizes, infoSizes );
+		}
+		
+		/**
+		 * Searches the layout with the highest score that requires not more than <code>space</code> pixels. If
+		 * there is no such layout, then the smallest layout is returned.
+		 * @param space the available space
+		 * @return the best layout, <code>null</code> if there are no layouts at all
+		 */
+		public MenuLineLayoutPossibility getBest( int space ){
+			if( widths.length == 0 )
+				return null;
+			
+			if( lastSpace == space && lastBest != null )
+				return lastBest;
+			
+			// search the last layout whose width is smaller or equal than space
+			int low = 0;
+			int high = widths.length-1;
+			int found = -1;
+			while( low <= high ){
+				int mid = (low + high) >>> 1;
+				if( widths[ mid ] <= space ){
+					found = mid;
+					low = mid+1;
+				}
+				else{
+					high = mid-1;
+				}
+			}
+			
+			MenuLineLayoutPossibility result;
+			if( found == -1 ){
+				result = smallest;
+			}
+			else{
+				result = best[ found ];
+			}
+			
+			lastSpace = space;
+			lastBest = result;
+			return result;
+		}
 	}
 }
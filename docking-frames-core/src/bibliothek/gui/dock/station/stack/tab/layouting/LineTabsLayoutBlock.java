@@ -29,10 +29,10 @@ import java.awt.Dimension;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import bibliothek.gui.Dockable;
 import bibliothek.gui.dock.station.stack.tab.AxisConversion;
@@ -52,6 +52,17 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 	 */
 	private boolean sameSize = true;
 	
+	/** the result of the last call to {@link #getSizes()}, may be <code>null</code> */
+	private LineSize[] sizes;
+	/** the tabs, ordered by importance, that were used to calculate {@link #sizes} */
+	private Tab[] sizesTabs;
+	/** the orientation that was used to calculate {@link #sizes} */
+	private TabPlacement sizesOrientation;
+	/** the minimum size of each tab of {@link #sizesTabs} if all tabs are visible */
+	private Dimension[] sizesMinimum;
+	/** the preferred size of each tab of {@link #sizesTabs} if all tabs are visible */
+	private Dimension[] sizesPreferred;
+	
 	/**
 	 * If set, then all tabs have the same height (width) if laid out
 	 * horizontal (vertical).
@@ -68,6 +79,7 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 	 */
 	public void setSameSize( boolean sameSize ){
 		this.sameSize = sameSize;
+		invalidateSizes();
 	}
 	
 	public boolean isAllTabs( Size size ){
@@ -103,8 +115,31 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 		insertTab( pane.putOnTab( selection ));
 	}
 
+	/**
+	 * Calculates the possible sizes of this block. The result is cached as long as the
+	 * order of the tabs, their orientation and the sizes of the individual tabs do not change.
+	 * Hence a call to this method costs only a few comparisons if the content of the tabs
+	 * did not change since the last call.
+	 */
 	public LineSize[] getSizes(){
 		Tab[] tabs = getTabsOrderedByImportance();
+		TabPlacement orientation = getOrientation();
+		
+		Dimension[] minimum = new Dimension[ tabs.length ];
+		Dimension[] preferred = new Dimension[ tabs.length ];
+		Tab[] visibleTabs = getVisibleTabs( tabs );
+		for( int i = 0; i < tabs.length; i++ ){
+			// tabs that are currently hidden in a menu did not receive the last call to setOrientation
+			tabs[i].setOrientation( orientation );
+			minimum[i] = tabs[i].getMinimumSize( visibleTabs );
+			preferred[i] = tabs[i].getPreferredSize( visibleTabs );
+		}
+		
+		if( sizes != null && sizesOrientation == orientation && Arrays.equals( sizesTabs, tabs ) && 
+				Arrays.equals( sizesMinimum, minimum ) && Arrays.equals( sizesPreferred, preferred )){
+			return sizes;
+		}
+		
 		SizeCollector collector = new SizeCollector( getPane().getDockables() );
 		
 		LineSize[] result = new LineSize[ tabs.length+1 ];
@@ -118,11 +153,58 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 			result[i] = new LineSize( Size.Type.MINIMUM, size, selection, i+1 == tabs.length, i / (double)tabs.length );
 		}
 		
-		Dimension preferred = collector.getPreferredSize();
-		result[tabs.length] = new LineSize( Size.Type.PREFERRED, preferred, tabs, true, 1.0 );
+		Dimension preferredSize = collector.getPreferredSize();
+		result[tabs.length] = new LineSize( Size.Type.PREFERRED, preferredSize, tabs, true, 1.0 );
+		
+		sizes = result;
+		sizesTabs = tabs;
+		sizesOrientation = orientation;
+		sizesMinimum = minimum;
+		sizesPreferred = preferred;
+		
 		return result;
 	}
-
+	
+	/**
+	 * Forgets the cached result of {@link #getSizes()}. Clients should call this method if the
+	 * content of a {@link Tab} changed in a way that cannot be detected by looking at
+	 * its minimum and preferred size.
+	 */
+	public void invalidateSizes(){
+		sizes = null;
+		sizesTabs = null;
+		sizesOrientation = null;
+		sizesMinimum = null;
+		sizesPreferred = null;
+	}
+	
+	/**
+	 * Orders <code>tabs</code> the same way as the {@link Dockable}s of the owning
+	 * {@link TabPane} are ordered. 
+	 * @param tabs the tabs to order
+	 * @return the ordered tabs, a new array
+	 */
+	private Tab[] getVisibleTabs( Tab[] tabs ){
+		Dockable[] dockables = getPane().getDockables();
+		Map<Dockable, Tab> map = new IdentityHashMap<Dockable, Tab>( tabs.length );
+		for( Tab tab : tabs ){
+			map.put( tab.getDockable(), tab );
+		}
+		
+		Tab[] result = new Tab[ tabs.length ];
+		int index = 0;
+		for( Dockable dockable : dockables ){
+			Tab tab = map.get( dockable );
+			if( tab != null && index < result.length ){
+				result[ index++ ] = tab;
+			}
+		}
+		if( index < result.length ){
+			return Arrays.copyOf( result, index );
+		}
+		return result;
+	}
+	
 	public int getIndexOfTabAt( Point mouseLocation ){
 		Tab[] tabs = getCurrentTabs();
 		
@@ -277,11 +359,11 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 			if( i+1 < tabs.length ){
 				if( overlapNext[i] > overlapPrevious[i+1] ){
 					x -= overlapNext[i];
-					order.putOrder( tabs[i+1], tabs[i] );
+					order.putOrder( i+1, i );
 				}
 				else{
 					x -= overlapPrevious[i+1];
-					order.putOrder( tabs[i], tabs[i+1] );
+					order.putOrder( i, i+1 );
 				}
 			}
 		}
@@ -308,11 +390,11 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 			x += tabWidth;
 			if( overlapNext[i] > overlapPrevious[i+1] ){
 				x -= overlapNext[i];
-				order.putOrder( tabs[i+1], tabs[i] );
+				order.putOrder( i+1, i );
 			}
 			else{
 				x -= overlapPrevious[i+1];
-				order.putOrder( tabs[i], tabs[i+1] );
+				order.putOrder( i, i+1 );
 			}
 		}
 		
@@ -341,11 +423,11 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 			
 			if( overlapNext[i] > overlapPrevious[i+1] ){
 				x -= overlapNext[i];
-				order.putOrder( tabs[i+1], tabs[i] );
+				order.putOrder( i+1, i );
 			}
 			else{
 				x -= overlapPrevious[i+1];
-				order.putOrder( tabs[i], tabs[i+1] );
+				order.putOrder( i, i+1 );
 			}
 		}
 		
@@ -386,29 +468,52 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 	
 	/**
 	 * Calculates the {@link TabPaneComponent#setZOrder(int) z-order} of various
-	 * components requiring only a subset of all comparisons 
+	 * components requiring only a subset of all comparisons. The orders are stored
+	 * as edges of a graph, the z-order is a topological sort of that graph. All
+	 * operations run in linear time.
 	 */
 	protected class ZOrder{
 		private Tab[] tabs;
 		
-		private List<Integer>[] onTop;
-		private List<Integer>[] onBottom;
+		/** the index of each tab in {@link #tabs} */
+		private Map<Tab, Integer> indices;
+		
+		/** for each edge the index of the tab in front */
+		private int[] fronts;
+		/** for each edge the index of the tab in the back */
+		private int[] backs;
+		/** the number of edges */
+		private int edges = 0;
 		
 		/**
 		 * Creates a new {@link ZOrder}
 		 * @param tabs the tabs whose z-order needs to be calculated.
 		 */
-		@SuppressWarnings("unchecked")
 		public ZOrder( Tab[] tabs ){
 			this.tabs = tabs;
 			
-			onTop = new List[ tabs.length ];
-			onBottom = new List[ tabs.length ];
-			
-			for( int i = 0; i < tabs.length; i++ ){
-				onTop[i] = new ArrayList<Integer>( 5 );
-				onBottom[i] = new ArrayList<Integer>( 5 );
+			int capacity = Math.max( 4, tabs.length );
+			fronts = new int[ capacity ];
+			backs = new int[ capacity ];
+		}
+		
+		/**
+		 * Gets the index of <code>tab</code>.
+		 * @param tab some tab
+		 * @return the index of <code>tab</code> or -1 if not found
+		 */
+		private int indexOf( Tab tab ){
+			if( indices == null ){
+				indices = new IdentityHashMap<Tab, Integer>( tabs.length );
+				for( int i = 0; i < tabs.length; i++ ){
+					indices.put( tabs[i], i );
+				}
+			}
+			Integer index = indices.get( tab );
+			if( index == null ){
+				return -1;
 			}
+			return index.intValue();
 		}
 		
 		/**
@@ -419,17 +524,86 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 		 * @param back the back tab
 		 */
 		public void putOrder( Tab front, Tab back ){
-			for( int f = 0; f < tabs.length; f++ ){
-				if( tabs[f] == front ){
-					for( int b = 0; b < tabs.length; b++ ){
-						if( tabs[b] == back ){
-							onTop[b].add( f );
-							onBottom[f].add( b );
-							return;
-						}
+			int f = indexOf( front );
+			if( f >= 0 ){
+				int b = indexOf( back );
+				if( b >= 0 ){
+					putOrder( f, b );
+				}
+			}
+		}
+		
+		/**
+		 * Sets the tab at index <code>front</code> in front of the tab at 
+		 * index <code>back</code>.
+		 * @param front the index of the front tab
+		 * @param back the index of the back tab
+		 * @see #putOrder(Tab, Tab)
+		 */
+		public void putOrder( int front, int back ){
+			if( edges == fronts.length ){
+				fronts = Arrays.copyOf( fronts, edges * 2 );
+				backs = Arrays.copyOf( backs, edges * 2 );
+			}
+			fronts[ edges ] = front;
+			backs[ edges ] = back;
+			edges++;
+		}
+		
+		/**
+		 * Sorts the tabs topologically, tabs that are in front of other tabs
+		 * come first. If the orders contain a cycle, then the tabs of the cycle
+		 * are appended in their natural order.
+		 * @return the indices of the tabs, ordered by z
+		 */
+		private int[] sort(){
+			int count = tabs.length;
+			
+			// number of tabs in front of each tab, and the edges grouped by front tab
+			int[] inDegree = new int[ count ];
+			int[] offsets = new int[ count+1 ];
+			for( int i = 0; i < edges; i++ ){
+				inDegree[ backs[i] ]++;
+				offsets[ fronts[i]+1 ]++;
+			}
+			for( int i = 0; i < count; i++ ){
+				offsets[i+1] += offsets[i];
+			}
+			int[] targets = new int[ edges ];
+			int[] fill = Arrays.copyOf( offsets, count );
+			for( int i = 0; i < edges; i++ ){
+				targets[ fill[ fronts[i] ]++ ] = backs[i];
+			}
+			
+			int[] result = new int[ count ];
+			int head = 0;
+			int tail = 0;
+			for( int i = 0; i < count; i++ ){
+				if( inDegree[i] == 0 ){
+					result[ tail++ ] = i;
+				}
+			}
+			
+			while( head < tail ){
+				int next = result[ head++ ];
+				for( int i = offsets[ next ], n = offsets[ next+1 ]; i < n; i++ ){
+					int back = targets[i];
+					if( --inDegree[ back ] == 0 ){
+						result[ tail++ ] = back;
 					}
 				}
 			}
+			
+			if( tail < count ){
+				// a cycle, just append the remaining tabs
+				for( int i = 0; i < count; i++ ){
+					if( inDegree[i] > 0 ){
+						result[ tail++ ] = i;
+					}
+				}
+			}
+			
+			return result;
 		}
 		
 		/**
@@ -437,23 +611,10 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 		 * @return the z order.
 		 */
 		public int[] getZOrders(){
-			int[] results = new int[ tabs.length ];
-			boolean[] handled = new boolean[ results.length ];
-			
-			for( int i = 0; i < results.length; i++ ){
-				for( int j = 0; j < results.length; j++ ){
-					if( !handled[j] ){
-						if( onTop[j].isEmpty() ){
-							results[j] = results.length-i;
-							handled[j] = true;
-							Integer index = i;
-							
-							for( int bottom : onBottom[j] ){
-								onTop[bottom].remove( index );
-							}
-						}
-					}
-				}
+			int[] order = sort();
+			int[] results = new int[ order.length ];
+			for( int i = 0; i < order.length; i++ ){
+				results[ order[i] ] = order.length-i;
 			}
 			return results;
 		}
@@ -464,24 +625,10 @@ public class LineTabsLayoutBlock extends AbstractTabsLayoutBlock{
 		 * @return the tabs ordered by z
 		 */
 		public Tab[] getOrderedByZ(){
-			Tab[] results = new Tab[ tabs.length ];
-			boolean[] handled = new boolean[ results.length ];
-			
-			base:for( int i = 0; i < results.length; i++ ){
-				for( int j = 0; j < results.length; j++ ){
-					if( !handled[j] ){
-						if( onTop[j].isEmpty() ){
-							results[i] = tabs[j];
-							handled[j] = true;
-							Integer index = i;
-							
-							for( int bottom : onBottom[j] ){
-								onTop[bottom].remove( index );
-							}
-							continue base;
-						}
-					}
-				}
+			int[] order = sort();
+			Tab[] results = new Tab[ order.length ];
+			for( int i = 0; i < order.length; i++ ){
+				results[i] = tabs[ order[i] ];
 			}
 			return results;
 		}
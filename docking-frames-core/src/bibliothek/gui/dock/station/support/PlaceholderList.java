@@ -25,9 +25,15 @@
  */
 package bibliothek.gui.dock.station.support;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -42,6 +48,11 @@ import bibliothek.util.Path;
  * of placeholders.<br>
  * Clients should call {@link #bind()} and {@link #unbind()} to manage the
  * lifecycle of this list.<br>
+ * The entries of this list are stored in a balanced tree, hence accessing an entry by its index or
+ * asking for the index of an entry requires only <code>O(log n)</code> time. Searching an entry by its
+ * placeholders or by its dockable is done with the help of hash tables. For this reason the sets of
+ * placeholders that are used by the {@link Item}s of this list should only be modified by calling the
+ * methods of {@link Item}.<br>
  * A {@link PlaceholderList} is not thread-safe.
  * @author Benjamin Sigg
  * @param <D> the kind of object that should be treated as {@link Dockable}
@@ -65,6 +76,43 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 
 	/** head of the dockables sublist */
 	private Entry headDockable = null;
+	
+	/** the root of a balanced tree containing all the entries of this list, used to find entries by their index */
+	private Entry root = null;
+	
+	/** the seed used to create the priorities of the nodes of the tree */
+	private int seed = 0x2545F491;
+	
+	/** all the entries grouped by the placeholders they contain */
+	private EntryIndex<Path> placeholderIndex = new EntryIndex<Path>( new HashMap<Path, Object>() ){
+		@Override
+		protected boolean contains( Entry entry, Path key ){
+			return entry.item.hasPlaceholder( key );
+		}
+	};
+	
+	/** all the entries grouped by their dockable */
+	private EntryIndex<P> itemIndex = new EntryIndex<P>( new IdentityHashMap<P, Object>() ){
+		@Override
+		protected boolean contains( Entry entry, P key ){
+			return entry.item.getDockable() == key;
+		}
+	};
+	
+	/** all the entries grouped by the {@link PlaceholderListItem#asDockable() dockable representation} of their dockable */
+	private EntryIndex<D> dockableIndex = new EntryIndex<D>( new IdentityHashMap<D, Object>() ){
+		@Override
+		protected boolean contains( Entry entry, D key ){
+			P dockable = entry.item.getDockable();
+			return dockable != null && dockable.asDockable() == key;
+		}
+	};
+	
+	/** 
+	 * all the entries whose item has a {@link PlaceholderMap} or whose item is a pure placeholder without
+	 * placeholders, these entries have to be checked whenever placeholders are removed 
+	 */
+	private Set<Entry> checkedEntries = new HashSet<Entry>();
 
 	/** identifiers for the various sublists this list consists of */
 	public static enum Level {
@@ -492,8 +540,12 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 				if( placeholders != null ) {
 					Iterator<Path> paths = placeholders.iterator();
 					while( paths.hasNext() ) {
-						if( !strategy.isValidPlaceholder( paths.next() ) ) {
+						Path path = paths.next();
+						if( !strategy.isValidPlaceholder( path ) ) {
 							paths.remove();
+							if( item.owner != null ){
+								placeholderIndex.remove( path, item.owner );
+							}
 						}
 					}
 				}
@@ -562,12 +614,17 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 	 * @param placeholders the placeholders to remove
 	 */
 	public void removeAll( Set<Path> placeholders ){
-		Iterator<Item> iter = list().iterator();
-		while( iter.hasNext() ) {
-			Item item = iter.next();
+		Set<Entry> entries = new LinkedHashSet<Entry>();
+		for( Path placeholder : placeholders ){
+			entries.addAll( placeholderIndex.getAll( placeholder ) );
+		}
+		entries.addAll( getCheckEntries() );
+		
+		for( Entry entry : entries ){
+			Item item = entry.item;
 			item.removeAll( placeholders );
 			if( item.getPlaceholderSet() == null && item.isPlaceholder() ) {
-				iter.remove();
+				entry.remove();
 			}
 		}
 	}
@@ -583,17 +640,35 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 	}
 	
 	private void ensureRemoved( Item ignore, Path placeholder ){
-		Iterator<Item> iter = list().iterator();
-		while( iter.hasNext() ) {
-			Item item = iter.next();
+		Set<Entry> entries = new LinkedHashSet<Entry>( placeholderIndex.getAll( placeholder ));
+		entries.addAll( getCheckEntries() );
+		
+		for( Entry entry : entries ){
+			Item item = entry.item;
 			if( item != ignore ){
 				item.remove( placeholder );
 				if( item.getPlaceholderSet() == null && item.isPlaceholder() ) {
-					iter.remove();
+					entry.remove();
 				}
 			}
 		}
 	}
+	
+	/**
+	 * Gets all the entries whose item has a {@link PlaceholderMap}, or whose item is a pure placeholder without
+	 * placeholders. Items with a map may contain placeholders that are not part of their placeholder set, and
+	 * empty items have to be removed.
+	 * @return the entries, in no particular order
+	 */
+	private List<Entry> getCheckEntries(){
+		List<Entry> result = new ArrayList<Entry>( checkedEntries.size() );
+		for( Entry entry : checkedEntries ){
+			if( entry.item.isChecked() && entry.index( Level.BASE ) != -1 ){
+				result.add( entry );
+			}
+		}
+		return result;
+	}
 
 	/**
 	 * Removes the <code>index</code>'th {@link Dockable} from this list were
@@ -708,16 +783,11 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			return -1;
 		}
 
-		while( entry != null && entry.item.isPlaceholder() ) {
-			entry = entry.previous( Level.BASE );
-		}
-
-		if( entry == null ) {
-			return 0;
-		}
-		else {
-			return entry.index( Level.DOCKABLE ) + 1;
+		int index = entry.countBefore( Level.DOCKABLE );
+		if( !entry.item.isPlaceholder() ){
+			index++;
 		}
+		return index;
 	}
 
 	/**
@@ -913,47 +983,22 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 	}
 
 	private Entry search( Path placeholder ){
-		Entry entry = this.head;
-		while( entry != null ) {
-			Set<Path> set = entry.item.getPlaceholderSet();
-			if( set != null && set.contains( placeholder ) ) {
-				return entry;
-			}
-			entry = entry.next( Level.BASE );
-		}
-		return null;
+		return placeholderIndex.get( placeholder, Level.BASE );
 	}
 	
 	private Entry search( D dockable ){
-		Entry entry = head( Level.DOCKABLE );
-		while( entry != null ) {
-			if( entry.item.getDockable().asDockable() == dockable ) {
-				return entry;
-			}
-			entry = entry.next( Level.DOCKABLE );
-		}
-		return null;
+		return dockableIndex.get( dockable, Level.DOCKABLE );
 	}
 
 	private Entry search( P dockable ){
-		Entry entry = head( Level.DOCKABLE );
-		while( entry != null ) {
-			if( entry.item.getDockable() == dockable ) {
-				return entry;
-			}
-			entry = entry.next( Level.DOCKABLE );
-		}
-		return null;
+		return itemIndex.get( dockable, Level.DOCKABLE );
 	}
 
 	private Entry search( int index, Level level ){
-		Entry entry = head( level );
-
-		while( entry != null && index > 0 ) {
-			entry = entry.next( level );
-			index--;
+		if( index <= 0 ){
+			return head( level );
 		}
-		return entry;
+		return select( index, level );
 	}
 
 	/**
@@ -995,7 +1040,11 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		head = null;
 		headDockable = null;
 		headPlaceholder = null;
-		invalidate();
+		root = null;
+		placeholderIndex.clear();
+		itemIndex.clear();
+		dockableIndex.clear();
+		checkedEntries.clear();
 	}
 
 	private Entry head( Level level ){
@@ -1010,11 +1059,262 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		throw new IllegalArgumentException();
 	}
 
-	private void invalidate(){
-		dockables.invalidate();
-		allPlaceholders.invalidate();
-		purePlaceholders.invalidate();
-		allItems.invalidate();
+	/**
+	 * Tells whether <code>entry</code> is part of the sublist <code>level</code>.
+	 * @param entry some entry of the tree, may be <code>null</code>
+	 * @param level the sublist
+	 * @return whether <code>entry</code> belongs to <code>level</code>
+	 */
+	private boolean is( Entry entry, Level level ){
+		switch( level ){
+			case BASE:
+				return true;
+			case PLACEHOLDER:
+				return entry.itemWasPlaceholder;
+			case DOCKABLE:
+				return !entry.itemWasPlaceholder;
+		}
+		throw new IllegalArgumentException();
+	}
+	
+	/**
+	 * Counts how many entries of the subtree <code>entry</code> belong to <code>level</code>.
+	 * @param entry the root of a subtree, can be <code>null</code>
+	 * @param level the sublist whose entries are counted
+	 * @return the number of entries
+	 */
+	private int count( Entry entry, Level level ){
+		if( entry == null ){
+			return 0;
+		}
+		switch( level ){
+			case BASE:
+				return entry.size;
+			case PLACEHOLDER:
+				return entry.placeholders;
+			case DOCKABLE:
+				return entry.size - entry.placeholders;
+		}
+		throw new IllegalArgumentException();
+	}
+	
+	/**
+	 * Gets the number of entries of the sublist <code>level</code>.
+	 * @param level the sublist
+	 * @return the number of entries
+	 */
+	private int count( Level level ){
+		return count( root, level );
+	}
+	
+	/**
+	 * Searches the <code>index</code>'th entry of the sublist <code>level</code>.
+	 * @param index the index of the entry
+	 * @param level the sublist
+	 * @return the entry or <code>null</code> if <code>index</code> is out of bounds
+	 */
+	private Entry select( int index, Level level ){
+		if( index < 0 ){
+			return null;
+		}
+		Entry entry = root;
+		while( entry != null ){
+			int left = count( entry.left, level );
+			if( index < left ){
+				entry = entry.left;
+			}
+			else{
+				if( is( entry, level )){
+					if( index == left ){
+						return entry;
+					}
+					index--;
+				}
+				index -= left;
+				entry = entry.right;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the last entry of this list.
+	 * @return the last entry or <code>null</code> if this list is empty
+	 */
+	private Entry last(){
+		Entry entry = root;
+		if( entry != null ){
+			while( entry.right != null ){
+				entry = entry.right;
+			}
+		}
+		return entry;
+	}
+	
+	/**
+	 * Creates the priority of a new node of the tree.
+	 * @return the new priority
+	 */
+	private int nextPriority(){
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+	
+	/**
+	 * Recalculates the size of the subtree <code>entry</code>.
+	 * @param entry the root of the subtree
+	 */
+	private void update( Entry entry ){
+		entry.size = 1 + count( entry.left, Level.BASE ) + count( entry.right, Level.BASE );
+		entry.placeholders = (entry.itemWasPlaceholder ? 1 : 0) + count( entry.left, Level.PLACEHOLDER ) + count( entry.right, Level.PLACEHOLDER );
+	}
+	
+	/**
+	 * Rotates <code>entry</code> such that it replaces its parent.
+	 * @param entry the entry to move up, must have a parent
+	 */
+	private void rotateUp( Entry entry ){
+		Entry parent = entry.parent;
+		Entry grandParent = parent.parent;
+		
+		if( parent.left == entry ){
+			parent.left = entry.right;
+			if( parent.left != null ){
+				parent.left.parent = parent;
+			}
+			entry.right = parent;
+		}
+		else{
+			parent.right = entry.left;
+			if( parent.right != null ){
+				parent.right.parent = parent;
+			}
+			entry.left = parent;
+		}
+		
+		parent.parent = entry;
+		entry.parent = grandParent;
+		if( grandParent == null ){
+			root = entry;
+		}
+		else if( grandParent.left == parent ){
+			grandParent.left = entry;
+		}
+		else{
+			grandParent.right = entry;
+		}
+		
+		update( parent );
+		update( entry );
+	}
+
+	/**
+	 * Verifies that the linked chains, the tree and the indices of this list describe the same
+	 * sequence of entries. This method visits every entry and is meant to be used by tests.
+	 * @throws IllegalStateException if any of the structures is inconsistent
+	 */
+	void checkEntries(){
+		int index = 0;
+		int placeholderCount = 0;
+		Entry previous = null;
+		Entry previousPlaceholder = null;
+		Entry previousDockable = null;
+		
+		for( Entry entry = head; entry != null; entry = entry.next ){
+			if( entry.previous != previous ){
+				throw new IllegalStateException( "broken chain at " + index );
+			}
+			if( entry.item.owner != entry ){
+				throw new IllegalStateException( "item of entry " + index + " has another owner" );
+			}
+			if( entry.itemWasPlaceholder != entry.item.isPlaceholder() ){
+				throw new IllegalStateException( "outdated kind of entry " + index );
+			}
+			if( entry.countBefore( Level.BASE ) != index || select( index, Level.BASE ) != entry ){
+				throw new IllegalStateException( "tree does not contain entry " + index + " at its location" );
+			}
+			
+			Level level = entry.itemWasPlaceholder ? Level.PLACEHOLDER : Level.DOCKABLE;
+			Entry previousLevel = entry.itemWasPlaceholder ? previousPlaceholder : previousDockable;
+			if( entry.previousLevel != previousLevel || (previousLevel == null ? head( level ) != entry : previousLevel.nextLevel != entry) ){
+				throw new IllegalStateException( "broken " + level + " chain at " + index );
+			}
+			if( entry.itemWasPlaceholder ){
+				if( entry.index( Level.PLACEHOLDER ) != placeholderCount ){
+					throw new IllegalStateException( "wrong placeholder index of entry " + index );
+				}
+				placeholderCount++;
+				previousPlaceholder = entry;
+			}
+			else{
+				if( entry.index( Level.DOCKABLE ) != index - placeholderCount ){
+					throw new IllegalStateException( "wrong dockable index of entry " + index );
+				}
+				previousDockable = entry;
+			}
+			
+			Set<Path> placeholders = entry.item.getPlaceholderSet();
+			if( placeholders != null ){
+				for( Path placeholder : placeholders ){
+					if( !placeholderIndex.isIndexed( placeholder, entry )){
+						throw new IllegalStateException( "placeholder " + placeholder + " of entry " + index + " is not indexed" );
+					}
+				}
+			}
+			P dockable = entry.item.getDockable();
+			if( dockable != null ){
+				if( !itemIndex.isIndexed( dockable, entry ) || !dockableIndex.isIndexed( dockable.asDockable(), entry )){
+					throw new IllegalStateException( "dockable of entry " + index + " is not indexed" );
+				}
+			}
+			if( entry.item.isChecked() && !checkedEntries.contains( entry )){
+				throw new IllegalStateException( "entry " + index + " is not checked when placeholders are removed" );
+			}
+			
+			previous = entry;
+			index++;
+		}
+		
+		if( (previousPlaceholder == null ? headPlaceholder : previousPlaceholder.nextLevel) != null ||
+				(previousDockable == null ? headDockable : previousDockable.nextLevel) != null ){
+			throw new IllegalStateException( "sublist chains contain unknown entries" );
+		}
+		if( count( Level.BASE ) != index || count( Level.PLACEHOLDER ) != placeholderCount ){
+			throw new IllegalStateException( "tree size does not match the number of entries" );
+		}
+		if( root != null ){
+			if( root.parent != null ){
+				throw new IllegalStateException( "root has a parent" );
+			}
+			checkTree( root );
+		}
+	}
+	
+	/**
+	 * Verifies the links, the priorities and the sizes of the subtree <code>entry</code>.
+	 * @param entry the root of the subtree
+	 * @throws IllegalStateException if the subtree is inconsistent
+	 */
+	private void checkTree( Entry entry ){
+		if( entry.left != null ){
+			if( entry.left.parent != entry || entry.left.priority > entry.priority ){
+				throw new IllegalStateException( "broken tree at " + entry );
+			}
+			checkTree( entry.left );
+		}
+		if( entry.right != null ){
+			if( entry.right.parent != entry || entry.right.priority > entry.priority ){
+				throw new IllegalStateException( "broken tree at " + entry );
+			}
+			checkTree( entry.right );
+		}
+		int size = 1 + count( entry.left, Level.BASE ) + count( entry.right, Level.BASE );
+		int placeholders = (entry.itemWasPlaceholder ? 1 : 0) + count( entry.left, Level.PLACEHOLDER ) + count( entry.right, Level.PLACEHOLDER );
+		if( entry.size != size || entry.placeholders != placeholders ){
+			throw new IllegalStateException( "wrong size of subtree " + entry );
+		}
 	}
 
 	@Override
@@ -1028,6 +1328,15 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 
 		private Entry next, previous;
 		private Entry nextLevel, previousLevel;
+		
+		/** the parent and the children of this entry in the tree of all entries */
+		private Entry parent, left, right;
+		/** the priority of this entry in the tree, a parent always has a higher priority than its children */
+		private int priority;
+		/** the number of entries in the subtree of this entry */
+		private int size;
+		/** the number of pure placeholders in the subtree of this entry */
+		private int placeholders;
 
 		public Entry( Entry predecessor, Item item ){
 			this.item = item;
@@ -1035,13 +1344,9 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		}
 
 		public void insertAfter( Entry predecessor ){
-			invalidate();
-
 			item.setOwner( this );
 			itemWasPlaceholder = item.isPlaceholder();
 
-			Entry predecessorLevel = null;
-
 			if( predecessor == null ) {
 				next = head;
 				if( head != null ) {
@@ -1049,7 +1354,6 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 				}
 
 				head = this;
-				predecessorLevel = null;
 			}
 			else {
 				next = predecessor.next;
@@ -1059,15 +1363,12 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 
 				predecessor.next = this;
 				this.previous = predecessor;
-
-				Entry search = predecessor;
-				while( search != null && predecessorLevel == null ) {
-					if( search.item.isPlaceholder() == item.isPlaceholder() ) {
-						predecessorLevel = search;
-					}
-					search = search.previous( Level.BASE );
-				}
 			}
+			
+			insertTree( predecessor );
+
+			Level level = itemWasPlaceholder ? Level.PLACEHOLDER : Level.DOCKABLE;
+			Entry predecessorLevel = select( index( level )-1, level );
 
 			Entry successorLevel = null;
 			if( predecessorLevel == null ) {
@@ -1095,27 +1396,113 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 				successorLevel.previousLevel = this;
 			}
 		}
+		
+		/**
+		 * Inserts this entry into the tree of all entries.
+		 * @param predecessor the entry which is directly in front of this entry, can be <code>null</code>
+		 */
+		private void insertTree( Entry predecessor ){
+			parent = null;
+			left = null;
+			right = null;
+			size = 1;
+			placeholders = itemWasPlaceholder ? 1 : 0;
+			priority = nextPriority();
+			
+			if( root == null ){
+				root = this;
+				return;
+			}
+			
+			if( predecessor == null ){
+				parent = root;
+				while( parent.left != null ){
+					parent = parent.left;
+				}
+				parent.left = this;
+			}
+			else if( predecessor.right == null ){
+				parent = predecessor;
+				parent.right = this;
+			}
+			else{
+				parent = predecessor.right;
+				while( parent.left != null ){
+					parent = parent.left;
+				}
+				parent.left = this;
+			}
+			
+			for( Entry entry = parent; entry != null; entry = entry.parent ){
+				entry.size++;
+				entry.placeholders += placeholders;
+			}
+			
+			while( parent != null && parent.priority < priority ){
+				rotateUp( this );
+			}
+		}
+		
+		/**
+		 * Removes this entry from the tree of all entries.
+		 */
+		private void removeTree(){
+			while( left != null || right != null ){
+				if( left == null ){
+					rotateUp( right );
+				}
+				else if( right == null ){
+					rotateUp( left );
+				}
+				else if( left.priority > right.priority ){
+					rotateUp( left );
+				}
+				else{
+					rotateUp( right );
+				}
+			}
+			
+			if( parent == null ){
+				if( root == this ){
+					root = null;
+				}
+			}
+			else{
+				if( parent.left == this ){
+					parent.left = null;
+				}
+				else{
+					parent.right = null;
+				}
+				for( Entry entry = parent; entry != null; entry = entry.parent ){
+					entry.size--;
+					entry.placeholders -= placeholders;
+				}
+				parent = null;
+			}
+		}
 
 		public void move( int delta, Level level ){
 			if( delta == 0 ) {
 				return;
 			}
-			Entry newPredecessor = this;
+			int index = index( level );
+			if( index == -1 ) {
+				throw new IllegalArgumentException( "delta too big" );
+			}
+			
+			Entry newPredecessor;
 			if( delta > 0 ) {
-				for( int i = 0; i < delta; i++ ) {
-					newPredecessor = newPredecessor.next( level );
-					if( newPredecessor == null ) {
-						throw new IllegalArgumentException( "delta too big" );
-					}
+				newPredecessor = select( index + delta, level );
+				if( newPredecessor == null ) {
+					throw new IllegalArgumentException( "delta too big" );
 				}
 			}
 			else {
-				for( int i = -delta; i >= 0; i-- ) {
-					if( newPredecessor == null ) {
-						throw new IllegalArgumentException( "delta too big" );
-					}
-					newPredecessor = newPredecessor.previous( level );
+				if( index + delta < 0 ) {
+					throw new IllegalArgumentException( "delta too big" );
 				}
+				newPredecessor = select( index + delta - 1, level );
 			}
 
 			remove();
@@ -1146,17 +1533,39 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			throw new IllegalArgumentException();
 		}
 
+		/**
+		 * Gets the location of this entry in the sublist <code>level</code>.
+		 * @param level the sublist
+		 * @return the location or -1 if this entry is not part of <code>level</code>
+		 */
 		public int index( Level level ){
-			Entry entry = head( level );
-			int index = 0;
-			while( entry != this && entry != null ) {
-				entry = entry.next( level );
-				index++;
+			if( !is( this, level )){
+				return -1;
 			}
-			if( entry == null ) {
+			return countBefore( level );
+		}
+		
+		/**
+		 * Counts how many entries of the sublist <code>level</code> are in front of this entry.
+		 * @param level the sublist
+		 * @return the number of entries or -1 if this entry is not part of this list
+		 */
+		public int countBefore( Level level ){
+			int count = count( left, level );
+			Entry entry = this;
+			while( entry.parent != null ){
+				if( entry.parent.right == entry ){
+					count += count( entry.parent.left, level );
+					if( is( entry.parent, level )){
+						count++;
+					}
+				}
+				entry = entry.parent;
+			}
+			if( entry != root ){
 				return -1;
 			}
-			return index;
+			return count;
 		}
 
 		public void refresh(){
@@ -1170,11 +1579,15 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			if( itemWasPlaceholder != item.isPlaceholder() ) {
 				itemWasPlaceholder = item.isPlaceholder();
 
-				invalidate();
 				removeLevel();
+				for( Entry entry = this; entry != null; entry = entry.parent ){
+					update( entry );
+				}
 
-				Entry levelPredecessor = findLevelPredecessor( item.isPlaceholder() );
-				Entry levelSuccessor = findLevelSuccessor( item.isPlaceholder() );
+				Level level = itemWasPlaceholder ? Level.PLACEHOLDER : Level.DOCKABLE;
+				int index = index( level );
+				Entry levelPredecessor = select( index-1, level );
+				Entry levelSuccessor = select( index+1, level );
 
 				if( levelPredecessor == null ) {
 					if( item.isPlaceholder() ) {
@@ -1201,31 +1614,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			this.item = item;
 		}
 
-		private Entry findLevelPredecessor( boolean placeholder ){
-			Entry entry = previous;
-			while( entry != null ) {
-				if( entry.item.isPlaceholder() == placeholder ) {
-					return entry;
-				}
-				entry = entry.previous;
-			}
-			return null;
-		}
-
-		private Entry findLevelSuccessor( boolean placeholder ){
-			Entry entry = next;
-			while( entry != null ) {
-				if( entry.item.isPlaceholder() == placeholder ) {
-					return entry;
-				}
-				entry = entry.next;
-			}
-			return null;
-		}
-
 		public void remove(){
-			invalidate();
-
 			if( next != null ) {
 				next.previous = previous;
 			}
@@ -1243,11 +1632,10 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			this.item.setOwner( null );
 
 			removeLevel();
+			removeTree();
 		}
 
 		private void removeLevel(){
-			invalidate();
-
 			if( nextLevel != null ) {
 				nextLevel.previousLevel = previousLevel;
 			}
@@ -1272,6 +1660,171 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		}
 	}
 
+	/**
+	 * Maps keys, like placeholders or dockables, to the entries which contain them. The index is updated
+	 * by the {@link Item}s, but it may still contain outdated associations. These associations are
+	 * filtered out and removed when reading the index.
+	 * @author Benjamin Sigg
+	 * @param <K> the kind of keys
+	 */
+	private abstract class EntryIndex<K> {
+		/** the entries of each key, the values are either single {@link Entry}s or {@link List}s of {@link Entry}s */
+		private Map<K, Object> entries;
+		
+		/**
+		 * Creates a new index.
+		 * @param entries the map in which the entries are stored, decides how keys are compared
+		 */
+		public EntryIndex( Map<K, Object> entries ){
+			this.entries = entries;
+		}
+		
+		/**
+		 * Tells whether <code>entry</code> still contains <code>key</code>.
+		 * @param entry some entry
+		 * @param key some key
+		 * @return whether the association between <code>key</code> and <code>entry</code> is valid
+		 */
+		protected abstract boolean contains( Entry entry, K key );
+		
+		private boolean valid( Entry entry, K key ){
+			return contains( entry, key ) && entry.countBefore( Level.BASE ) != -1;
+		}
+		
+		/**
+		 * Associates <code>key</code> with <code>entry</code>.
+		 * @param key the key
+		 * @param entry the entry which contains <code>key</code>
+		 */
+		@SuppressWarnings("unchecked")
+		public void put( K key, Entry entry ){
+			Object current = entries.get( key );
+			if( current == null || current == entry ){
+				entries.put( key, entry );
+			}
+			else if( current instanceof List<?> ){
+				List<Entry> list = (List<Entry>)current;
+				if( !list.contains( entry )){
+					list.add( entry );
+				}
+			}
+			else{
+				List<Entry> list = new ArrayList<Entry>( 2 );
+				list.add( (Entry)current );
+				list.add( entry );
+				entries.put( key, list );
+			}
+		}
+		
+		/**
+		 * Removes the association between <code>key</code> and <code>entry</code>.
+		 * @param key the key
+		 * @param entry the entry which no longer contains <code>key</code>
+		 */
+		@SuppressWarnings("unchecked")
+		public void remove( K key, Entry entry ){
+			Object current = entries.get( key );
+			if( current == entry ){
+				entries.remove( key );
+			}
+			else if( current instanceof List<?> ){
+				List<Entry> list = (List<Entry>)current;
+				list.remove( entry );
+				if( list.size() == 1 ){
+					entries.put( key, list.get( 0 ) );
+				}
+			}
+		}
+		
+		/**
+		 * Gets all the entries of this list which contain <code>key</code>.
+		 * @param key the key to search
+		 * @return all the entries, in no particular order
+		 */
+		@SuppressWarnings("unchecked")
+		public List<Entry> getAll( K key ){
+			Object current = entries.get( key );
+			if( current == null ){
+				return Collections.emptyList();
+			}
+			if( current instanceof List<?> ){
+				List<Entry> list = (List<Entry>)current;
+				Iterator<Entry> iterator = list.iterator();
+				while( iterator.hasNext() ){
+					if( !valid( iterator.next(), key )){
+						iterator.remove();
+					}
+				}
+				if( list.isEmpty() ){
+					entries.remove( key );
+					return Collections.emptyList();
+				}
+				List<Entry> result = new ArrayList<Entry>( list );
+				if( list.size() == 1 ){
+					entries.put( key, list.get( 0 ) );
+				}
+				return result;
+			}
+			Entry entry = (Entry)current;
+			if( !valid( entry, key )){
+				entries.remove( key );
+				return Collections.emptyList();
+			}
+			return Collections.singletonList( entry );
+		}
+		
+		/**
+		 * Searches the first entry of the sublist <code>level</code> which contains <code>key</code>.
+		 * @param key the key to search
+		 * @param level the sublist
+		 * @return the first entry or <code>null</code> if not found
+		 */
+		public Entry get( K key, Level level ){
+			Entry result = null;
+			int resultIndex = -1;
+			
+			for( Entry entry : getAll( key )){
+				if( is( entry, level )){
+					if( result == null ){
+						result = entry;
+					}
+					else{
+						if( resultIndex == -1 ){
+							resultIndex = result.countBefore( Level.BASE );
+						}
+						int index = entry.countBefore( Level.BASE );
+						if( index < resultIndex ){
+							result = entry;
+							resultIndex = index;
+						}
+					}
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * Tells whether <code>key</code> is associated with <code>entry</code>. Does not modify the index.
+		 * @param key the key
+		 * @param entry the entry which should contain <code>key</code>
+		 * @return whether the association is stored
+		 */
+		public boolean isIndexed( K key, Entry entry ){
+			Object current = entries.get( key );
+			if( current == entry ){
+				return true;
+			}
+			return current instanceof List<?> && ((List<?>)current).contains( entry );
+		}
+		
+		/**
+		 * Removes all associations.
+		 */
+		public void clear(){
+			entries.clear();
+		}
+	}
+
 	/**
 	 * A single item in a {@link PlaceholderList}
 	 * @author Benjamin Sigg
@@ -1336,6 +1889,13 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		 * @param owner the new owner, can be <code>null</code>
 		 */
 		protected void setOwner( PlaceholderList<D, S, P>.Entry owner ){
+			if( this.owner != null ){
+				unindex( this.owner );
+			}
+			if( owner != null ){
+				index( owner );
+			}
+			
 			if( bound && strategy != null ) {
 				if( placeholderMap != null ) {
 					if( owner == null ) {
@@ -1349,6 +1909,67 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 
 			this.owner = owner;
 		}
+		
+		/**
+		 * Stores the placeholders, the dockable and the placeholder map of this item in the indices of
+		 * the enclosing {@link PlaceholderList}.
+		 * @param owner the entry which is going to contain this item
+		 */
+		private void index( PlaceholderList<D, S, P>.Entry owner ){
+			if( placeholderSet != null ){
+				for( Path placeholder : placeholderSet ){
+					placeholderIndex.put( placeholder, owner );
+				}
+			}
+			if( value != null ){
+				itemIndex.put( value, owner );
+				dockableIndex.put( value.asDockable(), owner );
+			}
+			if( isChecked() ){
+				checkedEntries.add( owner );
+			}
+		}
+		
+		/**
+		 * Tells whether this item has to be checked whenever placeholders are removed from the enclosing list.
+		 * @return <code>true</code> if this item has a {@link PlaceholderMap}, or if this item is a pure 
+		 * placeholder without any placeholders
+		 */
+		private boolean isChecked(){
+			return placeholderMap != null || (value == null && placeholderSet == null);
+		}
+		
+		/**
+		 * Updates the set of entries that have to be checked whenever placeholders are removed.
+		 */
+		private void check(){
+			if( owner != null ){
+				if( isChecked() ){
+					checkedEntries.add( owner );
+				}
+				else{
+					checkedEntries.remove( owner );
+				}
+			}
+		}
+		
+		/**
+		 * Removes the placeholders, the dockable and the placeholder map of this item from the indices of
+		 * the enclosing {@link PlaceholderList}.
+		 * @param owner the entry which contained this item
+		 */
+		private void unindex( PlaceholderList<D, S, P>.Entry owner ){
+			if( placeholderSet != null ){
+				for( Path placeholder : placeholderSet ){
+					placeholderIndex.remove( placeholder, owner );
+				}
+			}
+			if( value != null ){
+				itemIndex.remove( value, owner );
+				dockableIndex.remove( value.asDockable(), owner );
+			}
+			checkedEntries.remove( owner );
+		}
 
 		/**
 		 * Tells whether this item is a pure placeholder or not.
@@ -1377,7 +1998,18 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			if( placeholderSet != null && placeholderSet.contains( null ) ) {
 				throw new IllegalArgumentException( "placeholderSet contains a null value" );
 			}
+			if( owner != null && this.placeholderSet != null ){
+				for( Path placeholder : this.placeholderSet ){
+					placeholderIndex.remove( placeholder, owner );
+				}
+			}
 			this.placeholderSet = placeholderSet;
+			if( owner != null && placeholderSet != null ){
+				for( Path placeholder : placeholderSet ){
+					placeholderIndex.put( placeholder, owner );
+				}
+			}
+			check();
 		}
 
 		/**
@@ -1386,6 +2018,13 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		 */
 		public void removeAll( Set<Path> placeholders ){
 			if( placeholderSet != null ) {
+				if( owner != null ){
+					for( Path placeholder : placeholders ){
+						if( placeholderSet.contains( placeholder )){
+							placeholderIndex.remove( placeholder, owner );
+						}
+					}
+				}
 				placeholderSet.removeAll( placeholders );
 				if( placeholderSet.isEmpty() ) {
 					placeholderSet = null;
@@ -1397,6 +2036,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 					setPlaceholderMap( null );
 				}
 			}
+			check();
 		}
 
 		/**
@@ -1405,7 +2045,9 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		 */
 		public void remove( Path placeholder ){
 			if( placeholderSet != null ) {
-				placeholderSet.remove( placeholder );
+				if( placeholderSet.remove( placeholder ) && owner != null ){
+					placeholderIndex.remove( placeholder, owner );
+				}
 				if( placeholderSet.isEmpty() ) {
 					placeholderSet = null;
 				}
@@ -1416,6 +2058,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 					setPlaceholderMap( null );
 				}
 			}
+			check();
 		}
 
 		/**
@@ -1431,6 +2074,10 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 				placeholderSet = new HashSet<Path>();
 			}
 			placeholderSet.add( placeholder );
+			if( owner != null ){
+				placeholderIndex.put( placeholder, owner );
+			}
+			check();
 		}
 
 		/**
@@ -1465,6 +2112,10 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		 * @param dockable the new value, can be <code>null</code>
 		 */
 		public void setDockable( P dockable ){
+			if( value != null && owner != null ){
+				itemIndex.remove( value, owner );
+				dockableIndex.remove( value.asDockable(), owner );
+			}
 			this.value = dockable;
 			owner.refresh();
 		}
@@ -1487,6 +2138,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			else {
 				this.placeholderMap = placeholders;
 			}
+			check();
 		}
 
 		/**
@@ -1650,7 +2302,6 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 
 	private abstract class SubList<A> implements Filter<A> {
 		private Level level;
-		private int size = -1;
 
 		protected abstract A unwrap( Item item );
 
@@ -1670,23 +2321,13 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 			return PlaceholderList.this;
 		}
 		
-		public void invalidate(){
-			size = -1;
-		}
-
 		private Entry getEntry( int index ){
 			if( index < 0 )
 				throw new IndexOutOfBoundsException("index < 0: " + index);
 
-			Entry entry = head( level );
-			int start = index;
-			
-			while( index > 0 ) {
-				entry = entry.next( level );
-				index--;
-				if( entry == null ) {
-					throw new IndexOutOfBoundsException( "index=" + start + ", size=" + size() );
-				}
+			Entry entry = select( index, level );
+			if( entry == null ) {
+				throw new IndexOutOfBoundsException( "index=" + index + ", size=" + size() );
 			}
 
 			return entry;
@@ -1723,13 +2364,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		
 		private void insert( int index, Item item ){
 			if( size() == index ) {
-				Entry entry = head;
-				Entry predecessor = null;
-				while( entry != null ) {
-					predecessor = entry;
-					entry = entry.next;
-				}
-				new Entry( predecessor, item );
+				new Entry( last(), item );
 			}
 			else {
 				Entry entry = getEntry( index );
@@ -1759,16 +2394,11 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		}
 		
 		public int indexOfPlaceholder( Path placeholder ){
-			int index = 0;
-			Entry entry = head( level );
-			while( entry != null ) {
-				if( entry.item.hasPlaceholder( placeholder )){
-					return index;
-				}
-				entry = entry.next( level );
-				index++;
+			Entry entry = placeholderIndex.get( placeholder, level );
+			if( entry == null ){
+				return -1;
 			}
-			return -1;
+			return entry.index( level );
 		}
 
 		public A remove( int index ){
@@ -1799,15 +2429,7 @@ public abstract class PlaceholderList<D, S, P extends PlaceholderListItem<D>> {
 		}
 		
 		public int size(){
-			if( size == -1 ) {
-				size = 0;
-				Entry entry = head( level );
-				while( entry != null ) {
-					size++;
-					entry = entry.next( level );
-				}
-			}
-			return size;
+			return count( level );
 		}
 
 		public void move( int source, int destination ){
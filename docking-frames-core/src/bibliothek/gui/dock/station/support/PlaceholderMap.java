@@ -28,14 +28,20 @@ package bibliothek.gui.dock.station.support;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import bibliothek.util.Path;
 import bibliothek.util.Version;
+import bibliothek.util.VersionedDataOutputStream;
 import bibliothek.util.xml.XElement;
 import bibliothek.util.xml.XException;
 
@@ -49,17 +55,50 @@ import bibliothek.util.xml.XException;
  *  <li>If using non-shared keys, this map will use the <code>==</code> operator to compare keys</li>
  * </ul>
  * This data structure can work together with a {@link PlaceholderStrategy} to automatically delete
- * entries that are no longer valid. 
+ * entries that are no longer valid.<br>
+ * Primitive values are stored without boxing them, {@link Path}s read from a stream are shared between all maps, and
+ * {@link #copy() copies} share values with their original until one of them is modified. 
  * @author Benjamin Sigg
  */
 public class PlaceholderMap {
+	/** the type of a {@link String} value, also the tag used in streams */
+	private static final byte TYPE_STRING = 0;
+	/** the type of an {@link Integer} value, also the tag used in streams */
+	private static final byte TYPE_INT = 1;
+	/** the type of a {@link Long} value, also the tag used in streams */
+	private static final byte TYPE_LONG = 2;
+	/** the type of a {@link Double} value, also the tag used in streams */
+	private static final byte TYPE_DOUBLE = 3;
+	/** the type of a {@link Boolean} value, also the tag used in streams */
+	private static final byte TYPE_BOOLEAN = 4;
+	/** the type of a {@link PlaceholderMap} value, also the tag used in streams */
+	private static final byte TYPE_MAP = 5;
+	/** the type of an array value, also the tag used in streams */
+	private static final byte TYPE_ARRAY = 6;
+	/** the type of a {@link Path} value, also the tag used in streams */
+	private static final byte TYPE_PATH = 7;
+	/** the type of any value that cannot be written */
+	private static final byte TYPE_UNKNOWN = -1;
+	
+	/**
+	 * All the {@link Path}s that were read by any {@link PlaceholderMap}, equal paths are represented by the same object.<br>
+	 * This map is shared by all the {@link PlaceholderMap}s of the virtual machine, hence by all the controllers that
+	 * are running in the same process, and these controllers may read their layouts on different threads. Every access to
+	 * the map is synchronized on the map itself, see {@link #intern(Path)}. Sharing the interned objects is safe because
+	 * a {@link Path} is immutable, and two controllers can only notice that they share a path by comparing with
+	 * <code>==</code>, which no client should do. Neither keys nor values are strongly referenced by the map: once no
+	 * layout uses a path anymore, the path is collected and its entry disappears, a path that is read later again is just
+	 * interned anew. No other lock is acquired while the lock of the map is held, so interning cannot deadlock.
+	 */
+	private static final Map<Path, WeakReference<Path>> PATHS = new WeakHashMap<Path, WeakReference<Path>>();
+	
 	/** version of the format */
 	private int version;
 	/** what kind of data is stored in this map */
 	private Path format;
 	
 	/** all the data that is stored in this map */
-	private Map<Key, Map<String, Object>> data = new LinkedHashMap<Key, Map<String,Object>>();
+	private Map<Key, Values> data = new LinkedHashMap<Key, Values>();
 	
 	/** strategy observed for automatically removal of invalid placeholders */
 	private PlaceholderStrategy strategy;
@@ -96,12 +135,17 @@ public class PlaceholderMap {
 		setPlaceholderStrategy( strategy );
 		
 		Version version = Version.read( in );
-		if( Version.VERSION_1_1_1a.compareTo( version ) < 0 ){
+		if( Version.VERSION_1_1_2a.compareTo( version ) < 0 ){
 			throw new IOException( "unknown version: " + version );
 		}
 		
+		if( Version.VERSION_1_1_2a.compareTo( version ) == 0 ){
+			readContent( in, strategy, new StringTable() );
+			return;
+		}
+		
 		this.version = in.readInt();
-		format = new Path( in.readUTF() );
+		format = intern( new Path( in.readUTF() ) );
 	
 		int size = in.readInt();
 		
@@ -110,13 +154,12 @@ public class PlaceholderMap {
 			key = key.shrink( strategy );
 			
 			if( key != null ){
-				add(key);
-				Map<String, Object> map = data.get( key );
+				Values values = modify( key );
 				int length = in.readInt();
 				for( int j = 0; j < length; j++ ){
 					String subkey = in.readUTF();
 					Object value = read( in, strategy );
-					map.put( subkey, value );
+					values.put( subkey, value );
 				}
 			}
 			else{
@@ -129,6 +172,18 @@ public class PlaceholderMap {
 		}
 	}
 	
+	/**
+	 * Creates a new map reading a map that was written by {@link #write(DataOutputStream, StringTable)}.
+	 * @param in the content
+	 * @param strategy guard to identify the placeholders which are allowed to be stored, can be <code>null</code>
+	 * @param table the strings that were already read from <code>in</code>
+	 * @throws IOException in case of an I/O error
+	 */
+	private PlaceholderMap( DataInputStream in, PlaceholderStrategy strategy, StringTable table ) throws IOException{
+		setPlaceholderStrategy( strategy );
+		readContent( in, strategy, table );
+	}
+	
 	/**
 	 * Creates a new map reading the content of the map directly from <code>in</code>.
 	 * @param in the content to read
@@ -147,7 +202,7 @@ public class PlaceholderMap {
 		if( xformat == null ){
 			throw new XException( "missing element 'format'" );
 		}
-		format = new Path( xformat.getString() );
+		format = intern( new Path( xformat.getString() ) );
 		
 		for( int i = 0, n = in.getElementCount(); i<n; i++ ){
 			XElement xentry = in.getElement( i );
@@ -156,14 +211,13 @@ public class PlaceholderMap {
 				placeholder = placeholder.shrink( strategy );
 				
 				if( placeholder != null ){
-					add( placeholder );
-					Map<String,Object> map = data.get( placeholder );
+					Values values = modify( placeholder );
 					for( int j = 0, m = xentry.getElementCount(); j<m; j++ ){
 						XElement xitem = xentry.getElement( j );
 						if( xitem.getName().equals( "item" )){
 							String key = xitem.getString( "key" );
 							Object value = read( xitem, strategy );
-							map.put( key, value );
+							values.put( key, value );
 						}
 					}
 				}
@@ -172,86 +226,326 @@ public class PlaceholderMap {
 	}
 	
 	/**
-	 * Writes the contents of this map into <code>out</code>.
+	 * Gets a {@link Path} that is equal to <code>path</code>. Paths that are read from a stream or
+	 * from an {@link XElement} are interned, this way the many equal paths of a layout share the same object.<br>
+	 * This method can be called by any thread, it synchronizes on {@link #PATHS}.
+	 * @param path the path to intern
+	 * @return a path that is equal to <code>path</code>
+	 */
+	private static Path intern( Path path ){
+		synchronized( PATHS ){
+			WeakReference<Path> reference = PATHS.get( path );
+			Path result = reference == null ? null : reference.get();
+			if( result == null ){
+				PATHS.put( path, new WeakReference<Path>( path ) );
+				result = path;
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Writes the contents of this map into <code>out</code>. If <code>out</code> is a {@link VersionedDataOutputStream}
+	 * asking for a version older than 1.1.2a, then the format of version 1.1.1a is written, otherwise the compact
+	 * format of version 1.1.2a is used.
 	 * @param out the stream to write into
 	 * @throws IOException in case of an I/O error
 	 */
 	public void write( DataOutputStream out ) throws IOException{
+		if( Version.VERSION_1_1_2a.compareTo( VersionedDataOutputStream.getFormat( out ) ) > 0 ){
+			writeLegacy( out );
+		}
+		else{
+			Version.write( out, Version.VERSION_1_1_2a );
+			write( out, new StringTable() );
+		}
+	}
+	
+	/**
+	 * Writes the contents of this map into <code>out</code> using the format of version 1.1.1a, which
+	 * can be read by older versions of this library.
+	 * @param out the stream to write into
+	 * @throws IOException in case of an I/O error
+	 */
+	private void writeLegacy( DataOutputStream out ) throws IOException{
 		Version.write( out, Version.VERSION_1_1_1a );
 		out.writeInt( version );
 		out.writeUTF( format.toString() );
 		
 		out.writeInt( data.size() );
-		for( Map.Entry<Key, Map<String, Object>> entry : data.entrySet() ){
+		for( Map.Entry<Key, Values> entry : data.entrySet() ){
 			((PlaceholderKey)entry.getKey()).write( out );
-			Map<String, Object> map = entry.getValue();
-			out.writeInt( map.size() );
-			for( Map.Entry<String, Object> mapEntry : map.entrySet() ){
-				out.writeUTF( mapEntry.getKey() );
-				write( mapEntry.getValue(), out );
+			Values values = entry.getValue();
+			out.writeInt( values.size );
+			for( int i = 0; i < values.size; i++ ){
+				out.writeUTF( values.names[i] );
+				writeLegacy( values.get( i ), out );
 			}
 		}
 	}
-
-	private void write( Object value, DataOutputStream out ) throws IOException{
+	
+	private void writeLegacy( Object value, DataOutputStream out ) throws IOException{
 		if( value instanceof String ){
-			out.writeByte( 0 );
+			out.writeByte( TYPE_STRING );
 			out.writeUTF( (String)value );
 		}
 		else if( value instanceof Integer ){
-			out.writeByte( 1 );
+			out.writeByte( TYPE_INT );
 			out.writeInt( (Integer)value );
 		}
 		else if( value instanceof Long ){
-			out.writeByte( 2 );
+			out.writeByte( TYPE_LONG );
 			out.writeLong( (Long)value );
 		}
 		else if( value instanceof Double ){
-			out.writeByte( 3 );
+			out.writeByte( TYPE_DOUBLE );
 			out.writeDouble( (Double)value );
 		}
 		else if( value instanceof Boolean ){
-			out.writeByte( 4 );
+			out.writeByte( TYPE_BOOLEAN );
 			out.writeBoolean( (Boolean)value );
 		}
 		else if( value instanceof PlaceholderMap ){
-			out.writeByte( 5 );
-			((PlaceholderMap)value).write( out );
+			out.writeByte( TYPE_MAP );
+			((PlaceholderMap)value).writeLegacy( out );
 		}
 		else if( value instanceof Object[] ){
-			out.writeByte( 6 );
+			out.writeByte( TYPE_ARRAY );
 			Object[] array = (Object[])value;
 			out.writeInt( array.length );
 			for( Object item : array ){
-				write( item, out );
+				writeLegacy( item, out );
 			}
 		}
 		else if( value instanceof Path ){
-			out.writeByte( 7 );
+			out.writeByte( TYPE_PATH );
 			out.writeUTF( ((Path)value).toString() );
 		}
 		else{
 			throw new IOException( "unknown type: " + value.getClass() );
 		}
 	}
-
+	
+	/**
+	 * Writes the contents of this map into <code>out</code> using the compact format of version 1.1.2a. Numbers
+	 * are written with a variable length, and strings that are used more than once are replaced by
+	 * references into <code>table</code>. Maps that are stored in this map share the same table.
+	 * @param out the stream to write into
+	 * @param table the strings that were already written into <code>out</code>
+	 * @throws IOException in case of an I/O error
+	 */
+	private void write( DataOutputStream out, StringTable table ) throws IOException{
+		writeCompact( out, zigzag( version ) );
+		table.write( out, format.toString() );
+		
+		writeCompact( out, data.size() );
+		for( Map.Entry<Key, Values> entry : data.entrySet() ){
+			((PlaceholderKey)entry.getKey()).write( out, table );
+			Values values = entry.getValue();
+			writeCompact( out, values.size );
+			for( int i = 0; i < values.size; i++ ){
+				table.write( out, values.names[i] );
+				byte type = values.types[i];
+				switch( type ){
+					case TYPE_INT:
+						out.writeByte( type );
+						writeCompact( out, zigzag( (int)values.primitives[i] ));
+						break;
+					case TYPE_LONG:
+						out.writeByte( type );
+						writeCompact( out, zigzag( values.primitives[i] ));
+						break;
+					case TYPE_DOUBLE:
+						out.writeByte( type );
+						out.writeLong( values.primitives[i] );
+						break;
+					case TYPE_BOOLEAN:
+						out.writeByte( type );
+						out.writeBoolean( values.primitives[i] != 0 );
+						break;
+					default:
+						write( values.objects[i], out, table );
+				}
+			}
+		}
+	}
+	
+	private void write( Object value, DataOutputStream out, StringTable table ) throws IOException{
+		if( value instanceof String ){
+			out.writeByte( TYPE_STRING );
+			table.write( out, (String)value );
+		}
+		else if( value instanceof Integer ){
+			out.writeByte( TYPE_INT );
+			writeCompact( out, zigzag( (Integer)value ));
+		}
+		else if( value instanceof Long ){
+			out.writeByte( TYPE_LONG );
+			writeCompact( out, zigzag( (Long)value ));
+		}
+		else if( value instanceof Double ){
+			out.writeByte( TYPE_DOUBLE );
+			out.writeLong( Double.doubleToLongBits( (Double)value ));
+		}
+		else if( value instanceof Boolean ){
+			out.writeByte( TYPE_BOOLEAN );
+			out.writeBoolean( (Boolean)value );
+		}
+		else if( value instanceof PlaceholderMap ){
+			out.writeByte( TYPE_MAP );
+			((PlaceholderMap)value).write( out, table );
+		}
+		else if( value instanceof Object[] ){
+			out.writeByte( TYPE_ARRAY );
+			Object[] array = (Object[])value;
+			writeCompact( out, array.length );
+			for( Object item : array ){
+				write( item, out, table );
+			}
+		}
+		else if( value instanceof Path ){
+			out.writeByte( TYPE_PATH );
+			table.write( out, ((Path)value).toString() );
+		}
+		else{
+			throw new IOException( "unknown type: " + value.getClass() );
+		}
+	}
+	
+	/**
+	 * Reads the content of this map, the content must have been written by {@link #write(DataOutputStream, StringTable)}.
+	 * @param in the stream to read from
+	 * @param strategy guard to identify the placeholders which are allowed to be stored, can be <code>null</code>
+	 * @param table the strings that were already read from <code>in</code>
+	 * @throws IOException in case of an I/O error
+	 */
+	private void readContent( DataInputStream in, PlaceholderStrategy strategy, StringTable table ) throws IOException{
+		version = unzigzag( readCompact( in ) );
+		format = table.readPath( in );
+		
+		int size = readCompact( in );
+		for( int i = 0; i < size; i++ ){
+			PlaceholderKey key = new PlaceholderKey( in, table );
+			key = key.shrink( strategy );
+			
+			Values values = key == null ? null : modify( key );
+			int length = readCompact( in );
+			for( int j = 0; j < length; j++ ){
+				String subkey = table.read( in );
+				Object value = read( in, strategy, table );
+				if( values != null ){
+					values.put( subkey, value );
+				}
+			}
+		}
+	}
+	
+	private Object read( DataInputStream in, PlaceholderStrategy strategy, StringTable table ) throws IOException{
+		byte kind = in.readByte();
+		switch( kind ){
+			case TYPE_STRING: return table.read( in );
+			case TYPE_INT: return unzigzag( readCompact( in ) );
+			case TYPE_LONG: return unzigzag( readCompactLong( in ) );
+			case TYPE_DOUBLE: return Double.longBitsToDouble( in.readLong() );
+			case TYPE_BOOLEAN: return in.readBoolean();
+			case TYPE_MAP: return new PlaceholderMap( in, strategy, table );
+			case TYPE_ARRAY:
+				int length = readCompact( in );
+				Object[] result = new Object[length];
+				for( int i = 0; i < length; i++ ){
+					result[i] = read( in, strategy, table );
+				}
+				return result;
+			case TYPE_PATH: return table.readPath( in );
+		}
+		throw new IOException( "illegal format" );
+	}
+	
 	private Object read( DataInputStream in, PlaceholderStrategy strategy ) throws IOException{
 		byte kind = in.readByte();
 		switch( kind ){
-			case 0: return in.readUTF();
-			case 1: return in.readInt();
-			case 2: return in.readLong();
-			case 3: return in.readDouble();
-			case 4: return in.readBoolean();
-			case 5: return new PlaceholderMap( in, strategy );
-			case 6:
+			case TYPE_STRING: return in.readUTF();
+			case TYPE_INT: return in.readInt();
+			case TYPE_LONG: return in.readLong();
+			case TYPE_DOUBLE: return in.readDouble();
+			case TYPE_BOOLEAN: return in.readBoolean();
+			case TYPE_MAP: return new PlaceholderMap( in, strategy );
+			case TYPE_ARRAY:
 				int length = in.readInt();
 				Object[] result = new Object[length];
 				for( int i = 0; i < length; i++ ){
 					result[i] = read( in, strategy );
 				}
 				return result;
-			case 7: return new Path( in.readUTF() );
+			case TYPE_PATH: return intern( new Path( in.readUTF() ) );
+		}
+		throw new IOException( "illegal format" );
+	}
+	
+	private static int zigzag( int value ){
+		return (value << 1) ^ (value >> 31);
+	}
+	
+	private static long zigzag( long value ){
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	private static int unzigzag( int value ){
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	private static long unzigzag( long value ){
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	/**
+	 * Writes <code>value</code> using 7 bits per byte, small values require only one byte.
+	 * @param out the stream to write into
+	 * @param value the value to write, is treated as unsigned value
+	 * @throws IOException in case of an I/O error
+	 */
+	private static void writeCompact( DataOutputStream out, int value ) throws IOException{
+		while( (value & ~0x7F) != 0 ){
+			out.writeByte( (value & 0x7F) | 0x80 );
+			value >>>= 7;
+		}
+		out.writeByte( value );
+	}
+	
+	private static void writeCompact( DataOutputStream out, long value ) throws IOException{
+		while( (value & ~0x7FL) != 0 ){
+			out.writeByte( (int)(value & 0x7F) | 0x80 );
+			value >>>= 7;
+		}
+		out.writeByte( (int)value );
+	}
+	
+	/**
+	 * Reads a value that was written by {@link #writeCompact(DataOutputStream, int)}.
+	 * @param in the stream to read from
+	 * @return the value that was read
+	 * @throws IOException in case of an I/O error
+	 */
+	private static int readCompact( DataInputStream in ) throws IOException{
+		int result = 0;
+		for( int shift = 0; shift < 32; shift += 7 ){
+			int next = in.readUnsignedByte();
+			result |= (next & 0x7F) << shift;
+			if( (next & 0x80) == 0 ){
+				return result;
+			}
+		}
+		throw new IOException( "illegal format" );
+	}
+	
+	private static long readCompactLong( DataInputStream in ) throws IOException{
+		long result = 0;
+		for( int shift = 0; shift < 64; shift += 7 ){
+			int next = in.readUnsignedByte();
+			result |= (long)(next & 0x7F) << shift;
+			if( (next & 0x80) == 0 ){
+				return result;
+			}
 		}
 		throw new IOException( "illegal format" );
 	}
@@ -264,14 +558,14 @@ public class PlaceholderMap {
 		out.addElement( "version" ).setInt( version );
 		out.addElement( "format" ).setString( format.toString() );
 		
-		for( Map.Entry<Key, Map<String, Object>> entry : data.entrySet() ){
+		for( Map.Entry<Key, Values> entry : data.entrySet() ){
 			XElement xplaceholder = out.addElement( "entry" );
 			((PlaceholderKey)entry.getKey()).write( xplaceholder.addElement( "key" ) );
-			Map<String, Object> map = entry.getValue();
-			for( Map.Entry<String, Object> mapEntry : map.entrySet() ){
+			Values values = entry.getValue();
+			for( int i = 0; i < values.size; i++ ){
 				XElement xitem = xplaceholder.addElement( "item" );
-				xitem.addString( "key", mapEntry.getKey() );
-				write( mapEntry.getValue(), xitem );
+				xitem.addString( "key", values.names[i] );
+				write( values.get( i ), xitem );
 			}
 		}
 	}
@@ -316,7 +610,7 @@ public class PlaceholderMap {
 			throw new XException( "unknown type: " + value.getClass() );
 		}
 	}
-
+	
 	private Object read( XElement in, PlaceholderStrategy strategy ){
 		String type = in.getString( "type" );
 		if( "s".equals( type )){
@@ -346,7 +640,7 @@ public class PlaceholderMap {
 			return result;
 		}
 		if( "t".equals( type )){
-			return new Path( in.getString() );
+			return intern( new Path( in.getString() ) );
 		}
 		else{
 			throw new XException( "unknown type: " + type );
@@ -354,19 +648,16 @@ public class PlaceholderMap {
 	}
 	
 	/**
-	 * Creates a deep copy of this map.
+	 * Creates a deep copy of this map. The values of the copy which are neither {@link PlaceholderMap}s nor
+	 * arrays are shared with this map until either map modifies them.
 	 * @return the copy, not <code>null</code>
 	 */
 	public PlaceholderMap copy(){
 		PlaceholderMap result = new PlaceholderMap( format, version );
 		
-		for( Map.Entry<Key, Map<String, Object>> entry : data.entrySet() ){
+		for( Map.Entry<Key, Values> entry : data.entrySet() ){
 			Key newKey = result.copyKey( entry.getKey() );
-			result.add( newKey );
-			Map<String, Object> map = result.data.get( newKey );
-			for( Map.Entry<String, Object> valueEntry : entry.getValue().entrySet() ){
-				map.put( valueEntry.getKey(), copy( valueEntry.getValue() ) );
-			}
+			result.data.put( newKey, entry.getValue().share() );
 		}
 		
 		return result;
@@ -388,23 +679,8 @@ public class PlaceholderMap {
 		return copy;
 	}
 	
-	private Object copy( Object value ){
-		if( value instanceof String ){
-			return value;
-		}
-		else if( value instanceof Integer ){
-			return value;
-		}
-		else if( value instanceof Long ){
-			return value;
-		}
-		else if( value instanceof Double ){
-			return value;
-		}
-		else if( value instanceof Boolean ){
-			return value;
-		}
-		else if( value instanceof PlaceholderMap ){
+	private static Object copy( Object value ){
+		if( value instanceof PlaceholderMap ){
 			return ((PlaceholderMap)value).copy();
 		}
 		else if( value instanceof Object[] ){
@@ -416,10 +692,10 @@ public class PlaceholderMap {
 			return copy;
 		}
 		else{
-			throw new IllegalArgumentException( "unknown type: " + value.getClass() );
+			return value;
 		}
 	}
-	
+
 	/**
 	 * Creates a new shared key for any set of placeholders. The new key will be 
 	 * equal to any key that is generated by this method using the same arguments.
@@ -486,9 +762,11 @@ public class PlaceholderMap {
 			this.strategy.removeListener( listener );
 		}
 		this.strategy = strategy;
-		for( Map<?, Object> map : data.values() ){
-			for( Object value : map.values() ){
-				setPlaceholderStrategy( value, strategy );
+		for( Values values : data.values() ){
+			if( values.nested ){
+				for( int i = 0; i < values.size; i++ ){
+					setPlaceholderStrategy( values.objects[i], strategy );
+				}
 			}
 		}
 		if( this.strategy != null ){
@@ -529,9 +807,11 @@ public class PlaceholderMap {
 		}
 		
 		if( recursive ){
-			for( Map<?, Object> map : data.values() ){
-				for( Object value : map.values() ){
-					validate( value, strategy );
+			for( Values values : data.values() ){
+				if( values.nested ){
+					for( int i = 0; i < values.size; i++ ){
+						validate( values.objects[i], strategy );
+					}
 				}
 			}
 		}
@@ -540,9 +820,9 @@ public class PlaceholderMap {
 		for( Key key : keys ){
 			Key replacement = ((PlaceholderKey)key).shrink( strategy );
 			if( replacement != key ){
-				Map<String, Object> map = data.remove( key );
+				Values values = data.remove( key );
 				if( replacement != null ){
-					data.put( replacement, map );
+					data.put( replacement, values );
 				}
 			}
 		}
@@ -583,9 +863,11 @@ public class PlaceholderMap {
 		}
 		
 		if( recursive ){
-			for( Map<?, Object> map : data.values() ){
-				for( Object value : map.values() ){
-					removeAll( value, placeholders );
+			for( Values values : data.values() ){
+				if( values.nested ){
+					for( int i = 0; i < values.size; i++ ){
+						removeAll( values.objects[i], placeholders );
+					}
 				}
 			}
 		}
@@ -594,9 +876,9 @@ public class PlaceholderMap {
 		for( Key key : keys ){
 			Key replacement = ((PlaceholderKey)key).shrink( placeholders );
 			if( replacement != key ){
-				Map<String, Object> map = data.remove( key );
+				Values values = data.remove( key );
 				if( replacement != null ){
-					data.put( replacement, map );
+					data.put( replacement, values );
 				}
 			}
 		}
@@ -638,13 +920,33 @@ public class PlaceholderMap {
 		if( placeholder == null ){
 			throw new IllegalArgumentException( "placeholder must not be null" );
 		}
-		Map<String, Object> map = data.get( placeholder );
-		if( map == null ){
-			map = new LinkedHashMap<String, Object>();
-			data.put( placeholder, map );
+		if( !data.containsKey( placeholder )){
+			data.put( placeholder, new Values() );
 		}
 	}
 	
+	/**
+	 * Gets the values that are associated with <code>placeholder</code> and that can be modified
+	 * by this map. If the values are shared with another map, then they are copied first.
+	 * @param placeholder the placeholder whose values are searched, will be {@link #add(Key) added} if missing
+	 * @return the values, not <code>null</code>
+	 */
+	private Values modify( Key placeholder ){
+		if( placeholder == null ){
+			throw new IllegalArgumentException( "placeholder must not be null" );
+		}
+		Values values = data.get( placeholder );
+		if( values == null ){
+			values = new Values();
+			data.put( placeholder, values );
+		}
+		else if( values.shared ){
+			values = values.duplicate();
+			data.put( placeholder, values );
+		}
+		return values;
+	}
+	
 	/**
 	 * Removes <code>placeholder</code> and all information that is associated with
 	 * <code>placeholder</code> from this map.
@@ -672,12 +974,11 @@ public class PlaceholderMap {
 	 * known to this map
 	 */
 	public String[] getKeys( Key placeholder ){
-		Map<String,Object> map = data.get( placeholder );
-		if( map == null ){
+		Values values = data.get( placeholder );
+		if( values == null ){
 			return null;
 		}
-		Set<String> set = map.keySet();
-		return set.toArray( new String[ set.size() ] );
+		return Arrays.copyOf( values.names, values.size );
 	}
 	
 	/**
@@ -721,7 +1022,7 @@ public class PlaceholderMap {
 	 * @param value the new value
 	 */
 	public void putInt( Key placeholder, String key, int value ){
-		put( placeholder, key, Integer.valueOf( value ) );
+		modify( placeholder ).put( key, TYPE_INT, value );
 	}
 	
 	/**
@@ -733,7 +1034,7 @@ public class PlaceholderMap {
 	 * @param value the new value
 	 */
 	public void putLong( Key placeholder, String key, long value ){
-		put( placeholder, key, Long.valueOf( value ) );
+		modify( placeholder ).put( key, TYPE_LONG, value );
 	}
 	
 	/**
@@ -745,7 +1046,7 @@ public class PlaceholderMap {
 	 * @param value the new value
 	 */
 	public void putBoolean( Key placeholder, String key, boolean value ){
-		put( placeholder, key, Boolean.valueOf( value ) );
+		modify( placeholder ).put( key, TYPE_BOOLEAN, value ? 1 : 0 );
 	}
 	
 	/**
@@ -757,7 +1058,7 @@ public class PlaceholderMap {
 	 * @param value the new value
 	 */
 	public void putDouble( Key placeholder, String key, double value ){
-		put( placeholder, key, Double.valueOf( value ) );
+		modify( placeholder ).put( key, TYPE_DOUBLE, Double.doubleToLongBits( value ) );
 	}
 	
 	/**
@@ -801,8 +1102,7 @@ public class PlaceholderMap {
 		Object invalid = invalidType( value );
 		
 		if( invalid == null ){
-			add( placeholder );
-			data.get( placeholder ).put( key, value );
+			modify( placeholder ).put( key, value );
 		}
 		else{
 			throw new IllegalArgumentException( "value of illegal type: " + (invalid instanceof String ? invalid : invalid.getClass() ));
@@ -842,11 +1142,11 @@ public class PlaceholderMap {
 	 * @return the data that was removed, may be <code>null</code>
 	 */
 	public Object remove( Key placeholder, String key ){
-		Map<String, Object> map = data.get( placeholder );
-		if( map == null ){
+		Values values = data.get( placeholder );
+		if( values == null || values.indexOf( key ) == -1 ){
 			return null;
 		}
-		return map.remove( key );
+		return modify( placeholder ).remove( key );
 	}
 	
 	/**
@@ -856,7 +1156,8 @@ public class PlaceholderMap {
 	 * @return <code>true</code> if there is some data stored
 	 */
 	public boolean contains( Key placeholder, String key ){
-		return get( placeholder, key ) != null;
+		Values values = data.get( placeholder );
+		return values != null && values.indexOf( key ) != -1;
 	}
 	
 	/**
@@ -901,9 +1202,10 @@ public class PlaceholderMap {
 	 * @throws IllegalArgumentException if either the value is of the wrong type or missing
 	 */
 	public int getInt( Key placeholder, String key ){
-		Object data = get( placeholder, key );
-		if( data instanceof Integer ){
-			return (Integer)data;
+		Values values = data.get( placeholder );
+		int index = values == null ? -1 : values.indexOf( key );
+		if( index != -1 && values.types[index] == TYPE_INT ){
+			return (int)values.primitives[index];
 		}
 		else{
 			throw new IllegalArgumentException();
@@ -918,9 +1220,10 @@ public class PlaceholderMap {
 	 * @throws IllegalArgumentException if either the value is of the wrong type or missing
 	 */
 	public long getLong( Key placeholder, String key ){
-		Object data = get( placeholder, key );
-		if( data instanceof Long ){
-			return (Long)data;
+		Values values = data.get( placeholder );
+		int index = values == null ? -1 : values.indexOf( key );
+		if( index != -1 && values.types[index] == TYPE_LONG ){
+			return values.primitives[index];
 		}
 		else{
 			throw new IllegalArgumentException();
@@ -935,9 +1238,10 @@ public class PlaceholderMap {
 	 * @throws IllegalArgumentException if either the value is of the wrong type or missing
 	 */
 	public boolean getBoolean( Key placeholder, String key ){
-		Object data = get( placeholder, key );
-		if( data instanceof Boolean ){
-			return (Boolean)data;
+		Values values = data.get( placeholder );
+		int index = values == null ? -1 : values.indexOf( key );
+		if( index != -1 && values.types[index] == TYPE_BOOLEAN ){
+			return values.primitives[index] != 0;
 		}
 		else{
 			throw new IllegalArgumentException();
@@ -952,9 +1256,10 @@ public class PlaceholderMap {
 	 * @throws IllegalArgumentException if either the value is of the wrong type or missing
 	 */
 	public double getDouble( Key placeholder, String key ){
-		Object data = get( placeholder, key );
-		if( data instanceof Double ){
-			return (Double)data;
+		Values values = data.get( placeholder );
+		int index = values == null ? -1 : values.indexOf( key );
+		if( index != -1 && values.types[index] == TYPE_DOUBLE ){
+			return Double.longBitsToDouble( values.primitives[index] );
 		}
 		else{
 			throw new IllegalArgumentException();
@@ -1002,11 +1307,15 @@ public class PlaceholderMap {
 	 * @return the data, may be <code>null</code>
 	 */
 	public Object get( Key placeholder, String key ){
-		Map<String, Object> map = data.get( placeholder );
-		if( map == null ){
+		Values values = data.get( placeholder );
+		if( values == null ){
 			return null;
 		}
-		return map.get( key );
+		int index = values.indexOf( key );
+		if( index == -1 ){
+			return null;
+		}
+		return values.get( index );
 	}
 	
 	@Override
@@ -1094,7 +1403,20 @@ public class PlaceholderMap {
 			
 			placeholders = new Path[ in.readInt() ];
 			for( int i = 0; i < placeholders.length; i++ ){
-				placeholders[i] = new Path( in.readUTF() );
+				placeholders[i] = intern( new Path( in.readUTF() ) );
+			}
+		}
+		
+		public PlaceholderKey( DataInputStream in, StringTable table ) throws IOException{
+			int flags = in.readByte();
+			shared = (flags & 1) != 0;
+			if( (flags & 2) != 0 ){
+				anchor = table.read( in );
+			}
+			
+			placeholders = new Path[ readCompact( in ) ];
+			for( int i = 0; i < placeholders.length; i++ ){
+				placeholders[i] = table.readPath( in );
 			}
 		}
 		
@@ -1109,7 +1431,7 @@ public class PlaceholderMap {
 			XElement[] xplaceholders = in.getElements( "placeholder" );
 			placeholders = new Path[ xplaceholders.length ];
 			for( int i = 0; i < xplaceholders.length; i++ ){
-				placeholders[i] = new Path( xplaceholders[i].getString() );
+				placeholders[i] = intern( new Path( xplaceholders[i].getString() ) );
 			}
 		}
 		
@@ -1130,6 +1452,18 @@ public class PlaceholderMap {
 			}
 		}
 		
+		public void write( DataOutputStream out, StringTable table ) throws IOException{
+			out.writeByte( (shared ? 1 : 0) | (anchor != null ? 2 : 0) );
+			if( anchor != null ){
+				table.write( out, anchor );
+			}
+			
+			writeCompact( out, placeholders.length );
+			for( Path path : placeholders ){
+				table.write( out, path.toString() );
+			}
+		}
+		
 		public void write( XElement out ){
 			out.addBoolean( "shared", shared );
 			
@@ -1291,4 +1625,281 @@ public class PlaceholderMap {
 			return Arrays.equals( placeholders, that.placeholders );
 		}
 	}
+	
+	/**
+	 * The values that are associated with one {@link Key}. The values are stored in parallel arrays, primitive
+	 * values are stored as bits in a <code>long</code>. Values which contain neither {@link PlaceholderMap}s nor arrays
+	 * can be shared by several maps, shared values must be {@link #duplicate() duplicated} before modifying them.
+	 * @author Benjamin Sigg
+	 */
+	private static class Values{
+		/** the interned names of the values */
+		private String[] names = new String[ 2 ];
+		/** the type of each value */
+		private byte[] types = new byte[ 2 ];
+		/** all the values that are not primitive */
+		private Object[] objects = new Object[ 2 ];
+		/** all the primitive values, <code>null</code> until the first primitive value is stored */
+		private long[] primitives;
+		/** the number of values */
+		private int size;
+		/** whether {@link #objects} contains a {@link PlaceholderMap} or an array */
+		private boolean nested;
+		/** whether this object is used by more than one {@link PlaceholderMap} */
+		private boolean shared;
+		
+		/**
+		 * Gets the index of the value called <code>name</code>.
+		 * @param name the name of the value
+		 * @return the index or -1 if not found
+		 */
+		public int indexOf( String name ){
+			for( int i = 0; i < size; i++ ){
+				String next = names[i];
+				if( next == name || (next != null && next.equals( name ))){
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Gets the value at <code>index</code>, primitive values are boxed.
+		 * @param index the index of the value
+		 * @return the value
+		 */
+		public Object get( int index ){
+			switch( types[index] ){
+				case TYPE_INT: return Integer.valueOf( (int)primitives[index] );
+				case TYPE_LONG: return Long.valueOf( primitives[index] );
+				case TYPE_DOUBLE: return Double.valueOf( Double.longBitsToDouble( primitives[index] ));
+				case TYPE_BOOLEAN: return Boolean.valueOf( primitives[index] != 0 );
+				default: return objects[index];
+			}
+		}
+		
+		/**
+		 * Stores a value, boxed primitives are unboxed.
+		 * @param name the name of the value
+		 * @param value the new value
+		 */
+		public void put( String name, Object value ){
+			if( value instanceof Integer ){
+				put( name, TYPE_INT, (Integer)value );
+			}
+			else if( value instanceof Long ){
+				put( name, TYPE_LONG, (Long)value );
+			}
+			else if( value instanceof Double ){
+				put( name, TYPE_DOUBLE, Double.doubleToLongBits( (Double)value ));
+			}
+			else if( value instanceof Boolean ){
+				put( name, TYPE_BOOLEAN, ((Boolean)value).booleanValue() ? 1 : 0 );
+			}
+			else{
+				int index = slot( name );
+				if( value instanceof String ){
+					types[index] = TYPE_STRING;
+				}
+				else if( value instanceof Path ){
+					types[index] = TYPE_PATH;
+				}
+				else if( value instanceof PlaceholderMap ){
+					types[index] = TYPE_MAP;
+					nested = true;
+				}
+				else if( value instanceof Object[] ){
+					types[index] = TYPE_ARRAY;
+					nested = true;
+				}
+				else{
+					types[index] = TYPE_UNKNOWN;
+				}
+				objects[index] = value;
+			}
+		}
+		
+		/**
+		 * Stores a primitive value.
+		 * @param name the name of the value
+		 * @param type the type of the value
+		 * @param bits the value
+		 */
+		public void put( String name, byte type, long bits ){
+			int index = slot( name );
+			if( primitives == null ){
+				primitives = new long[ names.length ];
+			}
+			types[index] = type;
+			objects[index] = null;
+			primitives[index] = bits;
+		}
+		
+		/**
+		 * Gets the index of <code>name</code>, adds <code>name</code> if necessary.
+		 * @param name the name of some value
+		 * @return the index of the value
+		 */
+		private int slot( String name ){
+			int index = indexOf( name );
+			if( index == -1 ){
+				if( size == names.length ){
+					int capacity = size * 2;
+					names = Arrays.copyOf( names, capacity );
+					types = Arrays.copyOf( types, capacity );
+					objects = Arrays.copyOf( objects, capacity );
+					if( primitives != null ){
+						primitives = Arrays.copyOf( primitives, capacity );
+					}
+				}
+				index = size++;
+				names[index] = name == null ? null : name.intern();
+			}
+			return index;
+		}
+		
+		/**
+		 * Removes the value called <code>name</code>.
+		 * @param name the name of the value
+		 * @return the removed value, primitives are boxed, <code>null</code> if not found
+		 */
+		public Object remove( String name ){
+			int index = indexOf( name );
+			if( index == -1 ){
+				return null;
+			}
+			Object result = get( index );
+			int moved = size - index - 1;
+			System.arraycopy( names, index+1, names, index, moved );
+			System.arraycopy( types, index+1, types, index, moved );
+			System.arraycopy( objects, index+1, objects, index, moved );
+			if( primitives != null ){
+				System.arraycopy( primitives, index+1, primitives, index, moved );
+			}
+			size--;
+			names[size] = null;
+			objects[size] = null;
+			return result;
+		}
+		
+		/**
+		 * Gets a copy of this object that can be stored in another {@link PlaceholderMap}.
+		 * @return either <code>this</code> if this object can be shared or a new object
+		 */
+		public Values share(){
+			if( nested ){
+				return duplicate();
+			}
+			shared = true;
+			return this;
+		}
+		
+		/**
+		 * Creates a deep copy of this object.
+		 * @return the copy, not shared
+		 */
+		public Values duplicate(){
+			Values result = new Values();
+			int capacity = Math.max( 2, size );
+			result.names = Arrays.copyOf( names, capacity );
+			result.types = Arrays.copyOf( types, capacity );
+			result.objects = Arrays.copyOf( objects, capacity );
+			if( primitives != null ){
+				result.primitives = Arrays.copyOf( primitives, capacity );
+			}
+			result.size = size;
+			result.nested = nested;
+			if( nested ){
+				for( int i = 0; i < size; i++ ){
+					result.objects[i] = copy( objects[i] );
+				}
+			}
+			return result;
+		}
+		
+		@Override
+		public String toString(){
+			StringBuilder builder = new StringBuilder();
+			builder.append( "{" );
+			for( int i = 0; i < size; i++ ){
+				if( i > 0 ){
+					builder.append( ", " );
+				}
+				builder.append( names[i] ).append( "=" ).append( get( i ) );
+			}
+			builder.append( "}" );
+			return builder.toString();
+		}
+	}
+	
+	/**
+	 * The strings that were written into or read from a stream. Strings that are used more than
+	 * once are written only once, afterwards they are replaced by their index.
+	 * @author Benjamin Sigg
+	 */
+	private static class StringTable{
+		/** the index of each string that was written */
+		private Map<String, Integer> indices = new HashMap<String, Integer>();
+		/** all the strings that were read */
+		private List<String> strings = new ArrayList<String>();
+		/** the strings of {@link #strings} that were converted into {@link Path}s */
+		private List<Path> paths = new ArrayList<Path>();
+		
+		/**
+		 * Writes either <code>value</code> or a reference to <code>value</code> into <code>out</code>.
+		 * @param out the stream to write into
+		 * @param value the string to write
+		 * @throws IOException in case of an I/O error
+		 */
+		public void write( DataOutputStream out, String value ) throws IOException{
+			Integer index = indices.get( value );
+			if( index == null ){
+				writeCompact( out, 0 );
+				out.writeUTF( value );
+				indices.put( value, indices.size() );
+			}
+			else{
+				writeCompact( out, index.intValue() + 1 );
+			}
+		}
+		
+		/**
+		 * Reads a string that was written by {@link #write(DataOutputStream, String)}.
+		 * @param in the stream to read from
+		 * @return the string
+		 * @throws IOException in case of an I/O error
+		 */
+		public String read( DataInputStream in ) throws IOException{
+			return strings.get( readIndex( in ) );
+		}
+		
+		/**
+		 * Reads a {@link Path} that was written by {@link #write(DataOutputStream, String)}.
+		 * @param in the stream to read from
+		 * @return the path, an interned object
+		 * @throws IOException in case of an I/O error
+		 */
+		public Path readPath( DataInputStream in ) throws IOException{
+			int index = readIndex( in );
+			Path path = paths.get( index );
+			if( path == null ){
+				path = intern( new Path( strings.get( index ) ) );
+				paths.set( index, path );
+			}
+			return path;
+		}
+		
+		private int readIndex( DataInputStream in ) throws IOException{
+			int reference = readCompact( in );
+			if( reference == 0 ){
+				strings.add( in.readUTF() );
+				paths.add( null );
+				return strings.size() - 1;
+			}
+			if( reference < 0 || reference > strings.size() ){
+				throw new IOException( "illegal format" );
+			}
+			return reference - 1;
+		}
+	}
 }
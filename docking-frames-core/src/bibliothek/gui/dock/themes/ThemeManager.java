@@ -264,6 +264,7 @@ public class ThemeManager extends TypedUIProperties{
     		Dockable focused = null;
     		try{
     			register.setStalled( true );
+    			lockResources();
     			focused = controller.getFocusedDockable();
     			
 	    		if( this.theme != null )
@@ -286,6 +287,7 @@ public class ThemeManager extends TypedUIProperties{
 	    		}
     		}
     		finally{
+    			unlockResources();
     			register.setStalled( false );
     		}
 	    		
@@ -296,6 +298,25 @@ public class ThemeManager extends TypedUIProperties{
     	}
 	}
     
+    /**
+     * Stalls updates of colors, fonts, icons and texts while the theme is exchanged. Once
+     * the updates are released only the values that really changed are distributed. Themes
+     * must change these resources only through the methods of their managers.
+     */
+    private void lockResources(){
+    	controller.getColors().lockUpdate();
+    	controller.getFonts().lockUpdate();
+    	controller.getIcons().lockUpdate();
+    	controller.getTexts().lockUpdate();
+    }
+    
+    private void unlockResources(){
+    	controller.getTexts().unlockUpdate( true );
+    	controller.getIcons().unlockUpdate( true );
+    	controller.getFonts().unlockUpdate( true );
+    	controller.getColors().unlockUpdate( true );
+    }
+    
     /**
      * Sets an algorithm to paint in the overlay panel of {@link DockStation}s. Possible
      * identifiers can be, but are not restricted to:
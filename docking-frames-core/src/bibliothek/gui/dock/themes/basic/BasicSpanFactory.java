@@ -25,29 +25,24 @@
  */
 package bibliothek.gui.dock.themes.basic;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 
-import javax.swing.Timer;
-
+import bibliothek.gui.DockStation;
 import bibliothek.gui.dock.station.span.Span;
 import bibliothek.gui.dock.station.span.SpanCallback;
 import bibliothek.gui.dock.station.span.SpanFactory;
 import bibliothek.gui.dock.station.span.SpanMode;
+import bibliothek.gui.dock.util.AnimationClock;
 
 /**
- * The {@link BasicSpanFactory} uses a small animation to expand and to shrink its {@link Span}s.
+ * The {@link BasicSpanFactory} uses a small animation to expand and to shrink its {@link Span}s. The
+ * animations are driven by the {@link AnimationClock} of the {@link DockStation} that uses a {@link Span}.
  * @author Benjamin Sigg
  */
 public class BasicSpanFactory implements SpanFactory{
 	private int duration;
 	private int minSpeed;
-	private Timer timer;
-	private Collection<BasicSpan> ticking = new HashSet<BasicSpan>(); 
 	
 	/**
 	 * Creates a new factory
@@ -57,15 +52,6 @@ public class BasicSpanFactory implements SpanFactory{
 	public BasicSpanFactory( int duration, int minSpeed ){
 		setDuration( duration );
 		setMinSpeed( minSpeed );
-		timer = new Timer( 0, new ActionListener(){
-			public void actionPerformed( ActionEvent e ){
-				tick();
-			}
-		} );
-		timer.setRepeats( true );
-		timer.setCoalesce( true );
-		timer.setDelay( 20 );
-		timer.setInitialDelay( 0 );
 	}
 	
 	/**
@@ -102,32 +88,24 @@ public class BasicSpanFactory implements SpanFactory{
 		return new BasicSpan( callback );
 	}
 	
-	private synchronized void start( BasicSpan span ){
-		if( ticking.isEmpty() ){
-			ticking.add( span );
-			timer.start();
-		}
-		else{
-			ticking.add( span );
-		}
-	}
-	
-	private synchronized void stop( BasicSpan span ){
-		ticking.remove( span );
-		if( ticking.isEmpty() ){
-			timer.stop();
+	private void start( BasicSpan span ){
+		if( span.clock == null ){
+			DockStation station = span.callback.getStation();
+			span.clock = AnimationClock.getClock( station == null ? null : station.getController() );
 		}
+		span.clock.start( span );
 	}
 	
-	private synchronized void tick(){
-		long now = System.nanoTime();
-		for( BasicSpan span : ticking.toArray( new BasicSpan[ ticking.size() ] ) ){
-			span.tick( now );
+	private void stop( BasicSpan span ){
+		if( span.clock != null ){
+			span.clock.stop( span );
+			span.clock = null;
 		}
 	}
 	
-	private class BasicSpan implements Span {
+	private class BasicSpan implements Span, AnimationClock.Animation {
 		private SpanCallback callback;
+		private AnimationClock clock;
 		private Map<SpanMode, Integer> sizes = new HashMap<SpanMode, Integer>( 2 );
 		private SpanMode currentMode;
 		
@@ -182,6 +160,11 @@ public class BasicSpanFactory implements SpanFactory{
 			}
 		}
 		
+		public boolean step( AnimationClock clock, long nanoTime ){
+			tick( nanoTime );
+			return animationDuration != -1;
+		}
+		
 		public void tick( long now ){
 			if( animationStart == -1 ){
 				animationStart = now;
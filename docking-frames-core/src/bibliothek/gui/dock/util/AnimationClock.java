@@ -0,0 +1,308 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.util;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.Timer;
+
+import bibliothek.gui.DockController;
+import bibliothek.gui.dock.util.property.ConstantPropertyFactory;
+
+/**
+ * An {@link AnimationClock} drives many animations using one {@link Timer}. All the animations that
+ * are running make their steps at the same time, and the repaints they request through 
+ * {@link #repaint(Component)} are collected and executed once all the animations made their step.<br>
+ * The clock runs only while at least one animation is active, the clock stops completely if it is idle.
+ * The number of steps per second is limited by the {@link #setFrameRate(int) frame rate}.<br>
+ * Every {@link DockController} has access to a clock through the property {@link #ANIMATION_CLOCK}, by default
+ * all controllers share the clock {@link #getDefault()}. 
+ * @author Benjamin Sigg
+ */
+public class AnimationClock {
+	/** the clock that is used if no other clock is set */
+	private static final AnimationClock DEFAULT = new AnimationClock();
+	
+	/** The {@link AnimationClock} that should be used by the animations of a {@link DockController} */
+	public static final PropertyKey<AnimationClock> ANIMATION_CLOCK = new PropertyKey<AnimationClock>( "dock.animationClock",
+			new ConstantPropertyFactory<AnimationClock>( DEFAULT ), true );
+	
+	/**
+	 * Gets the clock that is shared by all animations which do not have access to another clock.
+	 * @return the default clock, not <code>null</code>
+	 */
+	public static AnimationClock getDefault(){
+		return DEFAULT;
+	}
+	
+	/**
+	 * Gets the clock that should be used by animations that are shown for <code>controller</code>.
+	 * @param controller the controller whose clock is searched, can be <code>null</code>
+	 * @return the clock of <code>controller</code> or {@link #getDefault()} if <code>controller</code> is <code>null</code>
+	 */
+	public static AnimationClock getClock( DockController controller ){
+		if( controller == null ){
+			return DEFAULT;
+		}
+		return controller.getProperties().get( ANIMATION_CLOCK );
+	}
+	
+	/**
+	 * An animation that is driven by an {@link AnimationClock}.
+	 * @author Benjamin Sigg
+	 */
+	public static interface Animation{
+		/**
+		 * Called by <code>clock</code> on the <code>EventDispatchThread</code> when this animation 
+		 * should make another step.
+		 * @param clock the clock which calls this method
+		 * @param nanoTime the time of the current frame, as returned by {@link System#nanoTime()}. All the
+		 * animations that step in the same frame receive the same time
+		 * @return <code>true</code> if this animation is still running, <code>false</code> if it
+		 * is finished and should no longer be called
+		 */
+		public boolean step( AnimationClock clock, long nanoTime );
+	}
+	
+	/** the timer that drives all animations */
+	private Timer timer;
+	
+	/** the maximum number of frames per second */
+	private int frameRate;
+	
+	/** all the animations that are currently running */
+	private Set<Animation> animations = new LinkedHashSet<Animation>();
+	
+	/** whether the clock is currently executing a frame */
+	private boolean ticking = false;
+	
+	/** the animations that were started while the current frame is executed */
+	private Set<Animation> restarted = new HashSet<Animation>();
+	
+	/** the components to repaint once the current frame is finished, the value <code>null</code> means the whole component */
+	private Map<Component, Rectangle> repaints = new LinkedHashMap<Component, Rectangle>();
+	
+	/**
+	 * Creates a new clock running with 50 frames per second.
+	 */
+	public AnimationClock(){
+		this( 50 );
+	}
+	
+	/**
+	 * Creates a new clock.
+	 * @param frameRate the maximum number of frames per second, at least 1
+	 */
+	public AnimationClock( int frameRate ){
+		timer = new Timer( 20, new ActionListener(){
+			public void actionPerformed( ActionEvent e ){
+				tick();
+			}
+		});
+		timer.setCoalesce( true );
+		timer.setRepeats( true );
+		setFrameRate( frameRate );
+	}
+	
+	/**
+	 * Sets the maximum number of frames per second.
+	 * @param frameRate the number of frames per second, at least 1
+	 */
+	public synchronized void setFrameRate( int frameRate ){
+		if( frameRate < 1 ){
+			throw new IllegalArgumentException( "frameRate must be at least 1: " + frameRate );
+		}
+		this.frameRate = frameRate;
+		int delay = Math.max( 1, 1000 / frameRate );
+		timer.setDelay( delay );
+		timer.setInitialDelay( delay );
+	}
+	
+	/**
+	 * Gets the maximum number of frames per second.
+	 * @return the frame rate
+	 */
+	public synchronized int getFrameRate(){
+		return frameRate;
+	}
+	
+	/**
+	 * Gets the time between two frames.
+	 * @return the time in milliseconds
+	 */
+	public synchronized int getFrameDelay(){
+		return timer.getDelay();
+	}
+	
+	/**
+	 * Starts <code>animation</code>. The animation will be called in the next frame, and in every
+	 * following frame until it either returns <code>false</code> or is {@link #stop(Animation) stopped}. Calling
+	 * this method for an animation that is already running has no effect. This method can be called by any thread.
+	 * @param animation the animation to start, not <code>null</code>
+	 */
+	public synchronized void start( Animation animation ){
+		if( animation == null ){
+			throw new IllegalArgumentException( "animation must not be null" );
+		}
+		animations.add( animation );
+		if( ticking ){
+			restarted.add( animation );
+		}
+		if( !timer.isRunning() ){
+			timer.start();
+		}
+	}
+	
+	/**
+	 * Stops <code>animation</code>. The clock stops once no animation is running anymore.
+	 * @param animation the animation to stop
+	 */
+	public synchronized void stop( Animation animation ){
+		animations.remove( animation );
+		if( animations.isEmpty() && !ticking ){
+			timer.stop();
+		}
+	}
+	
+	/**
+	 * Tells whether <code>animation</code> is currently running.
+	 * @param animation some animation
+	 * @return <code>true</code> if <code>animation</code> will be called in the next frame
+	 */
+	public synchronized boolean isRunning( Animation animation ){
+		return animations.contains( animation );
+	}
+	
+	/**
+	 * Tells whether this clock is idle, meaning that no animation is running and no
+	 * {@link Timer} is active.
+	 * @return <code>true</code> if this clock does nothing
+	 */
+	public synchronized boolean isIdle(){
+		return animations.isEmpty() && !timer.isRunning();
+	}
+	
+	/**
+	 * Repaints <code>component</code>. If called by an animation during a frame, then the
+	 * repaint is delayed until all animations made their step. Repaints of the same component
+	 * are merged.
+	 * @param component the component to repaint
+	 */
+	public void repaint( Component component ){
+		if( ticking ){
+			repaints.put( component, null );
+		}
+		else{
+			component.repaint();
+		}
+	}
+	
+	/**
+	 * Repaints a region of <code>component</code>. If called by an animation during a frame, then the
+	 * repaint is delayed until all animations made their step. Repaints of the same component
+	 * are merged into one repaint of the union of their regions.
+	 * @param component the component to repaint
+	 * @param x the x-coordinate of the dirty region
+	 * @param y the y-coordinate of the dirty region
+	 * @param width the width of the dirty region
+	 * @param height the height of the dirty region
+	 */
+	public void repaint( Component component, int x, int y, int width, int height ){
+		if( ticking ){
+			Rectangle region = new Rectangle( x, y, width, height );
+			if( repaints.containsKey( component )){
+				Rectangle old = repaints.get( component );
+				if( old != null ){
+					old.add( region );
+				}
+			}
+			else{
+				repaints.put( component, region );
+			}
+		}
+		else{
+			component.repaint( x, y, width, height );
+		}
+	}
+	
+	/**
+	 * Executes one frame.
+	 */
+	private void tick(){
+		Animation[] current;
+		synchronized( this ){
+			current = animations.toArray( new Animation[ animations.size() ] );
+			ticking = true;
+		}
+		
+		long now = System.nanoTime();
+		try{
+			for( Animation animation : current ){
+				synchronized( this ){
+					// an earlier animation of this frame may have stopped this animation
+					if( !animations.contains( animation )){
+						continue;
+					}
+				}
+				if( !animation.step( this, now )){
+					synchronized( this ){
+						if( !restarted.contains( animation )){
+							animations.remove( animation );
+						}
+					}
+				}
+			}
+		}
+		finally{
+			synchronized( this ){
+				ticking = false;
+				restarted.clear();
+				if( animations.isEmpty() ){
+					timer.stop();
+				}
+			}
+			
+			for( Map.Entry<Component, Rectangle> repaint : repaints.entrySet() ){
+				Rectangle region = repaint.getValue();
+				if( region == null ){
+					repaint.getKey().repaint();
+				}
+				else{
+					repaint.getKey().repaint( region.x, region.y, region.width, region.height );
+				}
+			}
+			repaints.clear();
+		}
+	}
+}
@@ -25,13 +25,15 @@
  */
 package bibliothek.gui.dock.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,14 +52,14 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     /** the map of providers known to this manager */
     private Map<Path, UIPriorityValue<B>> bridges = new HashMap<Path, UIPriorityValue<B>>();
     
-    /** how often some bridges are observed */
-    private Map<Path, Integer> bridgesAccess = new HashMap<Path, Integer>();
+    /** all observers grouped by the path of their bridge, a path is observed as long as it is a key of this map */
+    private Map<Path, Set<Observer>> bridgeObservers = new HashMap<Path, Set<Observer>>();
     
     /** the map of resources that have been set */
     private Map<String, UIPriorityValue<V>> resources = new HashMap<String, UIPriorityValue<V>>();
     
-    /** how often some resources are observed */
-    private Map<String, Integer> resourcesAccess = new HashMap<String, Integer>();
+    /** all observers grouped by the id of their resource, an id is observed as long as it is a key of this map */
+    private Map<String, Set<Observer>> resourceObservers = new HashMap<String, Set<Observer>>();
     
     /** all the backup schemes for missing values (resources and bridges) */
     private PriorityValue<UIScheme<V, U, B>> schemes = new PriorityValue<UIScheme<V,U,B>>();
@@ -66,11 +68,23 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     private PriorityValue<UISchemeListener<V, U, B>> schemeListeners = new PriorityValue<UISchemeListener<V,U,B>>();
     
     /** a list of all observers */
-    private List<Observer> observers = new LinkedList<Observer>();
+    private Set<Observer> observers = new LinkedHashSet<Observer>();
+    
+    /** all observers grouped by their {@link UIValue} */
+    private Map<U, Set<Observer>> valueObservers = new IdentityHashMap<U, Set<Observer>>();
     
     /** whether to stall updates or not */
     private int updateLock = 0;
     
+    /** the ids of the resources that changed while updates were stalled */
+    private Set<String> stalledResources = new HashSet<String>();
+    
+    /** the paths of the bridges that changed while updates were stalled */
+    private Set<Path> stalledBridges = new HashSet<Path>();
+    
+    /** whether state may have changed outside of {@link #stalledResources} and {@link #stalledBridges} */
+    private boolean stalledAll = false;
+    
     /** the owner of this properties map */
     private DockController controller;
     
@@ -99,17 +113,86 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     }
     
     /**
-     * Tells this manager no longer to stall updates. This triggers a full
-     * update on all {@link UIValue}s.
+     * Tells this manager no longer to stall updates. Since the caller may have changed
+     * resources or bridges by other means than the methods of this {@link UIProperties},
+     * all {@link UIValue}s are updated once the last lock is released. This is the
+     * same as calling <code>unlockUpdate( false )</code>.
+     * @see #unlockUpdate(boolean)
      */
     public void unlockUpdate(){
+    	unlockUpdate( false );
+    }
+    
+    /**
+     * Tells this manager no longer to stall updates. Once the last lock is released, either
+     * all {@link UIValue}s are updated, or only those whose resource or bridge changed while
+     * updates were stalled. In the second case a {@link UIValue} is only informed if its
+     * value or bridge really is different from the value or bridge it received the last time.<br>
+     * Only the resources and bridges that were changed through the methods of this {@link UIProperties},
+     * like {@link #put(Priority, String, Object) put}, {@link #publish(Priority, Path, UIBridge) publish}
+     * or {@link #setScheme(Priority, UIScheme) setScheme}, or through the events of an installed
+     * {@link UIScheme}, are tracked. Callers that change any other state, like the internal state of a
+     * {@link UIBridge}, must set <code>tracked</code> to <code>false</code>. If any of the nested locks is
+     * released with <code>tracked = false</code>, then all {@link UIValue}s are updated.
+     * @param tracked whether all the changes made while the lock was held went through the methods of this
+     * {@link UIProperties} or of its {@link UIScheme}s
+     */
+    public void unlockUpdate( boolean tracked ){
+    	if( !tracked ){
+    		stalledAll = true;
+    	}
         updateLock--;
         if( updateLock == 0 ){
-            for( Observer observer : observers )
-                observer.resetAll();
+        	if( stalledAll ){
+        		flushAll();
+        	}
+        	else{
+        		flushStalled();
+        	}
         }
     }
     
+    /**
+     * Updates all the observers regardless of whether their resource or bridge changed.
+     */
+    private void flushAll(){
+    	stalledAll = false;
+    	stalledResources = new HashSet<String>();
+    	stalledBridges = new HashSet<Path>();
+    	
+    	for( Observer observer : observers ){
+    		observer.resetAll();
+    	}
+    }
+    
+    /**
+     * Informs all the observers of {@link #stalledResources} and {@link #stalledBridges} about their
+     * new values.
+     */
+    private void flushStalled(){
+    	if( stalledResources.isEmpty() && stalledBridges.isEmpty() ){
+    		return;
+    	}
+    	
+    	Set<Observer> affected = new LinkedHashSet<Observer>();
+    	for( String id : stalledResources ){
+    		Set<Observer> group = resourceObservers.get( id );
+    		if( group != null ){
+    			affected.addAll( group );
+    		}
+    	}
+    	affected.addAll( getBridgeObservers( stalledBridges ));
+    	
+    	stalledResources = new HashSet<String>();
+    	stalledBridges = new HashSet<Path>();
+    	
+    	for( Observer observer : affected ){
+    		if( observers.contains( observer )){
+    			observer.refresh();
+    		}
+    	}
+    }
+    
     /**
      * Gets the {@link UIScheme} that is used to fill up missing values in
      * the level <code>priority</code>.
@@ -189,22 +272,22 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     }
     
     private void schemeUpdate( Priority priority, UISchemeEvent<V, U, B> event ){
+    	// collect changes
+    	Set<String> usedResources = getAllUsedResources();
+    	Collection<String> changedResources = event.changedResources( usedResources );
+    	if( changedResources == null || changedResources == usedResources ){
+    		changedResources = new ArrayList<String>( usedResources );
+    	}
+
+    	Set<Path> usedBridges = getAllUsedBridges();
+    	Collection<Path> changedBridges = event.changedBridges( usedBridges );
+    	if( changedBridges == null || changedBridges == usedBridges ){
+    		changedBridges = new ArrayList<Path>( usedBridges );
+    	}
+    	
     	try{
     		lockUpdate();
     		
-    		// collect changes
-    		Set<String> usedResources = getAllUsedResources();
-    		Collection<String> changedResources = event.changedResources( usedResources );
-    		if( changedResources == null ){
-    			changedResources = usedResources;
-    		}
-    		
-    		Set<Path> usedBridges = getAllUsedBridges();
-    		Collection<Path> changedBridges = event.changedBridges( usedBridges );
-    		if( changedBridges == null ){
-    			changedBridges = usedBridges;
-    		}
-    		
     		UIScheme<V, U, B> scheme = schemes.get( priority );
     		
     		// resources
@@ -272,26 +355,102 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     		}
     	}
     	finally{
-    		unlockUpdate();
+    		stalledResources.addAll( changedResources );
+    		stalledBridges.addAll( changedBridges );
+    		unlockUpdate( true );
     	}
     }
     
     private Set<String> getAllUsedResources(){
-    	Set<String> result = new HashSet<String>();
-    	for( Observer observer : observers ){
-    		result.add( observer.id );
+    	return Collections.unmodifiableSet( resourceObservers.keySet() );
+    }
+    
+    private Set<Path> getAllUsedBridges(){
+    	return Collections.unmodifiableSet( bridgeObservers.keySet() );
+    }
+    
+    /**
+     * Gets all the observers whose bridge may change if the bridges of any of the paths
+     * <code>paths</code> change. These are the observers whose path is equal to, or a child of,
+     * any path in <code>paths</code>.
+     * @param paths the paths of bridges that changed
+     * @return the observers that need to reset their bridge
+     */
+    private List<Observer> getBridgeObservers( Collection<Path> paths ){
+    	List<Observer> result = new ArrayList<Observer>();
+    	if( paths.isEmpty() ){
+    		return result;
+    	}
+    	
+    	Set<Path> search;
+    	if( paths instanceof Set<?> ){
+    		search = (Set<Path>)paths;
+    	}
+    	else{
+    		search = new HashSet<Path>( paths );
+    	}
+    	
+    	for( Map.Entry<Path, Set<Observer>> entry : bridgeObservers.entrySet() ){
+    		Path path = entry.getKey();
+    		while( path != null ){
+    			if( search.contains( path )){
+    				result.addAll( entry.getValue() );
+    				break;
+    			}
+    			path = path.getParent();
+    		}
     	}
     	return result;
     }
     
-    private Set<Path> getAllUsedBridges(){
-    	Set<Path> result = new HashSet<Path>();
-    	for( Observer observer : observers ){
-    		result.add( observer.path );
+    /**
+     * Gets all the observers whose bridge may change if the bridge of <code>path</code> changes.
+     * @param path the path of the bridge that changed
+     * @return the observers that need to reset their bridge
+     */
+    private List<Observer> getBridgeObservers( Path path ){
+    	List<Observer> result = new ArrayList<Observer>();
+    	for( Map.Entry<Path, Set<Observer>> entry : bridgeObservers.entrySet() ){
+    		if( entry.getKey().startsWith( path )){
+    			result.addAll( entry.getValue() );
+    		}
     	}
     	return result;
     }
     
+    private List<Observer> copy( Collection<Observer> observers ){
+    	return new ArrayList<Observer>( observers );
+    }
+    
+    private <K> void index( Map<K, Set<Observer>> map, K key, Observer observer ){
+    	Set<Observer> group = map.get( key );
+    	if( group == null ){
+    		group = new LinkedHashSet<Observer>();
+    		map.put( key, group );
+    	}
+    	group.add( observer );
+    }
+    
+    /**
+     * Removes <code>observer</code> from the group <code>key</code> of <code>map</code>.
+     * @param map the index to modify
+     * @param key the group of <code>observer</code>
+     * @param observer the observer to remove
+     * @return <code>true</code> if the group <code>key</code> is now empty and was removed
+     */
+    private <K> boolean unindex( Map<K, Set<Observer>> map, K key, Observer observer ){
+    	Set<Observer> group = map.get( key );
+    	if( group == null ){
+    		return false;
+    	}
+    	group.remove( observer );
+    	if( group.isEmpty() ){
+    		map.remove( key );
+    		return true;
+    	}
+    	return false;
+    }
+    
     /**
      * Adds a new bridge between this {@link UIProperties} and a set of
      * {@link UIValue}s that have a certain type.
@@ -315,10 +474,13 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
         
         if( value.set( priority, bridge, null )){
             if( updateLock == 0 ){
-                for( Observer check : observers ){
+                for( Observer check : getBridgeObservers( path )){
                     check.resetBridge();
                 }
             }
+            else{
+            	stalledBridges.add( path );
+            }
         }
     }
     
@@ -345,11 +507,16 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
                 bridges.remove( path );
             }
             
-            if( change && updateLock == 0 ){
-                for( Observer check : observers ){
-                    check.resetBridge();
-                }
-            }   
+            if( change ){
+            	if( updateLock == 0 ){
+	                for( Observer check : getBridgeObservers( path )){
+	                    check.resetBridge();
+	                }
+            	}
+            	else{
+            		stalledBridges.add( path );
+            	}
+            }
         }
     }
     
@@ -363,7 +530,7 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
      */
     public void unpublish( Priority priority, B bridge ){
         Iterator<Map.Entry<Path, UIPriorityValue<B>>> iterator = bridges.entrySet().iterator();
-        boolean change = false;
+        Set<Path> changed = new HashSet<Path>();
         
         UIScheme<V, U, B> scheme = schemes.get( priority );
         
@@ -378,7 +545,9 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
             			replacement = scheme.getBridge( entry.getKey(), this );
             		}
             		
-	                change = next.set( priority, replacement, scheme ) || change;
+	                if( next.set( priority, replacement, scheme )){
+	                	changed.add( entry.getKey() );
+	                }
 	                if( isRemoveable( entry.getKey(), next ) ){
 	                    iterator.remove();
 	                }
@@ -386,10 +555,15 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
             }
         }
         
-        if( change && updateLock == 0 ){
-            for( Observer check : observers ){
-                check.resetBridge();
-            }
+        if( !changed.isEmpty() ){
+        	if( updateLock == 0 ){
+	            for( Observer check : getBridgeObservers( changed )){
+	                check.resetBridge();
+	            }
+        	}
+        	else{
+        		stalledBridges.addAll( changed );
+        	}
         }
     }
     
@@ -441,7 +615,7 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
      * @return if <code>path</code> is observed
      */
     public boolean isObserved( Path path ){
-    	return bridgesAccess.containsKey( path );
+    	return bridgeObservers.containsKey( path );
     }
     
     private boolean isRemoveable( Path path, UIPriorityValue<B> value ){
@@ -480,6 +654,9 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
         
         Observer combination = new Observer( id, path, value );
         observers.add( combination );
+        index( valueObservers, value, combination );
+        index( bridgeObservers, path, combination );
+        index( resourceObservers, id, combination );
         combination.resetAll();
     }
     
@@ -488,14 +665,12 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
      * @param value the observer to remove
      */
     public void remove( U value ){
-        ListIterator<Observer> list = observers.listIterator();
-        while( list.hasNext() ){
-            Observer next = list.next();
-            if( next.getValue() == value ){
-                list.remove();
-                next.destroy();
-                return;
-            }
+        Set<Observer> group = valueObservers.get( value );
+        if( group != null ){
+            Observer next = group.iterator().next();
+            unindex( valueObservers, value, next );
+            observers.remove( next );
+            next.destroy();
         }
     }
     
@@ -505,7 +680,7 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
      * @return if <code>id</code> is observed
      */
     public boolean isObserved( String id ){
-    	return resourcesAccess.containsKey( id );
+    	return resourceObservers.containsKey( id );
     }
     
     private boolean isRemoveable( String id, UIPriorityValue<V> value ){
@@ -582,11 +757,15 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
         	
 	        if( value.set( priority, resource, scheme ) ){
 	            if( updateLock == 0 ){
-	                for( Observer observer : observers ){
-	                    if( observer.id.equals( id )){
-	                        observer.update( resource );
-	                    }
-	                }
+	            	Set<Observer> group = resourceObservers.get( id );
+	            	if( group != null ){
+		                for( Observer observer : copy( group )){
+		                    observer.update( resource );
+		                }
+	            	}
+	            }
+	            else{
+	            	stalledResources.add( id );
 	            }
 	        }
 	        
@@ -640,45 +819,50 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
     public void clear( Priority priority ){
     	UIScheme<V, U, B> scheme = schemes.get( priority );
     	
-    	Iterator<Map.Entry<String, UIPriorityValue<V>>> resources = this.resources.entrySet().iterator();
-    	while( resources.hasNext() ){
-    		Map.Entry<String, UIPriorityValue<V>> entry = resources.next();
-    		UIPriorityValue<V> value = entry.getValue();
+    	try{
+    		lockUpdate();
     		
-    		if( value.getScheme( priority ) == null ){
-    			V replacement = null;
-    			if( scheme != null ){
-    				replacement = scheme.getResource( entry.getKey(), this );
-    			}
-    			value.set( priority, replacement, scheme );
-        		if( isRemoveable( entry.getKey(), value )){
-        			resources.remove();
-        		}
-    		}
+	    	Iterator<Map.Entry<String, UIPriorityValue<V>>> resources = this.resources.entrySet().iterator();
+	    	while( resources.hasNext() ){
+	    		Map.Entry<String, UIPriorityValue<V>> entry = resources.next();
+	    		UIPriorityValue<V> value = entry.getValue();
+	    		
+	    		if( value.getScheme( priority ) == null ){
+	    			V replacement = null;
+	    			if( scheme != null ){
+	    				replacement = scheme.getResource( entry.getKey(), this );
+	    			}
+	    			if( value.set( priority, replacement, scheme )){
+	    				stalledResources.add( entry.getKey() );
+	    			}
+	        		if( isRemoveable( entry.getKey(), value )){
+	        			resources.remove();
+	        		}
+	    		}
+	    	}
+	    	
+	    	Iterator<Map.Entry<Path, UIPriorityValue<B>>> bridges = this.bridges.entrySet().iterator();
+	        while( bridges.hasNext() ){
+	        	Map.Entry<Path, UIPriorityValue<B>> entry = bridges.next();
+	    		UIPriorityValue<B> value = entry.getValue();
+	    		
+	    		if( value.getScheme( priority ) == null ){
+	    			B replacement = null;
+	    			if( scheme != null ){
+	    				replacement = scheme.getBridge( entry.getKey(), this );
+	    			}
+	    			if( value.set( priority, replacement, scheme )){
+	    				stalledBridges.add( entry.getKey() );
+	    			}
+	        		if( isRemoveable( entry.getKey(), value )){
+	        			bridges.remove();
+	        		}
+	    		}
+	        }
+    	}
+    	finally{
+    		unlockUpdate( true );
     	}
-    	
-    	Iterator<Map.Entry<Path, UIPriorityValue<B>>> bridges = this.bridges.entrySet().iterator();
-        while( bridges.hasNext() ){
-        	Map.Entry<Path, UIPriorityValue<B>> entry = bridges.next();
-    		UIPriorityValue<B> value = entry.getValue();
-    		
-    		if( value.getScheme( priority ) == null ){
-    			B replacement = null;
-    			if( scheme != null ){
-    				replacement = scheme.getBridge( entry.getKey(), this );
-    			}
-    			value.set( priority, replacement, scheme );
-        		if( isRemoveable( entry.getKey(), value )){
-        			bridges.remove();
-        		}
-    		}
-        }
-        
-        if( updateLock == 0 ){
-            for( Observer observer : observers ){
-                observer.resetAll();
-            }
-        }
     }
     
     /**
@@ -738,6 +922,10 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
         private U value;
         /** a bridge for modified resources */
         private B bridge;
+        /** the last value that was forwarded to {@link #value} */
+        private V current;
+        /** whether {@link #current} is set */
+        private boolean valid = false;
         
         /**
          * Creates a new observer
@@ -749,24 +937,6 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
             this.id = id;
             this.path = path;
             this.value = value;
-            
-            Integer count = bridgesAccess.get( path );
-            if( count == null ){
-            	count = 1;
-            }
-            else{
-            	count = count+1;
-            }
-            bridgesAccess.put( path, count );
-            
-            count = resourcesAccess.get( id );
-            if( count == null ){
-            	count = 1;
-            }
-            else{
-            	count = count+1;
-            }
-            resourcesAccess.put( id, count );
         }
         
         /**
@@ -775,23 +945,12 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
         public void destroy(){
         	setBridge( null, false );
         	
-        	Integer count = bridgesAccess.get( path );
-            if( count == 1 ){
-            	bridgesAccess.remove( path );
+        	if( unindex( bridgeObservers, path, this )){
             	checkRemove( path );
             }
-            else{
-            	bridgesAccess.put( path, count-1 );
-            }
-            
-            count = resourcesAccess.get( id );
-            if( count == 1 ){
-            	resourcesAccess.remove( id );
+            if( unindex( resourceObservers, id, this )){
             	checkRemove( id );
             }
-            else{
-            	resourcesAccess.put( id, count-1 );
-            }
         }
         
         /**
@@ -813,6 +972,30 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
                 setBridge( bridge, true );
         }
         
+        /**
+         * Updates resource and bridge of this <code>Observer</code>, but only informs
+         * the {@link UIValue} if either the bridge or the resource really changed.
+         */
+        public void refresh(){
+        	B bridge = getBridgeFor( path );
+        	if( this.bridge != bridge ){
+        		setBridge( bridge, false );
+        	}
+        	else{
+        		V next = get( id );
+        		if( !valid || !equals( current, next )){
+        			update( next );
+        		}
+        	}
+        }
+        
+        private boolean equals( V a, V b ){
+        	if( a == b ){
+        		return true;
+        	}
+        	return a != null && a.equals( b );
+        }
+        
         /**
          * Ensures that the correct {@link UIBridge} is used.
          */
@@ -851,6 +1034,9 @@ public class UIProperties<V, U extends UIValue<V>, B extends UIBridge<V, U>> {
          * @param value the new value of the resource, can be <code>null</code>
          */
         public void update( V value ){
+        	current = value;
+        	valid = true;
+        	
             if( bridge == null )
                 this.value.set( value );
             else
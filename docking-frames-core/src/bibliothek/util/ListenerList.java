@@ -0,0 +1,149 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.util;
+
+import java.lang.reflect.Array;
+
+/**
+ * A list of listeners which is optimized for firing events. The listeners are stored in an array that is
+ * replaced whenever a listener is added or removed, reading the array does neither require a lock nor does
+ * it create any garbage. Since modifying this list creates a new array, an event can be fired safely
+ * while listeners are added or removed, and listeners added during an event are not informed about that event.
+ * A typical usage looks like this:
+ * <pre>
+ * ListenerList&lt;SomeListener&gt; listeners = new ListenerList&lt;SomeListener&gt;( SomeListener.class );
+ * 
+ * for( SomeListener listener : listeners.getListeners() ){
+ *     listener.happened( event );
+ * }
+ * </pre>
+ * @author Benjamin Sigg
+ * @param <L> the kind of listeners stored in this list
+ */
+public class ListenerList<L> {
+	/** the type of the listeners, used to create new arrays */
+	private final Class<L> type;
+	
+	/** the current listeners, this array is never modified */
+	private volatile L[] listeners;
+	
+	/**
+	 * Creates a new, empty list.
+	 * @param type the type of the listeners, used to create new arrays
+	 */
+	public ListenerList( Class<L> type ){
+		if( type == null ){
+			throw new IllegalArgumentException( "type must not be null" );
+		}
+		this.type = type;
+		this.listeners = createArray( 0 );
+	}
+	
+	/**
+	 * Adds <code>listener</code> at the end of this list. A listener may be added more than once.
+	 * @param listener the new listener
+	 */
+	public synchronized void add( L listener ){
+		L[] current = listeners;
+		L[] next = createArray( current.length + 1 );
+		System.arraycopy( current, 0, next, 0, current.length );
+		next[ current.length ] = listener;
+		listeners = next;
+	}
+	
+	/**
+	 * Removes the first occurrence of <code>listener</code> from this list, listeners are compared
+	 * with {@link Object#equals(Object)}.
+	 * @param listener the listener to remove
+	 * @return <code>true</code> if <code>listener</code> was found and removed
+	 */
+	public synchronized boolean remove( L listener ){
+		L[] current = listeners;
+		for( int i = 0; i < current.length; i++ ){
+			if( listener == null ? current[i] == null : listener.equals( current[i] )){
+				L[] next = createArray( current.length - 1 );
+				System.arraycopy( current, 0, next, 0, i );
+				System.arraycopy( current, i+1, next, i, current.length - i - 1 );
+				listeners = next;
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes all listeners from this list.
+	 */
+	public synchronized void clear(){
+		if( listeners.length > 0 ){
+			listeners = createArray( 0 );
+		}
+	}
+	
+	/**
+	 * Gets all the listeners that are currently stored in this list. This method does not create a 
+	 * copy of the listeners, the array must not be modified.
+	 * @return the current listeners, not <code>null</code>
+	 */
+	public L[] getListeners(){
+		return listeners;
+	}
+	
+	/**
+	 * Tells whether <code>listener</code> is stored in this list.
+	 * @param listener the listener to search
+	 * @return <code>true</code> if <code>listener</code> was found
+	 */
+	public boolean contains( L listener ){
+		for( L item : listeners ){
+			if( listener == null ? item == null : listener.equals( item )){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the number of listeners stored in this list.
+	 * @return the number of listeners
+	 */
+	public int size(){
+		return listeners.length;
+	}
+	
+	/**
+	 * Tells whether this list is empty.
+	 * @return <code>true</code> if there are no listeners
+	 */
+	public boolean isEmpty(){
+		return listeners.length == 0;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private L[] createArray( int size ){
+		return (L[])Array.newInstance( type, size );
+	}
+}
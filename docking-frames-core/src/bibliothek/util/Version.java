@@ -67,8 +67,11 @@ public final class Version implements Comparable<Version>{
     /** version 1.1.2 */
     public static final Version VERSION_1_1_2 = new Version( 1, 1, 2, null );
     
+    /** version 1.1.2, with the chunked binary format of {@link bibliothek.gui.dock.layout.DockSituation} */
+    public static final Version VERSION_1_1_2a = new Version( 1, 1, 2, "a" );
+    
     /** The current version of this library. This constant will be changed for every release. */
-    public static final Version CURRENT = VERSION_1_1_2;
+    public static final Version CURRENT = VERSION_1_1_2a;
     
     private int major;
     private int minor;
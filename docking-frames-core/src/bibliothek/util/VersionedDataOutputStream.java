@@ -0,0 +1,76 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.util;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+
+/**
+ * A {@link DataOutputStream} that tells which format should be used to write data. Classes that 
+ * changed their binary format over time check whether they are writing into a {@link VersionedDataOutputStream}, 
+ * and if so write data that can be read by older versions of this library. The 
+ * {@link bibliothek.gui.dock.layout.DockSituation} hands out such streams to its factories if an old format
+ * is selected, and {@link bibliothek.gui.dock.station.support.PlaceholderMap} writes its old format into them.
+ * @author Benjamin Sigg
+ */
+public class VersionedDataOutputStream extends DataOutputStream{
+	/** the version of the format to write */
+	private final Version format;
+	
+	/**
+	 * Creates a new stream.
+	 * @param out the stream to write into
+	 * @param format the version of the format that should be written, not <code>null</code>
+	 */
+	public VersionedDataOutputStream( OutputStream out, Version format ){
+		super( out );
+		if( format == null ){
+			throw new IllegalArgumentException( "format must not be null" );
+		}
+		this.format = format;
+	}
+	
+	/**
+	 * Gets the version of the format that should be written into this stream.
+	 * @return the version, not <code>null</code>
+	 */
+	public Version getFormat(){
+		return format;
+	}
+	
+	/**
+	 * Gets the version of the format that should be written into <code>out</code>.
+	 * @param out some stream
+	 * @return the format of <code>out</code> if <code>out</code> is a {@link VersionedDataOutputStream}, 
+	 * {@link Version#CURRENT} otherwise
+	 */
+	public static Version getFormat( DataOutputStream out ){
+		if( out instanceof VersionedDataOutputStream ){
+			return ((VersionedDataOutputStream)out).getFormat();
+		}
+		return Version.CURRENT;
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.util.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads a xml-file with the streaming api <code>javax.xml.stream</code>, but unlike {@link XIO} this
+ * reader does not build the whole tree of {@link XElement}s at once. Instead the children of the root 
+ * element are read one after the other, hence only one child has to be kept in memory at any time.<br>
+ * Clients can also descend into a child with {@link #start()}: then only the start tag of the child
+ * is read, and the following calls to {@link #next()} return the children of that child. Once
+ * {@link #next()} or {@link #start()} return <code>null</code>, the reader has left the child again.<br>
+ * A typical usage looks like this:
+ * <pre>
+ * XElementReader reader = XElementReader.openUTF( in );
+ * XElement child = reader.next();
+ * while( child != null ){
+ *     // handle child
+ *     child = reader.next();
+ * }
+ * reader.close();
+ * </pre>
+ * @author Benjamin Sigg
+ * @see XElementWriter
+ */
+public class XElementReader {
+	/** the source of all events */
+	private XMLStreamReader reader;
+	
+	/** the root element, without children */
+	private XElement root;
+	
+	/** the number of elements whose start tag, but not end tag, was read */
+	private int depth = 0;
+	
+	/**
+	 * Opens a reader that reads <code>in</code> using the <code>UTF-8</code> encoding.
+	 * @param in the stream to read, will not be closed by the reader
+	 * @return the new reader
+	 * @throws IOException if the stream cannot be read or is not a xml-file
+	 */
+	public static XElementReader openUTF( InputStream in ) throws IOException{
+		return open( in, "UTF-8" );
+	}
+	
+	/**
+	 * Opens a reader that reads <code>in</code>.
+	 * @param in the stream to read, will not be closed by the reader
+	 * @param encoding the encoding used to decode characters
+	 * @return the new reader
+	 * @throws IOException if the stream cannot be read or is not a xml-file
+	 */
+	public static XElementReader open( InputStream in, String encoding ) throws IOException{
+		try{
+			return new XElementReader( createFactory().createXMLStreamReader( in, encoding ) );
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Opens a reader that reads the characters of <code>in</code>.
+	 * @param in the source of the characters, will not be closed by the reader
+	 * @return the new reader
+	 * @throws IOException if the stream cannot be read or is not a xml-file
+	 */
+	public static XElementReader open( Reader in ) throws IOException{
+		try{
+			return new XElementReader( createFactory().createXMLStreamReader( in ) );
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Creates the factory used to create new {@link XMLStreamReader}s, the factory
+	 * is configured to behave like the parser used by {@link XIO}.
+	 * @return the new factory
+	 */
+	private static XMLInputFactory createFactory(){
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE );
+		factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+		return factory;
+	}
+	
+	/**
+	 * Creates a new reader, reads the start tag of the root element.
+	 * @param reader the source of all events
+	 * @throws IOException if the root element cannot be read
+	 */
+	public XElementReader( XMLStreamReader reader ) throws IOException{
+		if( reader == null ){
+			throw new IllegalArgumentException( "reader must not be null" );
+		}
+		this.reader = reader;
+		
+		try{
+			while( reader.getEventType() != XMLStreamConstants.START_ELEMENT ){
+				if( !reader.hasNext() ){
+					throw new IOException( "missing root element" );
+				}
+				reader.next();
+			}
+			root = startElement();
+			depth = 1;
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Gets the root element of the file. The root element contains the attributes of the
+	 * root, but neither its children nor its value.
+	 * @return the root element
+	 */
+	public XElement getRoot(){
+		return root;
+	}
+	
+	/**
+	 * Reads the next child of the current element including all its children. The current element
+	 * is the root element, or the element that was last returned by {@link #start()}.
+	 * @return the next child or <code>null</code> if the end of the current element was reached, in which
+	 * case the parent of the current element becomes the new current element
+	 * @throws IOException if the file cannot be read
+	 */
+	public XElement next() throws IOException{
+		if( depth == 0 ){
+			return null;
+		}
+		try{
+			while( reader.hasNext() ){
+				switch( reader.next() ){
+					case XMLStreamConstants.START_ELEMENT:
+						return readElement();
+					case XMLStreamConstants.END_ELEMENT:
+						depth--;
+						return null;
+				}
+			}
+			throw new IOException( "unexpected end of file" );
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Reads the start tag of the next child of the current element, and makes that child the
+	 * new current element. The children of the child can then be read with {@link #next()}, {@link #start()}
+	 * or {@link #readChildren(XElement)}. The value of the child is ignored.
+	 * @return the next child, containing only its attributes, or <code>null</code> if the end of the current
+	 * element was reached, in which case the parent of the current element becomes the new current element
+	 * @throws IOException if the file cannot be read
+	 */
+	public XElement start() throws IOException{
+		if( depth == 0 ){
+			return null;
+		}
+		try{
+			while( reader.hasNext() ){
+				switch( reader.next() ){
+					case XMLStreamConstants.START_ELEMENT:
+						depth++;
+						return startElement();
+					case XMLStreamConstants.END_ELEMENT:
+						depth--;
+						return null;
+				}
+			}
+			throw new IOException( "unexpected end of file" );
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Reads all the remaining children of the current element and adds them to <code>element</code>. Afterwards
+	 * the parent of the current element becomes the new current element.
+	 * @param element the element to fill, usually the element returned by {@link #start()}
+	 * @return <code>element</code>
+	 * @throws IOException if the file cannot be read
+	 */
+	public XElement readChildren( XElement element ) throws IOException{
+		XElement child = next();
+		while( child != null ){
+			element.addElement( child );
+			child = next();
+		}
+		return element;
+	}
+	
+	/**
+	 * Reads all the children of the root element and returns the root element. This method
+	 * builds the same tree as {@link XIO#read(Reader)}.
+	 * @return the root element with all the children that were not yet read by {@link #next()}
+	 * @throws IOException if the file cannot be read
+	 */
+	public XElement readAll() throws IOException{
+		return readChildren( root );
+	}
+	
+	/**
+	 * Closes this reader, the underlying stream is not closed.
+	 * @throws IOException if the reader cannot be closed
+	 */
+	public void close() throws IOException{
+		try{
+			reader.close();
+		}
+		catch( XMLStreamException e ){
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+	
+	/**
+	 * Reads the element whose start tag is the current event, including all its children.
+	 * @return the new element
+	 * @throws XMLStreamException if the file cannot be read
+	 */
+	private XElement readElement() throws XMLStreamException{
+		XElement element = startElement();
+		StringBuilder value = null;
+		
+		while( true ){
+			switch( reader.next() ){
+				case XMLStreamConstants.START_ELEMENT:
+					element.addElement( readElement() );
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if( value == null ){
+						value = new StringBuilder();
+					}
+					value.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if( value != null ){
+						element.setValue( value.toString().trim() );
+					}
+					return element;
+				case XMLStreamConstants.END_DOCUMENT:
+					throw new XMLStreamException( "unexpected end of file" );
+			}
+		}
+	}
+	
+	/**
+	 * Creates a new {@link XElement} with the name and the attributes of the current start tag.
+	 * @return the new element
+	 */
+	private XElement startElement(){
+		XElement element = new XElement( name( reader.getPrefix(), reader.getLocalName() ));
+		for( int i = 0, n = reader.getAttributeCount(); i<n; i++ ){
+			XAttribute attr = new XAttribute( name( reader.getAttributePrefix( i ), reader.getAttributeLocalName( i )));
+			attr.setString( reader.getAttributeValue( i ));
+			element.addAttribute( attr );
+		}
+		return element;
+	}
+	
+	private String name( String prefix, String localName ){
+		if( prefix == null || prefix.length() == 0 ){
+			return localName;
+		}
+		return prefix + ":" + localName;
+	}
+}
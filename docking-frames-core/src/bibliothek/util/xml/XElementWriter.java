@@ -0,0 +1,194 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.util.xml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedList;
+
+/**
+ * Writes a xml-file one child of the root element after the other. Unlike {@link XIO} this writer does not
+ * need the whole tree of {@link XElement}s, each child can be discarded as soon as it has been written.
+ * The output has the same format as the output of {@link XIO}.<br>
+ * Clients can also open a child with {@link #start(XElement)}, write the children of that child one after
+ * the other, and close the child again with {@link #end()}.<br>
+ * A typical usage looks like this:
+ * <pre>
+ * XElementWriter writer = XElementWriter.openUTF( out, new XElement( "root" ) );
+ * for( ... ){
+ *     XElement child = new XElement( "child" );
+ *     // fill child
+ *     writer.write( child );
+ * }
+ * writer.close();
+ * </pre>
+ * @author Benjamin Sigg
+ * @see XElementReader
+ */
+public class XElementWriter {
+	/** where to write the characters */
+	private Writer out;
+	
+	/** the names of all elements whose start tag, but not end tag, was written, the root element is the first entry */
+	private LinkedList<String> open = new LinkedList<String>();
+	
+	/** whether the start tag of the current element is not yet closed, because the element has no children yet */
+	private boolean startPending = false;
+	
+	/**
+	 * Opens a writer that writes into <code>out</code> using the <code>UTF-8</code> encoding.
+	 * @param out the stream to write into, will not be closed by the writer
+	 * @param root the name and attributes of the root element, the children and the value of <code>root</code> are ignored
+	 * @return the new writer
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public static XElementWriter openUTF( OutputStream out, XElement root ) throws IOException{
+		return open( out, "UTF-8", root );
+	}
+	
+	/**
+	 * Opens a writer that writes into <code>out</code>.
+	 * @param out the stream to write into, will not be closed by the writer
+	 * @param encoding the encoding for the characters
+	 * @param root the name and attributes of the root element, the children and the value of <code>root</code> are ignored
+	 * @return the new writer
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public static XElementWriter open( OutputStream out, String encoding, XElement root ) throws IOException{
+		return new XElementWriter( new OutputStreamWriter( out, encoding ), root );
+	}
+	
+	/**
+	 * Creates a new writer and writes the start tag of the root element.
+	 * @param out the writer to write into, will be flushed but not closed by {@link #close()}
+	 * @param root the name and attributes of the root element, the children and the value of <code>root</code> are ignored
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public XElementWriter( Writer out, XElement root ) throws IOException{
+		if( out == null ){
+			throw new IllegalArgumentException( "out must not be null" );
+		}
+		if( root == null ){
+			throw new IllegalArgumentException( "root must not be null" );
+		}
+		this.out = new BufferedWriter( out );
+		
+		this.out.append( "<?xml version='1.0'?>\n" );
+		start( root );
+	}
+	
+	/**
+	 * Writes <code>element</code> as the next child of the current element. The current element is
+	 * the root element, or the element that was last opened by {@link #start(XElement)}.
+	 * @param element the element to write
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public void write( XElement element ) throws IOException{
+		closeStart();
+		XIO.write( element, open.size(), out );
+		out.append( "\n" );
+	}
+	
+	/**
+	 * Writes the start tag of <code>element</code> as the next child of the current element, and
+	 * makes <code>element</code> the new current element. Each call to this method must be followed by 
+	 * a call to {@link #end()}.
+	 * @param element the name and attributes of the new element, the children and the value of <code>element</code> are ignored
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public void start( XElement element ) throws IOException{
+		closeStart();
+		indent();
+		out.append( "<" );
+		out.append( element.getName() );
+		for( XAttribute attribute : element.attributes() ){
+			out.append( " " );
+			out.append( attribute.getName() );
+			out.append( "=\"" );
+			XIO.encode( attribute.getString(), out );
+			out.append( "\"" );
+		}
+		open.addLast( element.getName() );
+		startPending = true;
+	}
+	
+	/**
+	 * Writes the end tag of the current element, the parent of the current element becomes
+	 * the new current element.
+	 * @throws IOException if an I/O-error occurs
+	 * @throws IllegalStateException if the current element is the root element
+	 */
+	public void end() throws IOException{
+		if( open.size() < 2 ){
+			throw new IllegalStateException( "no element is open" );
+		}
+		endElement();
+		out.append( "\n" );
+	}
+	
+	/**
+	 * Writes the end tags of all open elements and of the root element, and flushes all buffers. 
+	 * The underlying stream is not closed.
+	 * @throws IOException if an I/O-error occurs
+	 */
+	public void close() throws IOException{
+		while( open.size() > 1 ){
+			end();
+		}
+		endElement();
+		out.flush();
+	}
+	
+	private void endElement() throws IOException{
+		String name = open.removeLast();
+		if( startPending ){
+			startPending = false;
+			out.append( "/>" );
+		}
+		else{
+			indent();
+			out.append( "</" );
+			out.append( name );
+			out.append( ">" );
+		}
+	}
+	
+	private void closeStart() throws IOException{
+		if( startPending ){
+			startPending = false;
+			out.append( ">\n" );
+		}
+	}
+	
+	private void indent() throws IOException{
+		for( int i = 0, n = open.size(); i<n; i++ ){
+			out.append( "\t" );
+		}
+	}
+}
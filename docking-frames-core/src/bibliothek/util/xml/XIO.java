@@ -122,7 +122,7 @@ public class XIO {
      * @param out the stream to write into
      * @throws IOException if an I/O-error occurs
      */
-    private static void write( XElement element, int tabs, Appendable out ) throws IOException{
+    static void write( XElement element, int tabs, Appendable out ) throws IOException{
         for( int i = 0; i < tabs; i++ )
             out.append( "\t" );
         
@@ -174,29 +174,44 @@ public class XIO {
      * @param value the value to encode
      * @param out the stream to write into
      */
-    private static void encode( String value, Appendable out ) throws IOException{
+    static void encode( String value, Appendable out ) throws IOException{
+        // characters that do not need to be encoded are appended in blocks
+        int start = 0;
         for( int i = 0, n = value.length(); i<n; i++ ){
-            char c = value.charAt( i );
-            switch( c ){
+            String replacement;
+            switch( value.charAt( i ) ){
                 case '<':
-                    out.append( "&lt;" );
+                    replacement = "&lt;";
                     break;
                 case '>':
-                    out.append( "&gt;" );
+                    replacement = "&gt;";
                     break;
                 case '\'':
-                    out.append( "&apos;" );
+                    replacement = "&apos;";
                     break;
                 case '"':
-                    out.append( "&quot;" );
+                    replacement = "&quot;";
                     break;
                 case '&':
-                    out.append( "&amp;" );
+                    replacement = "&amp;";
                     break;
                 default:
-                    out.append( c );
+                    replacement = null;
                     break;
             }
+            if( replacement != null ){
+                if( start < i ){
+                    out.append( value, start, i );
+                }
+                out.append( replacement );
+                start = i+1;
+            }
+        }
+        if( start == 0 ){
+            out.append( value );
+        }
+        else if( start < value.length() ){
+            out.append( value, start, value.length() );
         }
     }
     
@@ -0,0 +1,103 @@
+package bibliothek.gui.dock.frontend;
+
+import static junit.framework.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.DockFrontend;
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.DefaultDockable;
+import bibliothek.gui.dock.StackDockStation;
+import bibliothek.gui.dock.event.DockStationAdapter;
+
+public class DefaultLayoutChangeStrategyTest {
+	private DockFrontend frontend;
+	private StackDockStation left;
+	private StackDockStation right;
+	private Removals leftRemovals;
+	private Removals rightRemovals;
+	private DefaultDockable[] dockables;
+	
+	@Before
+	public void setup(){
+		frontend = new DockFrontend();
+		frontend.setDefaultHideable( true );
+		left = new StackDockStation();
+		right = new StackDockStation();
+		frontend.addRoot( "left", left );
+		frontend.addRoot( "right", right );
+		
+		dockables = new DefaultDockable[4];
+		for( int i = 0; i < dockables.length; i++ ){
+			dockables[i] = new DefaultDockable( "d" + i );
+			frontend.addDockable( "d" + i, dockables[i] );
+		}
+		
+		left.drop( dockables[0] );
+		left.drop( dockables[1] );
+		right.drop( dockables[2] );
+		
+		leftRemovals = new Removals();
+		rightRemovals = new Removals();
+		left.addDockStationListener( leftRemovals );
+		right.addDockStationListener( rightRemovals );
+	}
+	
+	@Test
+	public void sameLayoutKeepsAllRoots(){
+		frontend.save( "one" );
+		frontend.load( "one" );
+		
+		assertEquals( 0, leftRemovals.count );
+		assertEquals( 0, rightRemovals.count );
+		assertSame( left, dockables[0].getDockParent() );
+		assertSame( right, dockables[2].getDockParent() );
+	}
+	
+	@Test
+	public void unchangedRootIsKept(){
+		frontend.save( "one" );
+		right.drop( dockables[3] );
+		frontend.save( "two" );
+		
+		frontend.load( "one" );
+		assertEquals( 0, leftRemovals.count );
+		assertTrue( rightRemovals.count > 0 );
+		assertEquals( 2, left.getDockableCount() );
+		assertEquals( 1, right.getDockableCount() );
+		assertNull( dockables[3].getDockParent() );
+		
+		leftRemovals.count = 0;
+		rightRemovals.count = 0;
+		frontend.load( "two" );
+		assertEquals( 0, leftRemovals.count );
+		assertEquals( 2, right.getDockableCount() );
+		assertSame( right, dockables[3].getDockParent() );
+	}
+	
+	@Test
+	public void changedRootIsRebuilt(){
+		frontend.save( "one" );
+		left.drag( dockables[1] );
+		right.drop( dockables[1] );
+		frontend.save( "two" );
+		
+		frontend.load( "one" );
+		assertTrue( leftRemovals.count > 0 );
+		assertTrue( rightRemovals.count > 0 );
+		assertSame( left, dockables[1].getDockParent() );
+		assertEquals( 2, left.getDockableCount() );
+		assertEquals( 1, right.getDockableCount() );
+	}
+	
+	private static class Removals extends DockStationAdapter{
+		private int count;
+		
+		@Override
+		public void dockableRemoved( DockStation station, Dockable dockable ){
+			count++;
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package bibliothek.gui.dock.frontend;
+
+import static junit.framework.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.DockFrontend;
+import bibliothek.gui.DockStation;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.DefaultDockable;
+import bibliothek.gui.dock.SplitDockStation;
+import bibliothek.gui.dock.StackDockStation;
+import bibliothek.gui.dock.dockable.DefaultDockableFactory;
+import bibliothek.gui.dock.layout.DockLayoutComposition;
+import bibliothek.gui.dock.layout.DockLayoutInfo;
+import bibliothek.gui.dock.layout.DockSituation;
+import bibliothek.gui.dock.layout.PredefinedDockSituation;
+import bibliothek.gui.dock.station.split.SplitDockProperty;
+import bibliothek.gui.dock.station.support.PlaceholderStrategy;
+import bibliothek.gui.dock.station.support.PlaceholderStrategyListener;
+import bibliothek.util.Path;
+import bibliothek.util.xml.XException;
+
+/**
+ * Tests the {@link PreparedLayoutCache} of a {@link DockFrontend}: the cache has to be cleared whenever the resolved
+ * layouts could change, and applying a cached layout has to lead to the same layout as applying the {@link Setting}
+ * directly.
+ */
+public class PreparedLayoutCacheTest {
+	private DockFrontend frontend;
+	private CountingStrategy strategy;
+	private DefaultDockable[] dockables;
+
+	@Before
+	public void setup(){
+		strategy = new CountingStrategy();
+		frontend = create( strategy );
+		dockables = dockables( frontend );
+	}
+
+	private DockFrontend create( LayoutChangeStrategy strategy ){
+		DockFrontend frontend = new DockFrontend();
+		frontend.setLayoutChangeStrategy( strategy );
+		frontend.setDefaultHideable( true );
+		frontend.setMissingDockableStrategy( MissingDockableStrategy.STORE_ALL );
+		frontend.addRoot( "split", new SplitDockStation() );
+		frontend.addRoot( "stack", new StackDockStation() );
+
+		DefaultDockable[] dockables = new DefaultDockable[5];
+		for( int i = 0; i < dockables.length; i++ ){
+			dockables[i] = new DefaultDockable( "d" + i );
+			frontend.addDockable( "d" + i, dockables[i] );
+		}
+
+		SplitDockStation split = (SplitDockStation)frontend.getRoot( "split" );
+		StackDockStation stack = (StackDockStation)frontend.getRoot( "stack" );
+		split.drop( dockables[0], new SplitDockProperty( 0, 0, 0.5, 1 ) );
+		split.drop( dockables[1], new SplitDockProperty( 0.5, 0, 0.5, 1 ) );
+		split.drop( dockables[2], new SplitDockProperty( 0.5, 0.5, 0.5, 0.5 ) );
+		stack.drop( dockables[3] );
+		frontend.save( "one" );
+		frontend.save( "full", false );
+
+		frontend.hide( dockables[1] );
+		stack.drop( dockables[4] );
+		split.drag( dockables[0] );
+		stack.drop( dockables[0] );
+		frontend.save( "two" );
+		return frontend;
+	}
+
+	private DefaultDockable[] dockables( DockFrontend frontend ){
+		DefaultDockable[] result = new DefaultDockable[5];
+		for( int i = 0; i < result.length; i++ ){
+			result[i] = (DefaultDockable)frontend.getDockable( "d" + i );
+		}
+		return result;
+	}
+
+	@Test
+	public void preparedLayoutIsReused(){
+		frontend.prepare( "one", true );
+		assertEquals( 2, strategy.resolved );
+		assertEquals( 0, strategy.reused );
+		assertNotNull( cache().get( frontend.getSetting( "one" ), true, "split" ) );
+		assertNotNull( cache().get( frontend.getSetting( "one" ), true, "stack" ) );
+		assertNull( cache().get( frontend.getSetting( "one" ), false, "split" ) );
+
+		frontend.load( "one" );
+		assertEquals( 2, strategy.resolved );
+		assertEquals( 2, strategy.reused );
+
+		frontend.load( "two" );
+		frontend.load( "one" );
+		assertEquals( 4, strategy.resolved );
+		assertEquals( 4, strategy.reused );
+
+		// a full setting is resolved on its own
+		frontend.load( "one", false );
+		assertEquals( 6, strategy.resolved );
+	}
+
+	@Test
+	public void factoryInvalidatesCache(){
+		DefaultDockableFactory factory = new DefaultDockableFactory();
+
+		frontend.prepare( "one", true );
+		frontend.registerFactory( factory );
+		assertTrue( cache().isEmpty() );
+		frontend.load( "one" );
+		assertEquals( 4, strategy.resolved );
+		assertEquals( 0, strategy.reused );
+
+		assertFalse( cache().isEmpty() );
+		frontend.unregisterFactory( factory );
+		assertTrue( cache().isEmpty() );
+
+		frontend.prepare( "one", true );
+		frontend.registerBackupFactory( factory );
+		assertTrue( cache().isEmpty() );
+
+		frontend.prepare( "one", true );
+		frontend.unregisterBackupFactory( factory );
+		assertTrue( cache().isEmpty() );
+	}
+
+	@Test
+	public void placeholderStrategyInvalidatesCache(){
+		frontend.prepare( "one", true );
+		frontend.getController().getProperties().set( PlaceholderStrategy.PLACEHOLDER_STRATEGY, new AnyPlaceholderStrategy() );
+		assertTrue( cache().isEmpty() );
+
+		frontend.prepare( "one", true );
+		frontend.getController().getProperties().unset( PlaceholderStrategy.PLACEHOLDER_STRATEGY );
+		assertTrue( cache().isEmpty() );
+	}
+
+	@Test
+	public void layoutChangeStrategyInvalidatesCache(){
+		frontend.prepare( "one", true );
+		frontend.setLayoutChangeStrategy( strategy );
+		assertTrue( cache().isEmpty() );
+	}
+
+	@Test
+	public void settingChangeInvalidatesCache(){
+		Setting one = frontend.getSetting( "one" );
+		frontend.prepare( "one", true );
+
+		// the setting is replaced
+		frontend.load( "two" );
+		frontend.save( "one" );
+		assertNull( cache().get( one, true, "split" ) );
+		assertNull( cache().get( one, true, "stack" ) );
+
+		// the setting is deleted
+		Setting two = frontend.getSetting( "two" );
+		frontend.prepare( "two", true );
+		assertNotNull( cache().get( two, true, "split" ) );
+		frontend.delete( "two" );
+		assertNull( cache().get( two, true, "split" ) );
+
+		// one root of the setting is replaced
+		Setting full = frontend.getSetting( "full" );
+		frontend.prepare( "full", false );
+		full.putRoot( "stack", frontend.getSetting( "one" ).getRoot( "stack" ) );
+		assertNull( cache().get( full, false, "stack" ) );
+		assertNotNull( cache().get( full, false, "split" ) );
+	}
+
+	@Test
+	public void predefinedElementsInvalidateLayout(){
+		frontend.prepare( "one", true );
+		frontend.addDockable( "d5", new DefaultDockable( "d5" ) );
+		frontend.load( "one" );
+		assertEquals( 4, strategy.resolved );
+		assertEquals( 0, strategy.reused );
+
+		frontend.remove( dockables[3] );
+		frontend.load( "one" );
+		assertEquals( 6, strategy.resolved );
+		assertEquals( 0, strategy.reused );
+
+		frontend.load( "one" );
+		assertEquals( 6, strategy.resolved );
+		assertEquals( 2, strategy.reused );
+	}
+
+	@Test
+	public void preparedLayoutMatchesRawLayout(){
+		DockFrontend raw = create( new RawStrategy() );
+		DefaultDockable[] rawDockables = dockables( raw );
+
+		frontend.prepare( "one", true );
+		frontend.prepare( "two", true );
+		frontend.prepare( "full", false );
+
+		String[] names = { "one", "two", "full", "one", "two", "full" };
+		for( String name : names ){
+			frontend.load( name, !name.equals( "full" ) );
+			raw.load( name, !name.equals( "full" ) );
+			assertEquals( name, dump( raw ), dump( frontend ) );
+		}
+		assertTrue( strategy.reused > 0 );
+
+		// the missing dockable gets the location that was resolved while it was missing
+		frontend.remove( dockables[3] );
+		raw.remove( rawDockables[3] );
+		for( String name : names ){
+			frontend.load( name, !name.equals( "full" ) );
+			raw.load( name, !name.equals( "full" ) );
+			assertEquals( name, dump( raw ), dump( frontend ) );
+		}
+
+		frontend.addDockable( "d3", dockables[3] );
+		raw.addDockable( "d3", rawDockables[3] );
+		frontend.show( dockables[3] );
+		raw.show( rawDockables[3] );
+		assertEquals( dump( raw ), dump( frontend ) );
+		assertSame( frontend.getRoot( "stack" ), dockables[3].getDockParent() );
+	}
+
+	private PreparedLayoutCache cache(){
+		return strategy.frontend.getPreparedLayouts();
+	}
+
+	/**
+	 * Describes the dock tree and the entries of <code>frontend</code>. The {@link SplitDockStation} does not
+	 * order its children by their location, hence its tree is described instead of its children. The ids of the
+	 * nodes are unique, they are replaced by the order in which they are first used.
+	 */
+	private String dump( DockFrontend frontend ){
+		StringBuilder builder = new StringBuilder();
+		builder.append( "split: " ).append( ((SplitDockStation)frontend.getRoot( "split" )).getRoot() ).append( "\n" );
+		builder.append( "stack:" );
+		DockStation stack = frontend.getRoot( "stack" );
+		for( int i = 0; i < stack.getDockableCount(); i++ ){
+			builder.append( " " ).append( stack.getDockable( i ).getTitleText() );
+		}
+		builder.append( "\n" );
+
+		List<FrontendEntry> entries = frontend.listFrontendEntries();
+		Collections.sort( entries, new Comparator<FrontendEntry>(){
+			public int compare( FrontendEntry a, FrontendEntry b ){
+				return a.getKey().compareTo( b.getKey() );
+			}
+		});
+		for( FrontendEntry entry : entries ){
+			builder.append( entry.getKey() ).append( ": shown=" ).append( entry.isShown() );
+			builder.append( ", visible=" ).append( entry.getDockable() != null && entry.getDockable().getDockParent() != null );
+			builder.append( ", root=" ).append( entry.getRoot() );
+			builder.append( ", location=" ).append( entry.getLocation() );
+			builder.append( ", layout=" );
+			dump( entry.getLayout(), builder );
+			builder.append( "\n" );
+		}
+
+		Matcher matcher = Pattern.compile( "-?\\d{6,}" ).matcher( builder );
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		StringBuffer result = new StringBuffer();
+		while( matcher.find() ){
+			Integer id = ids.get( matcher.group() );
+			if( id == null ){
+				id = ids.size();
+				ids.put( matcher.group(), id );
+			}
+			matcher.appendReplacement( result, "#" + id );
+		}
+		matcher.appendTail( result );
+		return result.toString();
+	}
+
+	private void dump( DockLayoutComposition layout, StringBuilder builder ){
+		if( layout == null ){
+			builder.append( "null" );
+			return;
+		}
+		DockLayoutInfo info = layout.getLayout();
+		builder.append( info.getKind() );
+		if( info.getDataLayout() != null ){
+			builder.append( " " ).append( info.getDataLayout().getFactoryID() );
+		}
+		builder.append( " " ).append( info.getLocation() ).append( " [" );
+		for( DockLayoutComposition child : layout.getChildren() ){
+			builder.append( " " );
+			dump( child, builder );
+		}
+		builder.append( " ]" );
+	}
+
+	/**
+	 * Counts how often a layout is resolved and how often a cached layout is reused.
+	 */
+	private static class CountingStrategy extends DefaultLayoutChangeStrategy{
+		private DockFrontendInternals frontend;
+		private Map<PreparedLayout, Boolean> known = new IdentityHashMap<PreparedLayout, Boolean>();
+		private int resolved;
+		private int reused;
+
+		@Override
+		public PredefinedDockSituation createSituation( DockFrontendInternals frontend, boolean entry ){
+			this.frontend = frontend;
+			return super.createSituation( frontend, entry );
+		}
+
+		@Override
+		protected PreparedLayout prepareLayout( DockFrontendInternals frontend, DockSituation situation, Setting setting, String root, boolean entry ) throws IOException, XException{
+			PreparedLayout layout = super.prepareLayout( frontend, situation, setting, root, entry );
+			if( layout != null ){
+				if( known.put( layout, Boolean.TRUE ) == null ){
+					resolved++;
+				}
+				else{
+					reused++;
+				}
+			}
+			return layout;
+		}
+	}
+
+	/**
+	 * Never uses the cache, the layouts are resolved exactly as they were before there was a cache.
+	 */
+	private static class RawStrategy extends DefaultLayoutChangeStrategy{
+		@Override
+		protected PreparedLayout prepareLayout( DockFrontendInternals frontend, DockSituation situation, Setting setting, String root, boolean entry ){
+			return null;
+		}
+	}
+
+	/**
+	 * Accepts any placeholder, but does not create new placeholders.
+	 */
+	private static class AnyPlaceholderStrategy implements PlaceholderStrategy{
+		public void install( DockStation station ){
+			// ignore
+		}
+
+		public void uninstall( DockStation station ){
+			// ignore
+		}
+
+		public void addListener( PlaceholderStrategyListener listener ){
+			// ignore
+		}
+
+		public void removeListener( PlaceholderStrategyListener listener ){
+			// ignore
+		}
+
+		public Path getPlaceholderFor( Dockable dockable ){
+			return null;
+		}
+
+		public boolean isValidPlaceholder( Path placeholder ){
+			return true;
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package bibliothek.gui.dock.station.screen.magnet;
+
+import static junit.framework.Assert.*;
+
+import java.awt.Rectangle;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.DefaultDockable;
+import bibliothek.gui.dock.ScreenDockStation;
+import bibliothek.gui.dock.station.screen.ScreenDockWindow;
+import bibliothek.gui.dock.station.screen.magnet.AttractorStrategy.Attraction;
+import bibliothek.gui.dock.station.screen.magnet.MagnetRequest.Side;
+import bibliothek.gui.dock.util.NullWindowProvider;
+
+/**
+ * Compares {@link MagnetSideIndex}, {@link StickMagnetGraph} and {@link DefaultMagnetOperation} with
+ * implementations that check all pairs of windows.
+ */
+public class MagnetIndexTest {
+	private static final int THRESHOLD = 5;
+
+	@Test
+	public void sideIndexMatchesLinearScan(){
+		Random random = new Random( 1 );
+		for( int round = 0; round < 50; round++ ){
+			TestController controller = new TestController( randomBounds( random, 40 ), true );
+			ScreenDockWindow[] windows = controller.getWindows();
+			controller.start( windows[0] );
+
+			MagnetSideIndex index = new MagnetSideIndex( controller, true );
+			for( int i = 0; i < windows.length; i++ ){
+				index.add( i, windows[i] );
+			}
+			assertEquals( windows.length, index.size() );
+
+			for( int query = 0; query < 40; query++ ){
+				Side side = Side.values()[ random.nextInt( 4 ) ];
+				int value = controller.getValue( windows[ random.nextInt( windows.length ) ], side, true );
+				int min = value - random.nextInt( 3 );
+				int max = value + random.nextInt( 3 );
+
+				List<Integer> expected = new ArrayList<Integer>();
+				for( int i = 0; i < windows.length; i++ ){
+					int check = controller.getValue( windows[i], side, true );
+					if( min <= check && check <= max ){
+						expected.add( i );
+					}
+				}
+				assertEquals( expected, list( index.search( side, min, max ) ) );
+			}
+		}
+	}
+
+	@Test
+	public void graphMatchesBruteForce(){
+		Random random = new Random( 2 );
+		for( int round = 0; round < 40; round++ ){
+			TestController controller = new TestController( randomBounds( random, 25 ), false );
+			for( ScreenDockWindow root : controller.getWindows() ){
+				MagnetRequest request = (MagnetRequest)controller.start( root );
+				Set<String> expected = edges( controller, new BruteForceMagnetOperation.Graph( controller, request ) );
+				Set<String> actual = edges( controller, new StickMagnetGraph( controller, request ) );
+				assertEquals( expected, actual );
+			}
+		}
+	}
+
+	@Test
+	public void graphAtToleranceEdge(){
+		TestController controller = new TestController( new Rectangle[]{
+				new Rectangle( 0, 0, 10, 10 ),
+				// east of the root: 1 pixel apart, overlapping, 2 pixels apart
+				new Rectangle( 10, 0, 10, 5 ),
+				new Rectangle( 9, 6, 10, 4 ),
+				new Rectangle( 11, 0, 10, 10 ),
+				// south of the root: 1 pixel apart, 2 pixels apart
+				new Rectangle( 0, 10, 5, 10 ),
+				new Rectangle( 6, 11, 4, 10 ),
+				// west and north of the root: 1 pixel apart
+				new Rectangle( -10, 0, 10, 10 ),
+				new Rectangle( 0, -10, 10, 10 )
+		}, true );
+
+		MagnetRequest request = (MagnetRequest)controller.start( controller.getWindows()[0] );
+		Set<String> expected = new TreeSet<String>( Arrays.asList( "0 EAST 1", "0 SOUTH 4", "0 WEST 6", "0 NORTH 7" ));
+		assertEquals( expected, edges( controller, new BruteForceMagnetOperation.Graph( controller, request ) ));
+		assertEquals( expected, edges( controller, new StickMagnetGraph( controller, request ) ));
+	}
+
+	@Test
+	public void graphWithLargerTolerance(){
+		TestController controller = new TestController( new Rectangle[]{
+				new Rectangle( 0, 0, 10, 10 ),
+				// east of the root: 3 and 4 pixels apart
+				new Rectangle( 12, 0, 10, 5 ),
+				new Rectangle( 13, 8, 10, 2 ),
+				// south of the root: 3 and 4 pixels apart
+				new Rectangle( 0, 12, 5, 10 ),
+				new Rectangle( 9, 13, 1, 10 )
+		}, true );
+
+		MagnetRequest request = (MagnetRequest)controller.start( controller.getWindows()[0] );
+		Set<String> expected = new TreeSet<String>( Arrays.asList( "0 EAST 1", "0 SOUTH 3" ));
+		assertEquals( expected, edges( controller, new BruteForceMagnetOperation.Graph( controller, request ){
+			@Override
+			protected Side relation( ScreenDockWindow moved, ScreenDockWindow fixed ){
+				return wideRelation( getController(), moved, fixed );
+			}
+		}));
+		assertEquals( expected, edges( controller, new StickMagnetGraph( controller, request ){
+			@Override
+			protected int getTouchTolerance(){
+				return 3;
+			}
+
+			@Override
+			protected Side relation( ScreenDockWindow moved, ScreenDockWindow fixed ){
+				return wideRelation( getController(), moved, fixed );
+			}
+		}));
+	}
+
+	@Test
+	public void operationMatchesBruteForce(){
+		Random random = new Random( 3 );
+		for( int round = 0; round < 40; round++ ){
+			Rectangle[] bounds = randomBounds( random, 25 );
+			for( int window = 0; window < bounds.length; window += 3 ){
+				List<Rectangle> steps = new ArrayList<Rectangle>();
+				Rectangle step = new Rectangle( bounds[ window ] );
+				boolean move = random.nextBoolean();
+				for( int i = 0; i < 4; i++ ){
+					step = new Rectangle( step );
+					if( move ){
+						step.x += random.nextInt( 13 ) - 6;
+						step.y += random.nextInt( 13 ) - 6;
+					}
+					else{
+						int delta = random.nextInt( 9 ) - 4;
+						step.width = Math.max( 1, step.width + delta );
+						if( random.nextBoolean() ){
+							step.x -= delta;
+						}
+					}
+					steps.add( step );
+				}
+
+				List<String> expected = run( bounds, window, steps, false );
+				List<String> actual = run( bounds, window, steps, true );
+				assertEquals( expected, actual );
+			}
+		}
+	}
+
+	/**
+	 * Moves or resizes one window in several steps.
+	 * @param bounds the initial boundaries of all windows
+	 * @param window the index of the window that is modified
+	 * @param steps the boundaries the window gets
+	 * @param indexed whether to use {@link DefaultMagnetOperation} or {@link BruteForceMagnetOperation}
+	 * @return the boundaries of the window after each step and the final boundaries of all windows
+	 */
+	private List<String> run( Rectangle[] bounds, int window, List<Rectangle> steps, final boolean indexed ){
+		TestController controller = new TestController( bounds, false );
+		controller.setStrategy( new MagnetStrategy(){
+			public void install( MagnetController controller ){
+				// ignore
+			}
+
+			public void uninstall( MagnetController controller ){
+				// ignore
+			}
+
+			public MagnetOperation start( MagnetController controller, MagnetRequest request ){
+				if( indexed ){
+					return new DefaultMagnetOperation( THRESHOLD );
+				}
+				return new BruteForceMagnetOperation( THRESHOLD );
+			}
+		});
+
+		ScreenDockWindow[] windows = controller.getWindows();
+		MagnetizedOperation operation = controller.start( windows[ window ] );
+		List<String> result = new ArrayList<String>();
+		for( Rectangle step : steps ){
+			Rectangle attracted = operation.attract( step );
+			windows[ window ].setWindowBounds( attracted );
+			result.add( String.valueOf( attracted ) );
+		}
+		operation.stop();
+
+		for( ScreenDockWindow next : windows ){
+			result.add( String.valueOf( next.getWindowBounds() ) );
+		}
+		return result;
+	}
+
+	/**
+	 * A relation that allows gaps of up to 3 pixels between two windows.
+	 */
+	private static Side wideRelation( MagnetController controller, ScreenDockWindow moved, ScreenDockWindow fixed ){
+		if( controller.intersectHorizontally( moved, fixed, true ) ) {
+			if( wide( controller.distance( moved, Side.EAST, fixed, Side.WEST, true ))){
+				return Side.EAST;
+			}
+			if( wide( controller.distance( moved, Side.WEST, fixed, Side.EAST, true ))){
+				return Side.WEST;
+			}
+		}
+		if( controller.intersectVertically( moved, fixed, true ) ) {
+			if( wide( controller.distance( moved, Side.NORTH, fixed, Side.SOUTH, true ))){
+				return Side.NORTH;
+			}
+			if( wide( controller.distance( moved, Side.SOUTH, fixed, Side.NORTH, true ))){
+				return Side.SOUTH;
+			}
+		}
+		return null;
+	}
+
+	private static boolean wide( int distance ){
+		return distance >= 1 && distance <= 3;
+	}
+
+	private Set<String> edges( TestController controller, StickMagnetGraph graph ){
+		Set<String> result = new TreeSet<String>();
+		Set<StickMagnetGraph.Node> visited = new HashSet<StickMagnetGraph.Node>();
+		LinkedList<StickMagnetGraph.Node> queue = new LinkedList<StickMagnetGraph.Node>();
+		queue.add( graph.getRoot() );
+		while( !queue.isEmpty() ){
+			StickMagnetGraph.Node node = queue.poll();
+			if( visited.add( node )){
+				for( StickMagnetGraph.Edge edge : node.getEdges() ){
+					result.add( controller.indexOf( edge.getSource().getWindow() ) + " " + edge.getSide() + " " + controller.indexOf( edge.getTarget().getWindow() ));
+					queue.add( edge.getTarget() );
+				}
+			}
+		}
+		return result;
+	}
+
+	private List<Integer> list( int[] keys ){
+		List<Integer> result = new ArrayList<Integer>();
+		for( int key : keys ){
+			result.add( key );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates windows that are placed on a coarse grid, with many of them touching or being one or two pixels apart.
+	 */
+	private Rectangle[] randomBounds( Random random, int count ){
+		Rectangle[] result = new Rectangle[ count ];
+		for( int i = 0; i < count; i++ ){
+			int x = 12 * (random.nextInt( 9 ) - 4) + random.nextInt( 3 ) - 1;
+			int y = 12 * (random.nextInt( 9 ) - 4) + random.nextInt( 3 ) - 1;
+			int width = 12 * (random.nextInt( 3 ) + 1) + random.nextInt( 3 ) - 1;
+			int height = 12 * (random.nextInt( 3 ) + 1) + random.nextInt( 3 ) - 1;
+			result[i] = new Rectangle( x, y, width, height );
+		}
+		return result;
+	}
+
+	/**
+	 * A {@link MagnetController} whose windows are not shown on the screen. The stickiness and
+	 * attraction of two windows depend on their indices.
+	 */
+	private static class TestController extends MagnetController{
+		private ScreenDockWindow[] windows;
+		private Map<Object, Integer> indices = new IdentityHashMap<Object, Integer>();
+		private boolean allAttracted;
+
+		public TestController( Rectangle[] bounds, boolean allAttracted ){
+			super( new ScreenDockStation( new NullWindowProvider() ) );
+			this.allAttracted = allAttracted;
+			windows = new ScreenDockWindow[ bounds.length ];
+			for( int i = 0; i < bounds.length; i++ ){
+				Dockable dockable = new DefaultDockable( String.valueOf( i ) );
+				windows[i] = window( dockable, bounds[i] );
+				indices.put( windows[i], i );
+				indices.put( dockable, i );
+			}
+		}
+
+		public int indexOf( Object item ){
+			return indices.get( item );
+		}
+
+		@Override
+		public ScreenDockWindow[] getWindows(){
+			return windows.clone();
+		}
+
+		@Override
+		public ScreenDockWindow[] getAttracted( ScreenDockWindow window ){
+			List<ScreenDockWindow> result = new ArrayList<ScreenDockWindow>();
+			for( ScreenDockWindow next : windows ){
+				if( next != window && getAttraction( window.getDockable(), next.getDockable() ) == Attraction.ATTRACTED ){
+					result.add( next );
+				}
+			}
+			return result.toArray( new ScreenDockWindow[ result.size() ] );
+		}
+
+		@Override
+		public Attraction getAttraction( Dockable moved, Dockable fixed ){
+			return pair( moved, fixed, 5 );
+		}
+
+		@Override
+		public Attraction getStickiness( Dockable moved, Dockable fixed ){
+			return pair( moved, fixed, 3 );
+		}
+
+		private Attraction pair( Dockable moved, Dockable fixed, int modulo ){
+			if( allAttracted || (indexOf( moved ) * 7 + indexOf( fixed )) % modulo != 0 ){
+				return Attraction.ATTRACTED;
+			}
+			return Attraction.NEUTRAL;
+		}
+
+		private ScreenDockWindow window( final Dockable dockable, final Rectangle bounds ){
+			return (ScreenDockWindow)Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[]{ ScreenDockWindow.class }, new InvocationHandler(){
+				private Rectangle current = new Rectangle( bounds );
+
+				public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable{
+					String name = method.getName();
+					if( name.equals( "getWindowBounds" )){
+						return new Rectangle( current );
+					}
+					if( name.equals( "setWindowBounds" )){
+						current = new Rectangle( (Rectangle)args[0] );
+						return null;
+					}
+					if( name.equals( "getDockable" )){
+						return dockable;
+					}
+					if( name.equals( "equals" )){
+						return proxy == args[0];
+					}
+					if( name.equals( "hashCode" )){
+						return System.identityHashCode( proxy );
+					}
+					if( name.equals( "toString" )){
+						return "window " + dockable.getTitleText();
+					}
+					Class<?> type = method.getReturnType();
+					if( type == boolean.class ){
+						return false;
+					}
+					if( type == int.class ){
+						return 0;
+					}
+					return null;
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package bibliothek.gui.dock.station.stack.tab;
+
+import static junit.framework.Assert.*;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.extension.gui.dock.theme.FlatTheme;
+import bibliothek.gui.DockController;
+import bibliothek.gui.Dockable;
+import bibliothek.gui.dock.DefaultDockable;
+import bibliothek.gui.dock.StackDockStation;
+import bibliothek.gui.dock.station.stack.StackDockComponent;
+import bibliothek.gui.dock.station.stack.tab.layouting.TabPlacement;
+import bibliothek.gui.dock.util.Priority;
+import bibliothek.gui.dock.util.font.DockFont;
+import bibliothek.gui.dock.util.font.FontModifier;
+import bibliothek.gui.dock.util.font.GenericFontModifier;
+
+/**
+ * Compares the layouts of a {@link MenuLineLayout} that uses its caches with layouts that
+ * are calculated from scratch.
+ */
+public class MenuLineLayoutTest {
+	private DockController controller;
+	private StackDockStation station;
+	private MenuLineLayout layout;
+	private TabPane pane;
+
+	@Before
+	public void setUp(){
+		controller = new DockController();
+		controller.setTheme( new FlatTheme() );
+		station = new StackDockStation();
+		controller.add( station );
+
+		for( int i = 0; i < 12; i++ ){
+			station.drop( new DefaultDockable( title( i ) ) );
+		}
+
+		pane = (TabPane)station.getStackComponent();
+		layout = (MenuLineLayout)controller.getProperties().get( TabPane.LAYOUT_MANAGER );
+	}
+
+	private String title( int index ){
+		StringBuilder builder = new StringBuilder( "Tab " ).append( index );
+		for( int i = 0; i < index % 4; i++ ){
+			builder.append( " long" );
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void sweepWidths(){
+		sweep( 20, 3000, 7 );
+		sweep( 3000, 20, -13 );
+	}
+
+	@Test
+	public void layoutsDiffer(){
+		// ensures the other tests do not compare empty layouts
+		resize( 150 );
+		layout.layout( pane );
+		int narrow = visibleTabs();
+		assertFalse( layout.getInfo( pane ).getMenu().getMenu().getDockables().length == 0 );
+
+		resize( 3000 );
+		layout.layout( pane );
+		int wide = visibleTabs();
+		assertTrue( narrow > 0 );
+		assertTrue( wide > narrow );
+		assertEquals( station.getDockableCount(), wide );
+	}
+
+	@Test
+	public void sizesAreReused(){
+		MenuLineLayoutPane info = layout.getInfo( pane );
+		resize( 600 );
+		layout.layout( pane );
+		Object sizes = info.getTabs().getSizes();
+		layout.layout( pane );
+		assertSame( sizes, info.getTabs().getSizes() );
+	}
+
+	@Test
+	public void addTab(){
+		sweep();
+		station.drop( new DefaultDockable( "A new tab with a long title" ) );
+		sweep();
+		station.add( new DefaultDockable( "x" ), 0 );
+		sweep();
+	}
+
+	@Test
+	public void removeTab(){
+		sweep();
+		station.remove( 3 );
+		sweep();
+		station.remove( 0 );
+		sweep();
+		while( station.getDockableCount() > 1 ){
+			station.remove( station.getDockableCount() - 1 );
+		}
+		sweep();
+	}
+
+	@Test
+	public void resizeTab(){
+		sweep();
+		((DefaultDockable)station.getDockable( 2 )).setTitleText( "a much longer title than it was before" );
+		sweep();
+		((DefaultDockable)station.getDockable( 2 )).setTitleText( "s" );
+		sweep();
+		((DefaultDockable)station.getFrontDockable()).setTitleText( "the selected tab got a much longer title" );
+		sweep();
+		((DefaultDockable)station.getDockable( 10 )).setTitleText( "s" );
+		sweep();
+	}
+
+	@Test
+	public void changeFont(){
+		sweep();
+		controller.getFonts().put( Priority.CLIENT, DockFont.ID_TAB_UNSELECTED, font( 30, GenericFontModifier.Modify.ON ) );
+		controller.getFonts().put( Priority.CLIENT, DockFont.ID_TAB_SELECTED, font( 30, GenericFontModifier.Modify.ON ) );
+		sweep();
+		controller.getFonts().put( Priority.CLIENT, DockFont.ID_TAB_UNSELECTED, font( 8, GenericFontModifier.Modify.OFF ) );
+		sweep();
+	}
+
+	private FontModifier font( int size, GenericFontModifier.Modify bold ){
+		GenericFontModifier modifier = new GenericFontModifier();
+		modifier.setSizeDelta( false );
+		modifier.setSize( size );
+		modifier.setBold( bold );
+		return modifier;
+	}
+
+	@Test
+	public void changeOrientation(){
+		sweep();
+		station.setTabPlacement( TabPlacement.LEFT_OF_DOCKABLE );
+		sweep();
+		station.setTabPlacement( TabPlacement.BOTTOM_OF_DOCKABLE );
+		sweep();
+		station.setTabPlacement( TabPlacement.RIGHT_OF_DOCKABLE );
+		sweep();
+	}
+
+	@Test
+	public void orientationOfHiddenTabs(){
+		// the tabs in the menu do not belong to the line, yet they are measured with the new orientation
+		resize( 600 );
+		layout.layout( pane );
+		station.setTabPlacement( TabPlacement.LEFT_OF_DOCKABLE );
+		resize( 600 );
+		layout.layout( pane );
+		List<String> cached = snapshot();
+
+		layout.getInfo( pane ).invalidate();
+		layout.layout( pane );
+		assertEquals( snapshot(), cached );
+	}
+
+	@Test
+	public void changeSelection(){
+		sweep();
+		station.setFrontDockable( station.getDockable( station.getDockableCount() - 1 ) );
+		sweep();
+		station.setFrontDockable( station.getDockable( 0 ) );
+		sweep();
+	}
+
+	private void sweep(){
+		sweep( 30, 3000, 37 );
+	}
+
+	/**
+	 * Lays out the pane for a range of sizes, first using the caches, then calculating each
+	 * layout from scratch. The caches are not touched before the first pass is finished,
+	 * hence a stale cache shows up at any size, not just at the first one.
+	 */
+	private void sweep( int from, int to, int step ){
+		List<List<String>> cached = new ArrayList<List<String>>();
+		for( int size = from; step > 0 ? size < to : size > to; size += step ){
+			resize( size );
+			layout.layout( pane );
+			cached.add( snapshot() );
+		}
+
+		int index = 0;
+		for( int size = from; step > 0 ? size < to : size > to; size += step ){
+			resize( size );
+			layout.getInfo( pane ).invalidate();
+			layout.layout( pane );
+			assertEquals( "size " + size, snapshot(), cached.get( index++ ) );
+		}
+	}
+
+	private void resize( int size ){
+		// the station is not shown on a screen, hence the pane is resized directly
+		Component component = ((StackDockComponent)pane).getComponent();
+		if( pane.getDockTabPlacement().isHorizontal() ){
+			component.setBounds( 0, 0, size, 300 );
+		}
+		else{
+			component.setBounds( 0, 0, 300, size );
+		}
+	}
+
+	private int visibleTabs(){
+		int count = 0;
+		for( Tab tab : pane.getTabs() ){
+			if( tab.isPaneVisible() && tab.getBounds().width > 0 ){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private List<String> snapshot(){
+		List<String> result = new ArrayList<String>();
+		for( Dockable dockable : pane.getDockables() ){
+			Tab tab = pane.getOnTab( dockable );
+			if( tab == null || !tab.isPaneVisible() ){
+				// invisible tabs keep the bounds of some older layout
+				result.add( dockable.getTitleText() + ": hidden" );
+			}
+			else{
+				result.add( dockable.getTitleText() + ": " + tab.getBounds() + " z=" + tab.getZOrder() );
+			}
+		}
+
+		TabMenu menu = layout.getInfo( pane ).getMenu().getMenu();
+		StringBuilder builder = new StringBuilder( "menu: " );
+		if( menu instanceof TabPaneComponent ){
+			TabPaneComponent component = (TabPaneComponent)menu;
+			if( component.isPaneVisible() ){
+				builder.append( component.getBounds() );
+			}
+			else{
+				builder.append( "hidden" );
+			}
+		}
+		for( Dockable dockable : menu.getDockables() ){
+			builder.append( " " ).append( dockable.getTitleText() );
+		}
+		result.add( builder.toString() );
+		result.add( "selected: " + pane.getSelectedBounds() );
+		return result;
+	}
+}
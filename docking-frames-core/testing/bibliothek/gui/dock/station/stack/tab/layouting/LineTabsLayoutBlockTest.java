@@ -0,0 +1,200 @@
+package bibliothek.gui.dock.station.stack.tab.layouting;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bibliothek.gui.dock.station.stack.tab.Tab;
+
+/**
+ * Tests the topological sort of {@link LineTabsLayoutBlock.ZOrder}.
+ */
+public class LineTabsLayoutBlockTest {
+	private LineTabsLayoutBlock block = new LineTabsLayoutBlock();
+
+	@Test
+	public void noOrders(){
+		// without any orders the tabs keep their natural order
+		Tab[] tabs = tabs( 4 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		assertEquals( Arrays.asList( tabs ), Arrays.asList( order.getOrderedByZ() ));
+		assertEquals( "[4, 3, 2, 1]", Arrays.toString( order.getZOrders() ));
+	}
+
+	@Test
+	public void empty(){
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( new Tab[]{} );
+		assertEquals( 0, order.getOrderedByZ().length );
+		assertEquals( 0, order.getZOrders().length );
+	}
+
+	@Test
+	public void chain(){
+		Tab[] tabs = tabs( 5 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		for( int i = 4; i > 0; i-- ){
+			order.putOrder( i, i-1 );
+		}
+		assertOrder( tabs, order, 4, 3, 2, 1, 0 );
+		assertEquals( "[1, 2, 3, 4, 5]", Arrays.toString( order.getZOrders() ));
+	}
+
+	@Test
+	public void selectedTab(){
+		// the layout puts the selected tab in front of both of its neighbors
+		Tab[] tabs = tabs( 5 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		order.putOrder( 0, 1 );
+		order.putOrder( 1, 2 );
+		order.putOrder( 3, 2 );
+		order.putOrder( 4, 3 );
+		assertOrder( tabs, order, 0, 4, 1, 3, 2 );
+	}
+
+	@Test
+	public void ties(){
+		// tabs that are not ordered relative to each other are sorted by their index
+		Tab[] tabs = tabs( 4 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		order.putOrder( 2, 0 );
+		assertOrder( tabs, order, 1, 2, 3, 0 );
+
+		order.putOrder( 3, 1 );
+		assertOrder( tabs, order, 2, 3, 0, 1 );
+	}
+
+	@Test
+	public void duplicateOrders(){
+		// more edges than the initial capacity of the ZOrder
+		Tab[] tabs = tabs( 3 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		for( int i = 0; i < 50; i++ ){
+			order.putOrder( 2, 1 );
+			order.putOrder( 1, 0 );
+		}
+		assertOrder( tabs, order, 2, 1, 0 );
+	}
+
+	@Test
+	public void cycle(){
+		// the tabs of a cycle are appended in their natural order, no tab is lost
+		Tab[] tabs = tabs( 5 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		order.putOrder( 1, 2 );
+		order.putOrder( 2, 3 );
+		order.putOrder( 3, 1 );
+		order.putOrder( 4, 0 );
+		assertOrder( tabs, order, 4, 0, 1, 2, 3 );
+		assertEquals( "[4, 3, 2, 1, 5]", Arrays.toString( order.getZOrders() ));
+	}
+
+	@Test
+	public void cycleWithSuccessors(){
+		// tabs behind a cycle are never released, they are appended as well
+		Tab[] tabs = tabs( 4 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		order.putOrder( 0, 1 );
+		order.putOrder( 1, 0 );
+		order.putOrder( 1, 2 );
+		assertOrder( tabs, order, 3, 0, 1, 2 );
+	}
+
+	@Test
+	public void tabOrders(){
+		Tab[] tabs = tabs( 3 );
+		LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+		order.putOrder( tabs[2], tabs[0] );
+
+		// tabs that are not known to the ZOrder are ignored
+		Tab unknown = tabs( 1 )[0];
+		order.putOrder( unknown, tabs[2] );
+		order.putOrder( tabs[0], unknown );
+		assertOrder( tabs, order, 1, 2, 0 );
+	}
+
+	@Test
+	public void randomOrders(){
+		Random random = new Random( 42 );
+		for( int run = 0; run < 200; run++ ){
+			int count = 1 + random.nextInt( 20 );
+			Tab[] tabs = tabs( count );
+
+			// a random total order, the edges only follow this order
+			List<Integer> rank = new ArrayList<Integer>();
+			for( int i = 0; i < count; i++ ){
+				rank.add( i );
+			}
+			Collections.shuffle( rank, random );
+
+			LineTabsLayoutBlock.ZOrder order = block.new ZOrder( tabs );
+			List<int[]> edges = new ArrayList<int[]>();
+			int edgeCount = random.nextInt( count * 3 + 1 );
+			for( int i = 0; i < edgeCount; i++ ){
+				int a = random.nextInt( count );
+				int b = random.nextInt( count );
+				if( rank.get( a ) < rank.get( b ) ){
+					order.putOrder( a, b );
+					edges.add( new int[]{ a, b } );
+				}
+				else if( rank.get( a ) > rank.get( b ) ){
+					order.putOrder( b, a );
+					edges.add( new int[]{ b, a } );
+				}
+			}
+
+			List<Tab> ordered = Arrays.asList( order.getOrderedByZ() );
+			assertEquals( count, ordered.size() );
+			assertEquals( count, ordered.size() - Collections.frequency( ordered, null ));
+			int[] z = order.getZOrders();
+			for( int[] edge : edges ){
+				assertTrue( ordered.indexOf( tabs[ edge[0] ] ) < ordered.indexOf( tabs[ edge[1] ] ));
+				assertTrue( z[ edge[0] ] > z[ edge[1] ] );
+			}
+		}
+	}
+
+	private void assertOrder( Tab[] tabs, LineTabsLayoutBlock.ZOrder order, int... expected ){
+		Tab[] ordered = order.getOrderedByZ();
+		assertEquals( expected.length, ordered.length );
+		for( int i = 0; i < expected.length; i++ ){
+			assertSame( tabs[ expected[i] ], ordered[i] );
+		}
+
+		// a tab that is earlier has a higher z-order
+		int[] z = order.getZOrders();
+		for( int i = 0; i < expected.length; i++ ){
+			assertEquals( expected.length - i, z[ expected[i] ] );
+		}
+	}
+
+	private Tab[] tabs( int count ){
+		Tab[] tabs = new Tab[ count ];
+		for( int i = 0; i < count; i++ ){
+			final String name = "tab " + i;
+			tabs[i] = (Tab)Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[]{ Tab.class }, new InvocationHandler(){
+				public Object invoke( Object proxy, Method method, Object[] args ){
+					if( method.getName().equals( "equals" ) ){
+						return proxy == args[0];
+					}
+					if( method.getName().equals( "hashCode" ) ){
+						return System.identityHashCode( proxy );
+					}
+					if( method.getName().equals( "toString" ) ){
+						return name;
+					}
+					throw new UnsupportedOperationException( method.getName() );
+				}
+			});
+		}
+		return tabs;
+	}
+}
@@ -0,0 +1,511 @@
+package bibliothek.gui.dock.station.support;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import bibliothek.gui.dock.station.support.PlaceholderList.Level;
+import bibliothek.util.Path;
+
+/**
+ * Compares a {@link PlaceholderList} with a naive list that answers every query by
+ * walking over all of its items.
+ */
+public class PlaceholderListTest {
+	private static final int PLACEHOLDERS = 12;
+
+	private Random random;
+	private TestList list;
+	private List<ModelItem> model;
+	private Path[] placeholders;
+	private List<Element> elements;
+
+	private void setup( long seed ){
+		random = new Random( seed );
+		list = new TestList();
+		model = new ArrayList<ModelItem>();
+		elements = new ArrayList<Element>();
+		placeholders = new Path[ PLACEHOLDERS ];
+		for( int i = 0; i < placeholders.length; i++ ){
+			placeholders[i] = new Path( "test", "p" + i );
+		}
+	}
+
+	@Test
+	public void randomOperations(){
+		for( long seed = 0; seed < 60; seed++ ){
+			setup( seed );
+			for( int step = 0; step < 250; step++ ){
+				String operation = randomOperation();
+				try{
+					list.checkEntries();
+					compare();
+				}
+				catch( Throwable e ){
+					AssertionError error = new AssertionError( "seed " + seed + ", step " + step + ", after " + operation + ": " + e );
+					error.initCause( e );
+					throw error;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void checkEntriesDetectsCorruptedPlaceholderIndex() throws Exception{
+		setup( 42 );
+		fill();
+		list.checkEntries();
+
+		Object index = field( PlaceholderList.class, "placeholderIndex" ).get( list );
+		Map<?, ?> entries = (Map<?, ?>)field( index.getClass().getSuperclass(), "entries" ).get( index );
+		entries.clear();
+
+		try{
+			list.checkEntries();
+			fail( "corrupted index not detected" );
+		}
+		catch( IllegalStateException e ){
+			// expected
+		}
+	}
+
+	@Test
+	public void checkEntriesDetectsCorruptedTree() throws Exception{
+		setup( 43 );
+		fill();
+		list.checkEntries();
+
+		Object root = field( PlaceholderList.class, "root" ).get( list );
+		Field size = field( root.getClass(), "size" );
+		size.setInt( root, size.getInt( root ) + 1 );
+
+		try{
+			list.checkEntries();
+			fail( "corrupted tree not detected" );
+		}
+		catch( IllegalStateException e ){
+			// expected
+		}
+	}
+
+	private void fill(){
+		for( int i = 0; i < 30; i++ ){
+			if( i % 3 == 0 ){
+				insertPlaceholder();
+			}
+			else{
+				addDockable();
+			}
+		}
+	}
+
+	private Field field( Class<?> clazz, String name ) throws Exception{
+		Field field = clazz.getDeclaredField( name );
+		field.setAccessible( true );
+		return field;
+	}
+
+	private String randomOperation(){
+		switch( random.nextInt( 12 )){
+			case 0:
+			case 1:
+				return addDockable();
+			case 2:
+				return removeDockable();
+			case 3:
+				return removeToPlaceholder();
+			case 4:
+			case 5:
+				return insertPlaceholder();
+			case 6:
+				return moveBase();
+			case 7:
+				return moveDockable();
+			case 8:
+				return putDockableOnPlaceholder();
+			case 9:
+				return putPlaceholderOnDockable();
+			case 10:
+				return removePlaceholder();
+			default:
+				return addPlaceholderAtDockable();
+		}
+	}
+
+	private Path randomPlaceholder(){
+		return placeholders[ random.nextInt( placeholders.length ) ];
+	}
+
+	private Element newElement(){
+		Element element = new Element( "d" + elements.size(), randomPlaceholder() );
+		elements.add( element );
+		return element;
+	}
+
+	private String addDockable(){
+		Element element = newElement();
+		int count = dockableCount();
+		int index = random.nextInt( count+1 );
+
+		ModelItem item = new ModelItem( element );
+		if( index == count ){
+			model.add( item );
+		}
+		else if( index == 0 ){
+			model.add( 0, item );
+		}
+		else{
+			model.add( dockableToBase( index-1 )+1, item );
+		}
+		modelRemoveAll( element.placeholder );
+
+		list.dockables().add( index, element );
+		return "dockables().add(" + index + ", " + element + ")";
+	}
+
+	private String removeDockable(){
+		int count = dockableCount();
+		if( count == 0 ){
+			return "nothing";
+		}
+		int index = random.nextInt( count );
+		model.remove( dockableToBase( index ) );
+		list.dockables().remove( index );
+		return "dockables().remove(" + index + ")";
+	}
+
+	private String removeToPlaceholder(){
+		int count = dockableCount();
+		if( count == 0 ){
+			return "nothing";
+		}
+		int index = random.nextInt( count );
+		ModelItem item = model.get( dockableToBase( index ));
+		Path placeholder = item.dockable.placeholder;
+		item.placeholders.add( placeholder );
+		item.dockable = null;
+
+		assertEquals( placeholder, list.remove( index ));
+		return "remove(" + index + ")";
+	}
+
+	private String insertPlaceholder(){
+		int index = random.nextInt( model.size()+1 );
+		Path placeholder = randomPlaceholder();
+		ModelItem item = new ModelItem( null );
+		item.placeholders.add( placeholder );
+		model.add( index, item );
+
+		list.list().insertPlaceholder( index, placeholder );
+		return "list().insertPlaceholder(" + index + ", " + placeholder + ")";
+	}
+
+	private String moveBase(){
+		if( model.isEmpty() ){
+			return "nothing";
+		}
+		int source = random.nextInt( model.size() );
+		int destination = random.nextInt( model.size() );
+		model.add( destination, model.remove( source ));
+
+		list.list().move( source, destination );
+		return "list().move(" + source + ", " + destination + ")";
+	}
+
+	private String moveDockable(){
+		int count = dockableCount();
+		if( count == 0 ){
+			return "nothing";
+		}
+		int source = random.nextInt( count );
+		int destination = random.nextInt( count );
+
+		if( source != destination ){
+			ModelItem item = model.get( dockableToBase( source ));
+			ModelItem predecessor;
+			if( destination > source ){
+				predecessor = model.get( dockableToBase( destination ));
+			}
+			else if( destination == 0 ){
+				predecessor = null;
+			}
+			else{
+				predecessor = model.get( dockableToBase( destination-1 ));
+			}
+			model.remove( item );
+			model.add( predecessor == null ? 0 : model.indexOf( predecessor )+1, item );
+		}
+
+		list.dockables().move( source, destination );
+		return "dockables().move(" + source + ", " + destination + ")";
+	}
+
+	private String putDockableOnPlaceholder(){
+		Path placeholder = randomPlaceholder();
+		Element element = newElement();
+
+		int expected = -1;
+		ModelItem item = first( placeholder, Level.BASE );
+		if( item != null ){
+			item.dockable = element;
+			modelRemoveAll( placeholder );
+			expected = levelIndex( item, Level.DOCKABLE );
+		}
+
+		assertEquals( expected, list.put( placeholder, element ));
+		return "put(" + placeholder + ", " + element + ")";
+	}
+
+	private String putPlaceholderOnDockable(){
+		int count = dockableCount();
+		if( count == 0 ){
+			return "nothing";
+		}
+		Path placeholder = randomPlaceholder();
+		ModelItem item = model.get( dockableToBase( random.nextInt( count )));
+		modelRemoveAll( placeholder );
+		item.placeholders.add( placeholder );
+
+		assertTrue( list.put( item.dockable, placeholder ));
+		return "put(" + item.dockable + ", " + placeholder + ")";
+	}
+
+	private String removePlaceholder(){
+		Path placeholder = randomPlaceholder();
+		modelRemoveAll( placeholder );
+		list.removeAll( placeholder );
+		return "removeAll(" + placeholder + ")";
+	}
+
+	private String addPlaceholderAtDockable(){
+		int count = dockableCount();
+		if( count == 0 ){
+			return "nothing";
+		}
+		int index = random.nextInt( count );
+		Path placeholder = randomPlaceholder();
+		ModelItem item = model.get( dockableToBase( index ));
+		if( !item.placeholders.contains( placeholder )){
+			modelRemoveAll( placeholder );
+			item.placeholders.add( placeholder );
+		}
+
+		list.dockables().addPlaceholder( index, placeholder );
+		return "dockables().addPlaceholder(" + index + ", " + placeholder + ")";
+	}
+
+	private void modelRemoveAll( Path placeholder ){
+		for( int i = model.size()-1; i >= 0; i-- ){
+			ModelItem item = model.get( i );
+			item.placeholders.remove( placeholder );
+			if( item.dockable == null && item.placeholders.isEmpty() ){
+				model.remove( i );
+			}
+		}
+	}
+
+	private boolean is( ModelItem item, Level level ){
+		switch( level ){
+			case BASE: return true;
+			case DOCKABLE: return item.dockable != null;
+			default: return item.dockable == null;
+		}
+	}
+
+	private int count( Level level ){
+		int count = 0;
+		for( ModelItem item : model ){
+			if( is( item, level )){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private int dockableCount(){
+		return count( Level.DOCKABLE );
+	}
+
+	private int dockableToBase( int index ){
+		return levelToBase( index, Level.DOCKABLE );
+	}
+
+	private int levelToBase( int index, Level level ){
+		for( int i = 0, n = model.size(); i < n; i++ ){
+			if( is( model.get( i ), level )){
+				if( index == 0 ){
+					return i;
+				}
+				index--;
+			}
+		}
+		return -1;
+	}
+
+	private int levelIndex( ModelItem item, Level level ){
+		if( !is( item, level )){
+			return -1;
+		}
+		int index = 0;
+		for( ModelItem next : model ){
+			if( next == item ){
+				return index;
+			}
+			if( is( next, level )){
+				index++;
+			}
+		}
+		return -1;
+	}
+
+	private ModelItem first( Path placeholder, Level level ){
+		for( ModelItem item : model ){
+			if( is( item, level ) && item.placeholders.contains( placeholder )){
+				return item;
+			}
+		}
+		return null;
+	}
+
+	private Set<Path> placeholders( Set<Path> placeholders ){
+		if( placeholders == null ){
+			return new HashSet<Path>();
+		}
+		return placeholders;
+	}
+
+	private void compare(){
+		assertEquals( model.size(), list.size( Level.BASE ));
+		assertEquals( count( Level.DOCKABLE ), list.size( Level.DOCKABLE ));
+		assertEquals( count( Level.PLACEHOLDER ), list.size( Level.PLACEHOLDER ));
+		assertEquals( model.size(), list.list().size() );
+		assertEquals( count( Level.DOCKABLE ), list.dockables().size() );
+		assertEquals( count( Level.PLACEHOLDER ), list.purePlaceholders().size() );
+
+		for( int i = 0, n = model.size(); i < n; i++ ){
+			ModelItem item = model.get( i );
+			PlaceholderList<Element, Element, Element>.Item actual = list.list().get( i );
+			assertSame( item.dockable, actual.getDockable() );
+			assertEquals( item.placeholders, placeholders( actual.getPlaceholderSet() ));
+
+			for( Level level : Level.values() ){
+				assertEquals( levelIndex( item, level ), list.baseToLevel( i, level ));
+			}
+		}
+
+		for( Level level : Level.values() ){
+			for( int i = 0, n = count( level ); i < n; i++ ){
+				assertEquals( levelToBase( i, level ), list.levelToBase( i, level ));
+			}
+		}
+
+		for( int i = 0, n = dockableCount(); i < n; i++ ){
+			ModelItem item = model.get( dockableToBase( i ));
+			assertSame( item.dockable, list.dockables().get( i ));
+			assertEquals( i, list.dockables().indexOf( item.dockable ));
+			assertSame( item.dockable, list.getItem( item.dockable ).getDockable() );
+		}
+		for( int i = 0, n = count( Level.PLACEHOLDER ); i < n; i++ ){
+			ModelItem item = model.get( levelToBase( i, Level.PLACEHOLDER ));
+			assertEquals( item.placeholders, list.purePlaceholders().get( i ));
+		}
+
+		for( Path placeholder : placeholders ){
+			ModelItem item = first( placeholder, Level.BASE );
+			assertEquals( item != null, list.hasPlaceholder( placeholder ));
+			assertEquals( item == null ? -1 : model.indexOf( item ), list.getListIndex( placeholder ));
+			assertSame( item == null ? null : item.dockable, list.getDockableAt( placeholder ));
+
+			int dockableIndex = -1;
+			if( item != null ){
+				dockableIndex = 0;
+				for( ModelItem next : model ){
+					if( next == item ){
+						break;
+					}
+					if( next.dockable != null ){
+						dockableIndex++;
+					}
+				}
+				if( item.dockable != null ){
+					dockableIndex++;
+				}
+			}
+			assertEquals( dockableIndex, list.getDockableIndex( placeholder ));
+
+			assertEquals( levelIndex( first( placeholder, Level.BASE ), Level.BASE ), list.list().indexOfPlaceholder( placeholder ));
+			ModelItem dockable = first( placeholder, Level.DOCKABLE );
+			assertEquals( dockable == null ? -1 : levelIndex( dockable, Level.DOCKABLE ), list.dockables().indexOfPlaceholder( placeholder ));
+			ModelItem pure = first( placeholder, Level.PLACEHOLDER );
+			assertEquals( pure == null ? -1 : levelIndex( pure, Level.PLACEHOLDER ), list.purePlaceholders().indexOfPlaceholder( placeholder ));
+		}
+	}
+
+	private static class ModelItem{
+		private Element dockable;
+		private Set<Path> placeholders = new HashSet<Path>();
+
+		public ModelItem( Element dockable ){
+			this.dockable = dockable;
+		}
+	}
+
+	private static class Element implements PlaceholderListItem<Element>{
+		private String name;
+		private Path placeholder;
+
+		public Element( String name, Path placeholder ){
+			this.name = name;
+			this.placeholder = placeholder;
+		}
+
+		public Element asDockable(){
+			return this;
+		}
+
+		@Override
+		public String toString(){
+			return name;
+		}
+	}
+
+	private static class TestList extends PlaceholderList<Element, Element, Element>{
+		@Override
+		protected Path getPlaceholder( Element dockable ){
+			return dockable.placeholder;
+		}
+
+		@Override
+		protected String toString( Element dockable ){
+			return dockable.toString();
+		}
+
+		@Override
+		protected Element toStation( Element dockable ){
+			return null;
+		}
+
+		@Override
+		protected PlaceholderMap getPlaceholders( Element station ){
+			return null;
+		}
+
+		@Override
+		protected void setPlaceholders( Element station, PlaceholderMap map ){
+			// ignore
+		}
+
+		@Override
+		protected Element[] getChildren( Element station ){
+			return new Element[]{};
+		}
+	}
+}
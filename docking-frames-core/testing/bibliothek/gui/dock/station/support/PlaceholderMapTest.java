@@ -0,0 +1,295 @@
+package bibliothek.gui.dock.station.support;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import bibliothek.gui.dock.station.support.PlaceholderMap.Key;
+import bibliothek.util.Path;
+import bibliothek.util.Version;
+import bibliothek.util.VersionedDataOutputStream;
+import bibliothek.util.xml.XElement;
+
+public class PlaceholderMapTest {
+	@Test
+	public void binaryRoundTrip() throws IOException{
+		PlaceholderMap map = createMap();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		map.write( new DataOutputStream( bytes ) );
+
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		in.mark( 16 );
+		assertEquals( Version.VERSION_1_1_2a, Version.read( in ) );
+		in.reset();
+
+		assertMapEquals( map, new PlaceholderMap( in, null ) );
+		assertEquals( -1, in.read() );
+	}
+
+	@Test
+	public void legacyBinaryRoundTrip() throws IOException{
+		PlaceholderMap map = createMap();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		map.write( new VersionedDataOutputStream( bytes, Version.VERSION_1_1_1a ) );
+
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		in.mark( 16 );
+		assertEquals( Version.VERSION_1_1_1a, Version.read( in ) );
+		in.reset();
+
+		assertMapEquals( map, new PlaceholderMap( in, null ) );
+		assertEquals( -1, in.read() );
+	}
+
+	@Test
+	public void compactFormatIsSmaller() throws IOException{
+		PlaceholderMap map = createMap();
+
+		ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+		map.write( new VersionedDataOutputStream( legacy, Version.VERSION_1_1_1a ) );
+
+		ByteArrayOutputStream compact = new ByteArrayOutputStream();
+		map.write( new DataOutputStream( compact ) );
+
+		assertTrue( compact.size() < legacy.size() );
+	}
+
+	@Test
+	public void xmlRoundTrip(){
+		PlaceholderMap map = createMap();
+
+		XElement element = new XElement( "map" );
+		map.write( element );
+
+		assertMapEquals( map, new PlaceholderMap( element, null ) );
+	}
+
+	@Test
+	public void mixedRoundTrip() throws IOException{
+		PlaceholderMap map = createMap();
+
+		XElement element = new XElement( "map" );
+		map.write( element );
+		PlaceholderMap xml = new PlaceholderMap( element, null );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		xml.write( new VersionedDataOutputStream( bytes, Version.VERSION_1_1_1a ) );
+		PlaceholderMap legacy = new PlaceholderMap( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), null );
+
+		bytes = new ByteArrayOutputStream();
+		legacy.write( new DataOutputStream( bytes ) );
+		PlaceholderMap compact = new PlaceholderMap( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), null );
+
+		assertMapEquals( map, compact );
+	}
+
+	@Test
+	public void copyIsIsolatedFromOriginal(){
+		PlaceholderMap original = createMap();
+		PlaceholderMap reference = createMap();
+		PlaceholderMap copy = original.copy();
+		assertMapEquals( reference, copy );
+
+		mutate( original );
+		assertMapEquals( reference, copy );
+
+		PlaceholderMap changed = createMap();
+		mutate( changed );
+		assertMapEquals( changed, original );
+	}
+
+	@Test
+	public void originalIsIsolatedFromCopy(){
+		PlaceholderMap original = createMap();
+		PlaceholderMap reference = createMap();
+		PlaceholderMap copy = original.copy();
+
+		mutate( copy );
+		assertMapEquals( reference, original );
+
+		PlaceholderMap changed = createMap();
+		mutate( changed );
+		assertMapEquals( changed, copy );
+	}
+
+	@Test
+	public void copyOfCopyIsIsolated(){
+		PlaceholderMap original = createMap();
+		PlaceholderMap first = original.copy();
+		PlaceholderMap second = first.copy();
+
+		mutate( first );
+		assertMapEquals( createMap(), original );
+		assertMapEquals( createMap(), second );
+
+		mutate( second );
+		mutate( original );
+		PlaceholderMap changed = createMap();
+		mutate( changed );
+		assertMapEquals( changed, first );
+		assertMapEquals( changed, second );
+		assertMapEquals( changed, original );
+	}
+
+	@Test
+	public void internedPathsSurviveCollection() throws Exception{
+		String name = "intern.test" + System.nanoTime();
+		byte[] bytes = writeSinglePath( name );
+
+		WeakReference<Path> first = new WeakReference<Path>( readSinglePath( bytes ) );
+		for( int i = 0; i < 50 && (first.get() != null || isInterned( name )); i++ ){
+			System.gc();
+			Thread.sleep( 10 );
+		}
+		assertNull( first.get() );
+		assertFalse( isInterned( name ) );
+
+		PlaceholderMap a = read( bytes );
+		PlaceholderMap b = read( bytes );
+		Key key = a.newKey( new Path( new String( name ) ) );
+
+		assertEquals( 1, a.getPlaceholders().length );
+		assertEquals( key, a.getPlaceholders()[0] );
+		assertEquals( key, b.getPlaceholders()[0] );
+		assertEquals( new Path( new String( name ) ), a.getPath( key, new String( "value" ) ) );
+		assertSame( a.getPath( key, "value" ), b.getPath( key, "value" ) );
+		assertSame( a.getPlaceholders()[0].getPlaceholders()[0], b.getPath( key, "value" ) );
+		assertTrue( isInterned( name ) );
+	}
+
+	private byte[] writeSinglePath( String name ) throws IOException{
+		PlaceholderMap map = new PlaceholderMap( new Path( "test" ), 1 );
+		Key key = map.newKey( new Path( new String( name ) ) );
+		map.add( key );
+		map.putPath( key, new String( "value" ), new Path( new String( name ) ) );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		map.write( new DataOutputStream( bytes ) );
+		return bytes.toByteArray();
+	}
+
+	private Path readSinglePath( byte[] bytes ) throws IOException{
+		PlaceholderMap map = read( bytes );
+		return map.getPath( map.getPlaceholders()[0], "value" );
+	}
+
+	private PlaceholderMap read( byte[] bytes ) throws IOException{
+		return new PlaceholderMap( new DataInputStream( new ByteArrayInputStream( bytes ) ), null );
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean isInterned( String name ) throws Exception{
+		Field field = PlaceholderMap.class.getDeclaredField( "PATHS" );
+		field.setAccessible( true );
+		Map<Path, WeakReference<Path>> paths = (Map<Path, WeakReference<Path>>)field.get( null );
+		synchronized( paths ){
+			return paths.containsKey( new Path( name ) );
+		}
+	}
+
+	private PlaceholderMap createMap(){
+		PlaceholderMap map = new PlaceholderMap( new Path( "test", "format" ), 3 );
+
+		Key first = map.newKey( new Path( "a" ), new Path( "b", "c" ) );
+		map.add( first );
+		map.putString( first, "string", "hello" );
+		map.putInt( first, "int", -42 );
+		map.putLong( first, "long", Long.MAX_VALUE );
+		map.putDouble( first, "double", 0.25 );
+		map.putBoolean( first, "boolean", true );
+		map.putPath( first, "path", new Path( "a" ) );
+
+		Key second = map.newKey( "anchor", new Path( "d" ) );
+		map.add( second );
+		PlaceholderMap nested = new PlaceholderMap( new Path( "nested" ), 1 );
+		Key nestedKey = nested.newKey( new Path( "e" ) );
+		nested.add( nestedKey );
+		nested.putInt( nestedKey, "size", 7 );
+		map.putMap( second, "map", nested );
+
+		PlaceholderMap element = new PlaceholderMap( new Path( "element" ), 2 );
+		Key elementKey = element.newKey( new Path( "a" ) );
+		element.add( elementKey );
+		element.putString( elementKey, "name", "x" );
+		map.putArray( second, "array", new Object[]{ "text", Integer.valueOf( 5 ), element, new Path( "b", "c" ) } );
+
+		Key third = map.newKey( new Path( "empty" ) );
+		map.add( third );
+
+		return map;
+	}
+
+	private void mutate( PlaceholderMap map ){
+		Key first = map.newKey( new Path( "a" ), new Path( "b", "c" ) );
+		map.putString( first, "string", "changed" );
+		map.putInt( first, "int", 1 );
+		map.remove( first, "boolean" );
+		map.putString( first, "added", "new" );
+
+		Key second = map.newKey( "anchor", new Path( "d" ) );
+		PlaceholderMap nested = map.getMap( second, "map" );
+		Key nestedKey = nested.newKey( new Path( "e" ) );
+		nested.putInt( nestedKey, "size", 8 );
+		nested.putBoolean( nestedKey, "flag", false );
+
+		Object[] array = map.getArray( second, "array" );
+		PlaceholderMap element = (PlaceholderMap)array[2];
+		element.putString( element.newKey( new Path( "a" ) ), "name", "y" );
+
+		map.remove( map.newKey( new Path( "empty" ) ) );
+		Key fourth = map.newKey( new Path( "fourth" ) );
+		map.add( fourth );
+		map.putLong( fourth, "long", 9 );
+	}
+
+	private void assertMapEquals( PlaceholderMap expected, PlaceholderMap actual ){
+		assertEquals( expected.getFormat(), actual.getFormat() );
+		assertEquals( expected.getVersion(), actual.getVersion() );
+
+		Key[] expectedKeys = expected.getPlaceholders();
+		Key[] actualKeys = actual.getPlaceholders();
+		assertEquals( Arrays.asList( expectedKeys ), Arrays.asList( actualKeys ) );
+
+		for( Key key : expectedKeys ){
+			assertEquals( key.getAnchor(), actualKeys[ Arrays.asList( actualKeys ).indexOf( key ) ].getAnchor() );
+			Set<String> names = new HashSet<String>( Arrays.asList( expected.getKeys( key ) ) );
+			assertEquals( names, new HashSet<String>( Arrays.asList( actual.getKeys( key ) ) ) );
+			for( String name : names ){
+				assertValueEquals( expected.get( key, name ), actual.get( key, name ) );
+			}
+		}
+	}
+
+	private void assertValueEquals( Object expected, Object actual ){
+		if( expected instanceof PlaceholderMap ){
+			assertTrue( actual instanceof PlaceholderMap );
+			assertMapEquals( (PlaceholderMap)expected, (PlaceholderMap)actual );
+		}
+		else if( expected instanceof Object[] ){
+			assertTrue( actual instanceof Object[] );
+			Object[] expectedArray = (Object[])expected;
+			Object[] actualArray = (Object[])actual;
+			assertEquals( expectedArray.length, actualArray.length );
+			for( int i = 0; i < expectedArray.length; i++ ){
+				assertValueEquals( expectedArray[i], actualArray[i] );
+			}
+		}
+		else{
+			assertEquals( expected, actual );
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package bibliothek.gui.dock.util;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.dock.util.AnimationClock.Animation;
+
+/**
+ * Tests which animations make a step in a frame of an {@link AnimationClock}. The frames are executed
+ * directly instead of waiting for the timer.
+ */
+public class AnimationClockTest {
+	private AnimationClock clock;
+	private List<String> steps;
+
+	@Before
+	public void setup(){
+		clock = new AnimationClock();
+		steps = new ArrayList<String>();
+	}
+
+	@Test
+	public void finishedAnimationIsRemoved() throws Exception{
+		TestAnimation a = new TestAnimation( "a", 2 );
+		TestAnimation b = new TestAnimation( "b", 1 );
+		clock.start( a );
+		clock.start( b );
+
+		tick();
+		tick();
+		tick();
+		assertEquals( "[a, b, a]", steps.toString() );
+		assertFalse( clock.isRunning( a ) );
+		assertFalse( clock.isRunning( b ) );
+		assertTrue( clock.isIdle() );
+	}
+
+	@Test
+	public void stoppedByEarlierAnimation() throws Exception{
+		final TestAnimation b = new TestAnimation( "b", 10 );
+		TestAnimation a = new TestAnimation( "a", 10 ){
+			@Override
+			public boolean step( AnimationClock clock, long nanoTime ){
+				clock.stop( b );
+				return super.step( clock, nanoTime );
+			}
+		};
+		clock.start( a );
+		clock.start( b );
+
+		tick();
+		assertEquals( "[a]", steps.toString() );
+		assertFalse( clock.isRunning( b ) );
+		clock.stop( a );
+	}
+
+	@Test
+	public void restartedByEarlierAnimation() throws Exception{
+		final TestAnimation b = new TestAnimation( "b", 10 );
+		TestAnimation a = new TestAnimation( "a", 10 ){
+			@Override
+			public boolean step( AnimationClock clock, long nanoTime ){
+				clock.stop( b );
+				clock.start( b );
+				return super.step( clock, nanoTime );
+			}
+		};
+		clock.start( a );
+		clock.start( b );
+
+		tick();
+		assertEquals( "[a, b]", steps.toString() );
+		clock.stop( a );
+		clock.stop( b );
+	}
+
+	@Test
+	public void startedByEarlierAnimation() throws Exception{
+		final TestAnimation b = new TestAnimation( "b", 1 );
+		TestAnimation a = new TestAnimation( "a", 2 ){
+			@Override
+			public boolean step( AnimationClock clock, long nanoTime ){
+				clock.start( b );
+				return super.step( clock, nanoTime );
+			}
+		};
+		clock.start( a );
+
+		// a new animation makes its first step in the next frame
+		tick();
+		assertEquals( "[a]", steps.toString() );
+		tick();
+		assertEquals( "[a, a, b]", steps.toString() );
+		clock.stop( b );
+	}
+
+	@Test
+	public void finishedAndRestarted() throws Exception{
+		// an animation that finishes, but is started again in the same frame, keeps running
+		TestAnimation a = new TestAnimation( "a", 1 ){
+			@Override
+			public boolean step( AnimationClock clock, long nanoTime ){
+				boolean result = super.step( clock, nanoTime );
+				if( steps.size() == 1 ){
+					clock.start( this );
+				}
+				return result;
+			}
+		};
+		clock.start( a );
+
+		tick();
+		assertTrue( clock.isRunning( a ) );
+		tick();
+		assertEquals( "[a, a]", steps.toString() );
+		assertFalse( clock.isRunning( a ) );
+	}
+
+	private void tick() throws Exception{
+		Method tick = AnimationClock.class.getDeclaredMethod( "tick" );
+		tick.setAccessible( true );
+		tick.invoke( clock );
+	}
+
+	/**
+	 * An animation that records its steps and finishes after some steps.
+	 */
+	private class TestAnimation implements Animation{
+		private String name;
+		private int remaining;
+
+		public TestAnimation( String name, int steps ){
+			this.name = name;
+			this.remaining = steps;
+		}
+
+		public boolean step( AnimationClock clock, long nanoTime ){
+			steps.add( name );
+			remaining--;
+			return remaining > 0;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package bibliothek.gui.dock.util;
+
+import static junit.framework.Assert.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.dock.util.color.ColorBridge;
+import bibliothek.gui.dock.util.color.ColorManager;
+import bibliothek.gui.dock.util.color.DockColor;
+import bibliothek.util.Path;
+
+public class UIPropertiesTest {
+	private ColorManager colors;
+	private TestColor color;
+	
+	@Before
+	public void setup(){
+		colors = new ColorManager( null );
+		colors.put( Priority.CLIENT, "a", Color.RED );
+		color = new TestColor();
+		colors.add( "a", DockColor.KIND_DOCK_COLOR, color );
+		color.received.clear();
+	}
+	
+	@Test
+	public void lockPutUnlock(){
+		colors.lockUpdate();
+		colors.put( Priority.CLIENT, "a", Color.BLUE );
+		colors.put( Priority.CLIENT, "a", Color.GREEN );
+		assertTrue( color.received.isEmpty() );
+		colors.unlockUpdate( true );
+		
+		assertEquals( 1, color.received.size() );
+		assertEquals( Color.GREEN, color.received.get( 0 ) );
+	}
+	
+	@Test
+	public void lockPutSameUnlock(){
+		colors.lockUpdate();
+		colors.put( Priority.CLIENT, "a", Color.BLUE );
+		colors.put( Priority.CLIENT, "a", Color.RED );
+		colors.unlockUpdate( true );
+		
+		assertTrue( color.received.isEmpty() );
+	}
+	
+	@Test
+	public void nestedLocks(){
+		colors.lockUpdate();
+		colors.lockUpdate();
+		colors.put( Priority.CLIENT, "a", Color.BLUE );
+		colors.unlockUpdate( true );
+		assertTrue( color.received.isEmpty() );
+		colors.unlockUpdate( true );
+		
+		assertEquals( 1, color.received.size() );
+		assertEquals( Color.BLUE, color.received.get( 0 ) );
+	}
+	
+	@Test
+	public void untrackedUnlockUpdatesAll(){
+		TestBridge bridge = new TestBridge();
+		colors.publish( Priority.CLIENT, DockColor.KIND_DOCK_COLOR, bridge );
+		color.received.clear();
+		
+		colors.lockUpdate();
+		bridge.replacement = Color.YELLOW;
+		colors.unlockUpdate( true );
+		assertTrue( color.received.isEmpty() );
+		
+		colors.lockUpdate();
+		colors.unlockUpdate();
+		assertEquals( 1, color.received.size() );
+		assertEquals( Color.YELLOW, color.received.get( 0 ) );
+	}
+	
+	@Test
+	public void untrackedNestedUnlockUpdatesAll(){
+		colors.lockUpdate();
+		colors.lockUpdate();
+		colors.unlockUpdate();
+		colors.unlockUpdate( true );
+		
+		assertEquals( 1, color.received.size() );
+		assertEquals( Color.RED, color.received.get( 0 ) );
+	}
+	
+	private static class TestColor implements DockColor{
+		private List<Color> received = new ArrayList<Color>();
+		
+		public void set( Color value ){
+			received.add( value );
+		}
+	}
+	
+	private static class TestBridge implements ColorBridge{
+		private Color replacement;
+		
+		public void add( String id, DockColor uiValue ){
+			// ignore
+		}
+		
+		public void remove( String id, DockColor uiValue ){
+			// ignore
+		}
+		
+		public void set( String id, Color value, DockColor uiValue ){
+			if( replacement == null ){
+				uiValue.set( value );
+			}
+			else{
+				uiValue.set( replacement );
+			}
+		}
+	}
+}
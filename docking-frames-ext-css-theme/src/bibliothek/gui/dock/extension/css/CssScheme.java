@@ -32,8 +32,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import bibliothek.gui.dock.extension.css.path.CssPathListener;
 import bibliothek.gui.dock.extension.css.property.BooleanType;
@@ -47,6 +50,7 @@ import bibliothek.gui.dock.extension.css.property.paint.CssPaint;
 import bibliothek.gui.dock.extension.css.property.paint.CssPaintType;
 import bibliothek.gui.dock.extension.css.property.shape.CssShape;
 import bibliothek.gui.dock.extension.css.property.shape.CssShapeType;
+import bibliothek.gui.dock.extension.css.scheme.CssRuleIndex;
 import bibliothek.gui.dock.extension.css.scheme.MatchedCssRule;
 import bibliothek.gui.dock.extension.css.transition.CssTransition;
 import bibliothek.gui.dock.extension.css.transition.DefaultAnimatedCssRuleChain;
@@ -55,6 +59,7 @@ import bibliothek.gui.dock.extension.css.transition.TransitionalCssRuleChain;
 import bibliothek.gui.dock.extension.css.transition.scheduler.CssScheduler;
 import bibliothek.gui.dock.extension.css.transition.scheduler.DefaultCssScheduler;
 import bibliothek.gui.dock.extension.css.tree.CssTree;
+import bibliothek.gui.dock.util.AnimationClock;
 import bibliothek.gui.dock.util.font.GenericFontModifier.Modify;
 
 /**
@@ -64,8 +69,14 @@ import bibliothek.gui.dock.util.font.GenericFontModifier.Modify;
  */
 public class CssScheme {
 	private final Object RULES_LOCK = new Object();
+	/** guards {@link #rematchPending}, {@link #rematchAll}, {@link #dirtyRules} and {@link #dirtyMatches}, which may be modified by any thread */
+	private final Object DIRTY_LOCK = new Object();
 	
 	private List<CssRule> rules = new ArrayList<CssRule>();
+	/** an index over {@link #rules}, only valid if {@link #rulesAreSorted} is set */
+	private CssRuleIndex index;
+	/** incremented whenever {@link #index} is rebuilt */
+	private int indexVersion = 0;
 	
 	private Map<CssItem, Match> items = new HashMap<CssItem, CssScheme.Match>();
 	private Map<Class<?>, CssType<?>> types = new HashMap<Class<?>, CssType<?>>();
@@ -73,14 +84,23 @@ public class CssScheme {
 	private boolean rulesAreSorted = false;
 	private boolean rematchPending = false;
 	
+	/** if set, then all items have to be matched again */
+	private boolean rematchAll = false;
+	/** the rules that were added, removed or modified since the last rematch */
+	private Set<CssRule> dirtyRules = new HashSet<CssRule>();
+	/** the items whose path changed since the last rematch */
+	private Set<Match> dirtyMatches = new LinkedHashSet<Match>();
+	
 	private CssTree tree;
-	private CssScheduler scheduler = new DefaultCssScheduler();
+	/** the scheduler that was created by this scheme, bound to the {@link AnimationClock} of {@link #tree} */
+	private DefaultCssScheduler defaultScheduler = new DefaultCssScheduler();
+	private CssScheduler scheduler = defaultScheduler;
 	
 	private CssRuleListener selectorChangedListener = new CssRuleListener(){
 		@Override
 		public void selectorChanged( CssRule source ){
 			rulesAreSorted = false;
-			rematch();
+			rematch( source );
 		}
 	};
 	
@@ -105,11 +125,13 @@ public class CssScheme {
 	}
 	
 	/**
-	 * Sets the document.
+	 * Sets the document. The default {@link CssScheduler} of this scheme uses the
+	 * {@link AnimationClock} of the controller of <code>tree</code>.
 	 * @param tree the elements for which this scheme is used
 	 */
 	public void setTree( CssTree tree ){
 		this.tree = tree;
+		defaultScheduler.setClock( AnimationClock.getClock( tree == null ? null : tree.getController() ));
 	}
 	
 	/**
@@ -176,36 +198,56 @@ public class CssScheme {
 	public void remove( CssItem item ){
 		Match match = items.remove( item );	
 		if( match != null ){
+			synchronized( DIRTY_LOCK ){
+				dirtyMatches.remove( match );
+			}
 			match.destroy();
 		}
 	}
 	
 	/**
 	 * Searches a {@link CssRule}s whose {@link CssSelector} matches
-	 * {@link CssItem}. Then collects the properties of the rule and returns them.
+	 * {@link CssItem}. Then collects the properties of the rule and returns them. Only
+	 * the rules whose key (an element or an identifier) is part of the path of <code>item</code>
+	 * are checked, see {@link CssRuleIndex}.
 	 * @param item the item for which a rule is searched
 	 * @return the properties of the rule, <code>null</code> if nothing was found
 	 */
 	public CssRuleContent search( CssItem item ){
+		return union( searchRules( item.getPath() ));
+	}
+	
+	/**
+	 * Searches all the {@link CssRule}s whose {@link CssSelector} matches <code>path</code>.
+	 * @param path the path to search
+	 * @return the matching rules, ordered by their specificity
+	 */
+	private List<CssRule> searchRules( CssPath path ){
 		synchronized( RULES_LOCK ){
 			ensureRulesSorted();
-			CssRuleContentUnion result = null;
-			
-			for( CssRule rule : rules ){
-				if( rule.getSelector().matches( item.getPath() )){
-					if( result == null ){
-						result = new CssRuleContentUnion();
-					}
-					result.add( rule.getContent() );
-				}
-			}
-			return result;
+			return index.search( path );
 		}
 	}
 	
 	/**
-	 * Adds <code>rule</code> to this scheme. This method calls {@link #rematch()}, meaning the changes
-	 * will be propagated to the {@link CssItem}s later.
+	 * Combines the contents of <code>rules</code>.
+	 * @param rules the rules to combine
+	 * @return the combined content, <code>null</code> if <code>rules</code> is empty
+	 */
+	private CssRuleContent union( List<CssRule> rules ){
+		if( rules.isEmpty() ){
+			return null;
+		}
+		CssRuleContentUnion result = new CssRuleContentUnion();
+		for( CssRule rule : rules ){
+			result.add( rule.getContent() );
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds <code>rule</code> to this scheme. The changes will be propagated later to the {@link CssItem}s 
+	 * whose path is matched by <code>rule</code>.
 	 * @param rule the rule to add, not <code>null</code>
 	 */
 	public void addRule( CssRule rule ){
@@ -217,12 +259,12 @@ public class CssScheme {
 		}
 		rulesAreSorted = false;
 		rule.addRuleListener( selectorChangedListener );
-		rematch();
+		rematch( rule );
 	}
 	
 	/**
-	 * Removes <code>rule</code> from this scheme. This method calls {@link #rematch()}, meaning the changes
-	 * will be propagated to the {@link CssItem}s later.
+	 * Removes <code>rule</code> from this scheme. The changes will be propagated later to the {@link CssItem}s
+	 * that were using <code>rule</code>.
 	 * @param rule the rule to remove
 	 */
 	public void removeRule( CssRule rule ){
@@ -231,7 +273,7 @@ public class CssScheme {
 		}
 		rule.removeRuleListener( selectorChangedListener );
 		rulesAreSorted = false;
-		rematch();
+		rematch( rule );
 	}
 	
 	/**
@@ -241,6 +283,9 @@ public class CssScheme {
 	public void setRules( Collection<CssRule> rules ){
 		for( CssRule rule : this.rules ){
 			rule.removeRuleListener( selectorChangedListener );
+			synchronized( DIRTY_LOCK ){
+				dirtyRules.add( rule );
+			}
 		}
 		synchronized( RULES_LOCK ){
 			this.rules.clear();
@@ -258,23 +303,63 @@ public class CssScheme {
 				this.rules.add( rule );
 			}
 			rule.addRuleListener( selectorChangedListener );
+			synchronized( DIRTY_LOCK ){
+				dirtyRules.add( rule );
+			}
 		}
 		rulesAreSorted = false;
-		rematch();
+		scheduleRematch();
 	}
 	
 	/**
 	 * Schedules a call to {@link #match()}, the call will be executed later in the EDT.
 	 */
 	public void rematch(){
-		if( !rematchPending ){
-			EventQueue.invokeLater( new Runnable(){
-				@Override
-				public void run(){
-					match();
-				}
-			} );
+		synchronized( DIRTY_LOCK ){
+			rematchAll = true;
+		}
+		scheduleRematch();
+	}
+	
+	/**
+	 * Schedules a rematch of all the items whose path is or was matched by <code>rule</code>.
+	 * @param rule a rule that was added, removed or changed
+	 */
+	private void rematch( CssRule rule ){
+		synchronized( DIRTY_LOCK ){
+			dirtyRules.add( rule );
+		}
+		scheduleRematch();
+	}
+	
+	/**
+	 * Schedules a rematch of <code>match</code>. 
+	 * @param match an item whose path changed
+	 */
+	private void rematch( Match match ){
+		synchronized( DIRTY_LOCK ){
+			dirtyMatches.add( match );
+		}
+		scheduleRematch();
+	}
+	
+	/**
+	 * Ensures that {@link #matchDirty()} is called later in the EDT. All the changes that happen
+	 * until then are handled together. This method can be called by any thread.
+	 */
+	private void scheduleRematch(){
+		synchronized( DIRTY_LOCK ){
+			if( rematchPending ){
+				return;
+			}
+			rematchPending = true;
 		}
+		EventQueue.invokeLater( new Runnable(){
+			@Override
+			public void run(){
+				matchDirty();
+			}
+		} );
 	}
 	
 	/**
@@ -282,7 +367,12 @@ public class CssScheme {
 	 * {@link CssRule}.
 	 */
 	public void match(){
-		rematchPending = false;
+		synchronized( DIRTY_LOCK ){
+			rematchPending = false;
+			rematchAll = false;
+			dirtyRules.clear();
+			dirtyMatches.clear();
+		}
 		ensureRulesSorted();
 		
 		for( Match match : items.values() ){
@@ -290,6 +380,51 @@ public class CssScheme {
 		}
 	}
 	
+	/**
+	 * Matches all the {@link CssItem}s that may be affected by the changes since the last
+	 * call to this method or to {@link #match()}. These are the items whose path changed, the items
+	 * that were using a rule that changed, and the items whose path is matched by a changed rule.
+	 */
+	private void matchDirty(){
+		Set<CssRule> changedRules;
+		Set<Match> changedMatches;
+		
+		synchronized( DIRTY_LOCK ){
+			rematchPending = false;
+			if( rematchAll ){
+				changedRules = null;
+				changedMatches = null;
+			}
+			else{
+				changedRules = dirtyRules;
+				changedMatches = dirtyMatches;
+				dirtyRules = new HashSet<CssRule>();
+				dirtyMatches = new LinkedHashSet<Match>();
+			}
+		}
+		
+		if( changedRules == null ){
+			match();
+			return;
+		}
+		
+		ensureRulesSorted();
+		
+		if( changedRules.isEmpty() ){
+			for( Match match : changedMatches ){
+				match.searchRule();
+			}
+		}
+		else{
+			CssRuleIndex changedIndex = new CssRuleIndex( new ArrayList<CssRule>( changedRules ) );
+			for( Match match : items.values() ){
+				if( changedMatches.contains( match ) || match.dependsOn( changedIndex, changedRules )){
+					match.searchRule();
+				}
+			}
+		}
+	}
+	
 	private void ensureRulesSorted(){
 		if( !rulesAreSorted ){
 			synchronized( RULES_LOCK ){
@@ -298,6 +433,8 @@ public class CssScheme {
 						return a.getSelector().getSpecificity().compareTo( b.getSelector().getSpecificity() );
 					}
 				} );
+				index = new CssRuleIndex( rules );
+				indexVersion++;
 			}
 			rulesAreSorted = true;
 		}
@@ -366,6 +503,15 @@ public class CssScheme {
 		
 		private MatchedCssRule currentMatch;
 		
+		/** the rules that matched {@link #path} the last time it was searched, <code>null</code> if never searched */
+		private List<CssRule> matchedRules;
+		/** the union of {@link #matchedRules} */
+		private CssRuleContent matchedContent;
+		/** whether {@link #matchedRules} is still valid for {@link #path} */
+		private volatile boolean matchedPathValid = false;
+		/** the {@link CssScheme#indexVersion} that was used to find {@link #matchedRules} */
+		private int matchedVersion;
+		
 		/**
 		 * Creates a new match
 		 * @param item the item to which to write properties
@@ -385,7 +531,58 @@ public class CssScheme {
 		}
 		
 		private void searchRule(){
-			setRule( search( item ) );
+			List<CssRule> nextRules;
+			synchronized( RULES_LOCK ){
+				ensureRulesSorted();
+				if( matchedPathValid && matchedVersion == indexVersion ){
+					nextRules = matchedRules;
+				}
+				else{
+					nextRules = index.search( path );
+					matchedPathValid = true;
+					matchedVersion = indexVersion;
+				}
+			}
+			
+			if( !same( nextRules, matchedRules )){
+				matchedRules = nextRules;
+				matchedContent = union( nextRules );
+			}
+			setRule( matchedContent );
+		}
+		
+		/**
+		 * Tells whether the rules of this item need to be searched again because some
+		 * rules changed.
+		 * @param changedIndex an index containing the changed rules
+		 * @param changedRules the rules that changed
+		 * @return whether this item was or will be matched by at least one of the rules
+		 */
+		private boolean dependsOn( CssRuleIndex changedIndex, Set<CssRule> changedRules ){
+			if( matchedRules == null || !matchedPathValid ){
+				return true;
+			}
+			for( CssRule rule : matchedRules ){
+				if( changedRules.contains( rule )){
+					return true;
+				}
+			}
+			return !changedIndex.search( path ).isEmpty();
+		}
+		
+		private boolean same( List<CssRule> a, List<CssRule> b ){
+			if( a == b ){
+				return true;
+			}
+			if( a == null || b == null || a.size() != b.size() ){
+				return false;
+			}
+			for( int i = 0, n = a.size(); i < n; i++ ){
+				if( a.get( i ) != b.get( i )){
+					return false;
+				}
+			}
+			return true;
 		}
 		
 		private void animate( CssPropertyKey transitionKey, CssTransition<?> transition ){
@@ -422,12 +619,17 @@ public class CssScheme {
 			path.removePathListener( this );
 			path = item.getPath();
 			path.addPathListener( this );
+			matchedPathValid = false;
+			synchronized( DIRTY_LOCK ){
+				dirtyMatches.remove( this );
+			}
 			searchRule();
 		}
 		
 		@Override
 		public void pathChanged( CssPath path ){
-			searchRule();	
+			matchedPathValid = false;
+			rematch( this );
 		}
 	}
 	
@@ -29,13 +29,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import bibliothek.gui.dock.extension.css.CssNode;
 import bibliothek.gui.dock.extension.css.CssPath;
 import bibliothek.gui.dock.extension.css.CssSelector;
 import bibliothek.gui.dock.extension.css.CssSpecificity;
 
 /**
  * The default implementation of a {@link CssSelector} just works like the standard CSS selector
- * is supposed to work.
+ * is supposed to work. The steps of the selector are compiled into a list of operations, matching
+ * a {@link CssPath} does not allocate any memory.
  * @author Benjamin Sigg
  */
 public class DefaultCssSelector implements CssSelector{
@@ -51,14 +53,48 @@ public class DefaultCssSelector implements CssSelector{
 		return new Builder();
 	}
 	
+	/** operation of {@link Any} */
+	private static final int ANY = 0;
+	/** operation of {@link Element} */
+	private static final int ELEMENT = 1;
+	/** operation of {@link Child} */
+	private static final int CHILD = 2;
+	/** operation of {@link PseudoClass} */
+	private static final int PSEUDO_CLASS = 3;
+	/** operation of {@link Attribute} */
+	private static final int ATTRIBUTE = 4;
+	/** operation of {@link ItemClass} */
+	private static final int ITEM_CLASS = 5;
+	/** operation of {@link Identifier} */
+	private static final int IDENTIFIER = 6;
+	
 	/** the different patterns to match */
 	private Step[] steps;
 	
+	/** the compiled {@link #steps}, the operation of each step */
+	private int[] operations;
+	/** the compiled {@link #steps}, the name, class or key each step is looking for */
+	private String[] arguments;
+	/** the compiled {@link #steps}, the value of attributes */
+	private String[] values;
+	
 	private CssSpecificity specificity;
 	
 	private DefaultCssSelector( Step[] steps ){
 		this.steps = steps;
 		
+		operations = new int[ steps.length ];
+		arguments = new String[ steps.length ];
+		values = new String[ steps.length ];
+		
+		for( int i = 0; i < steps.length; i++ ){
+			operations[i] = steps[i].getOperation();
+			arguments[i] = steps[i].getArgument();
+			if( steps[i] instanceof Attribute ){
+				values[i] = ((Attribute)steps[i]).value;
+			}
+		}
+		
 		int countStyle = 0;
 		int countId = 0;
 		int countAttribute = 0;
@@ -89,23 +125,71 @@ public class DefaultCssSelector implements CssSelector{
 	
 	@Override
 	public boolean matches( CssPath path ){
-		return matches( path, -1, 0 );
+		if( operations.length == 0 ){
+			return false;
+		}
+		return matches( path, path.getSize(), -1, 0 );
 	}
 	
-	private boolean matches( CssPath path, int pathOffset, int stepOffset ){
-		int[] next = steps[ stepOffset ].matches( path, pathOffset );
-		if( next.length == 0 ){
-			return false;
+	/**
+	 * Executes the compiled steps starting with <code>step</code>. This method does not 
+	 * allocate any memory, it just backtracks if a step offers more than one possible node.
+	 * @param path the path to match
+	 * @param size the size of <code>path</code>
+	 * @param offset the index of the node that was matched by the previous step, -1 for the first step
+	 * @param step the index of the step to execute
+	 * @return whether all the remaining steps match
+	 */
+	private boolean matches( CssPath path, int size, int offset, int step ){
+		if( step == operations.length ){
+			return true;
 		}
-		if( stepOffset+1 == steps.length ){
-			return next.length > 0;
+		
+		switch( operations[ step ] ){
+			case ANY:
+				for( int i = offset+1; i < size; i++ ){
+					if( matches( path, size, i, step+1 )){
+						return true;
+					}
+				}
+				return false;
+			case ELEMENT:
+				for( int i = offset+1; i < size; i++ ){
+					if( arguments[ step ].equals( path.getNode( i ).getName() ) && matches( path, size, i, step+1 )){
+						return true;
+					}
+				}
+				return false;
+			case CHILD:
+				return offset+1 < size && arguments[ step ].equals( path.getNode( offset+1 ).getName() ) && matches( path, size, offset+1, step+1 );
+			default:
+				return offset >= 0 && matches( path.getNode( offset ), step ) && matches( path, size, offset, step+1 );
 		}
-		for( int offset : next ){
-			if( matches( path, offset, stepOffset+1 )){
-				return true;
-			}
+	}
+	
+	/**
+	 * Tells whether <code>node</code> passes the filter that is <code>step</code>.
+	 * @param node the node to check
+	 * @param step the index of a step that checks a property of a single node
+	 * @return whether <code>node</code> passes the filter
+	 */
+	private boolean matches( CssNode node, int step ){
+		String argument = arguments[ step ];
+		switch( operations[ step ] ){
+			case PSEUDO_CLASS:
+				return node.hasPseudoClass( argument );
+			case ATTRIBUTE:
+				if( values[ step ] == null ){
+					return node.getProperty( argument ) != null;
+				}
+				return values[ step ].equals( node.getProperty( argument ));
+			case ITEM_CLASS:
+				return node.hasClass( argument );
+			case IDENTIFIER:
+				return argument.equals( node.getIdentifier() );
+			default:
+				throw new IllegalStateException( "unknown operation: " + operations[ step ] );
 		}
-		return false;
 	}
 	
 	@Override
@@ -113,6 +197,36 @@ public class DefaultCssSelector implements CssSelector{
 		return specificity;
 	}
 	
+	/**
+	 * Gets the name of an element that must be part of any {@link CssPath} that is matched
+	 * by this selector. This is the name of the rightmost element pattern.
+	 * @return the name of an element, or <code>null</code> if this selector does not
+	 * require any element
+	 */
+	public String getKeyElement(){
+		for( int i = operations.length-1; i >= 0; i-- ){
+			if( operations[i] == ELEMENT || operations[i] == CHILD ){
+				return arguments[i];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the identifier of an element that must be part of any {@link CssPath} that is
+	 * matched by this selector. This is the rightmost identifier pattern.
+	 * @return the identifier, or <code>null</code> if this selector does not require
+	 * any identifier
+	 */
+	public String getKeyIdentifier(){
+		for( int i = operations.length-1; i >= 0; i-- ){
+			if( operations[i] == IDENTIFIER ){
+				return arguments[i];
+			}
+		}
+		return null;
+	}
+	
 	@Override
 	public String toString(){
 		StringBuilder builder = new StringBuilder();
@@ -146,29 +260,29 @@ public class DefaultCssSelector implements CssSelector{
 
 	private static interface Step{
 		/**
-		 * Tells whether this {@link Step} matches <code>item</code>.
-		 * @param path the item to match
-		 * @param offset the offset of the {@link CssPathNode} that was matched by the previous
-		 * step. For the first step this is <code>-1</code>.
-		 * @return the offset of all the {@link CssPathNode} that are matched
+		 * Gets the operation that represents this step in the compiled selector.
+		 * @return the operation
 		 */
-		public int[] matches( CssPath path, int offset );
+		public int getOperation();
+		
+		/**
+		 * Gets the name, key or class this step is looking for.
+		 * @return the argument, can be <code>null</code>
+		 */
+		public String getArgument();
 		
 		public Specificity getSpecificity();
 	}
 	
 	private static class Any implements Step{
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			int size = path.getSize();
-			if( offset+1 >= size ){
-				return new int[]{};
-			}
-			int[] result = new int[ size - 1 - offset ];
-			for( int i = 0; i < result.length; i++ ){
-				result[i] = offset + i + 1;
-			}
-			return result;
+		public int getOperation(){
+			return ANY;
+		}
+		
+		@Override
+		public String getArgument(){
+			return null;
 		}
 		
 		@Override
@@ -203,19 +317,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			int[] temp = new int[ path.getSize() - offset ];
-			int count = 0;
-			
-			for( int i = offset+1, n = path.getSize(); i<n; i++ ){
-				if( path.getNode( i ).getName().equals( name )){
-					temp[ count++ ] = i;
-				}
-			}
-			
-			int[] result = new int[ count ];
-			System.arraycopy( temp, 0, result, 0, count );
-			return result;
+		public int getOperation(){
+			return ELEMENT;
+		}
+		
+		@Override
+		public String getArgument(){
+			return name;
 		}
 		
 		@Override
@@ -264,13 +372,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			if( offset+1 < path.getSize() ){
-				if( path.getNode( offset+1 ).getName().equals( name )){
-					return new int[]{ offset+1 };
-				}
-			}
-			return new int[]{};
+		public int getOperation(){
+			return CHILD;
+		}
+		
+		@Override
+		public String getArgument(){
+			return name;
 		}
 		
 		@Override
@@ -318,11 +426,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			if( path.getNode( offset ).hasPseudoClass( name )){
-				return new int[]{ offset };
-			}
-			return new int[]{};
+		public int getOperation(){
+			return PSEUDO_CLASS;
+		}
+		
+		@Override
+		public String getArgument(){
+			return name;
 		}
 		
 		@Override
@@ -372,18 +482,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			if( value == null ){
-				if( path.getNode( offset ).getProperty( key ) != null ){
-					return new int[]{ offset };
-				}
-			}
-			else{
-				if( value.equals( path.getNode( offset ).getProperty( key ))){
-					return new int[]{ offset };
-				}
-			}
-			return new int[]{};
+		public int getOperation(){
+			return ATTRIBUTE;
+		}
+		
+		@Override
+		public String getArgument(){
+			return key;
 		}
 		
 		@Override
@@ -443,11 +548,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			if( path.getNode( offset ).hasClass( name )){
-				return new int[]{ offset };
-			}
-			return new int[]{};
+		public int getOperation(){
+			return ITEM_CLASS;
+		}
+		
+		@Override
+		public String getArgument(){
+			return name;
 		}
 		
 		@Override
@@ -495,11 +602,13 @@ public class DefaultCssSelector implements CssSelector{
 		}
 		
 		@Override
-		public int[] matches( CssPath path, int offset ){
-			if( name.equals( path.getNode( offset ).getIdentifier() )){
-				return new int[]{ offset };
-			}
-			return new int[]{};
+		public int getOperation(){
+			return IDENTIFIER;
+		}
+		
+		@Override
+		public String getArgument(){
+			return name;
 		}
 		
 		@Override
@@ -0,0 +1,171 @@
+/*
+ * Bibliothek - DockingFrames
+ * Library built on Java/Swing, allows the user to "drag and drop"
+ * panels containing any Swing-Component the developer likes to add.
+ * 
+ * Copyright (C) 2026 Benjamin Sigg
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * Benjamin Sigg
+ * benjamin_sigg@gmx.ch
+ * CH - Switzerland
+ */
+package bibliothek.gui.dock.extension.css.scheme;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bibliothek.gui.dock.extension.css.CssNode;
+import bibliothek.gui.dock.extension.css.CssPath;
+import bibliothek.gui.dock.extension.css.CssRule;
+import bibliothek.gui.dock.extension.css.CssScheme;
+import bibliothek.gui.dock.extension.css.CssSelector;
+import bibliothek.gui.dock.extension.css.intern.DefaultCssSelector;
+
+/**
+ * An index over a list of {@link CssRule}s. The rules are put into buckets using
+ * one key of their {@link CssSelector}: an identifier or the name of an element which must be 
+ * part of any {@link CssPath} the selector matches. When searching the rules of a path, only
+ * the buckets whose key is present in the path need to be checked. Rules whose selector does
+ * not offer such a key are always checked.<br>
+ * The index does not observe the rules, it has to be rebuilt by the {@link CssScheme} whenever
+ * a rule or a {@link CssSelector} changes.
+ * @author Benjamin Sigg
+ */
+public class CssRuleIndex {
+	/** rules whose selector requires an identifier */
+	private Map<String, List<Entry>> identifiers = new HashMap<String, List<Entry>>();
+	
+	/** rules whose selector requires an element */
+	private Map<String, List<Entry>> elements = new HashMap<String, List<Entry>>();
+	
+	/** rules which have to be checked for any path */
+	private List<Entry> universal = new ArrayList<Entry>();
+	
+	/**
+	 * Creates a new index.
+	 * @param rules the rules to put into the index, the order of this list is the order
+	 * in which rules are reported by {@link #search(CssPath)}
+	 */
+	public CssRuleIndex( List<CssRule> rules ){
+		int position = 0;
+		for( CssRule rule : rules ){
+			Entry entry = new Entry( rule, position++ );
+			CssSelector selector = rule.getSelector();
+			
+			if( selector instanceof DefaultCssSelector ){
+				DefaultCssSelector defaultSelector = (DefaultCssSelector)selector;
+				String key = defaultSelector.getKeyIdentifier();
+				if( key != null ){
+					put( identifiers, key, entry );
+					continue;
+				}
+				key = defaultSelector.getKeyElement();
+				if( key != null ){
+					put( elements, key, entry );
+					continue;
+				}
+			}
+			universal.add( entry );
+		}
+	}
+	
+	private void put( Map<String, List<Entry>> map, String key, Entry entry ){
+		List<Entry> list = map.get( key );
+		if( list == null ){
+			list = new ArrayList<Entry>( 2 );
+			map.put( key, list );
+		}
+		list.add( entry );
+	}
+	
+	/**
+	 * Searches all the rules whose selector matches <code>path</code>.
+	 * @param path the path to check
+	 * @return the matching rules, in the same order as they were given to the constructor
+	 */
+	public List<CssRule> search( CssPath path ){
+		List<List<Entry>> buckets = new ArrayList<List<Entry>>();
+		if( !universal.isEmpty() ){
+			buckets.add( universal );
+		}
+		
+		for( int i = 0, n = path.getSize(); i < n; i++ ){
+			CssNode node = path.getNode( i );
+			collect( buckets, elements, node.getName() );
+			collect( buckets, identifiers, node.getIdentifier() );
+		}
+		
+		List<Entry> candidates;
+		if( buckets.isEmpty() ){
+			return Collections.emptyList();
+		}
+		else if( buckets.size() == 1 ){
+			candidates = buckets.get( 0 );
+		}
+		else{
+			candidates = new ArrayList<Entry>();
+			for( List<Entry> bucket : buckets ){
+				candidates.addAll( bucket );
+			}
+			Collections.sort( candidates );
+		}
+		
+		List<CssRule> result = new ArrayList<CssRule>();
+		for( Entry entry : candidates ){
+			if( entry.rule.getSelector().matches( path )){
+				result.add( entry.rule );
+			}
+		}
+		return result;
+	}
+	
+	private void collect( List<List<Entry>> buckets, Map<String, List<Entry>> map, String key ){
+		if( key != null ){
+			List<Entry> bucket = map.get( key );
+			if( bucket != null ){
+				for( List<Entry> check : buckets ){
+					if( check == bucket ){
+						return;
+					}
+				}
+				buckets.add( bucket );
+			}
+		}
+	}
+	
+	/**
+	 * A rule together with its position in the ordered list of rules.
+	 * @author Benjamin Sigg
+	 */
+	private static class Entry implements Comparable<Entry>{
+		private final CssRule rule;
+		private final int position;
+		
+		public Entry( CssRule rule, int position ){
+			this.rule = rule;
+			this.position = position;
+		}
+		
+		@Override
+		public int compareTo( Entry o ){
+			return position < o.position ? -1 : (position == o.position ? 0 : 1);
+		}
+	}
+}
@@ -33,9 +33,14 @@ import java.util.PriorityQueue;
 
 import javax.swing.Timer;
 
+import bibliothek.gui.dock.util.AnimationClock;
+
 /**
  * This {@link CssScheduler} ignores multiple calls to its <code>step</code> methods,
- * and executes all <code>steps</code> in the <code>EventDispatcherThread</code>. 
+ * and executes all <code>steps</code> in the <code>EventDispatcherThread</code>. The
+ * <code>steps</code> are executed in the frames of an {@link AnimationClock}, hence a delay
+ * is never shorter than one frame. While the next <code>step</code> is more than one frame
+ * away, the {@link AnimationClock} is not used and a single {@link Timer} waits instead.
  * @author Benjamin Sigg
  */
 public class DefaultCssScheduler implements CssScheduler{
@@ -44,16 +49,78 @@ public class DefaultCssScheduler implements CssScheduler{
 	private PriorityQueue<Call> queue = new PriorityQueue<Call>();
 	private Map<CssSchedulable, Call> calls = new HashMap<CssSchedulable, Call>();
 	
-	private volatile int pendingCalls = 0;
 	private volatile Call executing;
 	
-	private ActionListener callback = new ActionListener(){
+	private AnimationClock clock;
+	
+	private AnimationClock.Animation callback = new AnimationClock.Animation(){
 		@Override
-		public void actionPerformed( ActionEvent e ){
-			step();	
+		public boolean step( AnimationClock clock, long nanoTime ){
+			return DefaultCssScheduler.this.step( nanoTime );
 		}
 	};
 	
+	/** restarts {@link #clock} shortly before the next call is due */
+	private Timer wakeup = new Timer( 0, new ActionListener(){
+		@Override
+		public void actionPerformed( ActionEvent e ){
+			synchronized( LOCK ){
+				if( !queue.isEmpty() ){
+					clock.start( callback );
+				}
+			}
+		}
+	});
+	
+	/**
+	 * Creates a new scheduler using the {@link AnimationClock#getDefault() default clock}.
+	 */
+	public DefaultCssScheduler(){
+		this( AnimationClock.getDefault() );
+	}
+	
+	/**
+	 * Creates a new scheduler.
+	 * @param clock the clock whose frames are used to execute the <code>steps</code>, not <code>null</code>
+	 */
+	public DefaultCssScheduler( AnimationClock clock ){
+		if( clock == null ){
+			throw new IllegalArgumentException( "clock must not be null" );
+		}
+		this.clock = clock;
+		wakeup.setRepeats( false );
+	}
+	
+	/**
+	 * Sets the clock whose frames are used to execute the <code>steps</code>. Pending
+	 * <code>steps</code> are moved to the new clock.
+	 * @param clock the new clock, not <code>null</code>
+	 */
+	public void setClock( AnimationClock clock ){
+		if( clock == null ){
+			throw new IllegalArgumentException( "clock must not be null" );
+		}
+		synchronized( LOCK ){
+			if( this.clock != clock ){
+				this.clock.stop( callback );
+				this.clock = clock;
+				if( !queue.isEmpty() ){
+					clock.start( callback );
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the clock whose frames are used to execute the <code>steps</code>.
+	 * @return the clock, not <code>null</code>
+	 */
+	public AnimationClock getClock(){
+		synchronized( LOCK ){
+			return clock;
+		}
+	}
+	
 	@Override
 	public void step( CssSchedulable job ){
 		step( job, 20 );
@@ -77,52 +144,64 @@ public class DefaultCssScheduler implements CssScheduler{
 			if( next != null ){
 				calls.put( job, next );
 				queue.add( next );
-				schedule( delay );
+				if( queue.peek() == next ){
+					if( awaitNext( System.nanoTime() )){
+						clock.start( callback );
+					}
+				}
 			}
 		}
 	}
 	
-	private void schedule( int delay ){
-		synchronized( LOCK ){
-			pendingCalls++;
-			Timer timer = new Timer( delay, callback );
-			timer.setRepeats( false );
-			timer.start();
-		}
-	}
-	
-	private void step(){
-		synchronized( LOCK ){
-			pendingCalls--;
-		}
-		long now = System.nanoTime();
+	/**
+	 * Executes all the calls whose time has come.
+	 * @param now the current time
+	 * @return whether there are calls left in the queue
+	 */
+	private boolean step( long now ){
 		while( true ){
-			boolean execute = false;
 			Call call = null;
 			synchronized( LOCK ){
 				call = queue.peek();
 				if( call == null ){
-					return;
+					return false;
 				}
 				
 				if( call.nanoScheduled <= now ){
-					execute = true;
 					queue.poll();
 					calls.remove( call.job );
 				}
 				else{
-					if( pendingCalls == 0 ){
-						schedule( Math.max( 1, (int)((call.nanoScheduled - now)/1000000) ) );
-					}
+					return awaitNext( now );
 				}
 			}
 			
-			if( execute ){
-				call.execute( now );
-			} else {
-				break;
-			}
+			call.execute( now );
+		}
+	}
+
+	/**
+	 * Decides how to wait for the first call of the {@link #queue}. If the call is due within the next
+	 * frame, then {@link #clock} has to run. Otherwise {@link #wakeup} is set up to restart the
+	 * clock one frame before the call is due. Must be called while holding {@link #LOCK}.
+	 * @param now the current time
+	 * @return <code>true</code> if {@link #clock} has to run, <code>false</code> if it can be stopped
+	 */
+	private boolean awaitNext( long now ){
+		Call call = queue.peek();
+		if( call == null ){
+			wakeup.stop();
+			return false;
+		}
+		long frame = clock.getFrameDelay() * 1000000L;
+		long wait = call.nanoScheduled - now - frame;
+		if( wait <= 0 ){
+			wakeup.stop();
+			return true;
 		}
+		wakeup.setInitialDelay( (int)Math.max( 1, wait / 1000000 ));
+		wakeup.restart();
+		return false;
 	}
 
 	private class Call implements Comparable<Call>{
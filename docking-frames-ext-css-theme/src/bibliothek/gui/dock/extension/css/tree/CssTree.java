@@ -105,6 +105,14 @@ public class CssTree {
 		initNodeFactories();
 	}
 	
+	/**
+	 * Gets the controller in whose realm this tree works.
+	 * @return the controller, not <code>null</code>
+	 */
+	public DockController getController(){
+		return controller;
+	}
+	
 	/**
 	 * Informs this tree that it is in use and can acquire resources.
 	 */
@@ -0,0 +1,95 @@
+package bibliothek.gui.dock.extension.css.intern;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bibliothek.gui.dock.extension.css.CssPath;
+import bibliothek.gui.dock.extension.css.CssRule;
+import bibliothek.gui.dock.extension.css.path.DefaultCssNode;
+import bibliothek.gui.dock.extension.css.path.DefaultCssPath;
+import bibliothek.gui.dock.extension.css.scheme.CssRuleIndex;
+
+public class CssRuleIndexTest {
+	private List<CssRule> rules;
+	private CssRuleIndex index;
+	
+	@Before
+	public void setup() throws IOException{
+		rules = new CssParser().parse( 
+				"a {x: 1} " +
+				"b {x: 2} " +
+				"a b {x: 3} " +
+				"a > c {x: 4} " +
+				"*#id {x: 5} " +
+				"b#id {x: 6} " +
+				"* {x: 7} " +
+				"c:hover {x: 8} " +
+				"*[k=v] {x: 9} " +
+				"*.cl {x: 10}" );
+		index = new CssRuleIndex( rules );
+	}
+	
+	private DefaultCssNode node( String name ){
+		return new DefaultCssNode( name );
+	}
+	
+	private List<CssRule> bruteForce( CssPath path ){
+		List<CssRule> result = new ArrayList<CssRule>();
+		for( CssRule rule : rules ){
+			if( rule.getSelector().matches( path )){
+				result.add( rule );
+			}
+		}
+		return result;
+	}
+	
+	private void check( CssPath path ){
+		assertEquals( bruteForce( path ), index.search( path ) );
+	}
+	
+	@Test
+	public void elements(){
+		check( new DefaultCssPath( node( "a" )));
+		check( new DefaultCssPath( node( "b" )));
+		check( new DefaultCssPath( node( "a" ), node( "b" )));
+		check( new DefaultCssPath( node( "a" ), node( "c" )));
+		check( new DefaultCssPath( node( "d" )));
+	}
+	
+	@Test
+	public void identifiers(){
+		DefaultCssNode b = node( "b" );
+		b.setIdentifier( "id" );
+		check( new DefaultCssPath( node( "a" ), b ));
+		
+		DefaultCssNode d = node( "d" );
+		d.setIdentifier( "id" );
+		check( new DefaultCssPath( d ));
+	}
+	
+	@Test
+	public void attributesAndClasses(){
+		DefaultCssNode c = node( "c" );
+		c.addPseudoClass( "hover" );
+		c.putProperty( "k", "v" );
+		c.addClass( "cl" );
+		check( new DefaultCssPath( node( "a" ), c ));
+	}
+	
+	@Test
+	public void order(){
+		DefaultCssNode b = node( "b" );
+		b.setIdentifier( "id" );
+		List<CssRule> result = index.search( new DefaultCssPath( node( "a" ), b ));
+		assertTrue( result.size() > 2 );
+		for( int i = 1; i < result.size(); i++ ){
+			assertTrue( rules.indexOf( result.get( i-1 )) < rules.indexOf( result.get( i )) );
+		}
+	}
+}
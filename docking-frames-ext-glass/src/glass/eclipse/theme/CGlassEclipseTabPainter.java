@@ -550,22 +550,33 @@ public class CGlassEclipseTabPainter extends BaseTabComponent {
          BufferedImage img;
          dImg = new Dimension(isHorizontal() ? w + CORNER_RADIUS : h + CORNER_RADIUS, isHorizontal() ? h : w);
          if (glassUnSelected != null) {
-            img = new BufferedImage(dImg.width, dImg.height, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D gg = img.createGraphics();
+            // the rendered glass only depends on the parameters, the size and the shape of the tab 
+            TabPaintCache cache = getPaintCache();
+            boolean bBeforeSelected = getTabIndex() < getSelectedIndex();
+            java.util.List<Object> key = Arrays.<Object> asList(glassUnSelected, w, h, getOrientation(), bBeforeSelected);
+            img = cache.getImage(key);
 
-            gg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            gg.setColor(Color.WHITE);
-            gg.fill(sTab);
+            if (img == null) {
+               img = new BufferedImage(dImg.width, dImg.height, BufferedImage.TYPE_INT_ARGB);
+               Graphics2D gg = img.createGraphics();
 
-            gg.setComposite(AlphaComposite.SrcIn);
-            try {
-               glass.Render2Graphics(dImg, gg, glassUnSelected, true);
-            }
-            catch (Exception e) {
-               glass.Render2Graphics(dImg, gg, CGlassFactory.VALUE_STEEL, true);
-            }
+               gg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+               gg.setColor(Color.WHITE);
+               gg.fill(sTab);
 
-            gg.dispose();
+               gg.setComposite(AlphaComposite.SrcIn);
+               try {
+                  glass.Render2Graphics(dImg, gg, glassUnSelected, true);
+               }
+               catch (Exception e) {
+                  glass.Render2Graphics(dImg, gg, CGlassFactory.VALUE_STEEL, true);
+               }
+
+               gg.dispose();
+
+               // the parameters are modified by updateGlass, hence the key needs its own copy
+               cache.putImage(Arrays.<Object> asList(glassUnSelected.clone(), w, h, getOrientation(), bBeforeSelected), img);
+            }
 
             if ( !isHorizontal()) {
                AffineTransform atTrans = AffineTransform.getTranslateInstance(x/* + w*/, y + h);